@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.benchmark;
+
+import de.picturesafe.search.elasticsearch.config.ElasticsearchType;
+import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
+import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.config.LanguageSortConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.config.impl.StandardFieldConfiguration;
+import de.picturesafe.search.elasticsearch.config.impl.StandardIndexPresetConfiguration;
+import de.picturesafe.search.expression.Expression;
+import de.picturesafe.search.expression.FulltextExpression;
+import de.picturesafe.search.expression.InExpression;
+import de.picturesafe.search.expression.OperationExpression;
+import de.picturesafe.search.expression.RangeValueExpression;
+import de.picturesafe.search.expression.ValueExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+public class BenchmarkData {
+
+    public static final String INDEX_ALIAS = "benchmark";
+    public static final Locale LOCALE = Locale.GERMANY;
+
+    private BenchmarkData() {
+    }
+
+    public static IndexPresetConfiguration indexPresetConfiguration() {
+        return new StandardIndexPresetConfiguration(INDEX_ALIAS, 1, 0);
+    }
+
+    public static MappingConfiguration mappingConfiguration() {
+        final List<FieldConfiguration> fieldConfigurations = new ArrayList<>();
+        fieldConfigurations.add(FieldConfiguration.ID_FIELD);
+        fieldConfigurations.add(FieldConfiguration.FULLTEXT_FIELD);
+        fieldConfigurations.add(StandardFieldConfiguration.builder(
+                "title", ElasticsearchType.TEXT).copyToFulltext(true).sortable(true).multilingual(true).build());
+        fieldConfigurations.add(StandardFieldConfiguration.builder(
+                "caption", ElasticsearchType.TEXT).copyToFulltext(true).build());
+        fieldConfigurations.add(StandardFieldConfiguration.builder(
+                "keywords", ElasticsearchType.TEXT).copyToFulltext(true).aggregatable(true).build());
+        fieldConfigurations.add(StandardFieldConfiguration.builder(
+                "status", ElasticsearchType.INTEGER).aggregatable(true).build());
+        fieldConfigurations.add(StandardFieldConfiguration.builder(
+                "created", ElasticsearchType.DATE).sortable(true).aggregatable(true).build());
+        return new MappingConfiguration(fieldConfigurations, Arrays.asList(new LanguageSortConfiguration(Locale.GERMANY),
+                new LanguageSortConfiguration(Locale.UK)));
+    }
+
+    /**
+     * Creates an expression tree like the ones created by typical search forms.
+     *
+     * @param size  Number of clauses per level
+     * @param depth Depth of the tree
+     * @return      Expression tree
+     */
+    public static Expression expression(int size, int depth) {
+        final OperationExpression root = OperationExpression.and(new FulltextExpression("Hamburg oder Berlin"));
+        for (int i = 0; i < size; i++) {
+            if (depth > 1) {
+                root.add((i % 2 == 0) ? expression(size, depth - 1) : OperationExpression.or(expression(size, depth - 1)));
+            } else {
+                root.add(OperationExpression.and(
+                        new ValueExpression("caption", "caption " + i),
+                        new InExpression("status", 1, 2, 3),
+                        new RangeValueExpression("created", new Date(1577836800000L), new Date(1609459199000L))));
+            }
+        }
+        return root;
+    }
+
+    public static Map<String, Object> document(long id) {
+        final Map<String, Object> document = new HashMap<>();
+        document.put("id", id);
+        document.put("title.de", "Titel " + id);
+        document.put("title.en", "Title " + id);
+        document.put("caption", "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna "
+                + "aliqua. Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat. " + id);
+        document.put("keywords", Arrays.asList("hamburg", "berlin", "keyword" + (id % 10)));
+        document.put("status", (int) (id % 4));
+        document.put("created", new Date(1577836800000L + id * 3600000L));
+        return document;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.benchmark;
+
+import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.config.QueryConfiguration;
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.FacetConverterChain;
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.HistogramFacetConverter;
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.RangeFacetConverter;
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.TermsFacetConverter;
+import de.picturesafe.search.elasticsearch.connect.aggregation.search.AggregationBuilderFactoryRegistry;
+import de.picturesafe.search.elasticsearch.connect.aggregation.search.DateHistogramAggregationBuilderFactory;
+import de.picturesafe.search.elasticsearch.connect.aggregation.search.DateRangeAggregationBuilderFactory;
+import de.picturesafe.search.elasticsearch.connect.aggregation.search.DefaultAggregationBuilderFactory;
+import de.picturesafe.search.elasticsearch.connect.aggregation.search.TermsAggregationBuilderFactory;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
+import de.picturesafe.search.elasticsearch.connect.filter.DefaultExpressionFilterFactory;
+import de.picturesafe.search.elasticsearch.connect.filter.FilterFactory;
+import de.picturesafe.search.elasticsearch.connect.impl.ElasticsearchImpl;
+import de.picturesafe.search.elasticsearch.connect.query.FulltextQueryFactory;
+import de.picturesafe.search.elasticsearch.connect.query.NestedQueryFactory;
+import de.picturesafe.search.elasticsearch.connect.query.OperationExpressionQueryFactory;
+import de.picturesafe.search.elasticsearch.connect.query.QueryFactory;
+import de.picturesafe.search.elasticsearch.connect.query.preprocessor.StandardQuerystringPreprocessor;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchResponse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static de.picturesafe.search.elasticsearch.timezone.TimeZoneAware.DEFAULT_TIME_ZONE;
+
+/**
+ * Elasticsearch implementation exposing the internal request and response processing, wired like the default spring configuration
+ * but without a connection to an elasticsearch cluster.
+ */
+public class BenchmarkElasticsearch extends ElasticsearchImpl {
+
+    public BenchmarkElasticsearch(List<QueryFactory> queryFactories, List<FilterFactory> filterFactories) {
+        super(null, null, queryFactories, filterFactories, DEFAULT_TIME_ZONE);
+    }
+
+    public static BenchmarkElasticsearch create() {
+        final QueryConfiguration queryConfiguration = new QueryConfiguration();
+        final List<FilterFactory> filterFactories
+                = Collections.singletonList(new DefaultExpressionFilterFactory(queryConfiguration, DEFAULT_TIME_ZONE));
+        final FulltextQueryFactory fulltextQueryFactory = new FulltextQueryFactory(queryConfiguration);
+        fulltextQueryFactory.setPreprocessor(new StandardQuerystringPreprocessor(queryConfiguration));
+        final List<QueryFactory> queryFactories
+                = Arrays.asList(fulltextQueryFactory, new OperationExpressionQueryFactory(), new NestedQueryFactory(filterFactories));
+
+        final BenchmarkElasticsearch elasticsearch = new BenchmarkElasticsearch(queryFactories, filterFactories);
+        final AggregationBuilderFactoryRegistry registry = new AggregationBuilderFactoryRegistry(
+                new TermsAggregationBuilderFactory(),
+                new DateRangeAggregationBuilderFactory(),
+                new DateHistogramAggregationBuilderFactory());
+        registry.put(new DefaultAggregationBuilderFactory(registry));
+        elasticsearch.setAggregationBuilderFactoryRegistry(registry);
+        elasticsearch.setFacetConverterChain(FacetConverterChain.of(new TermsFacetConverter(), new RangeFacetConverter(), new HistogramFacetConverter()));
+        return elasticsearch;
+    }
+
+    public Object buildSearchRequest(IndexPresetConfiguration indexPresetConfiguration, QueryDto queryDto, MappingConfiguration mappingConfiguration) {
+        return searchRequest(indexPresetConfiguration, queryDto, mappingConfiguration);
+    }
+
+    public IndexRequest buildIndexRequest(Map<String, Object> document, String indexAlias) {
+        return createIndexRequest(document, indexAlias, false);
+    }
+
+    public SearchResultDto convertSearchResponse(SearchResponse searchResponse, Map<String, String> aggregationFields, QueryDto queryDto,
+                                                 MappingConfiguration mappingConfiguration) {
+        return convertSearchResponse(new InternalSearchResponse(searchResponse, aggregationFields), queryDto, mappingConfiguration);
+    }
+}
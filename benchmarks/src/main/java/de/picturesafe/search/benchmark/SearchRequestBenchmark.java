@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.benchmark;
+
+import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryRangeDto;
+import de.picturesafe.search.parameter.SortOption;
+import de.picturesafe.search.parameter.aggregation.DateHistogramAggregation;
+import de.picturesafe.search.parameter.aggregation.TermsAggregation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchRequestBenchmark {
+
+    @Param({"1", "10"})
+    private int size;
+
+    @Param({"1", "2"})
+    private int depth;
+
+    private BenchmarkElasticsearch elasticsearch;
+    private IndexPresetConfiguration indexPresetConfiguration;
+    private MappingConfiguration mappingConfiguration;
+    private QueryDto queryDto;
+
+    @Setup
+    public void setup() {
+        elasticsearch = BenchmarkElasticsearch.create();
+        indexPresetConfiguration = BenchmarkData.indexPresetConfiguration();
+        mappingConfiguration = BenchmarkData.mappingConfiguration();
+        queryDto = new QueryDto(BenchmarkData.expression(size, depth).optimize(), new QueryRangeDto(0, 100),
+                Arrays.asList(SortOption.desc("created"), SortOption.asc("title")),
+                Arrays.asList(TermsAggregation.field("keywords"), DateHistogramAggregation.field("created")), BenchmarkData.LOCALE)
+                .fieldsToResolve(Arrays.asList("id", "title", "caption", "created")).fieldResolverType(QueryDto.FieldResolverType.SOURCE_VALUES);
+    }
+
+    @Benchmark
+    public Object searchRequest() {
+        return elasticsearch.buildSearchRequest(indexPresetConfiguration, queryDto, mappingConfiguration);
+    }
+
+    @Benchmark
+    public String searchRequestJson() {
+        return elasticsearch.createQueryJson(queryDto, mappingConfiguration, indexPresetConfiguration, false);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.benchmark;
+
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchHitDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
+import de.picturesafe.search.expression.FulltextExpression;
+import org.apache.commons.io.IOUtils;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.ParsedDateHistogram;
+import org.elasticsearch.search.aggregations.bucket.terms.ParsedStringTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a recorded search response of 100 hits with a terms and a date histogram aggregation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchResponseConversionBenchmark {
+
+    private static final String RECORDED_RESPONSE = "/search-response.json";
+
+    @Param({"false", "true"})
+    private boolean lazySourceParsing;
+
+    private BenchmarkElasticsearch elasticsearch;
+    private MappingConfiguration mappingConfiguration;
+    private NamedXContentRegistry xContentRegistry;
+    private byte[] responseJson;
+    private Map<String, String> aggregationFields;
+    private QueryDto queryDto;
+
+    @Setup
+    public void setup() throws IOException {
+        elasticsearch = BenchmarkElasticsearch.create();
+        elasticsearch.setLazySourceParsingEnabled(lazySourceParsing);
+        mappingConfiguration = BenchmarkData.mappingConfiguration();
+        xContentRegistry = new NamedXContentRegistry(Arrays.asList(
+                new NamedXContentRegistry.Entry(Aggregation.class, new ParseField(StringTerms.NAME),
+                        (parser, name) -> ParsedStringTerms.fromXContent(parser, (String) name)),
+                new NamedXContentRegistry.Entry(Aggregation.class, new ParseField(DateHistogramAggregationBuilder.NAME),
+                        (parser, name) -> ParsedDateHistogram.fromXContent(parser, (String) name))));
+        try (InputStream in = getClass().getResourceAsStream(RECORDED_RESPONSE)) {
+            responseJson = IOUtils.toByteArray(in);
+        }
+
+        aggregationFields = new HashMap<>();
+        aggregationFields.put("keywords", "keywords");
+        aggregationFields.put("created", "created");
+        queryDto = new QueryDto(new FulltextExpression("hamburg"), BenchmarkData.LOCALE);
+    }
+
+    @Benchmark
+    public SearchResponse parse() throws IOException {
+        return parseResponse();
+    }
+
+    @Benchmark
+    public SearchResultDto parseAndConvert() throws IOException {
+        return elasticsearch.convertSearchResponse(parseResponse(), aggregationFields, queryDto, mappingConfiguration);
+    }
+
+    @Benchmark
+    public void parseConvertAndRead(Blackhole blackhole) throws IOException {
+        final SearchResultDto result = elasticsearch.convertSearchResponse(parseResponse(), aggregationFields, queryDto, mappingConfiguration);
+        for (final SearchHitDto hit : result.getHits()) {
+            blackhole.consume(hit.get("title"));
+        }
+    }
+
+    private SearchResponse parseResponse() throws IOException {
+        try (XContentParser parser
+                     = JsonXContent.jsonXContent.createParser(xContentRegistry, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, responseJson)) {
+            return SearchResponse.fromXContent(parser);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch;
+
+/**
+ * Session for bulk loading documents into an index.
+ * <p>
+ * While a session is open, the indexes of the alias are switched to bulk friendly settings (refresh disabled, no replicas, asynchronous translog
+ * durability). Closing the session restores the original settings, refreshes the indexes and waits for them to become green.
+ * <p>
+ * NOTE: Until the session is closed, added documents are not searchable and not replicated, so they may get lost if a node fails.
+ */
+public interface BulkSession extends AutoCloseable {
+
+    /**
+     * Gets the name of the alias of the index.
+     *
+     * @return Name of the alias of the index
+     */
+    String getIndexAlias();
+
+    /**
+     * Restores the original index settings and waits for the indexes to become green.
+     */
+    @Override
+    void close();
+}
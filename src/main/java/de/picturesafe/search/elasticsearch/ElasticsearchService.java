@@ -19,18 +19,27 @@ package de.picturesafe.search.elasticsearch;
 import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.model.ElasticsearchInfo;
 import de.picturesafe.search.elasticsearch.model.IndexObject;
+import de.picturesafe.search.elasticsearch.model.MultiSearchResult;
+import de.picturesafe.search.elasticsearch.model.ResultFacet;
 import de.picturesafe.search.elasticsearch.model.SearchResult;
+import de.picturesafe.search.elasticsearch.model.SearchResultItem;
 import de.picturesafe.search.elasticsearch.model.SuggestResult;
 import de.picturesafe.search.expression.Expression;
 import de.picturesafe.search.expression.SuggestExpression;
 import de.picturesafe.search.parameter.AccountContext;
+import de.picturesafe.search.parameter.ReindexParameter;
+import de.picturesafe.search.parameter.ScriptDefinition;
+import de.picturesafe.search.parameter.SearchAggregation;
 import de.picturesafe.search.parameter.SearchParameter;
+import de.picturesafe.search.parameter.SearchRequestSpec;
 import org.elasticsearch.client.RestHighLevelClient;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Service interface to interact with elasticsearch.
@@ -70,6 +79,26 @@ public interface ElasticsearchService {
      */
     String createIndexWithAlias(String indexAlias);
 
+    /**
+     * Reindexes an alias without downtime: A new index will be created and filled in background, then the alias will be swapped atomically
+     * to the new index. The documents are copied from the current index of the alias unless documents are given by the reindex parameter.
+     *
+     * @param indexAlias        Name of the alias
+     * @param reindexParameter  Parameters of the reindex job
+     * @return                  Handle of the reindex job to track its progress
+     */
+    ReindexJob reindex(String indexAlias, ReindexParameter reindexParameter);
+
+    /**
+     * Opens a session for bulk loading documents into an index. The session has to be closed after loading to restore the index settings.
+     *
+     * @see BulkSession
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @return              Bulk session
+     */
+    BulkSession openBulkSession(String indexAlias);
+
     /**
      * Adds one or more field configurations to the index mapping.
      *
@@ -178,6 +207,26 @@ public interface ElasticsearchService {
      */
     void addObjectsToIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, List<IndexObject<?>> objects);
 
+    /**
+     * Adds a stream of documents to the index. If a document with the same ID already exists it will be updated.
+     * The stream is consumed lazily into bulk requests, so the documents don't have to be held in memory at once.
+     *
+     * @param indexAlias                Name of the alias of the index
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param documents                 Documents to be added
+     */
+    void addToIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Stream<Map<String, Object>> documents);
+
+    /**
+     * Adds a stream of objects to the index. If an object with the same ID already exists it will be updated.
+     * The stream is consumed lazily into bulk requests, so the objects don't have to be held in memory at once.
+     *
+     * @param indexAlias                Name of the alias of the index
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param objects                   Objects to be added
+     */
+    void addObjectsToIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Stream<? extends IndexObject<?>> objects);
+
     /**
      * Removes a document from the index.
      *
@@ -206,6 +255,39 @@ public interface ElasticsearchService {
      */
     void removeFromIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Expression expression, Locale locale);
 
+    /**
+     * Updates fields of a document, fields not contained in the partial document will not be changed. A field with a NULL value will be
+     * cleared.
+     *
+     * @param indexAlias                Name of the alias of the index
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param id                        ID of the document to be updated
+     * @param partialDocument           Fields to be updated
+     */
+    void updateDocument(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Object id, Map<String, Object> partialDocument);
+
+    /**
+     * Updates fields of multiple documents, fields not contained in the partial documents will not be changed. A field with a NULL value
+     * will be cleared.
+     *
+     * @param indexAlias                Name of the alias of the index
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param partialDocuments          Fields to be updated by ID of the document
+     */
+    void updateDocuments(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Map<?, Map<String, Object>> partialDocuments);
+
+    /**
+     * Updates multiple documents by a script.
+     *
+     * @param indexAlias                Name of the alias of the index
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param expression                Expression defining the search criteria for the documents to update
+     * @param locale                    Locale for searching multilingual fields (use Locale.ROOT if it doesn't matter)
+     * @param scriptDefinition          Definition of the script updating a document
+     */
+    void updateByQuery(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Expression expression, Locale locale,
+                       ScriptDefinition scriptDefinition);
+
     /**
      * Searches for documents.
      *
@@ -227,6 +309,108 @@ public interface ElasticsearchService {
      */
     SearchResult search(String indexAlias, AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter);
 
+    /**
+     * Searches for documents without blocking the calling thread.
+     *
+     * @param indexAlias        Name of the alias of the index
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Future completing with the {@link SearchResult}, or completing exceptionally if the search fails
+     *                          (including invalid parameters)
+     */
+    CompletableFuture<SearchResult> searchAsync(String indexAlias, Expression expression, SearchParameter searchParameter);
+
+    /**
+     * Searches for documents in the context of an user account without blocking the calling thread.
+     *
+     * @param indexAlias        Name of the alias of the index
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Future completing with the {@link SearchResult}, or completing exceptionally if the search fails
+     *                          (including invalid parameters)
+     */
+    CompletableFuture<SearchResult> searchAsync(String indexAlias, AccountContext<?> accountContext, Expression expression,
+                                                SearchParameter searchParameter);
+
+    /**
+     * Counts the documents matching the search criteria without loading any hits.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param expression    Expression defining the search criteria
+     * @return              Number of matching documents
+     */
+    long count(String indexAlias, Expression expression);
+
+    /**
+     * Counts the documents matching the search criteria in the context of an user account without loading any hits.
+     *
+     * @param indexAlias        Name of the alias of the index
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @return                  Number of matching documents
+     */
+    long count(String indexAlias, AccountContext<?> accountContext, Expression expression);
+
+    /**
+     * Gets the facets of the documents matching the search criteria without loading any hits.
+     * Repeated requests may be served from the shard request cache of Elasticsearch.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param expression    Expression defining the search criteria
+     * @param aggregations  Aggregations defining the facets
+     * @return              Facets in the order of the aggregations
+     */
+    List<ResultFacet> facets(String indexAlias, Expression expression, List<? extends SearchAggregation> aggregations);
+
+    /**
+     * Gets the facets of the documents matching the search criteria in the context of an user account without loading any hits.
+     * Repeated requests may be served from the shard request cache of Elasticsearch.
+     *
+     * @param indexAlias        Name of the alias of the index
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @param aggregations      Aggregations defining the facets
+     * @return                  Facets in the order of the aggregations
+     */
+    List<ResultFacet> facets(String indexAlias, AccountContext<?> accountContext, Expression expression, List<? extends SearchAggregation> aggregations);
+
+    /**
+     * Performs multiple searches within a single request to Elasticsearch.
+     * A failure of a single search does not fail the other searches, it will be returned as failed {@link MultiSearchResult}.
+     *
+     * @param searchRequests    Specifications of the searches
+     * @return                  Results in the order of the search specifications
+     */
+    List<MultiSearchResult> multiSearch(List<SearchRequestSpec> searchRequests);
+
+    /**
+     * Streams all documents matching the search criteria.
+     * The result pages are fetched lazily via search_after, so the stream is not limited by the max result window of the index.
+     * The document ID will be added as last sort option if it is not already contained in the sort options of the search parameter,
+     * so the ID field has to be sortable. The page index of the search parameter will be ignored.
+     * NOTE: Since no point in time is kept, documents changed while streaming may be missed or returned twice.
+     *
+     * @param indexAlias        Name of the alias of the index
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Stream of search result items
+     */
+    Stream<SearchResultItem> stream(String indexAlias, Expression expression, SearchParameter searchParameter);
+
+    /**
+     * Streams all documents matching the search criteria in the context of an user account.
+     *
+     * @see #stream(String, Expression, SearchParameter)
+     *
+     * @param indexAlias        Name of the alias of the index
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Stream of search result items
+     */
+    Stream<SearchResultItem> stream(String indexAlias, AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter);
+
     /**
      * Gets a document from the index.
      *
@@ -236,6 +420,16 @@ public interface ElasticsearchService {
      */
     Map<String, Object> getDocument(String indexAlias, Object id);
 
+    /**
+     * Gets documents from the index with a single request.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param ids           IDs of the documents
+     * @param fields        Fields to be loaded (<code>null</code> or empty = all fields)
+     * @return              The documents in the order of the IDs, IDs which do not exist are skipped
+     */
+    List<Map<String, Object>> getDocuments(String indexAlias, Collection<?> ids, List<String> fields);
+
     /**
      * Gets an object from the index.
      *
@@ -247,6 +441,17 @@ public interface ElasticsearchService {
      */
     <T extends IndexObject<T>> T getObject(String indexAlias, Object id, Class<T> type);
 
+    /**
+     * Gets objects from the index with a single request.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param ids           IDs of the objects
+     * @param type          Type class of the objects
+     * @param <T>           Generic type of the objects
+     * @return              The index objects in the order of the IDs, IDs which do not exist are skipped
+     */
+    <T extends IndexObject<T>> List<T> getObjects(String indexAlias, Collection<?> ids, Class<T> type);
+
     /**
      * Suggests text options for search-as-you-type functionality.
      *
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch;
+
+import de.picturesafe.search.elasticsearch.model.ReindexProgress;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle of a reindex job running in background
+ */
+public interface ReindexJob {
+
+    /**
+     * Gets the name of the alias of the reindexed index.
+     *
+     * @return Name of the alias of the index
+     */
+    String getIndexAlias();
+
+    /**
+     * Gets the current progress of the reindex job.
+     *
+     * @return Current progress
+     */
+    ReindexProgress getProgress();
+
+    /**
+     * Gets a future completing with the final progress when the reindex job has finished successfully,
+     * or completing exceptionally if the reindex job has failed.
+     *
+     * @return Future completing with the final progress
+     */
+    CompletableFuture<ReindexProgress> getCompletion();
+}
@@ -18,18 +18,27 @@ package de.picturesafe.search.elasticsearch;
 
 import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.model.IndexObject;
+import de.picturesafe.search.elasticsearch.model.MultiSearchResult;
 import de.picturesafe.search.parameter.AccountContext;
+import de.picturesafe.search.parameter.ReindexParameter;
+import de.picturesafe.search.parameter.ScriptDefinition;
 import de.picturesafe.search.elasticsearch.model.ElasticsearchInfo;
+import de.picturesafe.search.elasticsearch.model.ResultFacet;
 import de.picturesafe.search.elasticsearch.model.SearchResult;
+import de.picturesafe.search.elasticsearch.model.SearchResultItem;
 import de.picturesafe.search.elasticsearch.model.SuggestResult;
 import de.picturesafe.search.expression.Expression;
 import de.picturesafe.search.expression.SuggestExpression;
+import de.picturesafe.search.parameter.SearchAggregation;
 import de.picturesafe.search.parameter.SearchParameter;
+import de.picturesafe.search.parameter.SearchRequestSpec;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Service interface to interact with elasticsearch.
@@ -73,6 +82,25 @@ public interface SingleIndexElasticsearchService {
      */
     String createIndexWithAlias();
 
+    /**
+     * Reindexes the alias without downtime.
+     *
+     * @see ElasticsearchService#reindex(String, ReindexParameter)
+     *
+     * @param reindexParameter  Parameters of the reindex job
+     * @return                  Handle of the reindex job to track its progress
+     */
+    ReindexJob reindex(ReindexParameter reindexParameter);
+
+    /**
+     * Opens a session for bulk loading documents into the index.
+     *
+     * @see ElasticsearchService#openBulkSession(String)
+     *
+     * @return Bulk session
+     */
+    BulkSession openBulkSession();
+
     /**
      * Deletes the index with alias.
      */
@@ -142,6 +170,25 @@ public interface SingleIndexElasticsearchService {
      */
     void addObjectsToIndex(DataChangeProcessingMode dataChangeProcessingMode, List<IndexObject<?>> objects);
 
+    /**
+     * Adds a stream of documents to the index. If a document with the same ID already exists it will be updated.
+     * The stream is consumed lazily into bulk requests, so the documents don't have to be held in memory at once.
+     * NOTE: key "id" must be present in documents.
+     *
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param documents                 Documents to be added
+     */
+    void addToIndex(DataChangeProcessingMode dataChangeProcessingMode, Stream<Map<String, Object>> documents);
+
+    /**
+     * Adds a stream of objects to the index. If an object with the same ID already exists it will be updated.
+     * The stream is consumed lazily into bulk requests, so the objects don't have to be held in memory at once.
+     *
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param objects                   Objects to be added
+     */
+    void addObjectsToIndex(DataChangeProcessingMode dataChangeProcessingMode, Stream<? extends IndexObject<?>> objects);
+
     /**
      * Removes a document from the index.
      *
@@ -167,6 +214,35 @@ public interface SingleIndexElasticsearchService {
      */
     void removeFromIndex(DataChangeProcessingMode dataChangeProcessingMode, Expression expression, Locale locale);
 
+    /**
+     * Updates fields of a document, fields not contained in the partial document will not be changed. A field with a NULL value will be
+     * cleared.
+     *
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param id                        ID of the document to be updated
+     * @param partialDocument           Fields to be updated
+     */
+    void updateDocument(DataChangeProcessingMode dataChangeProcessingMode, Object id, Map<String, Object> partialDocument);
+
+    /**
+     * Updates fields of multiple documents, fields not contained in the partial documents will not be changed. A field with a NULL value
+     * will be cleared.
+     *
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param partialDocuments          Fields to be updated by ID of the document
+     */
+    void updateDocuments(DataChangeProcessingMode dataChangeProcessingMode, Map<?, Map<String, Object>> partialDocuments);
+
+    /**
+     * Updates multiple documents by a script.
+     *
+     * @param dataChangeProcessingMode  {@link DataChangeProcessingMode}
+     * @param expression                Expression defining the search criteria for the documents to update
+     * @param locale                    Locale for searching multilingual fields (use Locale.ROOT if it doesn't matter)
+     * @param scriptDefinition          Definition of the script updating a document
+     */
+    void updateByQuery(DataChangeProcessingMode dataChangeProcessingMode, Expression expression, Locale locale, ScriptDefinition scriptDefinition);
+
     /**
      * Searches for documents.
      *
@@ -186,6 +262,97 @@ public interface SingleIndexElasticsearchService {
      */
     SearchResult search(AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter);
 
+    /**
+     * Searches for documents without blocking the calling thread.
+     *
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Future completing with the {@link SearchResult}
+     */
+    CompletableFuture<SearchResult> searchAsync(Expression expression, SearchParameter searchParameter);
+
+    /**
+     * Searches for documents in the context of an user account without blocking the calling thread.
+     *
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Future completing with the {@link SearchResult}
+     */
+    CompletableFuture<SearchResult> searchAsync(AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter);
+
+    /**
+     * Counts the documents matching the search criteria without loading any hits.
+     *
+     * @param expression    Expression defining the search criteria
+     * @return              Number of matching documents
+     */
+    long count(Expression expression);
+
+    /**
+     * Counts the documents matching the search criteria in the context of an user account without loading any hits.
+     *
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @return                  Number of matching documents
+     */
+    long count(AccountContext<?> accountContext, Expression expression);
+
+    /**
+     * Gets the facets of the documents matching the search criteria without loading any hits.
+     * Repeated requests may be served from the shard request cache of Elasticsearch.
+     *
+     * @param expression    Expression defining the search criteria
+     * @param aggregations  Aggregations defining the facets
+     * @return              Facets in the order of the aggregations
+     */
+    List<ResultFacet> facets(Expression expression, List<? extends SearchAggregation> aggregations);
+
+    /**
+     * Gets the facets of the documents matching the search criteria in the context of an user account without loading any hits.
+     * Repeated requests may be served from the shard request cache of Elasticsearch.
+     *
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @param aggregations      Aggregations defining the facets
+     * @return                  Facets in the order of the aggregations
+     */
+    List<ResultFacet> facets(AccountContext<?> accountContext, Expression expression, List<? extends SearchAggregation> aggregations);
+
+    /**
+     * Performs multiple searches within a single request to Elasticsearch.
+     * Search specifications without index alias will be performed on the index of this service.
+     *
+     * @see ElasticsearchService#multiSearch(List)
+     *
+     * @param searchRequests    Specifications of the searches
+     * @return                  Results in the order of the search specifications
+     */
+    List<MultiSearchResult> multiSearch(List<SearchRequestSpec> searchRequests);
+
+    /**
+     * Streams all documents matching the search criteria.
+     *
+     * @see ElasticsearchService#stream(String, Expression, SearchParameter)
+     *
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Stream of search result items
+     */
+    Stream<SearchResultItem> stream(Expression expression, SearchParameter searchParameter);
+
+    /**
+     * Streams all documents matching the search criteria in the context of an user account.
+     *
+     * @see ElasticsearchService#stream(String, AccountContext, Expression, SearchParameter)
+     *
+     * @param accountContext    {@link AccountContext} of the current user
+     * @param expression        Expression defining the search criteria
+     * @param searchParameter   Parameters for the search execution
+     * @return                  Stream of search result items
+     */
+    Stream<SearchResultItem> stream(AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter);
+
     /**
      * Gets a document from the index.
      *
@@ -194,6 +361,15 @@ public interface SingleIndexElasticsearchService {
      */
     Map<String, Object> getDocument(Object id);
 
+    /**
+     * Gets documents from the index with a single request.
+     *
+     * @param ids           IDs of the documents
+     * @param fields        Fields to be loaded (<code>null</code> or empty = all fields)
+     * @return              The documents in the order of the IDs, IDs which do not exist are skipped
+     */
+    List<Map<String, Object>> getDocuments(Collection<?> ids, List<String> fields);
+
     /**
      * Gets an object from the index.
      *
@@ -204,6 +380,16 @@ public interface SingleIndexElasticsearchService {
      */
     <T extends IndexObject<T>> T getObject(Object id, Class<T> type);
 
+    /**
+     * Gets objects from the index with a single request.
+     *
+     * @param ids           IDs of the objects
+     * @param type          Type class of the objects
+     * @param <T>           Generic type of the objects
+     * @return              The index objects in the order of the IDs, IDs which do not exist are skipped
+     */
+    <T extends IndexObject<T>> List<T> getObjects(Collection<?> ids, Class<T> type);
+
     /**
      * Suggests text options for search-as-you-type functionality.
      *
@@ -36,6 +36,7 @@ public class MappingConfiguration {
     private List<LanguageSortConfiguration> languageSortConfigurations;
 
     private Map<String, FieldConfiguration> fieldConfigurationMap = new HashMap<>();
+    private int hashCode;
 
     /**
      * Constructor
@@ -109,7 +110,11 @@ public class MappingConfiguration {
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(fieldConfigurations).toHashCode();
+        // Mapping configurations are part of cache keys, so the hash code of the field configurations is computed only once
+        if (hashCode == 0) {
+            hashCode = new HashCodeBuilder().append(fieldConfigurations).toHashCode();
+        }
+        return hashCode;
     }
 
     @Override
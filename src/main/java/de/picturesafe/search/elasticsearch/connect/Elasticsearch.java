@@ -19,7 +19,11 @@ package de.picturesafe.search.elasticsearch.connect;
 import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
 import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.FacetDto;
+import de.picturesafe.search.elasticsearch.connect.dto.MultiSearchResultDto;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.ReindexStatusDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchRequestDto;
 import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
 import de.picturesafe.search.elasticsearch.connect.error.AliasAlreadyExistsException;
 import de.picturesafe.search.elasticsearch.connect.error.AliasCreateException;
@@ -27,11 +31,15 @@ import de.picturesafe.search.elasticsearch.connect.error.AliasHasMoreThanOneInde
 import de.picturesafe.search.elasticsearch.connect.error.IndexCreateException;
 import de.picturesafe.search.elasticsearch.model.ElasticsearchInfo;
 import de.picturesafe.search.expression.SuggestExpression;
+import de.picturesafe.search.parameter.ScriptDefinition;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @SuppressWarnings({"unused"})
 public interface Elasticsearch {
@@ -60,6 +68,19 @@ public interface Elasticsearch {
      */
     Map<String, Boolean> addToIndex(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure, List<Map<String, Object>> documents);
 
+    /**
+     * Adds multiple documents to the index. If a document with the same ID already exists it will be updated.
+     * The documents will be consumed lazily into bulk requests, so they don't have to be held in memory at once.
+     * NOTE: key "id" must be present in documents.
+     *
+     * @param indexAlias                The index alias
+     * @param applyIndexRefresh         Should the search index be forced to be updated immediately? Be careful and use false as default.
+     * @param exceptionOnFailure        Throw Exception if update of at least one document fails
+     * @param documents                 Documents to be added
+     * @return                          Number of successfully indexed documents
+     */
+    long addToIndex(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure, Iterator<Map<String, Object>> documents);
+
     /**
      * Removes a document from the index.
      *
@@ -89,6 +110,40 @@ public interface Elasticsearch {
     void removeFromIndex(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration,
                          boolean applyIndexRefresh);
 
+    /**
+     * Updates fields of a document.
+     *
+     * @param indexAlias        The index alias
+     * @param applyIndexRefresh Should the search index be forced to be updated immediately? Be careful and use false as default.
+     * @param id                ID of the document to be updated
+     * @param partialDocument   Fields to be updated, a NULL value clears the field
+     */
+    void updateDocument(String indexAlias, boolean applyIndexRefresh, Object id, Map<String, Object> partialDocument);
+
+    /**
+     * Updates fields of multiple documents.
+     *
+     * @param indexAlias            The index alias
+     * @param applyIndexRefresh     Should the search index be forced to be updated immediately? Be careful and use false as default.
+     * @param exceptionOnFailure    If true, an exception will be thrown if the update of at least one document fails
+     * @param partialDocuments      Fields to be updated by ID of the document, a NULL value clears the field
+     * @return                      Success status of the updates by ID of the document (empty if the requests were handled externally)
+     */
+    Map<String, Boolean> updateDocuments(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure,
+                                         Map<?, Map<String, Object>> partialDocuments);
+
+    /**
+     * Updates multiple documents by a script.
+     *
+     * @param queryDto                  Query matching the documents to be updated
+     * @param mappingConfiguration      {@link MappingConfiguration}
+     * @param indexPresetConfiguration  {@link IndexPresetConfiguration}
+     * @param scriptDefinition          Definition of the script updating a document
+     * @param applyIndexRefresh         Should the search index be forced to be updated immediately? Be careful and use false as default.
+     */
+    void updateByQuery(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration,
+                       ScriptDefinition scriptDefinition, boolean applyIndexRefresh);
+
     /**
      * Checks if elasticsearch service is available.
      *
@@ -196,6 +251,69 @@ public interface Elasticsearch {
      */
     void updateMapping(IndexPresetConfiguration indexPresetConfiguration, MappingConfiguration mappingConfiguration, List<FieldConfiguration> fieldConfigs);
 
+    /**
+     * Gets settings of an index.
+     *
+     * @param indexName     Name of the index
+     * @param settingNames  Names of the settings
+     * @return              Values of the settings, <code>null</code> values for settings which are not set explicitly
+     */
+    Map<String, String> getIndexSettings(String indexName, Collection<String> settingNames);
+
+    /**
+     * Updates dynamic settings of an index.
+     *
+     * @param indexName     Name of the index
+     * @param settings      Settings to update, a <code>null</code> value resets the setting to its default
+     */
+    void updateIndexSettings(String indexName, Map<String, Object> settings);
+
+    /**
+     * Force merges the segments of an index.
+     *
+     * @param indexName         Name of the index
+     * @param maxNumSegments    Maximum number of segments per shard after merging
+     */
+    void forceMerge(String indexName, int maxNumSegments);
+
+    /**
+     * Atomically maps an alias to a single index, removing it from all indexes it was mapped to before.
+     *
+     * @param indexAlias    Name of the alias
+     * @param indexName     Name of the index to be mapped to the alias
+     * @return              Names of the indexes which were mapped to the alias before
+     */
+    List<String> swapAlias(String indexAlias, String indexName);
+
+    /**
+     * Waits until the health status of an index reaches at least the given status.
+     *
+     * @param indexName         Name of the index
+     * @param minStatus         Minimum status to be reached
+     * @param timeoutInMsec     Timeout in milliseconds
+     * @return                  TRUE if the status was reached within the timeout
+     */
+    boolean waitForMinStatus(String indexName, ClusterHealthStatus minStatus, long timeoutInMsec);
+
+    /**
+     * Starts a reindex task copying all documents of the source indexes into the target index.
+     *
+     * @param sourceIndexNames  Names of the source indexes
+     * @param targetIndexName   Name of the target index
+     * @param slices            Number of parallel slices, 0 to let elasticsearch choose
+     * @param batchSize         Number of documents per scroll batch
+     * @return                  ID of the reindex task
+     */
+    String startReindexTask(List<String> sourceIndexNames, String targetIndexName, int slices, int batchSize);
+
+    /**
+     * Gets the status of a reindex task.
+     *
+     * @param taskId    ID of the reindex task
+     * @return          Status of the reindex task or <code>null</code> if the task does not exist
+     */
+    ReindexStatusDto getReindexTaskStatus(String taskId);
+
     /**
      * Gets Elasticsearch infos like client and server version.
      *
@@ -214,6 +332,46 @@ public interface Elasticsearch {
      */
     SearchResultDto search(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration);
 
+    /**
+     * Searches for documents without blocking the calling thread.
+     *
+     * @param queryDto                      {@link QueryDto}
+     * @param mappingConfiguration          {@link MappingConfiguration}
+     * @param indexPresetConfiguration      {@link IndexPresetConfiguration}
+     * @return                              Future completing with the {@link SearchResultDto}
+     */
+    CompletableFuture<SearchResultDto> searchAsync(QueryDto queryDto, MappingConfiguration mappingConfiguration,
+                                                   IndexPresetConfiguration indexPresetConfiguration);
+
+    /**
+     * Counts the documents matching a query without loading any hits.
+     *
+     * @param queryDto                      {@link QueryDto}
+     * @param mappingConfiguration          {@link MappingConfiguration}
+     * @param indexPresetConfiguration      {@link IndexPresetConfiguration}
+     * @return                              Number of matching documents
+     */
+    long count(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration);
+
+    /**
+     * Gets the facets of the aggregations of a query without loading any hits.
+     * The search is sent with size 0 and the shard request cache enabled, so repeated requests may be served from the cache.
+     *
+     * @param queryDto                      {@link QueryDto}
+     * @param mappingConfiguration          {@link MappingConfiguration}
+     * @param indexPresetConfiguration      {@link IndexPresetConfiguration}
+     * @return                              Facets of the aggregations
+     */
+    List<FacetDto> facets(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration);
+
+    /**
+     * Searches for documents with multiple queries sent in a single request.
+     *
+     * @param searchRequests                Search requests
+     * @return                              Results in the order of the search requests, failed searches are returned as failed results
+     */
+    List<MultiSearchResultDto> multiSearch(List<SearchRequestDto> searchRequests);
+
     /**
      * Creates an Elasticsearch query in JSON format.
      *
@@ -234,6 +392,16 @@ public interface Elasticsearch {
      */
     Map<String, Object> getDocument(String indexAlias, Object id);
 
+    /**
+     * Gets documents from the index with a single multi get request.
+     *
+     * @param indexAlias      Name of the alias of the index
+     * @param ids             IDs of the documents
+     * @param fields          Fields to be loaded from the document source (<code>null</code> or empty = all fields)
+     * @return                The documents in the order of the IDs, IDs which do not exist are skipped
+     */
+    List<Map<String, Object>> getDocuments(String indexAlias, Collection<?> ids, List<String> fields);
+
     /**
      * Suggests text options for search-as-you-type functionality.
      *
@@ -19,6 +19,7 @@ package de.picturesafe.search.elasticsearch.connect;
 import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
 import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.ReindexStatusDto;
 import de.picturesafe.search.elasticsearch.connect.error.AliasAlreadyExistsException;
 import de.picturesafe.search.elasticsearch.connect.error.AliasCreateException;
 import de.picturesafe.search.elasticsearch.connect.error.AliasHasMoreThanOneIndexException;
@@ -26,6 +27,7 @@ import de.picturesafe.search.elasticsearch.connect.error.IndexCreateException;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -133,7 +135,7 @@ public interface ElasticsearchAdmin {
      * Retrieves the cluster status and checks whether the status is at least the given (or a "better") status.
      * If an index name is given, the status for this index is queried.
      * <p>
-     * The method checks (several times if necessary) whether the requested status is reached or exceeded.
+     * The method waits on server side (single health request with wait_for_status) until the requested status is reached or exceeded.
      * As soon as the state of the cluster fulfills the request, the method returns <code>true</code>.
      * <p>
      * If the requested cluster state has not been reached even after the given timeout, <code>false</code> is returned.
@@ -145,6 +147,59 @@ public interface ElasticsearchAdmin {
      */
     boolean waitForMinStatus(String indexName, ClusterHealthStatus minStatus, long timeoutInMsec);
 
+    /**
+     * Gets settings of an index.
+     *
+     * @param indexName     Name of the index
+     * @param settingNames  Names of the settings
+     * @return              Values of the settings, <code>null</code> values for settings which are not set explicitly
+     */
+    Map<String, String> getIndexSettings(String indexName, Collection<String> settingNames);
+
+    /**
+     * Updates dynamic settings of an index.
+     *
+     * @param indexName     Name of the index
+     * @param settings      Settings to update, a <code>null</code> value resets the setting to its default
+     */
+    void updateIndexSettings(String indexName, Map<String, Object> settings);
+
+    /**
+     * Force merges the segments of an index.
+     *
+     * @param indexName         Name of the index
+     * @param maxNumSegments    Maximum number of segments per shard after merging
+     */
+    void forceMerge(String indexName, int maxNumSegments);
+
+    /**
+     * Atomically maps an alias to a single index, removing it from all indexes it was mapped to before.
+     *
+     * @param indexAlias    Name of the alias
+     * @param indexName     Name of the index to be mapped to the alias
+     * @return              Names of the indexes which were mapped to the alias before
+     */
+    List<String> swapAlias(String indexAlias, String indexName);
+
+    /**
+     * Starts a reindex task copying all documents of the source indexes into the target index.
+     *
+     * @param sourceIndexNames  Names of the source indexes
+     * @param targetIndexName   Name of the target index
+     * @param slices            Number of parallel slices, 0 to let elasticsearch choose
+     * @param batchSize         Number of documents per scroll batch
+     * @return                  ID of the reindex task
+     */
+    String startReindexTask(List<String> sourceIndexNames, String targetIndexName, int slices, int batchSize);
+
+    /**
+     * Gets the status of a reindex task.
+     *
+     * @param taskId    ID of the reindex task
+     * @return          Status of the reindex task or <code>null</code> if the task does not exist
+     */
+    ReindexStatusDto getReindexTaskStatus(String taskId);
+
     /**
      * Gets mapping configuration of given fieldname.
      *
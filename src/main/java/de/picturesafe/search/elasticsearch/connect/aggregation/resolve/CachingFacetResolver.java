@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.aggregation.resolve;
+
+import de.picturesafe.search.elasticsearch.connect.util.LruCache;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Facet resolver memoizing the resolved values of another resolver per value and locale.
+ *
+ * The values of all buckets of a facet are looked up in the cache first, the missing values will be resolved by the delegate with a
+ * single call of {@link FacetResolver#resolveAll(Map, Locale)}. Cached values expire after the time to live, so changes of the resolved
+ * names (e.g. renamed categories) become visible.
+ */
+public class CachingFacetResolver implements FacetResolver {
+
+    private final FacetResolver delegate;
+    private final LruCache<Key, Entry> cache;
+    private final long timeToLive;
+
+    /**
+     * Constructor
+     *
+     * @param delegate      Facet resolver resolving the values missing in the cache
+     * @param maxSize       Maximum number of cached values
+     * @param timeToLive    Time to live of cached values in milliseconds
+     */
+    public CachingFacetResolver(FacetResolver delegate, int maxSize, long timeToLive) {
+        Validate.notNull(delegate, "Parameter 'delegate' may not be null!");
+        Validate.isTrue(timeToLive > 0, "Parameter 'timeToLive' must be greater than 0!");
+        this.delegate = delegate;
+        this.cache = new LruCache<>(maxSize);
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Gets the facet resolver decorated by a caching resolver.
+     *
+     * @param facetResolver Facet resolver
+     * @return              The delegate if the resolver is a caching resolver, otherwise the resolver itself
+     */
+    public static FacetResolver unwrap(FacetResolver facetResolver) {
+        return (facetResolver instanceof CachingFacetResolver) ? ((CachingFacetResolver) facetResolver).getDelegate() : facetResolver;
+    }
+
+    public FacetResolver getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean isResponsible(String aggregationName) {
+        return delegate.isResponsible(aggregationName);
+    }
+
+    @Override
+    public String resolve(String value, Number numberValue, Locale locale) {
+        final Key key = new Key(value, locale);
+        final Entry entry = lookup(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        final String resolvedValue = delegate.resolve(value, numberValue, locale);
+        cache.put(key, new Entry(resolvedValue, System.currentTimeMillis() + timeToLive));
+        return resolvedValue;
+    }
+
+    @Override
+    public Map<String, String> resolveAll(Map<String, Number> values, Locale locale) {
+        final Map<String, String> result = new HashMap<>(values.size());
+        final Map<String, Number> missingValues = new LinkedHashMap<>();
+        values.forEach((value, numberValue) -> {
+            final Entry entry = lookup(new Key(value, locale));
+            if (entry != null) {
+                result.put(value, entry.value);
+            } else {
+                missingValues.put(value, numberValue);
+            }
+        });
+
+        if (!missingValues.isEmpty()) {
+            final Map<String, String> resolvedValues = delegate.resolveAll(missingValues, locale);
+            final long expires = System.currentTimeMillis() + timeToLive;
+            for (final String value : missingValues.keySet()) {
+                final String resolvedValue = resolvedValues.get(value);
+                cache.put(new Key(value, locale), new Entry(resolvedValue, expires));
+                result.put(value, resolvedValue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the number of cached values.
+     *
+     * @return Number of cached values
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private Entry lookup(Key key) {
+        final Entry entry = cache.get(key);
+        if (entry != null && System.currentTimeMillis() >= entry.expires) {
+            cache.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private static class Entry {
+
+        private final String value;
+        private final long expires;
+
+        Entry(String value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    private static class Key {
+
+        private final String value;
+        private final Locale locale;
+
+        Key(String value, Locale locale) {
+            this.value = value;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Key that = (Key) o;
+            return new EqualsBuilder()
+                    .append(value, that.value)
+                    .append(locale, that.locale)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37)
+                    .append(value)
+                    .append(locale)
+                    .toHashCode();
+        }
+    }
+}
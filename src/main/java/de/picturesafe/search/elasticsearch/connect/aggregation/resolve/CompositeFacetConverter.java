@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.aggregation.resolve;
+
+import de.picturesafe.search.elasticsearch.connect.dto.FacetDto;
+import de.picturesafe.search.elasticsearch.connect.dto.FacetEntryDto;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converts composite aggregations with a single terms source into paged facets. The source is expected to be named by the field of the
+ * aggregation, the value of the after key of the response is returned as after key of the facet.
+ */
+public class CompositeFacetConverter implements FacetConverter {
+
+    @Override
+    public boolean isResponsible(Aggregation aggregation) {
+        return aggregation instanceof CompositeAggregation;
+    }
+
+    @Override
+    public FacetDto convert(Aggregation aggregation, FacetResolver facetResolver, String fieldName, Locale locale) {
+        final CompositeAggregation composite = (CompositeAggregation) aggregation;
+        final List<? extends CompositeAggregation.Bucket> buckets = composite.getBuckets();
+        final Map<String, Object> afterKey = buckets.isEmpty() ? null : composite.afterKey();
+        final String sourceName = MapUtils.isNotEmpty(afterKey) ? afterKey.keySet().iterator().next() : null;
+        final String baseFieldName = StringUtils.substringBefore((fieldName != null) ? fieldName : sourceName, ".");
+
+        final Map<String, Number> values = new LinkedHashMap<>();
+        for (CompositeAggregation.Bucket bucket : buckets) {
+            final Object key = bucket.getKey().get(sourceName);
+            if (key != null) {
+                values.put(key.toString(), (key instanceof Number) ? (Number) key : null);
+            }
+        }
+        final Map<String, String> resolvedValues = (facetResolver != null && !values.isEmpty())
+                ? facetResolver.resolveAll(values, locale) : Collections.emptyMap();
+
+        final List<FacetEntryDto> facetEntryDtos = new ArrayList<>();
+        long totalCount = 0;
+        for (CompositeAggregation.Bucket bucket : buckets) {
+            final Object key = bucket.getKey().get(sourceName);
+            if (key == null) {
+                continue;
+            }
+            String value = resolvedValues.get(key.toString());
+            if (value == null) {
+                value = key.toString();
+            }
+
+            facetEntryDtos.add(new FacetEntryDto(value, bucket.getDocCount()));
+            totalCount += bucket.getDocCount();
+        }
+        return new FacetDto(composite.getName(), baseFieldName, totalCount, facetEntryDtos, (afterKey != null) ? afterKey.get(sourceName) : null);
+    }
+}
@@ -16,11 +16,27 @@
 
 package de.picturesafe.search.elasticsearch.connect.aggregation.resolve;
 
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 public interface FacetResolver {
 
     boolean isResponsible(String aggregationName);
 
     String resolve(String value, Number numberValue, Locale locale);
+
+    /**
+     * Resolves all values of a facet at once. Resolvers looking up values e.g. in a database should override this method to resolve
+     * the values with a single lookup, the default implementation resolves each value separately.
+     *
+     * @param values    Values to resolve mapped to their number values (number values may be <code>null</code>)
+     * @param locale    Locale of the search
+     * @return          Resolved values mapped by the values, unresolved values may be missing or mapped to <code>null</code>
+     */
+    default Map<String, String> resolveAll(Map<String, Number> values, Locale locale) {
+        final Map<String, String> result = new HashMap<>(values.size());
+        values.forEach((value, numberValue) -> result.put(value, resolve(value, numberValue, locale)));
+        return result;
+    }
 }
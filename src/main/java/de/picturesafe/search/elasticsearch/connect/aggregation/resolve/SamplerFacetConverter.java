@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.aggregation.resolve;
+
+import de.picturesafe.search.elasticsearch.connect.dto.FacetDto;
+import de.picturesafe.search.elasticsearch.connect.dto.FacetEntryDto;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.bucket.filter.Filter;
+import org.elasticsearch.search.aggregations.bucket.sampler.Sampler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.SAMPLER_NAME;
+
+/**
+ * Converts sampled aggregations into approximate facets. The wrapped aggregation is converted by the responsible converter of the chain, the counts
+ * of the facet are extrapolated from the sample to all matching documents.
+ *
+ * @see de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils#sampled
+ */
+public class SamplerFacetConverter implements FacetConverter {
+
+    private final FacetConverterChain facetConverterChain;
+
+    public SamplerFacetConverter(FacetConverterChain facetConverterChain) {
+        Validate.notNull(facetConverterChain, "Parameter 'facetConverterChain' may not be null!");
+        this.facetConverterChain = facetConverterChain;
+    }
+
+    @Override
+    public boolean isResponsible(Aggregation aggregation) {
+        return aggregation instanceof Filter && ((Filter) aggregation).getAggregations().get(SAMPLER_NAME) instanceof Sampler;
+    }
+
+    @Override
+    public FacetDto convert(Aggregation aggregation, FacetResolver facetResolver, String fieldName, Locale locale) {
+        final Filter filter = (Filter) aggregation;
+        final Sampler sampler = filter.getAggregations().get(SAMPLER_NAME);
+        final Aggregation sampledAggregation = sampler.getAggregations().get(filter.getName());
+        final FacetConverter facetConverter = (sampledAggregation != null) ? facetConverterChain.getFirstResponsible(sampledAggregation) : null;
+        if (facetConverter == null) {
+            return new FacetDto(filter.getName(), fieldName, 0, new ArrayList<>());
+        }
+
+        final FacetDto facetDto = facetConverter.convert(sampledAggregation, facetResolver, fieldName, locale);
+        final long totalDocCount = filter.getDocCount();
+        final long sampledDocCount = sampler.getDocCount();
+        if (sampledDocCount == 0 || sampledDocCount >= totalDocCount) {
+            return facetDto;
+        }
+
+        final double factor = (double) totalDocCount / sampledDocCount;
+        final List<FacetEntryDto> facetEntryDtos = new ArrayList<>();
+        long totalCount = 0;
+        for (FacetEntryDto facetEntryDto : facetDto.getFacetEntryDtos()) {
+            final long count = Math.min(Math.round(facetEntryDto.getCount() * factor), totalDocCount);
+            facetEntryDtos.add(new FacetEntryDto(facetEntryDto.getValue(), count));
+            totalCount += count;
+        }
+        return new FacetDto(facetDto.getName(), facetDto.getFieldName(), totalCount, facetEntryDtos, facetDto.getAfterKey(), true);
+    }
+}
@@ -23,8 +23,11 @@ import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class TermsFacetConverter implements FacetConverter {
 
@@ -39,6 +42,7 @@ public class TermsFacetConverter implements FacetConverter {
         final String baseFacetName = StringUtils.substringBefore(terms.getName(), ".");
         final String baseFieldName = (fieldName != null) ? StringUtils.substringBefore(fieldName, ".") : null;
 
+        final Map<String, String> resolvedValues = (facetResolver != null) ? resolveValues(terms, facetResolver, locale) : Collections.emptyMap();
         final List<FacetEntryDto> facetEntryDtos = new ArrayList<>();
         long totalCount = 0;
         for (Terms.Bucket bucket : terms.getBuckets()) {
@@ -47,7 +51,7 @@ public class TermsFacetConverter implements FacetConverter {
                 continue;
             }
             final String keyAsString = bucket.getKeyAsString();
-            String value = (facetResolver != null) ? facetResolver.resolve(keyAsString, bucket.getKeyAsNumber(), locale) : keyAsString;
+            String value = resolvedValues.get(keyAsString);
             if (value == null) {
                 value = keyAsString;
             }
@@ -57,4 +61,15 @@ public class TermsFacetConverter implements FacetConverter {
         }
         return new FacetDto(baseFacetName, baseFieldName, totalCount, facetEntryDtos);
     }
+
+    private Map<String, String> resolveValues(Terms terms, FacetResolver facetResolver, Locale locale) {
+        // all values of the facet are resolved at once, so resolvers can batch their lookups
+        final Map<String, Number> values = new LinkedHashMap<>();
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            if (bucket.getDocCount() > 0) {
+                values.put(bucket.getKeyAsString(), bucket.getKeyAsNumber());
+            }
+        }
+        return values.isEmpty() ? Collections.emptyMap() : facetResolver.resolveAll(values, locale);
+    }
 }
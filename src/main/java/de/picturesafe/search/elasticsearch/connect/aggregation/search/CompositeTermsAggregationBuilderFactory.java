@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.aggregation.search;
+
+import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.parameter.aggregation.AggregationOrder;
+import de.picturesafe.search.parameter.aggregation.CompositeTermsAggregation;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.aggregationName;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.getElasticFieldName;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.keywordFieldName;
+
+public class CompositeTermsAggregationBuilderFactory implements AggregationBuilderFactory<CompositeTermsAggregation> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompositeTermsAggregationBuilderFactory.class);
+
+    public static final int DEFAULT_SIZE = 100;
+    public static final int DEFAULT_MAX_SIZE_LIMIT = 1000;
+
+    private int defaultSize = DEFAULT_SIZE;
+    private int maxSizeLimit = DEFAULT_MAX_SIZE_LIMIT;
+
+    public CompositeTermsAggregationBuilderFactory() {
+    }
+
+    public CompositeTermsAggregationBuilderFactory(int defaultSize, int maxSizeLimit) {
+        this.defaultSize = defaultSize;
+        this.maxSizeLimit = maxSizeLimit;
+    }
+
+    @Override
+    public List<AggregationBuilder> create(CompositeTermsAggregation aggregation, MappingConfiguration mappingConfiguration, Locale locale) {
+        final String fieldName = aggregation.getField();
+        final FieldConfiguration fieldConfig = mappingConfiguration.getFieldConfiguration(fieldName);
+        if (fieldConfig == null) {
+            LOGGER.warn("Missing field configuration for field '{}', aggregations will not work for text fields!", fieldName);
+        }
+
+        String aggFieldName = getElasticFieldName(mappingConfiguration, fieldName, locale);
+        aggFieldName = keywordFieldName(fieldConfig, aggFieldName);
+        // the source is named by the field, so the facet converter can map the after key and the field name of the facet
+        final CompositeValuesSourceBuilder<?> source = new TermsValuesSourceBuilder(fieldName)
+                .field(aggFieldName)
+                .order(aggregation.getOrder() == AggregationOrder.KEY_DESC ? SortOrder.DESC : SortOrder.ASC);
+
+        int size = Math.min(aggregation.getSize(), maxSizeLimit);
+        if (size <= 0) {
+            size = defaultSize;
+        }
+        final CompositeAggregationBuilder compositeBuilder
+                = AggregationBuilders.composite(aggregationName(aggregation), Collections.singletonList(source)).size(size);
+        if (aggregation.getAfterKey() != null) {
+            compositeBuilder.aggregateAfter(Collections.singletonMap(fieldName, aggregation.getAfterKey()));
+        }
+        return Collections.singletonList(compositeBuilder);
+    }
+
+    @Override
+    public Class<CompositeTermsAggregation> getAggregationType() {
+        return CompositeTermsAggregation.class;
+    }
+}
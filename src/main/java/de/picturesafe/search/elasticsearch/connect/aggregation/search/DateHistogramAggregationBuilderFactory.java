@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Locale;
 
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.aggregationName;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.sampled;
 import static de.picturesafe.search.parameter.aggregation.DateHistogramAggregation.IntervalType.CALENDAR;
 
 public class DateHistogramAggregationBuilderFactory implements AggregationBuilderFactory<DateHistogramAggregation>, TimeZoneAware {
@@ -54,7 +55,7 @@ public class DateHistogramAggregationBuilderFactory implements AggregationBuilde
         } else {
             dateHistogramBuilder.fixedInterval(new DateHistogramInterval(aggregation.getInterval()));
         }
-        return Collections.singletonList(dateHistogramBuilder);
+        return Collections.singletonList(sampled(dateHistogramBuilder, aggregation.getSamplerOption(), mappingConfiguration, locale));
     }
 
     private BucketOrder order(DateHistogramAggregation aggregation) {
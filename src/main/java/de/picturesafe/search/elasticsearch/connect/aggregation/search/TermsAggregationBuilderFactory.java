@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Locale;
 
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.aggregationName;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.sampled;
 import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.getElasticFieldName;
 import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.keywordFieldName;
 
@@ -76,7 +77,7 @@ public class TermsAggregationBuilderFactory implements AggregationBuilderFactory
                 .shardSize(size * shardSizeFactor)
                 .order(order(aggregation))
                 .minDocCount(aggregation.getMinDocCount());
-        return Collections.singletonList(termsBuilder);
+        return Collections.singletonList(sampled(termsBuilder, aggregation.getSamplerOption(), mappingConfiguration, locale));
     }
 
     private BucketOrder order(TermsAggregation aggregation) {
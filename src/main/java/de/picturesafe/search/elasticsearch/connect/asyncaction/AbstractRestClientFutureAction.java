@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.asyncaction;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executes an asynchronous rest client action and completes a future with the result.
+ * In contrast to {@link AbstractRestClientAsyncAction} the calling thread is never blocked.
+ * An instance can only be used once.
+ */
+public abstract class AbstractRestClientFutureAction<Request, Response> implements ActionListener<Response> {
+
+    private final CompletableFuture<Response> future = new CompletableFuture<>();
+    private final AtomicBoolean used = new AtomicBoolean(false);
+    private Request request;
+
+    abstract void asyncAction(RestHighLevelClient client, Request request);
+
+    public CompletableFuture<Response> action(RestHighLevelClient client, Request request) {
+        if (!used.compareAndSet(false, true)) {
+            throw new RuntimeException("Action already triggered once and can not be used again. Please create a new Action");
+        }
+        this.request = request;
+
+        try {
+            asyncAction(client, request);
+        } catch (Exception e) {
+            onFailure(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void onFailure(Exception e) {
+        future.completeExceptionally(new RuntimeException("Action failed! " + request, e));
+    }
+
+    @Override
+    public void onResponse(Response response) {
+        future.complete(response);
+    }
+}
@@ -28,12 +28,24 @@ public class FacetDto {
     private final String fieldName;
     private final long count;
     private final List<FacetEntryDto> facetEntryDtos;
+    private final Object afterKey;
+    private final boolean approximate;
 
     public FacetDto(String name, String fieldName, long count, List<FacetEntryDto> facetEntryDtos) {
+        this(name, fieldName, count, facetEntryDtos, null);
+    }
+
+    public FacetDto(String name, String fieldName, long count, List<FacetEntryDto> facetEntryDtos, Object afterKey) {
+        this(name, fieldName, count, facetEntryDtos, afterKey, false);
+    }
+
+    public FacetDto(String name, String fieldName, long count, List<FacetEntryDto> facetEntryDtos, Object afterKey, boolean approximate) {
         this.name = name;
         this.fieldName = fieldName;
         this.count = count;
         this.facetEntryDtos = facetEntryDtos;
+        this.afterKey = afterKey;
+        this.approximate = approximate;
     }
 
     public String getName() {
@@ -52,6 +64,14 @@ public class FacetDto {
         return facetEntryDtos;
     }
 
+    public Object getAfterKey() {
+        return afterKey;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof FacetDto)) {
@@ -63,6 +83,8 @@ public class FacetDto {
                     .append(fieldName, target.fieldName)
                     .append(count, target.count)
                     .append(facetEntryDtos, target.facetEntryDtos)
+                    .append(afterKey, target.afterKey)
+                    .append(approximate, target.approximate)
                     .isEquals();
         }
     }
@@ -79,6 +101,8 @@ public class FacetDto {
                 .append("fieldName", fieldName) //--
                 .append("count", count) //--
                 .append("facetEntryDtos", facetEntryDtos) //--
+                .append("afterKey", afterKey) //--
+                .append("approximate", approximate) //--
                 .toString();
     }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.dto;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+public class MultiSearchResultDto {
+
+    private final SearchResultDto searchResult;
+    private final RuntimeException failure;
+
+    public MultiSearchResultDto(SearchResultDto searchResult) {
+        this.searchResult = searchResult;
+        this.failure = null;
+    }
+
+    public MultiSearchResultDto(RuntimeException failure) {
+        this.searchResult = null;
+        this.failure = failure;
+    }
+
+    public SearchResultDto getSearchResult() {
+        return searchResult;
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("searchResult", searchResult) //--
+                .append("failure", failure) //--
+                .toString();
+    }
+}
@@ -52,6 +52,7 @@ public class QueryDto {
     private FieldResolverType fieldResolverType = FieldResolverType.DOC_VALUES;
     private AccountContext<?> accountContext;
     private boolean sortFilter;
+    private Object[] searchAfter;
 
     public QueryDto(Expression expression, Locale locale) {
         this.expression = expression;
@@ -175,6 +176,15 @@ public class QueryDto {
         return this;
     }
 
+    public Object[] getSearchAfter() {
+        return searchAfter;
+    }
+
+    public QueryDto searchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder().append(expression).append(locale).toHashCode();
@@ -194,6 +204,7 @@ public class QueryDto {
                     .append(collapseOption, other.collapseOption)
                     .append(aggregations, other.aggregations)
                     .append(fieldsToResolve, other.fieldsToResolve)
+                    .append(searchAfter, other.searchAfter)
                     .isEquals();
         }
     }
@@ -209,6 +220,7 @@ public class QueryDto {
                 .append("aggregations", aggregations) //--
                 .append("fieldsToResolve", fieldsToResolve) //--
                 .append("fieldResolverType", fieldResolverType) //--
+                .append("searchAfter", searchAfter) //--
                 .toString();
     }
 
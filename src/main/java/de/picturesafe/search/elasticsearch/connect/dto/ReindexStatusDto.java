@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.dto;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+public class ReindexStatusDto {
+
+    private final boolean completed;
+    private final long total;
+    private final long created;
+    private final long updated;
+    private final long noops;
+    private final long versionConflicts;
+
+    public ReindexStatusDto(boolean completed, long total, long created, long updated, long noops, long versionConflicts) {
+        this.completed = completed;
+        this.total = total;
+        this.created = created;
+        this.updated = updated;
+        this.noops = noops;
+        this.versionConflicts = versionConflicts;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getNoops() {
+        return noops;
+    }
+
+    public long getVersionConflicts() {
+        return versionConflicts;
+    }
+
+    public long getProcessed() {
+        return created + updated + noops + versionConflicts;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("completed", completed) //--
+                .append("total", total) //--
+                .append("created", created) //--
+                .append("updated", updated) //--
+                .append("noops", noops) //--
+                .append("versionConflicts", versionConflicts) //--
+                .toString();
+    }
+}
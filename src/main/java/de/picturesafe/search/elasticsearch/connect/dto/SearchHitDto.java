@@ -27,6 +27,7 @@ public class SearchHitDto {
     private final String id;
     private final Map<String, Object> attributes;
     private Map<String, List<SearchHitDto>> innerHits;
+    private Object[] sortValues;
 
     public SearchHitDto(String id, Map<String, Object> attributes) {
         this.id = id;
@@ -58,12 +59,22 @@ public class SearchHitDto {
         return this;
     }
 
+    public Object[] getSortValues() {
+        return sortValues;
+    }
+
+    public SearchHitDto sortValues(Object[] sortValues) {
+        this.sortValues = sortValues;
+        return this;
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
                 .append("id", id) //--
                 .append("attributes", attributes) //--
                 .append("innerHits", innerHits) //--
+                .append("sortValues", sortValues) //--
                 .toString();
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.dto;
+
+import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+public class SearchRequestDto {
+
+    private final QueryDto queryDto;
+    private final MappingConfiguration mappingConfiguration;
+    private final IndexPresetConfiguration indexPresetConfiguration;
+
+    public SearchRequestDto(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration) {
+        Validate.notNull(queryDto, "Parameter 'queryDto' may not be null!");
+        Validate.notNull(mappingConfiguration, "Parameter 'mappingConfiguration' may not be null!");
+        Validate.notNull(indexPresetConfiguration, "Parameter 'indexPresetConfiguration' may not be null!");
+        this.queryDto = queryDto;
+        this.mappingConfiguration = mappingConfiguration;
+        this.indexPresetConfiguration = indexPresetConfiguration;
+    }
+
+    public QueryDto getQueryDto() {
+        return queryDto;
+    }
+
+    public MappingConfiguration getMappingConfiguration() {
+        return mappingConfiguration;
+    }
+
+    public IndexPresetConfiguration getIndexPresetConfiguration() {
+        return indexPresetConfiguration;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("indexAlias", indexPresetConfiguration.getIndexAlias()) //--
+                .append("queryDto", queryDto) //--
+                .toString();
+    }
+}
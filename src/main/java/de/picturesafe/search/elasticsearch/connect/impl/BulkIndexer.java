@@ -0,0 +1,351 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Executes bulk requests asynchronously with a limited number of concurrent requests in flight.
+ * <p>
+ * Adding a bulk blocks the caller while the maximum number of concurrent requests is reached, so building the next bulk overlaps with
+ * the network I/O of the running ones. Bulks or bulk items failing with a transient error (429 too many requests, 503 service unavailable)
+ * are resubmitted according to the backoff policy. Only the failed items of a bulk are resubmitted, the delays are jittered to avoid
+ * that concurrent indexers hit the cluster in lockstep. A bulk keeps its slot until all of its retries are done, which throttles the
+ * producer. Items still failing after the last retry are passed to the response handler as failures. Failed items are reported to the
+ * failure handler separately for items which exhausted their retries and items failing with a permanent error.
+ * <p>
+ * An instance is meant to be used for a single indexing run and has to be closed to wait for the outstanding bulks.
+ */
+public class BulkIndexer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkIndexer.class);
+
+    private final Function<BulkRequest, CompletableFuture<BulkResponse>> bulkAction;
+    private final Consumer<BulkResponse> responseHandler;
+    private final int concurrentRequests;
+    private final BackoffPolicy backoffPolicy;
+    private final Semaphore semaphore;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Consumer<BulkRequest> retryHandler = retryRequest -> { };
+    private FailureHandler failureHandler = (failedItems, retriesExhausted) -> { };
+    private ScheduledExecutorService retryScheduler;
+
+    /**
+     * Constructor
+     *
+     * @param bulkAction            Action sending a bulk request asynchronously
+     * @param responseHandler       Handler for the (final) bulk responses, may be called concurrently
+     * @param concurrentRequests    Maximum number of bulk requests in flight
+     * @param backoffPolicy         Backoff policy for bulks or bulk items failing with a transient error
+     */
+    public BulkIndexer(Function<BulkRequest, CompletableFuture<BulkResponse>> bulkAction, Consumer<BulkResponse> responseHandler,
+                       int concurrentRequests, BackoffPolicy backoffPolicy) {
+        Validate.notNull(bulkAction, "Parameter 'bulkAction' may not be null!");
+        Validate.notNull(responseHandler, "Parameter 'responseHandler' may not be null!");
+        Validate.isTrue(concurrentRequests > 0, "Parameter 'concurrentRequests' must be greater than 0!");
+        Validate.notNull(backoffPolicy, "Parameter 'backoffPolicy' may not be null!");
+
+        this.bulkAction = bulkAction;
+        this.responseHandler = responseHandler;
+        this.concurrentRequests = concurrentRequests;
+        this.backoffPolicy = backoffPolicy;
+        this.semaphore = new Semaphore(concurrentRequests);
+    }
+
+    /**
+     * Sets a handler which is notified about every bulk request resubmitted after a transient error, e.g. for recording metrics.
+     *
+     * @param retryHandler  Handler for resubmitted requests, may be called concurrently
+     */
+    public void setRetryHandler(Consumer<BulkRequest> retryHandler) {
+        Validate.notNull(retryHandler, "Parameter 'retryHandler' may not be null!");
+        this.retryHandler = retryHandler;
+    }
+
+    /**
+     * Sets a handler which is notified about the failed items of every final bulk response, e.g. for recording metrics.
+     *
+     * @param failureHandler    Handler for failed items, may be called concurrently
+     */
+    public void setFailureHandler(FailureHandler failureHandler) {
+        Validate.notNull(failureHandler, "Parameter 'failureHandler' may not be null!");
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Adds a bulk request for asynchronous execution. Blocks while the maximum number of concurrent requests is reached.
+     *
+     * @param bulkRequest   Bulk request to execute
+     * @throws ElasticsearchException if a previously added bulk has failed
+     */
+    public void add(BulkRequest bulkRequest) {
+        checkFailure();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("Interrupted while waiting for bulk execution!", e);
+        }
+
+        execute(bulkRequest, backoffPolicy.iterator()).whenComplete((response, e) -> {
+            try {
+                if (e != null) {
+                    failure.compareAndSet(null, e);
+                } else {
+                    reportFailures(response);
+                    responseHandler.accept(response);
+                }
+            } catch (Exception handlerException) {
+                failure.compareAndSet(null, handlerException);
+            } finally {
+                semaphore.release();
+            }
+        });
+    }
+
+    /**
+     * Waits until all added bulks have been executed.
+     *
+     * @throws ElasticsearchException if at least one bulk has failed
+     */
+    @Override
+    public void close() {
+        try {
+            semaphore.acquire(concurrentRequests);
+            semaphore.release(concurrentRequests);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("Interrupted while waiting for bulk execution!", e);
+        } finally {
+            shutdownRetryScheduler();
+        }
+        checkFailure();
+    }
+
+    protected CompletableFuture<BulkResponse> execute(BulkRequest bulkRequest, Iterator<TimeValue> backoff) {
+        final CompletableFuture<BulkResponse> result = new CompletableFuture<>();
+        send(bulkRequest).whenComplete((response, e) -> {
+            if (e != null) {
+                if (isRetryable(e) && backoff.hasNext()) {
+                    final TimeValue delay = jitter(backoff.next());
+                    LOG.debug("Bulk of {} actions failed transiently, retrying in {}", bulkRequest.numberOfActions(), delay);
+                    retry(() -> complete(result, execute(bulkRequest, backoff)), bulkRequest, delay);
+                } else {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+
+            final BulkRequest rejectedRequest = rejectedItemsRequest(bulkRequest, response);
+            if (rejectedRequest != null && backoff.hasNext()) {
+                final TimeValue delay = jitter(backoff.next());
+                LOG.debug("{} items of bulk failed transiently, retrying in {}", rejectedRequest.numberOfActions(), delay);
+                retry(() -> complete(result, execute(rejectedRequest, backoff).thenApply(retryResponse -> merge(response, retryResponse))),
+                        rejectedRequest, delay);
+            } else {
+                result.complete(response);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<BulkResponse> send(BulkRequest bulkRequest) {
+        try {
+            return bulkAction.apply(bulkRequest);
+        } catch (Exception e) {
+            final CompletableFuture<BulkResponse> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(e);
+            return failedFuture;
+        }
+    }
+
+    private void complete(CompletableFuture<BulkResponse> target, CompletableFuture<BulkResponse> source) {
+        source.whenComplete((response, e) -> {
+            if (e != null) {
+                target.completeExceptionally(e);
+            } else {
+                target.complete(response);
+            }
+        });
+    }
+
+    protected BulkRequest rejectedItemsRequest(BulkRequest bulkRequest, BulkResponse bulkResponse) {
+        if (!bulkResponse.hasFailures()) {
+            return null;
+        }
+
+        BulkRequest rejectedRequest = null;
+        for (BulkItemResponse item : bulkResponse) {
+            if (isRejected(item)) {
+                if (rejectedRequest == null) {
+                    rejectedRequest = new BulkRequest().setRefreshPolicy(bulkRequest.getRefreshPolicy()).timeout(bulkRequest.timeout());
+                }
+                rejectedRequest.add(bulkRequest.requests().get(item.getItemId()));
+            }
+        }
+        return rejectedRequest;
+    }
+
+    protected boolean isRejected(BulkItemResponse item) {
+        return item.isFailed() && (isRetryable(item.getFailure().getStatus()) || item.getFailure().getCause() instanceof EsRejectedExecutionException);
+    }
+
+    protected boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof EsRejectedExecutionException || isRetryable(ExceptionsHelper.status(t))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE;
+    }
+
+    /**
+     * Randomizes a backoff delay to a value between half and the full delay ("equal jitter").
+     *
+     * @param delay Delay given by the backoff policy
+     * @return      Jittered delay
+     */
+    protected TimeValue jitter(TimeValue delay) {
+        final long half = delay.millis() / 2;
+        return TimeValue.timeValueMillis(half + ThreadLocalRandom.current().nextLong(delay.millis() - half + 1));
+    }
+
+    private BulkResponse merge(BulkResponse response, BulkResponse retryResponse) {
+        final List<BulkItemResponse> items = new ArrayList<>(response.getItems().length);
+        for (BulkItemResponse item : response) {
+            if (!isRejected(item)) {
+                items.add(item);
+            }
+        }
+        for (BulkItemResponse item : retryResponse) {
+            items.add(item);
+        }
+        return new BulkResponse(items.toArray(new BulkItemResponse[0]), response.getTook().millis() + retryResponse.getTook().millis());
+    }
+
+    protected void reportFailures(BulkResponse bulkResponse) {
+        if (!bulkResponse.hasFailures()) {
+            return;
+        }
+
+        final List<BulkItemResponse> retriesExhausted = new ArrayList<>();
+        final List<BulkItemResponse> permanent = new ArrayList<>();
+        for (BulkItemResponse item : bulkResponse) {
+            if (isRejected(item)) {
+                retriesExhausted.add(item);
+            } else if (item.isFailed()) {
+                permanent.add(item);
+            }
+        }
+        reportFailures(retriesExhausted, true);
+        reportFailures(permanent, false);
+    }
+
+    private void reportFailures(List<BulkItemResponse> failedItems, boolean retriesExhausted) {
+        if (failedItems.isEmpty()) {
+            return;
+        }
+
+        LOG.warn("{} bulk items {}:{}", failedItems.size(), retriesExhausted ? "still failed transiently after the last retry" : "failed permanently",
+                failedItems.stream().map(item -> "\n[" + item.getItemId() + "]: index [" + item.getIndex() + "], id [" + item.getId()
+                        + "], message [" + item.getFailureMessage() + "]").collect(Collectors.joining()));
+        try {
+            failureHandler.failed(failedItems, retriesExhausted);
+        } catch (Exception e) {
+            LOG.warn("Failure handler failed", e);
+        }
+    }
+
+    private void retry(Runnable task, BulkRequest retryRequest, TimeValue delay) {
+        try {
+            retryHandler.accept(retryRequest);
+        } catch (Exception e) {
+            LOG.warn("Retry handler failed", e);
+        }
+        schedule(task, delay);
+    }
+
+    private synchronized void schedule(Runnable task, TimeValue delay) {
+        if (retryScheduler == null) {
+            retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "bulk-indexer-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        retryScheduler.schedule(task, delay.millis(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void shutdownRetryScheduler() {
+        if (retryScheduler != null) {
+            retryScheduler.shutdown();
+            retryScheduler = null;
+        }
+    }
+
+    private void checkFailure() {
+        final Throwable t = failure.get();
+        if (t != null) {
+            throw new ElasticsearchException("Bulk indexing failed: " + t.getMessage(), t);
+        }
+    }
+
+    /**
+     * Handler for the failed items of a final bulk response.
+     */
+    public interface FailureHandler {
+
+        /**
+         * Notifies about failed items of a bulk response.
+         *
+         * @param failedItems       Failed items
+         * @param retriesExhausted  TRUE if the items still failed with a transient error after the last retry, FALSE if they failed with a
+         *                          permanent error
+         */
+        void failed(List<BulkItemResponse> failedItems, boolean retriesExhausted);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.ElasticsearchAdmin;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps a snapshot of the cluster availability (minimum status YELLOW) which is refreshed periodically in the background.
+ * <p>
+ * Frequent callers like load balancer probes are answered from the snapshot without network I/O. As long as no snapshot exists or the
+ * last one is outdated (e.g. because the background check hangs), the check is executed by the caller.
+ */
+@Component
+public class ClusterHealthMonitor implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterHealthMonitor.class);
+
+    private final BooleanSupplier healthCheck;
+
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService refreshScheduler;
+
+    @Value("${elasticsearch.service.health_check.refresh_interval:5000}")
+    private long refreshInterval = 5000;
+
+    @Value("${elasticsearch.service.check_cluster_status_timeout:10000}")
+    private long checkClusterStatusTimeout = 10000;
+
+    /**
+     * Constructor
+     *
+     * @param elasticsearchAdmin    Elasticsearch admin service executing the health check
+     */
+    @Autowired
+    public ClusterHealthMonitor(ElasticsearchAdmin elasticsearchAdmin) {
+        Validate.notNull(elasticsearchAdmin, "Parameter 'elasticsearchAdmin' may not be null!");
+        this.healthCheck = () -> elasticsearchAdmin.waitForMinStatus(null, ClusterHealthStatus.YELLOW, checkClusterStatusTimeout);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param healthCheck   Check returning if the cluster is available
+     */
+    public ClusterHealthMonitor(BooleanSupplier healthCheck) {
+        Validate.notNull(healthCheck, "Parameter 'healthCheck' may not be null!");
+        this.healthCheck = healthCheck;
+    }
+
+    /**
+     * Sets the interval to refresh the snapshot.
+     *
+     * @param refreshInterval   Interval in milliseconds (0 = no snapshot, every call executes the check)
+     */
+    public void setRefreshInterval(long refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Sets the timeout of a single health check.
+     *
+     * @param checkClusterStatusTimeout Timeout in milliseconds
+     */
+    public void setCheckClusterStatusTimeout(long checkClusterStatusTimeout) {
+        this.checkClusterStatusTimeout = checkClusterStatusTimeout;
+    }
+
+    /**
+     * Starts refreshing the snapshot in the background.
+     */
+    @PostConstruct
+    public synchronized void init() {
+        if (refreshInterval > 0 && refreshScheduler == null) {
+            refreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "cluster-health-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refreshScheduler.scheduleWithFixedDelay(this::refresh, 0, refreshInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Checks if the cluster is available. Answers from the current snapshot if it is not outdated, otherwise the check is executed.
+     *
+     * @return true if the cluster is available
+     */
+    public boolean isAvailable() {
+        final Snapshot current = snapshot;
+        final long maxAge = 2 * refreshInterval + Math.max(checkClusterStatusTimeout, 0);
+        if (refreshInterval > 0 && current != null && System.currentTimeMillis() - current.timestamp <= maxAge) {
+            return current.available;
+        }
+        return refresh();
+    }
+
+    /**
+     * Executes the health check and updates the snapshot.
+     *
+     * @return true if the cluster is available
+     */
+    public boolean refresh() {
+        boolean available;
+        try {
+            available = healthCheck.getAsBoolean();
+        } catch (Exception e) {
+            LOG.warn("Cluster health check failed", e);
+            available = false;
+        }
+
+        final Snapshot previous = snapshot;
+        if (previous == null || previous.available != available) {
+            if (available) {
+                LOG.info("Cluster is ok!");
+            } else {
+                LOG.error("Checking status of cluster failed!");
+            }
+        }
+        snapshot = new Snapshot(available, System.currentTimeMillis());
+        return available;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdownNow();
+            refreshScheduler = null;
+        }
+    }
+
+    private static class Snapshot {
+
+        final boolean available;
+        final long timestamp;
+
+        Snapshot(boolean available, long timestamp) {
+            this.available = available;
+            this.timestamp = timestamp;
+        }
+    }
+}
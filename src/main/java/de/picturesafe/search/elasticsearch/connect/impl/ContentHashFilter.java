@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.util.LruCache;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticDocumentUtils.getId;
+
+/**
+ * Filters index requests of documents whose content has not changed since they have been indexed.
+ * <p>
+ * A hash of the serialized document content is stored in a dedicated field of each document. Before a bulk is sent, the new hashes are
+ * compared to the hashes of a client side cache or, for documents missing in the cache, to the hashes stored in the index, which are
+ * loaded with a single multi get request per bulk. Hashes are cached only after their documents have been indexed successfully.
+ * <p>
+ * Note: Documents changed by a script (e.g. update by query) keep their stored hash, so the hash field should be removed by the script
+ * if the document may be indexed again with its former content.
+ */
+public class ContentHashFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentHashFilter.class);
+
+    private final String hashField;
+    private final LruCache<String, String> cache;
+    private final Function<MultiGetRequest, MultiGetResponse> multiGetAction;
+
+    /**
+     * Constructor
+     *
+     * @param hashField         Name of the field storing the content hash
+     * @param cacheSize         Maximum number of cached hashes (0 = no cache)
+     * @param multiGetAction    Action executing a multi get request
+     */
+    public ContentHashFilter(String hashField, int cacheSize, Function<MultiGetRequest, MultiGetResponse> multiGetAction) {
+        Validate.notEmpty(hashField, "Parameter 'hashField' may not be null or empty!");
+        Validate.notNull(multiGetAction, "Parameter 'multiGetAction' may not be null!");
+        this.hashField = hashField;
+        this.cache = (cacheSize > 0) ? new LruCache<>(cacheSize) : null;
+        this.multiGetAction = multiGetAction;
+    }
+
+    /**
+     * Gets the name of the field storing the content hash.
+     *
+     * @return Name of the hash field
+     */
+    public String getHashField() {
+        return hashField;
+    }
+
+    /**
+     * Adds the content hash to a document. The hash is independent from the order of the top level fields.
+     *
+     * @param doc           Document
+     * @param serializer    Serializer of the document content
+     * @return              Copy of the document including the hash field
+     */
+    public Map<String, Object> withContentHash(Map<String, Object> doc, Function<Map<String, Object>, BytesReference> serializer) {
+        final Map<String, Object> content = new TreeMap<>(doc);
+        content.remove(hashField);
+        final String hash = MessageDigests.toHexString(MessageDigests.sha256().digest(BytesReference.toBytes(serializer.apply(content))));
+        content.put(hashField, hash);
+        return content;
+    }
+
+    /**
+     * Adds the content hash to a document and collects it as new content hash of the document.
+     *
+     * @param doc           Document
+     * @param serializer    Serializer of the document content
+     * @param contentHashes New content hashes by document ID
+     * @return              Copy of the document including the hash field
+     */
+    public Map<String, Object> withContentHash(Map<String, Object> doc, Function<Map<String, Object>, BytesReference> serializer,
+                                               Map<String, String> contentHashes) {
+        final Map<String, Object> content = withContentHash(doc, serializer);
+        contentHashes.put(getId(content), (String) content.get(hashField));
+        return content;
+    }
+
+    /**
+     * Removes the index requests of unchanged documents from a bulk. The hashes of unchanged documents are removed from the new content
+     * hashes, the hashes of changed documents remain until they are recorded or discarded.
+     *
+     * @param indexAlias        Index alias
+     * @param bulkRequest       Bulk request
+     * @param contentHashes     New content hashes by document ID
+     * @param unchangedHandler  Handler for the IDs of the unchanged documents
+     * @return                  Bulk request containing the index requests of changed documents only
+     */
+    public BulkRequest removeUnchanged(String indexAlias, BulkRequest bulkRequest, Map<String, String> contentHashes,
+                                       Consumer<String> unchangedHandler) {
+        final Set<String> ids = bulkRequest.requests().stream().map(DocWriteRequest::id).filter(contentHashes::containsKey).collect(Collectors.toSet());
+        final Map<String, String> storedHashes = storedHashes(indexAlias, ids);
+        final BulkRequest changedRequest = new BulkRequest().setRefreshPolicy(bulkRequest.getRefreshPolicy());
+        for (final DocWriteRequest<?> request : bulkRequest.requests()) {
+            final String hash = contentHashes.get(request.id());
+            if (hash != null && hash.equals(storedHashes.get(request.id()))) {
+                contentHashes.remove(request.id());
+                unchangedHandler.accept(request.id());
+            } else {
+                changedRequest.add(request);
+            }
+        }
+        LOG.debug("Skipping {} unchanged documents of index '{}'.", bulkRequest.numberOfActions() - changedRequest.numberOfActions(), indexAlias);
+        return changedRequest;
+    }
+
+    /**
+     * Invalidates the cached hash of a document.
+     *
+     * @param indexAlias    Index alias
+     * @param id            Document ID, NULL to invalidate all cached hashes
+     */
+    public void invalidate(String indexAlias, String id) {
+        if (cache != null) {
+            if (id != null) {
+                cache.remove(cacheKey(indexAlias, id));
+            } else {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Wraps a bulk item response handler to cache the new hashes of documents indexed successfully and to invalidate the cached hashes
+     * of documents failed to be indexed. The hashes of the item responses are removed from the new content hashes.
+     *
+     * @param indexAlias            Index alias
+     * @param contentHashes         New content hashes by document ID
+     * @param itemResponseHandler   Bulk item response handler
+     * @return                      Wrapped bulk item response handler
+     */
+    public Consumer<BulkItemResponse> recordOnSuccess(String indexAlias, Map<String, String> contentHashes,
+                                                      Consumer<BulkItemResponse> itemResponseHandler) {
+        return itemResponse -> {
+            final String hash = contentHashes.remove(itemResponse.getId());
+            if (itemResponse.isFailed() || hash == null) {
+                invalidate(indexAlias, itemResponse.getId());
+            } else if (cache != null) {
+                cache.put(cacheKey(indexAlias, itemResponse.getId()), hash);
+            }
+            itemResponseHandler.accept(itemResponse);
+        };
+    }
+
+    /**
+     * Discards the new hashes of the documents of a bulk which is not sent by the caller (e.g. handled by a write request handler), the
+     * cached hashes of the documents are invalidated as the result of the bulk is unknown.
+     *
+     * @param indexAlias    Index alias
+     * @param bulkRequest   Bulk request
+     * @param contentHashes New content hashes by document ID
+     */
+    public void discard(String indexAlias, BulkRequest bulkRequest, Map<String, String> contentHashes) {
+        for (final DocWriteRequest<?> request : bulkRequest.requests()) {
+            contentHashes.remove(request.id());
+            invalidate(indexAlias, request.id());
+        }
+    }
+
+    private Map<String, String> storedHashes(String indexAlias, Set<String> ids) {
+        final Map<String, String> storedHashes = new TreeMap<>();
+        final MultiGetRequest multiGetRequest = new MultiGetRequest();
+        final FetchSourceContext fetchSourceContext = new FetchSourceContext(true, new String[] {hashField}, null);
+        for (final String id : ids) {
+            final String cachedHash = (cache != null) ? cache.get(cacheKey(indexAlias, id)) : null;
+            if (cachedHash != null) {
+                storedHashes.put(id, cachedHash);
+            } else {
+                multiGetRequest.add(new MultiGetRequest.Item(indexAlias, id).fetchSourceContext(fetchSourceContext));
+            }
+        }
+
+        if (!multiGetRequest.getItems().isEmpty()) {
+            try {
+                for (final MultiGetItemResponse itemResponse : multiGetAction.apply(multiGetRequest)) {
+                    if (!itemResponse.isFailed() && itemResponse.getResponse().isExists()) {
+                        final Object hash = itemResponse.getResponse().getSourceAsMap().get(hashField);
+                        if (hash != null) {
+                            storedHashes.put(itemResponse.getId(), hash.toString());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                LOG.warn("Failed to load content hashes of index '" + indexAlias + "', all documents will be indexed.", e);
+            }
+        }
+        return storedHashes;
+    }
+
+    private String cacheKey(String indexAlias, String id) {
+        return indexAlias + "/" + id;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.util.ElasticDateUtils;
+import de.picturesafe.search.elasticsearch.connect.util.StringTrimUtility;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes the fields of documents to the content of index and update requests.
+ * <p>
+ * Nested objects are written via callbacks, so the owner of the writer may route the recursion through its own (overridable) methods.
+ */
+public class DocumentContentWriter {
+
+    private final Supplier<String> timeZoneSupplier;
+
+    /**
+     * Constructor
+     *
+     * @param timeZoneSupplier  Supplier of the time zone for formatting date values, called on every write
+     */
+    public DocumentContentWriter(Supplier<String> timeZoneSupplier) {
+        Validate.notNull(timeZoneSupplier, "Parameter 'timeZoneSupplier' may not be null!");
+        this.timeZoneSupplier = timeZoneSupplier;
+    }
+
+    /**
+     * Writes the non null fields of a document. Strings will be trimmed and boolean strings converted to booleans.
+     *
+     * @param contentBuilder    Builder of the request content
+     * @param doc               Document
+     * @throws IOException      If the content could not be written
+     */
+    public void write(XContentBuilder contentBuilder, Map<String, Object> doc) throws IOException {
+        write(contentBuilder, doc, this::writeNestedObjects);
+    }
+
+    /**
+     * Writes the non null fields of a document. Strings will be trimmed and boolean strings converted to booleans.
+     *
+     * @param contentBuilder        Builder of the request content
+     * @param doc                   Document
+     * @param nestedObjectsWriter   Writer of lists of nested objects
+     * @throws IOException          If the content could not be written
+     */
+    @SuppressWarnings("unchecked")
+    public void write(XContentBuilder contentBuilder, Map<String, Object> doc, NestedObjectsWriter nestedObjectsWriter) throws IOException {
+        final String timeZone = timeZoneSupplier.get();
+        for (Map.Entry<String, Object> entry : doc.entrySet()) {
+            if (entry.getValue() != null) {
+                final String fieldName = entry.getKey();
+                if (entry.getValue() instanceof List) {
+                    final List<?> list = (List<?>) entry.getValue();
+                    if (list.size() > 0 && list.get(0) instanceof Map) {
+                        final List<Map<String, Object>> nestedObjectList = (List<Map<String, Object>>) list;
+                        nestedObjectsWriter.write(contentBuilder, fieldName, nestedObjectList);
+                    } else {
+                        final List<?> trimmedList = StringTrimUtility.trimListValues((List<?>) entry.getValue());
+                        contentBuilder.array(fieldName, trimmedList.toArray());
+                    }
+                } else if (entry.getValue() instanceof Date) {
+                    contentBuilder.field(fieldName, ElasticDateUtils.formatIso((Date) entry.getValue(), timeZone));
+                } else if (entry.getValue() instanceof Boolean) {
+                    contentBuilder.field(fieldName, entry.getValue());
+                } else if (entry.getValue() instanceof String && (entry.getValue().equals(Boolean.TRUE.toString())
+                        || entry.getValue().equals(Boolean.FALSE.toString()))) {
+                    contentBuilder.field(fieldName, Boolean.valueOf((String) entry.getValue()));
+                } else if (entry.getValue() instanceof String) {
+                    final String stringValue = (String) entry.getValue();
+                    contentBuilder.field(fieldName, stringValue.trim());
+                } else {
+                    contentBuilder.field(fieldName, entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a partial document of an update request. Fields with NULL values are written as null fields to remove their values.
+     *
+     * @param contentBuilder    Builder of the request content
+     * @param partialDocument   Partial document
+     * @param documentWriter    Writer of the non null fields
+     * @throws IOException      If the content could not be written
+     */
+    public void writePartial(XContentBuilder contentBuilder, Map<String, Object> partialDocument, DocumentWriter documentWriter) throws IOException {
+        documentWriter.write(contentBuilder, partialDocument);
+        for (Map.Entry<String, Object> entry : partialDocument.entrySet()) {
+            if (entry.getValue() == null) {
+                contentBuilder.nullField(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Writes a list of nested objects as array of objects.
+     *
+     * @param contentBuilder    Builder of the request content
+     * @param fieldName         Name of the nested field
+     * @param nestedObjectList  Nested objects
+     * @throws IOException      If the content could not be written
+     */
+    public void writeNestedObjects(XContentBuilder contentBuilder, String fieldName, List<Map<String, Object>> nestedObjectList) throws IOException {
+        writeNestedObjects(contentBuilder, fieldName, nestedObjectList, this::write);
+    }
+
+    /**
+     * Writes a list of nested objects as array of objects.
+     *
+     * @param contentBuilder    Builder of the request content
+     * @param fieldName         Name of the nested field
+     * @param nestedObjectList  Nested objects
+     * @param documentWriter    Writer of the fields of each nested object
+     * @throws IOException      If the content could not be written
+     */
+    public void writeNestedObjects(XContentBuilder contentBuilder, String fieldName, List<Map<String, Object>> nestedObjectList,
+                                   DocumentWriter documentWriter) throws IOException {
+        contentBuilder.startArray(fieldName);
+        for (final Map<String, Object> doc : nestedObjectList) {
+            contentBuilder.startObject();
+            documentWriter.write(contentBuilder, doc);
+            contentBuilder.endObject();
+        }
+        contentBuilder.endArray();
+    }
+
+    /**
+     * Writer of the fields of a document.
+     */
+    public interface DocumentWriter {
+
+        void write(XContentBuilder contentBuilder, Map<String, Object> doc) throws IOException;
+    }
+
+    /**
+     * Writer of a list of nested objects.
+     */
+    public interface NestedObjectsWriter {
+
+        void write(XContentBuilder contentBuilder, String fieldName, List<Map<String, Object>> nestedObjectList) throws IOException;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.RestClientConfiguration;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientMultiGetFutureAction;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Loads documents by ID via multi get requests.
+ * <p>
+ * If a batch window is set, single document requests arriving concurrently within the window are coalesced into one multi get request.
+ * A batch is sent when the window expires or the maximum batch size is reached, so a single request is delayed by the batch window at
+ * most. Batching pays off if many threads load single documents concurrently, e.g. when rendering detail views. If the loader is not
+ * registered as a bean, the elasticsearch connector loads documents without batching.
+ */
+@Component
+public class DocumentLoader implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentLoader.class);
+
+    private final Function<MultiGetRequest, CompletableFuture<MultiGetResponse>> multiGetAction;
+    private final Object batchLock = new Object();
+
+    private List<PendingGet> batch;
+    private ScheduledExecutorService batchScheduler;
+
+    @Value("${elasticsearch.service.get_batching.window:0}")
+    private long batchWindow;
+
+    @Value("${elasticsearch.service.get_batching.max_size:100}")
+    private int maxBatchSize = 100;
+
+    /**
+     * Constructor
+     *
+     * @param restClientConfiguration   Rest client configuration
+     */
+    @Autowired
+    public DocumentLoader(RestClientConfiguration restClientConfiguration) {
+        this(request -> new RestClientMultiGetFutureAction().action(restClientConfiguration.getClient(), request));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param multiGetAction    Action sending a multi get request asynchronously
+     */
+    public DocumentLoader(Function<MultiGetRequest, CompletableFuture<MultiGetResponse>> multiGetAction) {
+        Validate.notNull(multiGetAction, "Parameter 'multiGetAction' may not be null!");
+        this.multiGetAction = multiGetAction;
+    }
+
+    /**
+     * Sets the time window to coalesce concurrent single document requests into one multi get request.
+     *
+     * @param batchWindow   Time window in milliseconds (0 = no batching)
+     */
+    public void setBatchWindow(long batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    /**
+     * Sets the maximum number of documents per batch, a full batch is sent immediately.
+     *
+     * @param maxBatchSize  Maximum number of documents per batch
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        Validate.isTrue(maxBatchSize > 0, "Parameter 'maxBatchSize' must be greater than 0!");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Gets a document.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param id            ID of the document
+     * @return              The document or <code>null</code> if the ID does not exist
+     */
+    public Map<String, Object> getDocument(String indexAlias, String id) {
+        final MultiGetRequest.Item item = new MultiGetRequest.Item(indexAlias, id);
+        final CompletableFuture<MultiGetItemResponse> future = (batchWindow > 0)
+                ? addToBatch(item)
+                : multiGetAction.apply(new MultiGetRequest().add(item)).thenApply(response -> response.getResponses()[0]);
+        return source(future.join());
+    }
+
+    /**
+     * Gets documents with a single multi get request.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param ids           IDs of the documents
+     * @param fields        Fields to be loaded from the document source (<code>null</code> or empty = all fields)
+     * @return              The documents in the order of the IDs, IDs which do not exist are skipped
+     */
+    public List<Map<String, Object>> getDocuments(String indexAlias, List<String> ids, List<String> fields) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final FetchSourceContext fetchSourceContext = CollectionUtils.isNotEmpty(fields)
+                ? new FetchSourceContext(true, fields.toArray(new String[0]), null)
+                : FetchSourceContext.FETCH_SOURCE;
+        final MultiGetRequest request = new MultiGetRequest();
+        ids.forEach(id -> request.add(new MultiGetRequest.Item(indexAlias, id).fetchSourceContext(fetchSourceContext)));
+
+        final MultiGetResponse response = multiGetAction.apply(request).join();
+        final List<Map<String, Object>> docs = new ArrayList<>(ids.size());
+        for (final MultiGetItemResponse itemResponse : response) {
+            final Map<String, Object> doc = source(itemResponse);
+            if (doc != null) {
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    private CompletableFuture<MultiGetItemResponse> addToBatch(MultiGetRequest.Item item) {
+        final CompletableFuture<MultiGetItemResponse> future = new CompletableFuture<>();
+        List<PendingGet> fullBatch = null;
+        synchronized (batchLock) {
+            if (batch == null) {
+                final List<PendingGet> newBatch = new ArrayList<>();
+                batchScheduler().schedule(() -> sendExpired(newBatch), batchWindow, TimeUnit.MILLISECONDS);
+                batch = newBatch;
+            }
+            batch.add(new PendingGet(item, future));
+            if (batch.size() >= maxBatchSize) {
+                fullBatch = batch;
+                batch = null;
+            }
+        }
+
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        return future;
+    }
+
+    private void sendExpired(List<PendingGet> expiredBatch) {
+        synchronized (batchLock) {
+            if (batch != expiredBatch) {
+                // already sent because the maximum size was reached
+                return;
+            }
+            batch = null;
+        }
+        send(expiredBatch);
+    }
+
+    private void send(List<PendingGet> gets) {
+        LOG.debug("Sending batch of {} document requests", gets.size());
+        final MultiGetRequest request = new MultiGetRequest();
+        gets.forEach(get -> request.add(get.item));
+
+        CompletableFuture<MultiGetResponse> responseFuture;
+        try {
+            responseFuture = multiGetAction.apply(request);
+        } catch (Exception e) {
+            responseFuture = new CompletableFuture<>();
+            responseFuture.completeExceptionally(e);
+        }
+        responseFuture.whenComplete((response, e) -> {
+            for (int i = 0; i < gets.size(); i++) {
+                if (e != null) {
+                    gets.get(i).future.completeExceptionally(e);
+                } else {
+                    gets.get(i).future.complete(response.getResponses()[i]);
+                }
+            }
+        });
+    }
+
+    private Map<String, Object> source(MultiGetItemResponse itemResponse) {
+        if (itemResponse.isFailed()) {
+            throw new RuntimeException("Failed to get document: id=" + itemResponse.getId(), itemResponse.getFailure().getFailure());
+        }
+        return itemResponse.getResponse().isExists() ? itemResponse.getResponse().getSourceAsMap() : null;
+    }
+
+    private synchronized ScheduledExecutorService batchScheduler() {
+        if (batchScheduler == null) {
+            batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "document-loader-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return batchScheduler;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (batchScheduler != null) {
+            batchScheduler.shutdown();
+            batchScheduler = null;
+        }
+    }
+
+    private static class PendingGet {
+
+        final MultiGetRequest.Item item;
+        final CompletableFuture<MultiGetItemResponse> future;
+
+        PendingGet(MultiGetRequest.Item item, CompletableFuture<MultiGetItemResponse> future) {
+            this.item = item;
+            this.future = future;
+        }
+    }
+}
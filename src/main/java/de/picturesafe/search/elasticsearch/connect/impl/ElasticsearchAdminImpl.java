@@ -22,6 +22,7 @@ import de.picturesafe.search.elasticsearch.config.IndexSettingsObject;
 import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
 import de.picturesafe.search.elasticsearch.config.RestClientConfiguration;
 import de.picturesafe.search.elasticsearch.connect.ElasticsearchAdmin;
+import de.picturesafe.search.elasticsearch.connect.dto.ReindexStatusDto;
 import de.picturesafe.search.elasticsearch.connect.error.AliasAlreadyExistsException;
 import de.picturesafe.search.elasticsearch.connect.error.AliasCreateException;
 import de.picturesafe.search.elasticsearch.connect.error.AliasHasMoreThanOneIndexException;
@@ -32,6 +33,7 @@ import de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils;
 import de.picturesafe.search.elasticsearch.connect.util.logging.XcontentToString;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
@@ -39,6 +41,11 @@ import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
 import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.client.RequestOptions;
@@ -49,11 +56,19 @@ import org.elasticsearch.client.indices.GetIndexRequest;
 import org.elasticsearch.client.indices.GetMappingsRequest;
 import org.elasticsearch.client.indices.GetMappingsResponse;
 import org.elasticsearch.client.indices.PutMappingRequest;
+import org.elasticsearch.client.tasks.GetTaskRequest;
+import org.elasticsearch.client.tasks.GetTaskResponse;
+import org.elasticsearch.client.tasks.TaskSubmissionResponse;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.elasticsearch.tasks.RawTaskStatus;
+import org.elasticsearch.tasks.Task;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -63,11 +78,13 @@ import org.springframework.util.Assert;
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 
@@ -339,56 +356,164 @@ public class ElasticsearchAdminImpl implements ElasticsearchAdmin {
         Assert.isTrue(timeoutInMsec > 0, "timeout must be > 0");
         Assert.notNull(minStatus, "minStatus must be != null");
 
-        String clusterName = null;
-        ClusterHealthRequest request;
-        ClusterHealthResponse response;
+        if (indexName == null) {
+            LOG.debug("Waiting at most {} msec for a minimal cluster status of {}.", timeoutInMsec, minStatus);
+        } else {
+            LOG.debug("Waiting at most {} msec for a minimal cluster status of {} for index '{}'.", timeoutInMsec, minStatus, indexName);
+        }
+
         try {
-            request = new ClusterHealthRequest().local(true);
-            response = restClient.cluster().health(request, RequestOptions.DEFAULT);
+            // elasticsearch waits for the status on server side and answers as soon as it is reached or the timeout has expired
+            final ClusterHealthRequest request = new ClusterHealthRequest().local(true).waitForStatus(minStatus)
+                    .timeout(TimeValue.timeValueMillis(timeoutInMsec));
+            if (indexName != null) {
+                request.indices(indexName);
+            }
 
-            clusterName = response.getClusterName();
+            final ClusterHealthResponse response = restClient.cluster().health(request, RequestOptions.DEFAULT);
+            final ClusterHealthStatus status = response.getStatus();
+            if (!response.isTimedOut() && status.value() <= minStatus.value()) {
+                LOG.debug("Health status of cluster '{}' is {}.", response.getClusterName(), status);
+                return true;
+            }
+            LOG.debug("Health status of cluster '{}' is {}, expected at least {}.", response.getClusterName(), status, minStatus);
         } catch (Exception e) {
-            LOG.warn("Unable to retrieve cluster name.", e);
+            LOG.warn("Exception occured while waiting for cluster status " + minStatus.name() + ", perhaps the cluster is not reachable?", e);
         }
+        LOG.warn("Minimal cluster status " + minStatus.name() + " not reached after more than " + timeoutInMsec + " msec, giving up!");
+        return false;
+    }
 
-        if (indexName == null) {
-            LOG.info(new MessageFormat("Waiting at most timeout=\"{0}\" for a minimal cluster status of \"{1}\" for cluster named \"{2}\".", Locale.ROOT)
-                    .format(new Object[]{timeoutInMsec, minStatus, clusterName}));
-        } else {
-            LOG.info(new MessageFormat("Waiting at most timeout=\"{0}\" for a minimal cluster status of \"{1}\" for cluster named \"{2}\" "
-                    + "and indexName \"{3}\"", Locale.ROOT).format(new Object[]{timeoutInMsec, minStatus, clusterName, indexName}));
+    @Override
+    public Map<String, String> getIndexSettings(String indexName, Collection<String> settingNames) {
+        Validate.notEmpty(indexName, "Parameter 'indexName' may not be null or empty!");
+        Validate.notEmpty(settingNames, "Parameter 'settingNames' may not be null or empty!");
+
+        final GetSettingsResponse response;
+        try {
+            response = restClient.indices().getSettings(new GetSettingsRequest().indices(indexName).names(settingNames.toArray(new String[0])),
+                    RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to get settings of index '" + indexName + "'!", e);
+        }
+        final Map<String, String> settings = new HashMap<>();
+        for (final String settingName : settingNames) {
+            settings.put(settingName, response.getSetting(indexName, settingName));
         }
+        return settings;
+    }
 
-        // Calculate increment ( 1/10 of the timeout, minimum 10 msec, maximum 1 sec)
-        final long increment = Math.min(Math.max(timeoutInMsec / 10, 10), 1000);
+    @Override
+    public void updateIndexSettings(String indexName, Map<String, Object> settings) {
+        Validate.notEmpty(indexName, "Parameter 'indexName' may not be null or empty!");
+        Validate.notEmpty(settings, "Parameter 'settings' may not be null or empty!");
+
+        final Settings.Builder settingsBuilder = Settings.builder();
+        settings.forEach((name, value) -> {
+            if (value != null) {
+                settingsBuilder.put(name, value.toString());
+            } else {
+                settingsBuilder.putNull(name);
+            }
+        });
+        try {
+            final AcknowledgedResponse response
+                    = restClient.indices().putSettings(new UpdateSettingsRequest(indexName).settings(settingsBuilder), RequestOptions.DEFAULT);
+            if (!response.isAcknowledged()) {
+                throw new RuntimeException("Elasticsearch did not acknowledge update settings request: " + response);
+            }
+            LOG.debug("Updated settings of index '{}': {}", indexName, settings);
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to update settings of index '" + indexName + "'!", e);
+        }
+    }
+
+    @Override
+    public void forceMerge(String indexName, int maxNumSegments) {
+        Validate.notEmpty(indexName, "Parameter 'indexName' may not be null or empty!");
+        Validate.isTrue(maxNumSegments > 0, "Parameter 'maxNumSegments' must be greater than 0!");
 
-        // calculate end time
-        final long endTime = System.currentTimeMillis() + timeoutInMsec;
+        try {
+            final ForceMergeResponse response
+                    = restClient.indices().forcemerge(new ForceMergeRequest(indexName).maxNumSegments(maxNumSegments), RequestOptions.DEFAULT);
+            if (response.getFailedShards() > 0) {
+                throw new RuntimeException("Force merge failed on " + response.getFailedShards() + " shards");
+            }
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to force merge index '" + indexName + "'!", e);
+        }
+    }
 
+    @Override
+    public List<String> swapAlias(String indexAlias, String indexName) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notEmpty(indexName, "Parameter 'indexName' may not be null or empty!");
+
+        final List<String> oldIndexNames = aliasExists(indexAlias) ? resolveIndexNames(indexAlias) : new ArrayList<>();
+        oldIndexNames.remove(indexName);
+        final IndicesAliasesRequest request = new IndicesAliasesRequest();
+        if (!oldIndexNames.isEmpty()) {
+            request.addAliasAction(new IndicesAliasesRequest.AliasActions(IndicesAliasesRequest.AliasActions.Type.REMOVE)
+                    .indices(oldIndexNames.toArray(new String[0])).alias(indexAlias));
+        }
+        request.addAliasAction(new IndicesAliasesRequest.AliasActions(IndicesAliasesRequest.AliasActions.Type.ADD).index(indexName).alias(indexAlias));
         try {
-            // The loop is executed until the end time is reached
-            while (endTime > System.currentTimeMillis()) {
+            final AcknowledgedResponse response = restClient.indices().updateAliases(request, RequestOptions.DEFAULT);
+            if (!response.isAcknowledged()) {
+                throw new RuntimeException("Elasticsearch did not acknowledge update aliases request: " + response);
+            }
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to swap alias '" + indexAlias + "' to index '" + indexName + "'!", e);
+        }
+        LOG.info("Swapped alias '{}' from {} to index '{}'", indexAlias, oldIndexNames, indexName);
+        return oldIndexNames;
+    }
 
-                request = new ClusterHealthRequest().local(true).timeout(TimeValue.timeValueMillis(timeoutInMsec));
-                if (indexName != null) {
-                    request.indices(indexName);
-                }
+    @Override
+    public String startReindexTask(List<String> sourceIndexNames, String targetIndexName, int slices, int batchSize) {
+        Validate.notEmpty(sourceIndexNames, "Parameter 'sourceIndexNames' may not be null or empty!");
+        Validate.notEmpty(targetIndexName, "Parameter 'targetIndexName' may not be null or empty!");
+
+        final ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(sourceIndexNames.toArray(new String[0]))
+                .setDestIndex(targetIndexName)
+                .setSlices((slices > 0) ? slices : AbstractBulkByScrollRequest.AUTO_SLICES)
+                .setSourceBatchSize(batchSize)
+                .setRefresh(false);
+        try {
+            final TaskSubmissionResponse response = restClient.submitReindexTask(request, RequestOptions.DEFAULT);
+            LOG.info("Started reindex task '{}' from {} to index '{}'", response.getTask(), sourceIndexNames, targetIndexName);
+            return response.getTask();
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to start reindex from " + sourceIndexNames + " to index '" + targetIndexName + "'!", e);
+        }
+    }
 
-                response = restClient.cluster().health(request, RequestOptions.DEFAULT);
-                final ClusterHealthStatus status = response.getStatus();
-                if (status.value() <= minStatus.value()) {
-                    LOG.debug("Cluster health status is " + status.name() + ".");
-                    return true;
-                }
-                LOG.debug("Cluster health status is " + status.name() + ", still waiting for status " + minStatus.name() + ".");
+    @Override
+    public ReindexStatusDto getReindexTaskStatus(String taskId) {
+        Validate.notEmpty(taskId, "Parameter 'taskId' may not be null or empty!");
 
-                Thread.sleep(increment);
-            }
+        final String nodeId = StringUtils.substringBefore(taskId, ":");
+        final long id = Long.parseLong(StringUtils.substringAfter(taskId, ":"));
+        final Optional<GetTaskResponse> response;
+        try {
+            response = restClient.tasks().get(new GetTaskRequest(nodeId, id), RequestOptions.DEFAULT);
         } catch (Exception e) {
-            LOG.warn("Exception occured while waiting for cluster status " + minStatus.name() + ", perhaps the cluster is not reachable?", e);
+            throw new ElasticsearchException("Failed to get status of reindex task '" + taskId + "'!", e);
         }
-        LOG.warn("Minimal cluster status " + minStatus.name() + " not reached after more than " + timeoutInMsec + " msec, giving up!");
-        return false;
+        if (!response.isPresent()) {
+            return null;
+        }
+
+        final Task.Status status = response.get().getTaskInfo().getStatus();
+        final Map<String, Object> statusMap = (status instanceof RawTaskStatus) ? ((RawTaskStatus) status).toMap() : Collections.emptyMap();
+        return new ReindexStatusDto(response.get().isCompleted(), longValue(statusMap, "total"), longValue(statusMap, "created"),
+                longValue(statusMap, "updated"), longValue(statusMap, "noops"), longValue(statusMap, "version_conflicts"));
+    }
+
+    private long longValue(Map<String, Object> map, String key) {
+        final Object value = map.get(key);
+        return (value instanceof Number) ? ((Number) value).longValue() : 0;
     }
 
     @Override
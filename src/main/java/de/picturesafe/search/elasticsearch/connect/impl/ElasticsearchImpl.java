@@ -24,23 +24,27 @@ import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
 import de.picturesafe.search.elasticsearch.config.RestClientConfiguration;
 import de.picturesafe.search.elasticsearch.connect.Elasticsearch;
 import de.picturesafe.search.elasticsearch.connect.ElasticsearchAdmin;
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.CachingFacetResolver;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.FacetConverter;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.FacetConverterChain;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.FacetResolver;
 import de.picturesafe.search.elasticsearch.connect.aggregation.search.AggregationBuilderFactory;
 import de.picturesafe.search.elasticsearch.connect.aggregation.search.AggregationBuilderFactoryRegistry;
-import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientBulkAction;
-import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientDeleteAction;
-import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientDeleteByQueryAction;
-import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientIndexAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientCountAction;
 import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientIndexRefreshAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientMultiGetAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientMultiGetFutureAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientMultiSearchAction;
 import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientSearchAction;
-import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientUpdateByQueryAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientSearchFutureAction;
 import de.picturesafe.search.elasticsearch.connect.context.SearchContext;
 import de.picturesafe.search.elasticsearch.connect.dto.FacetDto;
+import de.picturesafe.search.elasticsearch.connect.dto.MultiSearchResultDto;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryRangeDto;
+import de.picturesafe.search.elasticsearch.connect.dto.ReindexStatusDto;
 import de.picturesafe.search.elasticsearch.connect.dto.SearchHitDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchRequestDto;
 import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
 import de.picturesafe.search.elasticsearch.connect.error.AliasAlreadyExistsException;
 import de.picturesafe.search.elasticsearch.connect.error.AliasCreateException;
@@ -48,18 +52,18 @@ import de.picturesafe.search.elasticsearch.connect.error.AliasHasMoreThanOneInde
 import de.picturesafe.search.elasticsearch.connect.error.ElasticExceptionCause;
 import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
 import de.picturesafe.search.elasticsearch.connect.error.IndexCreateException;
-import de.picturesafe.search.elasticsearch.connect.error.IndexMissingException;
 import de.picturesafe.search.elasticsearch.connect.error.QuerySyntaxException;
 import de.picturesafe.search.elasticsearch.connect.filter.FilterFactory;
 import de.picturesafe.search.elasticsearch.connect.query.QueryFactory;
+import de.picturesafe.search.elasticsearch.connect.query.QueryCache;
 import de.picturesafe.search.elasticsearch.connect.query.QueryFactoryCaller;
-import de.picturesafe.search.elasticsearch.connect.util.ElasticDateUtils;
 import de.picturesafe.search.elasticsearch.connect.util.ElasticExceptionUtils;
-import de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils;
-import de.picturesafe.search.elasticsearch.connect.util.StringTrimUtility;
+import de.picturesafe.search.elasticsearch.connect.util.LazySourceMap;
 import de.picturesafe.search.elasticsearch.connect.util.logging.SearchRequestSourceToString;
 import de.picturesafe.search.elasticsearch.connect.util.logging.SearchResponseToString;
 import de.picturesafe.search.elasticsearch.model.DocumentBuilder;
+import de.picturesafe.search.elasticsearch.metrics.MetricsRecorder;
+import de.picturesafe.search.elasticsearch.metrics.NoopMetricsRecorder;
 import de.picturesafe.search.elasticsearch.model.ElasticsearchInfo;
 import de.picturesafe.search.elasticsearch.model.IdFormat;
 import de.picturesafe.search.elasticsearch.timezone.TimeZoneAware;
@@ -70,7 +74,6 @@ import de.picturesafe.search.parameter.ScriptDefinition;
 import de.picturesafe.search.parameter.ScriptSortOption;
 import de.picturesafe.search.parameter.SearchAggregation;
 import de.picturesafe.search.parameter.SortOption;
-import de.picturesafe.search.util.logging.StopWatchPrettyPrint;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -78,24 +81,33 @@ import org.apache.commons.lang3.Validate;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
-import org.elasticsearch.action.get.GetRequest;
-import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.core.CountResponse;
 import org.elasticsearch.client.core.MainResponse;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.InnerHitBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -104,55 +116,56 @@ import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryRequest;
 import org.elasticsearch.index.reindex.UpdateByQueryRequest;
 import org.elasticsearch.rest.RestStatus;
-import org.elasticsearch.script.Script;
-import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
-import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
-import org.elasticsearch.search.sort.NestedSortBuilder;
 import org.elasticsearch.search.sort.ScriptSortBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
-import org.elasticsearch.search.sort.SortMode;
 import org.elasticsearch.search.sort.SortOrder;
-import org.elasticsearch.search.suggest.Suggest;
-import org.elasticsearch.search.suggest.SuggestBuilder;
-import org.elasticsearch.search.suggest.completion.CompletionSuggestionBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static de.picturesafe.search.elasticsearch.connect.error.ElasticExceptionCause.Type.QUERY_SYNTAX;
 import static de.picturesafe.search.elasticsearch.connect.filter.util.FilterFactoryUtils.createFilter;
+import static de.picturesafe.search.elasticsearch.connect.mapping.MappingConstants.KEYWORD_FIELD;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticAggregationUtils.aggregationField;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticDocumentUtils.getDocValue;
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticDocumentUtils.getId;
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticRequestUtils.getRefreshPolicy;
-import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.fieldConfiguration;
-import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.isTextField;
-import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.keywordFieldName;
-import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.sortFieldName;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticRequestUtils.script;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticSuggestUtils.suggestBuilder;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticSuggestUtils.suggestedTexts;
 
 @Component
 @SuppressWarnings({"unused"})
@@ -172,15 +185,51 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     protected FacetConverterChain facetConverterChain;
     protected List<FacetResolver> facetResolvers;
     protected WriteRequestHandler writeRequestHandler;
+    protected ClusterHealthMonitor clusterHealthMonitor;
+    protected DocumentContentWriter documentContentWriter = new DocumentContentWriter(() -> timeZone);
+    protected SearchFieldsBuilder searchFieldsBuilder = new SearchFieldsBuilder();
+    protected WriteRequestExecutor writeRequestExecutor = new WriteRequestExecutor(() -> restClient);
+    protected DocumentLoader documentLoader;
 
     @Value("${elasticsearch.service.check_cluster_status_timeout:10000}")
     protected long checkClusterStatusTimeout;
     @Value("${elasticsearch.service.indexing_bulk_size:1000}")
     protected int indexingBulkSize;
+    @Value("${elasticsearch.service.indexing_bulk_bytes:5242880}")
+    protected long indexingBulkBytes;
+    @Value("${elasticsearch.service.indexing_concurrent_requests:1}")
+    protected int indexingConcurrentRequests;
+    @Value("${elasticsearch.service.indexing_max_retries:8}")
+    protected int indexingMaxRetries;
+    @Value("${elasticsearch.service.indexing_retry_initial_delay:50}")
+    protected long indexingRetryInitialDelay;
     @Value("${elasticsearch.service.missing_value_sort_position:LAST}")
     protected MissingValueSortPosition missingValueSortPosition;
+    @Value("${elasticsearch.service.query_cache.max_size:0}")
+    protected int queryCacheMaxSize;
+    @Value("${elasticsearch.service.search_result_cache.max_size:0}")
+    protected int searchResultCacheMaxSize;
+    @Value("${elasticsearch.service.search_result_cache.ttl:10000}")
+    protected long searchResultCacheTtl;
+    @Value("${elasticsearch.service.search_result_cache.refresh_interval:1000}")
+    protected long searchResultCacheRefreshInterval;
+    @Value("${elasticsearch.service.facet_resolver_cache.max_size:0}")
+    protected int facetResolverCacheMaxSize;
+    @Value("${elasticsearch.service.facet_resolver_cache.ttl:300000}")
+    protected long facetResolverCacheTtl;
+    @Value("${elasticsearch.service.lazy_source_parsing.enabled:false}")
+    protected boolean lazySourceParsingEnabled;
+    @Value("${elasticsearch.service.content_hash.field:}")
+    protected String contentHashField;
+    @Value("${elasticsearch.service.content_hash.cache_size:100000}")
+    protected int contentHashCacheSize;
 
     protected IdFormat idFormat = IdFormat.DEFAULT;
+    protected Executor asyncExecutor = ForkJoinPool.commonPool();
+    protected QueryCache queryCache;
+    protected SearchResultCache searchResultCache;
+    protected ContentHashFilter contentHashFilter;
+    protected MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
 
     @Autowired
     public ElasticsearchImpl(ElasticsearchAdmin elasticsearchAdmin,
@@ -208,6 +257,7 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     @Autowired(required = false)
     public void setFacetResolvers(List<FacetResolver> facetResolvers) {
         this.facetResolvers = facetResolvers;
+        setFacetResolverCache(facetResolverCacheMaxSize, facetResolverCacheTtl);
     }
 
     @Autowired(required = false)
@@ -218,6 +268,24 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     @Autowired(required = false)
     public void setWriteRequestHandler(WriteRequestHandler writeRequestHandler) {
         this.writeRequestHandler = writeRequestHandler;
+        if (writeRequestHandler != null) {
+            writeRequestHandler.addWriteListener(this::invalidateSearchResults);
+        }
+    }
+
+    @Autowired(required = false)
+    public void setClusterHealthMonitor(ClusterHealthMonitor clusterHealthMonitor) {
+        this.clusterHealthMonitor = clusterHealthMonitor;
+    }
+
+    @Autowired(required = false)
+    public void setDocumentLoader(DocumentLoader documentLoader) {
+        this.documentLoader = documentLoader;
+    }
+
+    @Autowired(required = false)
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
     }
 
     public void setCheckClusterStatusTimeout(long checkClusterStatusTimeout) {
@@ -228,13 +296,113 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         this.indexingBulkSize = indexingBulkSize;
     }
 
+    public void setIndexingBulkBytes(long indexingBulkBytes) {
+        this.indexingBulkBytes = indexingBulkBytes;
+    }
+
+    public void setIndexingConcurrentRequests(int indexingConcurrentRequests) {
+        this.indexingConcurrentRequests = indexingConcurrentRequests;
+    }
+
+    public void setIndexingMaxRetries(int indexingMaxRetries) {
+        this.indexingMaxRetries = indexingMaxRetries;
+    }
+
+    public void setIndexingRetryInitialDelay(long indexingRetryInitialDelay) {
+        this.indexingRetryInitialDelay = indexingRetryInitialDelay;
+    }
+
     public void setMissingValueSortPosition(MissingValueSortPosition missingValueSortPosition) {
         this.missingValueSortPosition = missingValueSortPosition;
     }
 
+    /**
+     * Sets if the source of search hits should be parsed lazily on first access of the attributes.
+     *
+     * @param lazySourceParsingEnabled TRUE to parse the source of search hits lazily
+     */
+    public void setLazySourceParsingEnabled(boolean lazySourceParsingEnabled) {
+        this.lazySourceParsingEnabled = lazySourceParsingEnabled;
+    }
+
+    /**
+     * Sets the maximum number of queries to be cached (0 = query cache disabled).
+     *
+     * @param queryCacheMaxSize Maximum number of cached queries
+     */
+    public void setQueryCacheMaxSize(int queryCacheMaxSize) {
+        this.queryCacheMaxSize = queryCacheMaxSize;
+        this.queryCache = (queryCacheMaxSize > 0) ? new QueryCache(queryCacheMaxSize) : null;
+    }
+
+    /**
+     * Sets the local cache for search results (maximum size 0 = search result cache disabled). Cached results of an index alias will be
+     * invalidated by every write request to the alias made by this instance, writes handled by a write request handler once more after
+     * they have been sent to elasticsearch.
+     *
+     * @param maxSize           Maximum number of cached search results
+     * @param timeToLive        Time to live of cached search results in milliseconds
+     * @param refreshInterval   Refresh interval of the indices in milliseconds, results will not be cached within this interval after a write
+     */
+    public void setSearchResultCache(int maxSize, long timeToLive, long refreshInterval) {
+        this.searchResultCacheMaxSize = maxSize;
+        this.searchResultCacheTtl = timeToLive;
+        this.searchResultCacheRefreshInterval = refreshInterval;
+        this.searchResultCache = (maxSize > 0) ? new SearchResultCache(maxSize, timeToLive, refreshInterval) : null;
+    }
+
+    /**
+     * Sets the cache for the values resolved by the facet resolvers (maximum size 0 = facet resolver cache disabled).
+     * Each facet resolver gets its own cache, values are cached per locale.
+     *
+     * @param maxSize       Maximum number of cached values per facet resolver
+     * @param timeToLive    Time to live of cached values in milliseconds
+     */
+    public void setFacetResolverCache(int maxSize, long timeToLive) {
+        this.facetResolverCacheMaxSize = maxSize;
+        this.facetResolverCacheTtl = timeToLive;
+        if (facetResolvers != null) {
+            facetResolvers = facetResolvers.stream()
+                    .map(CachingFacetResolver::unwrap)
+                    .map(facetResolver -> (maxSize > 0) ? new CachingFacetResolver(facetResolver, maxSize, timeToLive) : facetResolver)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Sets the field storing a hash of the document content, indexing of unchanged documents will be skipped (empty = disabled).
+     *
+     * @param contentHashField      Name of the hash field
+     * @param contentHashCacheSize  Maximum number of hashes cached on client side (0 = hashes will always be loaded from the index)
+     */
+    public void setContentHash(String contentHashField, int contentHashCacheSize) {
+        this.contentHashField = contentHashField;
+        this.contentHashCacheSize = contentHashCacheSize;
+        this.contentHashFilter = StringUtils.isNotEmpty(contentHashField)
+                ? new ContentHashFilter(contentHashField, contentHashCacheSize, request -> new RestClientMultiGetAction().action(restClient, request))
+                : null;
+    }
+
+    /**
+     * Sets the executor processing the responses of asynchronous requests (defaults to the common fork join pool).
+     * Responses should not be processed on the I/O threads of the REST client.
+     *
+     * @param asyncExecutor Executor for response processing
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     @PostConstruct
     public void init() {
         this.restClient = restClientConfiguration.getClient();
+        setQueryCacheMaxSize(queryCacheMaxSize);
+        setSearchResultCache(searchResultCacheMaxSize, searchResultCacheTtl, searchResultCacheRefreshInterval);
+        setFacetResolverCache(facetResolverCacheMaxSize, facetResolverCacheTtl);
+        setContentHash(contentHashField, contentHashCacheSize);
+        if (documentLoader == null) {
+            documentLoader = new DocumentLoader(request -> new RestClientMultiGetFutureAction().action(restClient, request));
+        }
     }
 
     @Override
@@ -247,6 +415,11 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
         Validate.notNull(document, "Parameter 'document' may not be null!");
 
+        if (contentHashFilter != null) {
+            addToIndex(indexAlias, applyIndexRefresh, true, Collections.singletonList(document));
+            return;
+        }
+
         try {
             final IndexRequest indexRequest = createIndexRequest(document, indexAlias, applyIndexRefresh);
             if (!handleRequestExternally(indexRequest)) {
@@ -265,54 +438,114 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     public Map<String, Boolean> addToIndex(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure, List<Map<String, Object>> docs) {
         Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be empty!");
 
-        final Map<String, Boolean> results = new HashMap<>();
+        final Map<String, Boolean> results = new ConcurrentHashMap<>();
         if (CollectionUtils.isEmpty(docs)) {
             return results;
         }
 
-        final StopWatch sw = new StopWatch("index");
-        try {
+        addToIndex(indexAlias, applyIndexRefresh, exceptionOnFailure, docs.iterator(),
+                itemResponse -> results.put(itemResponse.getId(), itemResponse.getFailure() == null), id -> results.put(id, true));
+        return results;
+    }
+
+    @Override
+    public long addToIndex(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure, Iterator<Map<String, Object>> docs) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be empty!");
+        Validate.notNull(docs, "Parameter 'docs' may not be null!");
+
+        final AtomicLong successCount = new AtomicLong();
+        addToIndex(indexAlias, applyIndexRefresh, exceptionOnFailure, docs, itemResponse -> {
+            if (itemResponse.getFailure() == null) {
+                successCount.incrementAndGet();
+            }
+        }, id -> successCount.incrementAndGet());
+        return successCount.get();
+    }
+
+    protected void addToIndex(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure, Iterator<Map<String, Object>> docs,
+                              Consumer<BulkItemResponse> itemResponseHandler, Consumer<String> unchangedDocumentHandler) {
+        final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+        final Consumer<BulkItemResponse> responseHandler
+                = (contentHashFilter != null) ? contentHashFilter.recordOnSuccess(indexAlias, contentHashes, itemResponseHandler) : itemResponseHandler;
+        try (BulkIndexer bulkIndexer = bulkIndexer(indexAlias, exceptionOnFailure, responseHandler)) {
             BulkRequest bulkRequest = null;
-            final int size = docs.size();
-            for (int i = 0; i < size; i++) {
+            while (docs.hasNext()) {
                 if (bulkRequest == null) {
                     bulkRequest = new BulkRequest();
                     bulkRequest.setRefreshPolicy(getRefreshPolicy(applyIndexRefresh));
                 }
 
-                final Map<String, Object> doc = docs.get(i);
+                Map<String, Object> doc = docs.next();
+                if (contentHashFilter != null) {
+                    doc = contentHashFilter.withContentHash(doc, this::documentContent, contentHashes);
+                }
                 final IndexRequest indexRequest = createIndexRequest(doc, indexAlias, false);
                 bulkRequest.add(indexRequest);
-                if (bulkRequest.numberOfActions() > indexingBulkSize || i == size - 1) {
-                    if (!handleRequestExternally(bulkRequest)) {
+                if (isBulkComplete(bulkRequest) || !docs.hasNext()) {
+                    if (contentHashFilter != null) {
+                        bulkRequest = contentHashFilter.removeUnchanged(indexAlias, bulkRequest, contentHashes, unchangedDocumentHandler);
+                    }
+                    if (bulkRequest.numberOfActions() > 0 && !handleRequestExternally(bulkRequest)) {
                         LOG.debug("Adding {} documents to index '{}'.", bulkRequest.numberOfActions(), indexAlias);
-
-                        sw.start("add");
-                        final BulkResponse bulkResponse = handleRequest(bulkRequest);
-                        LOG.debug("Bulk add response: {}", bulkResponse);
-                        if (exceptionOnFailure && bulkResponse.hasFailures()) {
-                            throw new ElasticsearchException("Add to index failed: " + bulkResponse.buildFailureMessage());
-                        }
-                        bulkResponse.forEach(itemResponse -> results.put(itemResponse.getId(), itemResponse.getFailure() == null));
-                        sw.stop();
+                        metricsRecorder.recordValue(MetricsRecorder.BULK_SIZE, indexAlias, bulkRequest.numberOfActions());
+                        metricsRecorder.recordValue(MetricsRecorder.BULK_BYTES, indexAlias, bulkRequest.estimatedSizeInBytes());
+                        bulkIndexer.add(bulkRequest);
+                    } else if (contentHashFilter != null) {
+                        contentHashFilter.discard(indexAlias, bulkRequest, contentHashes);
                     }
                     bulkRequest = null;
                 }
             }
-            LOG.debug("{}", new StopWatchPrettyPrint(sw));
-
-            return results;
         } catch (Exception e) {
+            invalidateContentHash(indexAlias, null);
             throw new ElasticsearchException("Failed to add documents to index: indexAlias=" + indexAlias, e);
         }
     }
 
+    protected boolean isBulkComplete(BulkRequest bulkRequest) {
+        return bulkRequest.numberOfActions() > indexingBulkSize || (indexingBulkBytes > 0 && bulkRequest.estimatedSizeInBytes() >= indexingBulkBytes);
+    }
+
+    protected BulkIndexer bulkIndexer(String indexAlias, boolean exceptionOnFailure, Consumer<BulkItemResponse> itemResponseHandler) {
+        // with 0 concurrent requests bulks are sent in the calling thread, only retries are executed asynchronously
+        final boolean synchronous = indexingConcurrentRequests <= 0;
+        final BackoffPolicy backoffPolicy = (indexingMaxRetries > 0)
+                ? BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(indexingRetryInitialDelay), indexingMaxRetries)
+                : BackoffPolicy.noBackoff();
+        final BulkIndexer bulkIndexer = new BulkIndexer(bulkRequest -> {
+            final long start = System.nanoTime();
+            final CompletableFuture<BulkResponse> future = synchronous
+                    ? CompletableFuture.completedFuture(this.<BulkRequest, BulkResponse>handleRequest(bulkRequest))
+                    : handleRequestAsync(bulkRequest);
+            return future.whenComplete((bulkResponse, e) ->
+                    metricsRecorder.recordTime(MetricsRecorder.BULK_REQUEST, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }, bulkResponse -> {
+            LOG.debug("Added {} documents to index '{}' in {}.", bulkResponse.getItems().length, indexAlias, bulkResponse.getTook());
+            handleBulkResponse(indexAlias, bulkResponse, exceptionOnFailure, itemResponseHandler);
+        }, Math.max(indexingConcurrentRequests, 1), backoffPolicy);
+        bulkIndexer.setRetryHandler(retryRequest -> metricsRecorder.recordValue(MetricsRecorder.BULK_RETRIES, indexAlias, retryRequest.numberOfActions()));
+        bulkIndexer.setFailureHandler((failedItems, retriesExhausted) -> metricsRecorder.recordValue(retriesExhausted
+                ? MetricsRecorder.BULK_FAILURES_RETRIES_EXHAUSTED : MetricsRecorder.BULK_FAILURES_PERMANENT, indexAlias, failedItems.size()));
+        return bulkIndexer;
+    }
+
+    protected void handleBulkResponse(String indexAlias, BulkResponse bulkResponse, boolean exceptionOnFailure,
+                                      Consumer<BulkItemResponse> itemResponseHandler) {
+        LOG.debug("Bulk add response: {}", bulkResponse);
+        metricsRecorder.recordTime(MetricsRecorder.BULK_TOOK, indexAlias, bulkResponse.getTook().millis(), TimeUnit.MILLISECONDS);
+        if (exceptionOnFailure && bulkResponse.hasFailures()) {
+            throw new ElasticsearchException("Add to index failed: " + bulkResponse.buildFailureMessage());
+        }
+        bulkResponse.forEach(itemResponseHandler);
+    }
+
     @Override
     public void removeFromIndex(String indexAlias, boolean applyIndexRefresh, Object id) {
         Validate.notNull(indexAlias, "Parameter 'indexAlias' may not be null.");
         Validate.notNull(id, "Parameter 'id' may not be null.");
 
         final DeleteRequest deleteRequest = createDeleteRequest(id, indexAlias, applyIndexRefresh);
+        invalidateContentHash(indexAlias, deleteRequest.id());
         if (!handleRequestExternally(deleteRequest)) {
             final DeleteResponse deleteResponse = handleRequest(deleteRequest);
             LOG.debug("Delete response: {}", deleteResponse);
@@ -347,6 +580,7 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
                 final BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(getRefreshPolicy(applyIndexRefresh));
                 for (int i = count; i < count + size; i++) {
                     bulkRequest.add(new DeleteRequest(indexAlias, idsAsArray[i]));
+                    invalidateContentHash(indexAlias, idsAsArray[i]);
                 }
 
                 if (!handleRequestExternally(bulkRequest)) {
@@ -368,6 +602,7 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         final InternalSearchRequest internalSearchRequest = searchRequest(indexPresetConfiguration, queryDto, mappingConfiguration);
         final DeleteByQueryRequest deleteByQueryRequest = new DeleteByQueryRequest(indexPresetConfiguration.getIndexAlias()).setRefresh(applyIndexRefresh);
         deleteByQueryRequest.getSearchRequest().source(internalSearchRequest.searchRequest.source());
+        invalidateContentHash(indexPresetConfiguration.getIndexAlias(), null);
 
         if (!handleRequestExternally(deleteByQueryRequest)) {
             LOG.debug("Delete by query request: {}", new SearchRequestSourceToString(internalSearchRequest.searchRequest));
@@ -376,16 +611,106 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         }
     }
 
+    @Override
+    public void updateDocument(String indexAlias, boolean applyIndexRefresh, Object id, Map<String, Object> partialDocument) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(id, "Parameter 'id' may not be null!");
+        Validate.notNull(partialDocument, "Parameter 'partialDocument' may not be null!");
+
+        try {
+            final UpdateRequest updateRequest = createUpdateRequest(id, partialDocument, indexAlias, applyIndexRefresh);
+            if (!handleRequestExternally(updateRequest)) {
+                final UpdateResponse updateResponse = handleRequest(updateRequest);
+                LOG.debug("Update response: {}", updateResponse);
+            }
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to update document in index '" + indexAlias + "': id=" + id, e);
+        }
+    }
+
+    @Override
+    public Map<String, Boolean> updateDocuments(String indexAlias, boolean applyIndexRefresh, boolean exceptionOnFailure,
+                                                Map<?, Map<String, Object>> partialDocuments) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(partialDocuments, "Parameter 'partialDocuments' may not be null!");
+
+        final Map<String, Boolean> results = new HashMap<>();
+        BulkRequest bulkRequest = null;
+        for (final Iterator<? extends Map.Entry<?, Map<String, Object>>> it = partialDocuments.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<?, Map<String, Object>> entry = it.next();
+            if (bulkRequest == null) {
+                bulkRequest = new BulkRequest().setRefreshPolicy(getRefreshPolicy(applyIndexRefresh));
+            }
+            bulkRequest.add(createUpdateRequest(entry.getKey(), entry.getValue(), indexAlias, false));
+            if (isBulkComplete(bulkRequest) || !it.hasNext()) {
+                if (!handleRequestExternally(bulkRequest)) {
+                    final BulkResponse bulkResponse = handleRequest(bulkRequest);
+                    LOG.debug("Bulk update response: {}", bulkResponse);
+                    if (exceptionOnFailure && bulkResponse.hasFailures()) {
+                        throw new ElasticsearchException("Updating documents in index '" + indexAlias + "' failed: " + bulkResponse.buildFailureMessage());
+                    }
+                    bulkResponse.forEach(itemResponse -> results.put(itemResponse.getId(), !itemResponse.isFailed()));
+                }
+                bulkRequest = null;
+            }
+        }
+        return results;
+    }
+
+    protected UpdateRequest createUpdateRequest(Object id, Map<String, Object> partialDocument, String indexAlias, boolean applyIndexRefresh) {
+        final XContentBuilder contentBuilder;
+        try {
+            contentBuilder = XContentFactory.jsonBuilder();
+            contentBuilder.startObject();
+            documentContentWriter.writePartial(contentBuilder, partialDocument, this::addToIndexRequestContent);
+            if (contentHashFilter != null && !partialDocument.containsKey(contentHashFilter.getHashField())) {
+                // the stored hash does not match the updated content anymore
+                contentBuilder.nullField(contentHashFilter.getHashField());
+            }
+            contentBuilder.endObject();
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to create update request: indexAlias=" + indexAlias, e);
+        }
+        final UpdateRequest updateRequest
+                = new UpdateRequest(indexAlias, idFormat.format(id)).doc(contentBuilder).setRefreshPolicy(getRefreshPolicy(applyIndexRefresh));
+        invalidateContentHash(indexAlias, updateRequest.id());
+        LOG.debug("Created update request: {}", updateRequest);
+        return updateRequest;
+    }
+
+    @Override
+    public void updateByQuery(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration,
+                              ScriptDefinition scriptDefinition, boolean applyIndexRefresh) {
+        Validate.notNull(indexPresetConfiguration, "Parameter 'indexPresetConfiguration' may not be null!");
+        Validate.notNull(mappingConfiguration, "Parameter 'mappingConfiguration' may not be null!");
+        Validate.notNull(queryDto, "Parameter 'queryDto' may not be null!");
+        Validate.notNull(scriptDefinition, "Parameter 'scriptDefinition' may not be null!");
+
+        final InternalSearchRequest internalSearchRequest = searchRequest(indexPresetConfiguration, queryDto, mappingConfiguration);
+        final UpdateByQueryRequest updateByQueryRequest = new UpdateByQueryRequest(indexPresetConfiguration.getIndexAlias())
+                .setScript(script(scriptDefinition)).setRefresh(applyIndexRefresh);
+        updateByQueryRequest.getSearchRequest().source(internalSearchRequest.searchRequest.source());
+        invalidateContentHash(indexPresetConfiguration.getIndexAlias(), null);
+
+        if (!handleRequestExternally(updateByQueryRequest)) {
+            LOG.debug("Update by query request: {}", new SearchRequestSourceToString(internalSearchRequest.searchRequest));
+            final BulkByScrollResponse response = handleRequest(updateByQueryRequest);
+            LOG.debug("Update by query response: {}", response);
+            if (!response.getBulkFailures().isEmpty()) {
+                throw new ElasticsearchException("Update by query failed: " + response.getBulkFailures());
+            }
+        }
+    }
+
     @Override
     public boolean isServiceAvailable() {
-        LOG.info("Check for cluster status YELLOW.");
+        if (clusterHealthMonitor != null) {
+            return clusterHealthMonitor.isAvailable();
+        }
         final boolean success = elasticsearchAdmin.waitForMinStatus(null, ClusterHealthStatus.YELLOW, checkClusterStatusTimeout);
-        if (success) {
-            LOG.info("Cluster is ok!");
-        } else {
+        if (!success) {
             LOG.error("Checking status of cluster failed!");
         }
-
         return success;
     }
 
@@ -397,6 +722,8 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
             restClient.indices().refresh(request, RequestOptions.DEFAULT);
         } catch (IOException e) {
             throw new RuntimeException("Failed to refresh the index '" + indexAlias + "'");
+        } finally {
+            invalidateSearchResults(indexAlias, true);
         }
     }
 
@@ -408,22 +735,38 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     @Override
     public String createIndexWithAlias(IndexPresetConfiguration indexPresetConfiguration, MappingConfiguration mappingConfiguration)
             throws IndexCreateException, AliasCreateException, AliasAlreadyExistsException {
-        return elasticsearchAdmin.createIndexWithAlias(indexPresetConfiguration, mappingConfiguration);
+        try {
+            return elasticsearchAdmin.createIndexWithAlias(indexPresetConfiguration, mappingConfiguration);
+        } finally {
+            invalidateAliasCaches(indexPresetConfiguration.getIndexAlias());
+        }
     }
 
     @Override
     public void deleteIndex(String indexName) {
         elasticsearchAdmin.deleteIndex(indexName);
+        if (searchResultCache != null) {
+            searchResultCache.clear();
+        }
+        invalidateContentHash(indexName, null);
     }
 
     @Override
     public void createAlias(String indexAlias, String indexName) throws AliasCreateException, AliasAlreadyExistsException {
-        elasticsearchAdmin.createAlias(indexAlias, indexName);
+        try {
+            elasticsearchAdmin.createAlias(indexAlias, indexName);
+        } finally {
+            invalidateAliasCaches(indexAlias);
+        }
     }
 
     @Override
     public String removeAlias(IndexPresetConfiguration indexPresetConfiguration) throws AliasHasMoreThanOneIndexException {
-        return elasticsearchAdmin.removeAlias(indexPresetConfiguration.getIndexAlias());
+        try {
+            return elasticsearchAdmin.removeAlias(indexPresetConfiguration.getIndexAlias());
+        } finally {
+            invalidateAliasCaches(indexPresetConfiguration.getIndexAlias());
+        }
     }
 
     @Override
@@ -431,6 +774,45 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         return elasticsearchAdmin.aliasOrIndexExists(indexAlias);
     }
 
+    @Override
+    public Map<String, String> getIndexSettings(String indexName, Collection<String> settingNames) {
+        return elasticsearchAdmin.getIndexSettings(indexName, settingNames);
+    }
+
+    @Override
+    public void updateIndexSettings(String indexName, Map<String, Object> settings) {
+        elasticsearchAdmin.updateIndexSettings(indexName, settings);
+    }
+
+    @Override
+    public void forceMerge(String indexName, int maxNumSegments) {
+        elasticsearchAdmin.forceMerge(indexName, maxNumSegments);
+    }
+
+    @Override
+    public List<String> swapAlias(String indexAlias, String indexName) {
+        try {
+            return elasticsearchAdmin.swapAlias(indexAlias, indexName);
+        } finally {
+            invalidateAliasCaches(indexAlias);
+        }
+    }
+
+    @Override
+    public boolean waitForMinStatus(String indexName, ClusterHealthStatus minStatus, long timeoutInMsec) {
+        return elasticsearchAdmin.waitForMinStatus(indexName, minStatus, timeoutInMsec);
+    }
+
+    @Override
+    public String startReindexTask(List<String> sourceIndexNames, String targetIndexName, int slices, int batchSize) {
+        return elasticsearchAdmin.startReindexTask(sourceIndexNames, targetIndexName, slices, batchSize);
+    }
+
+    @Override
+    public ReindexStatusDto getReindexTaskStatus(String taskId) {
+        return elasticsearchAdmin.getReindexTaskStatus(taskId);
+    }
+
     @Override
     public void setIndexVersion(String indexAlias, int indexVersion) {
         final Map<String, Object> document = DocumentBuilder.id(0, idFormat).put(INDEX_VERSION, indexVersion).build();
@@ -491,26 +873,166 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     @Override
     public SearchResultDto search(final QueryDto queryDto, final MappingConfiguration mappingConfiguration,
                                   IndexPresetConfiguration indexPresetConfiguration) {
-        return new WatchedTask<SearchResultDto>(LOG, "search") {
-            @Override
-            public SearchResultDto process() {
-                try {
-                    final InternalSearchResponse internalSearchResponse = internalSearch(queryDto, mappingConfiguration, indexPresetConfiguration);
-                    final SearchHits searchHits = internalSearchResponse.searchResponse.getHits();
-                    final TotalHits totalHits = searchHits.getTotalHits();
-
-                    final List<SearchHitDto> searchHitDtos = new ArrayList<>();
-                    for (SearchHit hit : searchHits.getHits()) {
-                        searchHitDtos.add(convertSearchHit(hit, mappingConfiguration));
+        if (searchResultCache != null) {
+            return searchResultCache.get(indexPresetConfiguration.getIndexAlias(), queryDto, mappingConfiguration,
+                () -> uncachedSearch(queryDto, mappingConfiguration, indexPresetConfiguration));
+        }
+        return uncachedSearch(queryDto, mappingConfiguration, indexPresetConfiguration);
+    }
+
+    protected SearchResultDto uncachedSearch(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration) {
+        try {
+            final InternalSearchResponse internalSearchResponse = internalSearch(queryDto, mappingConfiguration, indexPresetConfiguration);
+            return convertSearchResponse(internalSearchResponse, queryDto, mappingConfiguration);
+        } catch (RuntimeException e) {
+            throw ElasticExceptionUtils.searchFailure(e, indexPresetConfiguration.getIndexAlias());
+        }
+    }
+
+    @Override
+    public CompletableFuture<SearchResultDto> searchAsync(QueryDto queryDto, MappingConfiguration mappingConfiguration,
+                                                          IndexPresetConfiguration indexPresetConfiguration) {
+        if (searchResultCache != null) {
+            return searchResultCache.getAsync(indexPresetConfiguration.getIndexAlias(), queryDto, mappingConfiguration,
+                () -> uncachedSearchAsync(queryDto, mappingConfiguration, indexPresetConfiguration));
+        }
+        return uncachedSearchAsync(queryDto, mappingConfiguration, indexPresetConfiguration);
+    }
+
+    protected CompletableFuture<SearchResultDto> uncachedSearchAsync(QueryDto queryDto, MappingConfiguration mappingConfiguration,
+                                                                     IndexPresetConfiguration indexPresetConfiguration) {
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        final long buildStart = System.nanoTime();
+        final InternalSearchRequest internalSearchRequest;
+        try {
+            internalSearchRequest = searchRequest(indexPresetConfiguration, queryDto, mappingConfiguration);
+        } catch (Exception e) {
+            final CompletableFuture<SearchResultDto> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(e);
+            return failedFuture;
+        }
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_QUERY_BUILD, indexAlias, System.nanoTime() - buildStart, TimeUnit.NANOSECONDS);
+
+        final UUID queryId = UUID.randomUUID();
+        QUERY_LOGGER.debug("Async search request {}:\n{}\n{}", queryId, queryDto, new SearchRequestSourceToString(internalSearchRequest.searchRequest));
+
+        final long start = System.nanoTime();
+        return new RestClientSearchFutureAction().action(restClient, internalSearchRequest.searchRequest)
+                .handleAsync((searchResponse, e) -> {
+                    if (e != null) {
+                        throw (e instanceof Exception) ? searchException((Exception) e) : new CompletionException(e);
                     }
-                    final List<FacetDto> facetDtos = convertFacets(internalSearchResponse, queryDto, mappingConfiguration);
+                    recordSearchResponseTime(indexAlias, searchResponse, start);
+                    QUERY_LOGGER.debug("Async search response {}:\n{},", queryId, new SearchResponseToString(searchResponse));
+                    final InternalSearchResponse internalSearchResponse
+                            = new InternalSearchResponse(indexAlias, searchResponse, internalSearchRequest.aggregationFields);
+                    return convertSearchResponse(internalSearchResponse, queryDto, mappingConfiguration);
+                }, asyncExecutor).exceptionally(e -> {
+                    throw ElasticExceptionUtils.searchFailure(e, indexAlias);
+                });
+    }
 
-                    return new SearchResultDto(totalHits.value, totalHits.relation == TotalHits.Relation.EQUAL_TO, searchHitDtos, facetDtos);
-                } catch (IndexMissingException e) {
-                    throw new IndexMissingException(indexPresetConfiguration.getIndexAlias());
-                }
+    @Override
+    public long count(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration) {
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        final CountRequest countRequest = new CountRequest(indexAlias);
+        final QueryBuilder query = query(queryDto, mappingConfiguration);
+        if (query != null) {
+            countRequest.query(query);
+        }
+        QUERY_LOGGER.debug("Count request:\n{}\n{}", queryDto, query);
+
+        final long start = System.nanoTime();
+        try {
+            final CountResponse countResponse = new RestClientCountAction().action(restClient, countRequest);
+            metricsRecorder.recordTime(MetricsRecorder.SEARCH_REQUEST, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return countResponse.getCount();
+        } catch (Exception e) {
+            throw searchException(e);
+        }
+    }
+
+    @Override
+    public List<FacetDto> facets(QueryDto queryDto, MappingConfiguration mappingConfiguration, IndexPresetConfiguration indexPresetConfiguration) {
+        // no hits and no total count, so the shard request cache may serve the aggregations
+        final SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().size(0).trackTotalHits(false);
+        final QueryBuilder query = query(queryDto, mappingConfiguration);
+        if (query != null) {
+            searchSourceBuilder.query(query);
+        }
+        final Map<String, String> aggregationFields = addFacetsToSearchRequest(queryDto, mappingConfiguration, searchSourceBuilder);
+        final SearchRequest searchRequest = new SearchRequest(indexPresetConfiguration.getIndexAlias()).source(searchSourceBuilder).requestCache(true);
+
+        final InternalSearchResponse internalSearchResponse
+                = executeSearch(indexPresetConfiguration.getIndexAlias(), queryDto, new InternalSearchRequest(searchRequest, aggregationFields));
+        return convertFacets(internalSearchResponse, queryDto, mappingConfiguration);
+    }
+
+    @Override
+    public List<MultiSearchResultDto> multiSearch(List<SearchRequestDto> searchRequests) {
+        Validate.notEmpty(searchRequests, "Parameter 'searchRequests' may not be null or empty!");
+
+        final UUID queryId = UUID.randomUUID();
+        final MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        final List<InternalSearchRequest> internalSearchRequests = new ArrayList<>(searchRequests.size());
+        for (final SearchRequestDto searchRequest : searchRequests) {
+            final String indexAlias = searchRequest.getIndexPresetConfiguration().getIndexAlias();
+            final long start = System.nanoTime();
+            final InternalSearchRequest internalSearchRequest
+                    = searchRequest(searchRequest.getIndexPresetConfiguration(), searchRequest.getQueryDto(), searchRequest.getMappingConfiguration());
+            metricsRecorder.recordTime(MetricsRecorder.SEARCH_QUERY_BUILD, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            QUERY_LOGGER.debug("Multi search request {}[{}]:\n{}\n{}", queryId, internalSearchRequests.size(), searchRequest.getQueryDto(),
+                    new SearchRequestSourceToString(internalSearchRequest.searchRequest));
+            internalSearchRequests.add(internalSearchRequest);
+            multiSearchRequest.add(internalSearchRequest.searchRequest);
+        }
+
+        final MultiSearchResponse multiSearchResponse;
+        try {
+            multiSearchResponse = new RestClientMultiSearchAction().action(restClient, multiSearchRequest);
+        } catch (Exception e) {
+            throw searchException(e);
+        }
+
+        final MultiSearchResponse.Item[] items = multiSearchResponse.getResponses();
+        final List<MultiSearchResultDto> results = new ArrayList<>(items.length);
+        for (int i = 0; i < items.length; i++) {
+            final SearchRequestDto searchRequest = searchRequests.get(i);
+            final String indexAlias = searchRequest.getIndexPresetConfiguration().getIndexAlias();
+            if (items[i].isFailure()) {
+                LOG.debug("Multi search request {}[{}] failed: {}", queryId, i, items[i].getFailureMessage());
+                results.add(new MultiSearchResultDto(searchException(items[i].getFailure())));
+            } else {
+                final SearchResponse searchResponse = items[i].getResponse();
+                QUERY_LOGGER.debug("Multi search response {}[{}]:\n{},", queryId, i, new SearchResponseToString(searchResponse));
+                metricsRecorder.recordTime(MetricsRecorder.SEARCH_TOOK, indexAlias, searchResponse.getTook().millis(), TimeUnit.MILLISECONDS);
+                final InternalSearchResponse internalSearchResponse
+                        = new InternalSearchResponse(indexAlias, searchResponse, internalSearchRequests.get(i).aggregationFields);
+                results.add(new MultiSearchResultDto(convertSearchResponse(internalSearchResponse, searchRequest.getQueryDto(),
+                        searchRequest.getMappingConfiguration())));
             }
-        }.getResult();
+        }
+        return results;
+    }
+
+    protected SearchResultDto convertSearchResponse(InternalSearchResponse internalSearchResponse, QueryDto queryDto,
+                                                    MappingConfiguration mappingConfiguration) {
+        final SearchHits searchHits = internalSearchResponse.searchResponse.getHits();
+        final TotalHits totalHits = searchHits.getTotalHits();
+
+        final String indexAlias = internalSearchResponse.indexAlias;
+        long start = System.nanoTime();
+        final List<SearchHitDto> searchHitDtos = new ArrayList<>();
+        for (SearchHit hit : searchHits.getHits()) {
+            searchHitDtos.add(convertSearchHit(hit, mappingConfiguration));
+        }
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_HIT_CONVERSION, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        start = System.nanoTime();
+        final List<FacetDto> facetDtos = convertFacets(internalSearchResponse, queryDto, mappingConfiguration);
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_FACET_CONVERSION, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return new SearchResultDto(totalHits.value, totalHits.relation == TotalHits.Relation.EQUAL_TO, searchHitDtos, facetDtos);
     }
 
     @Override
@@ -518,38 +1040,30 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
         Validate.notNull(id, "Parameter 'id' may not be null!");
         try {
-            final GetRequest request = new GetRequest().index(indexAlias).id(idFormat.format(id));
-            final GetResponse response = restClient.get(request, RequestOptions.DEFAULT);
-            return response.getSource();
+            return documentLoader.getDocument(indexAlias, idFormat.format(id));
         } catch (Exception e) {
             throw new ElasticsearchException("Failed to get document: id=" + id, e);
         }
     }
 
     @Override
-    public Map<String, List<String>> suggest(String indexAlias, SuggestExpression... expressions) {
+    public List<Map<String, Object>> getDocuments(String indexAlias, Collection<?> ids, List<String> fields) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(ids, "Parameter 'ids' may not be null!");
         try {
-            final SuggestBuilder suggestBuilder = new SuggestBuilder();
-            for (final SuggestExpression expression : expressions) {
-                suggestBuilder.addSuggestion(expression.getName(),
-                        new CompletionSuggestionBuilder(expression.getName()).prefix(expression.getText()).size(expression.getCount()).skipDuplicates(true));
-            }
+            return documentLoader.getDocuments(indexAlias, ids.stream().map(idFormat::format).collect(Collectors.toList()), fields);
+        } catch (Exception e) {
+            throw new ElasticsearchException("Failed to get documents: ids=" + ids, e);
+        }
+    }
 
-            final SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().suggest(suggestBuilder);
+    @Override
+    public Map<String, List<String>> suggest(String indexAlias, SuggestExpression... expressions) {
+        try {
+            final SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().suggest(suggestBuilder(expressions));
             final SearchRequest searchRequest = new SearchRequest(indexAlias).source(searchSourceBuilder);
             final SearchResponse searchResponse = new RestClientSearchAction().action(restClient, searchRequest);
-
-            final Map<String, List<String>> result = new HashMap<>();
-            for (final Suggest.Suggestion<? extends Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option>> suggestion
-                    : searchResponse.getSuggest()) {
-                final List<String> suggestedLines = result.computeIfAbsent(suggestion.getName(), name -> new ArrayList<>());
-                for (final Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option> entry : suggestion.getEntries()) {
-                    for (final Suggest.Suggestion.Entry.Option option : entry.getOptions()) {
-                        suggestedLines.add(option.getText().string());
-                    }
-                }
-            }
-            return result;
+            return suggestedTexts(searchResponse.getSuggest());
         } catch (Exception e) {
             throw new ElasticsearchException("Failed to get suggestions: alias = " + indexAlias, e);
         }
@@ -569,27 +1083,23 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     }
 
     protected SearchHitDto convertSearchHit(SearchHit hit, MappingConfiguration mappingConfiguration) {
-        final Map<String, Object> source = hit.getSourceAsMap();
         final Map<String, DocumentField> fields = hit.getFields();
-        final Map<String, Object> attributes = new HashMap<>();
-        if (source != null) {
-            for (Map.Entry<String, Object> entry : source.entrySet()) {
-                final String key = entry.getKey();
-                final Object value = entry.getValue();
-                attributes.put(key, value);
-            }
+        final Map<String, Object> attributes;
+        if (hit.hasSource()) {
+            attributes = lazySourceParsingEnabled ? new LazySourceMap(hit.getSourceRef()) : hit.getSourceAsMap();
         } else if (fields != null) {
+            attributes = new HashMap<>(fields.size());
             for (Map.Entry<String, DocumentField> field : fields.entrySet()) {
-                final String key = field.getKey();
+                final String key = StringUtils.removeEnd(field.getKey(), "." + KEYWORD_FIELD);
                 final DocumentField documentField = field.getValue();
-                final Object value = documentField.getValue();
-                attributes.put(key, value);
+                attributes.put(key, getDocValue(documentField.getValues()));
             }
         } else {
             throw new RuntimeException("Missing data in search result!");
         }
 
-        return new SearchHitDto(hit.getId(), attributes).innerHits(convertInnerHits(hit.getInnerHits(), mappingConfiguration));
+        return new SearchHitDto(hit.getId(), attributes).innerHits(convertInnerHits(hit.getInnerHits(), mappingConfiguration))
+                .sortValues(hit.getSortValues());
     }
 
     protected Map<String, List<SearchHitDto>> convertInnerHits(Map<String, SearchHits> innerHits, MappingConfiguration mappingConfiguration) {
@@ -642,24 +1152,42 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
 
     protected InternalSearchResponse internalSearch(QueryDto queryDto, MappingConfiguration mappingConfiguration,
                                                     IndexPresetConfiguration indexPresetConfiguration) {
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        final long start = System.nanoTime();
         final InternalSearchRequest internalSearchRequest = searchRequest(indexPresetConfiguration, queryDto, mappingConfiguration);
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_QUERY_BUILD, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return executeSearch(indexAlias, queryDto, internalSearchRequest);
+    }
+
+    protected InternalSearchResponse executeSearch(String indexAlias, QueryDto queryDto, InternalSearchRequest internalSearchRequest) {
         final UUID queryId = UUID.randomUUID();
         QUERY_LOGGER.debug("Search request {}:\n{}\n{}", queryId, queryDto, new SearchRequestSourceToString(internalSearchRequest.searchRequest));
 
         final SearchResponse searchResponse;
+        final long start = System.nanoTime();
         try {
             searchResponse = new RestClientSearchAction().action(restClient, internalSearchRequest.searchRequest);
         } catch (Exception e) {
-            final ElasticExceptionCause cause = ElasticExceptionUtils.getCause(e);
-            if (QUERY_SYNTAX == cause.getType()) {
-                throw new QuerySyntaxException("Elasticsearch rest client search action failed: Failed to parse query!", cause.getMessage(), e);
-            } else {
-                throw new ElasticsearchException("Elasticsearch rest client search action failed!", e);
-            }
+            throw searchException(e);
         }
+        recordSearchResponseTime(indexAlias, searchResponse, start);
 
         QUERY_LOGGER.debug("Search response {}:\n{},", queryId, new SearchResponseToString(searchResponse));
-        return new InternalSearchResponse(searchResponse, internalSearchRequest.aggregationFields);
+        return new InternalSearchResponse(indexAlias, searchResponse, internalSearchRequest.aggregationFields);
+    }
+
+    protected void recordSearchResponseTime(String indexAlias, SearchResponse searchResponse, long start) {
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_REQUEST, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_TOOK, indexAlias, searchResponse.getTook().millis(), TimeUnit.MILLISECONDS);
+    }
+
+    protected RuntimeException searchException(Exception e) {
+        final ElasticExceptionCause cause = ElasticExceptionUtils.getCause(e);
+        if (QUERY_SYNTAX == cause.getType()) {
+            return new QuerySyntaxException("Elasticsearch rest client search action failed: Failed to parse query!", cause.getMessage(), e);
+        } else {
+            return new ElasticsearchException("Elasticsearch rest client search action failed!", e);
+        }
     }
 
     @Override
@@ -682,19 +1210,9 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     protected InternalSearchRequest searchRequest(IndexPresetConfiguration indexPresetConfiguration, QueryDto queryDto,
                                                   MappingConfiguration mappingConfiguration) {
         final SearchSourceBuilder searchSourceBuilder = searchSourceBuilder(queryDto, indexPresetConfiguration);
-
-        final SearchContext context = new SearchContext(queryDto, mappingConfiguration);
-        final QueryBuilder queryBuilder = createQuery(context);
-        final QueryBuilder filterBuilder = createFilter(filterFactories, context);
-
-        if (filterBuilder != null) {
-            if (queryBuilder == null) {
-                searchSourceBuilder.query(QueryBuilders.boolQuery().filter(filterBuilder));
-            } else {
-                searchSourceBuilder.query(QueryBuilders.boolQuery().must(queryBuilder).filter(filterBuilder));
-            }
-        } else if (queryBuilder != null) {
-            searchSourceBuilder.query(queryBuilder);
+        final QueryBuilder query = query(queryDto, mappingConfiguration);
+        if (query != null) {
+            searchSourceBuilder.query(query);
         }
 
         addSortOptionsToSearchRequest(queryDto, mappingConfiguration, searchSourceBuilder);
@@ -706,6 +1224,26 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         return new InternalSearchRequest(searchRequest, aggregationFields);
     }
 
+    protected QueryBuilder query(QueryDto queryDto, MappingConfiguration mappingConfiguration) {
+        return (queryCache != null)
+                ? queryCache.get(queryDto, mappingConfiguration, () -> searchQuery(queryDto, mappingConfiguration))
+                : searchQuery(queryDto, mappingConfiguration);
+    }
+
+    protected QueryBuilder searchQuery(QueryDto queryDto, MappingConfiguration mappingConfiguration) {
+        final SearchContext context = new SearchContext(queryDto, mappingConfiguration);
+        final QueryBuilder queryBuilder = createQuery(context);
+        final QueryBuilder filterBuilder = createFilter(filterFactories, context);
+
+        if (filterBuilder != null) {
+            return (queryBuilder == null)
+                    ? QueryBuilders.boolQuery().filter(filterBuilder)
+                    : QueryBuilders.boolQuery().must(queryBuilder).filter(filterBuilder);
+        } else {
+            return queryBuilder;
+        }
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     protected Map<String, String> addFacetsToSearchRequest(QueryDto queryDto, MappingConfiguration mappingConfiguration,
                                                            SearchSourceBuilder searchRequestBuilder) {
@@ -720,8 +1258,9 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
                         : Collections.emptyList();
                 aggregationBuilders.forEach(agg -> {
                         searchRequestBuilder.aggregation(agg);
-                        if (agg instanceof ValuesSourceAggregationBuilder) {
-                            aggregationFields.put(agg.getName(), ((ValuesSourceAggregationBuilder) agg).field());
+                        final String aggregationField = aggregationField(agg);
+                        if (aggregationField != null) {
+                            aggregationFields.put(agg.getName(), aggregationField);
                         }
                 });
             }
@@ -738,108 +1277,27 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     }
 
     protected SortBuilder<?> sortBuilder(SortOption sortOption, MappingConfiguration mappingConfig, Locale locale) {
-        final String fieldName = sortOption.getFieldName();
-
         if (sortOption instanceof ScriptSortOption) {
             return scriptSortBuilder((ScriptSortOption) sortOption);
-        } else if (SortOption.RELEVANCE_NAME.equals(fieldName)) {
-            return SortBuilders.scoreSort();
-        } else {
-            return fieldSortBuilder(sortOption, mappingConfig, locale);
         }
+        return SortOption.RELEVANCE_NAME.equals(sortOption.getFieldName()) ? SortBuilders.scoreSort() : fieldSortBuilder(sortOption, mappingConfig, locale);
     }
 
     protected ScriptSortBuilder scriptSortBuilder(ScriptSortOption scriptSortOption) {
-        final ScriptDefinition scriptDefinition = scriptSortOption.getScriptDefinition();
-        final ScriptType scriptType = ScriptType.valueOf(scriptDefinition.getScriptType().name());
-        final Script script = new Script(scriptType, scriptDefinition.getLanguage(), scriptDefinition.getIdOrCode(), scriptDefinition.getOptions(),
-                scriptDefinition.getParams());
-        final ScriptSortBuilder.ScriptSortType sortType = ScriptSortBuilder.ScriptSortType.valueOf(scriptDefinition.getSortType().name());
-        return new ScriptSortBuilder(script, sortType);
+        return sortBuilderFactory().scriptSortBuilder(scriptSortOption);
     }
 
     protected SortBuilder<?> fieldSortBuilder(SortOption sortOption, MappingConfiguration mappingConfig, Locale locale) {
-        final String fieldName = sortOption.getFieldName();
-        SortBuilder<?> sortBuilder;
-
-        FieldConfiguration fieldConfiguration = fieldConfiguration(mappingConfig, fieldName, false);
-        final String topFieldName = StringUtils.substringBefore(fieldName, ".");
-
-        if (fieldConfiguration == null) {
-            fieldConfiguration = fieldConfiguration(mappingConfig, topFieldName, false);
-        }
-
-        sortBuilder = null;
-        if (fieldConfiguration != null) {
-            if (fieldConfiguration.getParent() != null) {
-                fieldConfiguration = fieldConfiguration.getParent();
-            }
-
-            if (fieldConfiguration.isNestedObject()) {
-                sortBuilder = buildNestedSort(fieldConfiguration, fieldName, sortOption, mappingConfig, locale);
-            } else if (isTextField(fieldConfiguration)) {
-                sortBuilder = buildStringSort(fieldConfiguration, mappingConfig, fieldName, sortOrder(sortOption), locale);
-            }
-        } else {
-            LOG.warn("Missing field configuration for field '{}', sorting by this field may not be possible.", fieldName);
-        }
-
-        if (sortBuilder == null) {
-            sortBuilder = SortBuilders.fieldSort(topFieldName).order(sortOrder(sortOption)).sortMode(sortMode(sortOption)).missing(sortMissing());
-        }
-
-        return sortBuilder;
-    }
-
-    private FieldSortBuilder buildNestedSort(FieldConfiguration fieldConfiguration, String nestedFieldName, SortOption sortOption,
-                                             MappingConfiguration mappingConfiguration, Locale locale) {
-        final FieldConfiguration nestedField = fieldConfiguration.getNestedField(StringUtils.substringAfter(nestedFieldName, "."));
-        final String sortFieldName = sortFieldName(nestedField, nestedFieldName);
-        return SortBuilders
-                .fieldSort(sortFieldName)
-                .order(sortOrder(sortOption))
-                .missing(sortMissing())
-                .sortMode(sortMode(sortOption))
-                .setNestedSort(nestedSortBuilder(fieldConfiguration.getName(), sortOption, mappingConfiguration, locale));
-    }
-
-    private NestedSortBuilder nestedSortBuilder(String topFieldName, SortOption sortOption, MappingConfiguration mappingConfiguration, Locale locale) {
-        final NestedSortBuilder nestedSortBuilder = new NestedSortBuilder(topFieldName);
-        if (sortOption.getFilter() != null) {
-            nestedSortBuilder.setFilter(
-                    createFilter(filterFactories, new SearchContext(QueryDto.sortFilter(sortOption.getFilter(), locale), mappingConfiguration)));
-        }
-        return nestedSortBuilder;
-    }
-
-    private SortOrder sortOrder(SortOption sortOption) {
-        return (sortOption.getSortDirection() == SortOption.Direction.ASC) ? SortOrder.ASC : SortOrder.DESC;
-    }
-
-    private SortMode sortMode(SortOption sortOption) {
-        if (sortOption.getArrayMode() == SortOption.ArrayMode.DEFAULT) {
-            return (sortOption.getSortDirection() == SortOption.Direction.ASC) ? SortMode.MIN : SortMode.MAX;
-        } else {
-            return SortMode.valueOf(sortOption.getArrayMode().name());
-        }
+        return sortBuilderFactory().fieldSortBuilder(sortOption, mappingConfig, locale, this::buildStringSort);
     }
 
-    private String sortMissing() {
-        return "_" + missingValueSortPosition.getValue();
+    protected FieldSortBuilder buildStringSort(FieldConfiguration fieldConfiguration, MappingConfiguration mappingConfiguration, String fieldName,
+                                               SortOrder sortOrder, Locale locale) {
+        return sortBuilderFactory().buildStringSort(fieldConfiguration, mappingConfiguration, fieldName, sortOrder, locale);
     }
 
-    protected FieldSortBuilder buildStringSort(FieldConfiguration fieldConfiguration, MappingConfiguration mappingConfiguration, String fieldName,
-                                             SortOrder sortOrder, Locale locale) {
-        if (fieldConfiguration.isSortable()) {
-            final String esFieldName = FieldConfigurationUtils.getElasticFieldName(mappingConfiguration, fieldName, locale);
-            final String sortFieldName = sortFieldName(fieldConfiguration, esFieldName);
-            return SortBuilders
-                    .fieldSort(sortFieldName)
-                    .missing("_" + missingValueSortPosition.getValue())
-                    .order(sortOrder);
-        } else {
-            throw new RuntimeException("The field '" + fieldConfiguration.getName() + "' is not configured as sortable!");
-        }
+    protected SortBuilderFactory sortBuilderFactory() {
+        return new SortBuilderFactory(filterFactories, missingValueSortPosition);
     }
 
     protected void addCollapseOptionToSearchRequest(QueryDto queryDto, MappingConfiguration mappingConfig, SearchSourceBuilder searchSourceBuilder) {
@@ -891,31 +1349,15 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     }
 
     protected void validateFields(QueryDto queryDto, MappingConfiguration mappingConfiguration) {
-        final Map<String, FieldConfiguration> fieldConfigurations = new HashMap<>(mappingConfiguration.getFieldConfigurations().size());
-        for (final FieldConfiguration fieldConfiguration : mappingConfiguration.getFieldConfigurations()) {
-            fieldConfigurations.put(fieldConfiguration.getName(), fieldConfiguration);
-        }
-
-        for (final String field : queryDto.getFieldsToResolve()) {
-            final FieldConfiguration fieldConfiguration = fieldConfigurations.get(field);
-            if (fieldConfiguration == null) {
-                throw new RuntimeException("Undefined field to resolve: " + field);
-            }
-        }
+        searchFieldsBuilder.validateFields(queryDto, mappingConfiguration);
     }
 
     protected void addDocValuesToSearchRequest(List<String> fields, SearchSourceBuilder searchRequestBuilder, MappingConfiguration mappingConfiguration) {
-        searchRequestBuilder.fetchSource(false);
-        for (final String field : fields) {
-            final String docValueField = keywordFieldName(fieldConfiguration(mappingConfiguration, field), field);
-            searchRequestBuilder.docValueField(docValueField);
-        }
+        searchFieldsBuilder.addDocValues(fields, searchRequestBuilder, mappingConfiguration);
     }
 
     protected void addSourceValuesToSearchRequest(List<String> fields, SearchSourceBuilder searchRequestBuilder) {
-        final String[] includes = fields.toArray(new String[0]);
-        final String[] excludes = new String[0];
-        searchRequestBuilder.fetchSource(includes, excludes);
+        searchFieldsBuilder.addSourceValues(fields, searchRequestBuilder);
     }
 
     protected SearchSourceBuilder searchSourceBuilder(QueryDto queryDto, IndexPresetConfiguration indexPresetConfiguration) {
@@ -929,95 +1371,104 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
         } else {
             searchSourceBuilder.size(indexPresetConfiguration.getMaxResultWindow());
         }
+        if (queryDto.getSearchAfter() != null) {
+            searchSourceBuilder.searchAfter(queryDto.getSearchAfter());
+        }
         return searchSourceBuilder;
     }
 
     protected IndexRequest createIndexRequest(Map<String, Object> doc, String indexAlias, boolean applyIndexRefresh) {
-        final XContentBuilder contentBuilder;
-        try {
-            contentBuilder = XContentFactory.jsonBuilder();
+        final IndexRequest indexRequest = new IndexRequest(indexAlias).id(getId(doc)).source(documentContent(doc), XContentType.JSON)
+                .setRefreshPolicy(getRefreshPolicy(applyIndexRefresh));
+        LOG.debug("Created index request: {}", indexRequest);
+        return indexRequest;
+    }
+
+    protected BytesReference documentContent(Map<String, Object> doc) {
+        try (XContentBuilder contentBuilder = XContentFactory.jsonBuilder()) {
             contentBuilder.startObject();
             addToIndexRequestContent(contentBuilder, doc);
-            contentBuilder.endObject();
+            return BytesReference.bytes(contentBuilder.endObject());
         } catch (IOException e) {
-            throw new ElasticsearchException("Failed to create index request: indexAlias=" + indexAlias, e);
+            throw new ElasticsearchException("Failed to serialize document: id=" + getId(doc), e);
         }
-        final String id = getId(doc);
-        final IndexRequest indexRequest = new IndexRequest(indexAlias).id(id).source(contentBuilder).setRefreshPolicy(getRefreshPolicy(applyIndexRefresh));
-        LOG.debug("Created index request: {}", indexRequest);
-        return indexRequest;
     }
 
-    @SuppressWarnings("unchecked")
-    protected void addToIndexRequestContent(XContentBuilder contentBuilder, Map<String, Object> doc) throws IOException {
-        for (Map.Entry<String, Object> entry : doc.entrySet()) {
-            if (entry.getValue() != null) {
-                final String fieldName = entry.getKey();
-                if (entry.getValue() instanceof List) {
-                    final List<?> list = (List<?>) entry.getValue();
-                    if (list.size() > 0 && list.get(0) instanceof Map) {
-                        final List<Map<String, Object>> nestedObjectList = (List<Map<String, Object>>) list;
-                        addNestedObjectsToIndexRequestContent(contentBuilder, fieldName, nestedObjectList);
-                    } else {
-                        final List<?> trimmedList = StringTrimUtility.trimListValues((List<?>) entry.getValue());
-                        contentBuilder.array(fieldName, trimmedList.toArray());
-                    }
-                } else if (entry.getValue() instanceof Date) {
-                    contentBuilder.field(fieldName, ElasticDateUtils.formatIso((Date) entry.getValue(), timeZone));
-                } else if (entry.getValue() instanceof Boolean) {
-                    contentBuilder.field(fieldName, entry.getValue());
-                } else if (entry.getValue() instanceof String && (entry.getValue().equals(Boolean.TRUE.toString())
-                        || entry.getValue().equals(Boolean.FALSE.toString()))) {
-                    contentBuilder.field(fieldName, Boolean.valueOf((String) entry.getValue()));
-                } else if (entry.getValue() instanceof String) {
-                    final String stringValue = (String) entry.getValue();
-                    contentBuilder.field(fieldName, stringValue.trim());
-                } else {
-                    contentBuilder.field(fieldName, entry.getValue());
-                }
-            }
+    protected void invalidateContentHash(String indexAlias, String id) {
+        if (contentHashFilter != null) {
+            contentHashFilter.invalidate(indexAlias, id);
         }
     }
 
+    protected void invalidateAliasCaches(String indexAlias) {
+        invalidateSearchResults(indexAlias, true);
+        invalidateContentHash(indexAlias, null);
+    }
+
+    protected void addToIndexRequestContent(XContentBuilder contentBuilder, Map<String, Object> doc) throws IOException {
+        documentContentWriter.write(contentBuilder, doc, this::addNestedObjectsToIndexRequestContent);
+    }
+
     protected void addNestedObjectsToIndexRequestContent(XContentBuilder contentBuilder, String fieldName, List<Map<String, Object>> nestedObjectList)
             throws IOException {
-        contentBuilder.startArray(fieldName);
-        for (final Map<String, Object> doc : nestedObjectList) {
-            contentBuilder.startObject();
-            addToIndexRequestContent(contentBuilder, doc);
-            contentBuilder.endObject();
-        }
-        contentBuilder.endArray();
+        documentContentWriter.writeNestedObjects(contentBuilder, fieldName, nestedObjectList, this::addToIndexRequestContent);
     }
 
     protected boolean handleRequestExternally(WriteRequest<?> request) {
-        return writeRequestHandler != null && writeRequestHandler.handle(request);
+        final boolean handled = writeRequestHandler != null && writeRequestHandler.handle(request);
+        if (handled) {
+            invalidateSearchResults(request);
+        }
+        return handled;
     }
 
     protected boolean handleRequestExternally(AbstractBulkByScrollRequest<?> request) {
-        return writeRequestHandler != null && writeRequestHandler.handle(request);
+        final boolean handled = writeRequestHandler != null && writeRequestHandler.handle(request);
+        if (handled) {
+            invalidateSearchResults(request);
+        }
+        return handled;
     }
 
-    @SuppressWarnings("unchecked")
     protected <Req extends WriteRequest<Req>, Resp> Resp handleRequest(WriteRequest<Req> request) {
-        if (request instanceof IndexRequest) {
-            return (Resp) new RestClientIndexAction().action(restClient, (IndexRequest) request);
-        } else if (request instanceof DeleteRequest) {
-            return (Resp) new RestClientDeleteAction().action(restClient, (DeleteRequest) request);
-        } else if (request instanceof BulkRequest) {
-            return (Resp) new RestClientBulkAction().action(restClient, (BulkRequest) request);
-        } else {
-            throw new RuntimeException("Unsupported request type: " + request.getClass().getName());
+        try {
+            return executeRequest(request);
+        } finally {
+            invalidateSearchResults(request);
         }
     }
 
+    protected <Req extends WriteRequest<Req>, Resp> Resp executeRequest(WriteRequest<Req> request) {
+        return writeRequestExecutor.execute(request);
+    }
+
+    protected CompletableFuture<BulkResponse> handleRequestAsync(BulkRequest request) {
+        return writeRequestExecutor.executeAsync(request).whenComplete((response, e) -> invalidateSearchResults(request));
+    }
+
     protected BulkByScrollResponse handleRequest(AbstractBulkByScrollRequest<?> request) {
-        if (request instanceof UpdateByQueryRequest) {
-            return new RestClientUpdateByQueryAction().action(restClient, (UpdateByQueryRequest) request);
-        } else if (request instanceof DeleteByQueryRequest) {
-            return new RestClientDeleteByQueryAction().action(restClient, (DeleteByQueryRequest) request);
-        } else {
-            throw new RuntimeException("Unsupported request type: " + request.getClass().getName());
+        try {
+            return writeRequestExecutor.execute(request);
+        } finally {
+            invalidateSearchResults(request);
+        }
+    }
+
+    protected void invalidateSearchResults(WriteRequest<?> request) {
+        if (searchResultCache != null) {
+            searchResultCache.invalidate(request);
+        }
+    }
+
+    protected void invalidateSearchResults(AbstractBulkByScrollRequest<?> request) {
+        if (searchResultCache != null) {
+            searchResultCache.invalidate(request);
+        }
+    }
+
+    protected void invalidateSearchResults(String indexAlias, boolean visible) {
+        if (searchResultCache != null) {
+            searchResultCache.invalidate(indexAlias, visible);
         }
     }
 
@@ -1032,10 +1483,16 @@ public class ElasticsearchImpl implements Elasticsearch, QueryFactoryCaller, Tim
     }
 
     protected static class InternalSearchResponse {
+        final String indexAlias;
         final SearchResponse searchResponse;
         final Map<String, String> aggregationFields;
 
         public InternalSearchResponse(SearchResponse searchResponse, Map<String, String> aggregationFields) {
+            this(null, searchResponse, aggregationFields);
+        }
+
+        public InternalSearchResponse(String indexAlias, SearchResponse searchResponse, Map<String, String> aggregationFields) {
+            this.indexAlias = indexAlias;
             this.searchResponse = searchResponse;
             this.aggregationFields = aggregationFields;
         }
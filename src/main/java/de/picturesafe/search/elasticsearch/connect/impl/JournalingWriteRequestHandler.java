@@ -0,0 +1,536 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.RestClientConfiguration;
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.reindex.UpdateByQueryRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Write request handler appending write requests to a local {@link WriteJournal} and replaying them asynchronously.
+ * <p>
+ * Callers return as soon as a request has been written to the journal. A background thread replays the journaled requests in order,
+ * combining consecutive document requests into bulks. Failed requests, bulk items rejected with status 429 (too many requests) or failing
+ * with a server error are retried with exponential backoff until elasticsearch is available again. If replaying fails otherwise, it is
+ * retried with exponential backoff as well. Bulk items failing with a permanent error are moved to the quarantine directory of the journal
+ * and skipped; if a whole bulk fails with a permanent error, it is split until the failing requests are isolated, so only these are
+ * quarantined. Each journal entry starts with a header of the entry format and elasticsearch version it has been written with, entries
+ * which cannot be decoded, e.g. after an incompatible upgrade, are quarantined as well. Quarantined entries can be appended to a journal
+ * again to replay them. Requests not replayed yet survive a restart of the application and will be replayed after the handler has been
+ * started again, so a request may be replayed more than once.
+ * <p>
+ * Note: Since all writes are executed asynchronously, an index refresh requested by the caller will only be applied on replay. The
+ * handler has to be registered as a bean to be used by the elasticsearch connector.
+ */
+public class JournalingWriteRequestHandler implements WriteRequestHandler, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JournalingWriteRequestHandler.class);
+
+    private static final byte INDEX = 1;
+    private static final byte DELETE = 2;
+    private static final byte UPDATE = 3;
+    private static final byte BULK = 4;
+    private static final byte DELETE_BY_QUERY = 5;
+    private static final byte UPDATE_BY_QUERY = 6;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final String QUARANTINE_DIRECTORY = "quarantine";
+
+    private final Path journalDirectory;
+    private final Function<BulkRequest, BulkResponse> bulkAction;
+    private final Function<AbstractBulkByScrollRequest<?>, BulkByScrollResponse> bulkByScrollAction;
+    private final NamedWriteableRegistry namedWriteableRegistry
+            = new NamedWriteableRegistry(new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+    private final List<WriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
+    private WriteJournal journal;
+    private Thread replayThread;
+    private volatile boolean running;
+    private long quarantinedCount;
+
+    @Value("${elasticsearch.service.journal.segment_size:67108864}")
+    private int segmentSize = 64 * 1024 * 1024;
+
+    @Value("${elasticsearch.service.journal.sync:true}")
+    private boolean sync = true;
+
+    @Value("${elasticsearch.service.journal.replay_batch_size:1000}")
+    private int replayBatchSize = 1000;
+
+    @Value("${elasticsearch.service.journal.retry_initial_delay:100}")
+    private long retryInitialDelay = 100;
+
+    @Value("${elasticsearch.service.journal.retry_max_delay:30000}")
+    private long retryMaxDelay = 30000;
+
+    /**
+     * Constructor
+     *
+     * @param restClientConfiguration   Configuration of the elasticsearch rest client
+     * @param journalDirectory          Directory of the journal files
+     */
+    public JournalingWriteRequestHandler(RestClientConfiguration restClientConfiguration, Path journalDirectory) {
+        this(journalDirectory, new WriteRequestExecutor(() -> restClientConfiguration.getClient()));
+        Validate.notNull(restClientConfiguration, "Parameter 'restClientConfiguration' may not be null!");
+    }
+
+    private JournalingWriteRequestHandler(Path journalDirectory, WriteRequestExecutor writeRequestExecutor) {
+        this(journalDirectory, writeRequestExecutor::execute, writeRequestExecutor::execute);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param journalDirectory      Directory of the journal files
+     * @param bulkAction            Action sending a bulk request synchronously
+     * @param bulkByScrollAction    Action sending a delete or update by query request synchronously
+     */
+    public JournalingWriteRequestHandler(Path journalDirectory, Function<BulkRequest, BulkResponse> bulkAction,
+                                         Function<AbstractBulkByScrollRequest<?>, BulkByScrollResponse> bulkByScrollAction) {
+        Validate.notNull(journalDirectory, "Parameter 'journalDirectory' may not be null!");
+        Validate.notNull(bulkAction, "Parameter 'bulkAction' may not be null!");
+        Validate.notNull(bulkByScrollAction, "Parameter 'bulkByScrollAction' may not be null!");
+        this.journalDirectory = journalDirectory;
+        this.bulkAction = bulkAction;
+        this.bulkByScrollAction = bulkByScrollAction;
+    }
+
+    /**
+     * Sets the size of a journal segment file in bytes.
+     *
+     * @param segmentSize   Size of a journal segment file in bytes
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Sets if journaled requests should be forced to the storage device before returning to the caller.
+     *
+     * @param sync  TRUE if journaled requests should be forced to the storage device
+     */
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Sets the maximum number of journaled requests replayed at once.
+     *
+     * @param replayBatchSize   Maximum number of journaled requests replayed at once
+     */
+    public void setReplayBatchSize(int replayBatchSize) {
+        Validate.isTrue(replayBatchSize > 0, "Parameter 'replayBatchSize' must be greater than 0!");
+        this.replayBatchSize = replayBatchSize;
+    }
+
+    /**
+     * Sets the initial and maximum delays in milliseconds before retrying a failed replay.
+     *
+     * @param retryInitialDelay Initial delay in milliseconds, will be doubled on further retries
+     * @param retryMaxDelay     Maximum delay in milliseconds
+     */
+    public void setRetryDelays(long retryInitialDelay, long retryMaxDelay) {
+        this.retryInitialDelay = retryInitialDelay;
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    @PostConstruct
+    public synchronized void init() {
+        if (journal == null) {
+            journal = new WriteJournal(journalDirectory, segmentSize, sync);
+            journal.open();
+            running = true;
+            replayThread = new Thread(this::replay, "write-journal-replay");
+            replayThread.setDaemon(true);
+            replayThread.start();
+        }
+    }
+
+    @Override
+    public boolean handle(WriteRequest<?> request) {
+        Validate.notNull(request, "Parameter 'request' may not be null!");
+
+        final byte type;
+        if (request instanceof IndexRequest) {
+            type = INDEX;
+        } else if (request instanceof DeleteRequest) {
+            type = DELETE;
+        } else if (request instanceof UpdateRequest) {
+            type = UPDATE;
+        } else if (request instanceof BulkRequest) {
+            type = BULK;
+        } else {
+            return false;
+        }
+        append(type, (Writeable) request);
+        return true;
+    }
+
+    @Override
+    public boolean handle(AbstractBulkByScrollRequest<?> request) {
+        Validate.notNull(request, "Parameter 'request' may not be null!");
+
+        if (request instanceof DeleteByQueryRequest) {
+            append(DELETE_BY_QUERY, request);
+        } else if (request instanceof UpdateByQueryRequest) {
+            append(UPDATE_BY_QUERY, request);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void addWriteListener(WriteListener listener) {
+        Validate.notNull(listener, "Parameter 'listener' may not be null!");
+        writeListeners.add(listener);
+    }
+
+    /**
+     * Checks if all journaled requests have been replayed.
+     *
+     * @return TRUE if all journaled requests have been replayed
+     */
+    public boolean isReplayed() {
+        return journal().isEmpty();
+    }
+
+    /**
+     * Gets the number of journaled requests which could not be decoded or failed with a permanent error and have been moved to the
+     * quarantine directory of the journal.
+     *
+     * @return Number of quarantined requests
+     */
+    public synchronized long getQuarantinedCount() {
+        return quarantinedCount;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        final Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = replayThread;
+            replayThread = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+        }
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    private synchronized WriteJournal journal() {
+        if (journal == null) {
+            throw new ElasticsearchException("Journaling write request handler has not been initialized!");
+        }
+        return journal;
+    }
+
+    private void append(byte type, Writeable request) {
+        try {
+            journal().append(encode(type, request));
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to journal write request!", e);
+        }
+    }
+
+    private byte[] encode(byte type, Writeable request) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(Version.CURRENT.id);
+            out.writeByte(type);
+            request.writeTo(out);
+            return BytesReference.toBytes(out.bytes());
+        }
+    }
+
+    private void replay() {
+        final WriteJournal writeJournal = journal();
+        int failures = 0;
+        try {
+            while (running) {
+                try {
+                    if (writeJournal.awaitEntries(1000)) {
+                        final WriteJournal.Entries entries = writeJournal.read(null, replayBatchSize);
+                        replay(entries.getEntries());
+                        writeJournal.commit(entries.getNextPosition());
+                    }
+                    failures = 0;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    if (running) {
+                        LOG.error("Failed to replay journaled write requests, retrying: attempt=" + (failures + 1), e);
+                        backoff(failures++);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replay(List<byte[]> entries) throws InterruptedException {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (final byte[] entry : entries) {
+            final Writeable request = decode(entry);
+            if (request instanceof IndexRequest) {
+                addToBulk(bulkRequest, (IndexRequest) request);
+            } else if (request instanceof DeleteRequest) {
+                addToBulk(bulkRequest, (DeleteRequest) request);
+            } else if (request instanceof UpdateRequest) {
+                addToBulk(bulkRequest, (UpdateRequest) request);
+            } else if (request instanceof BulkRequest) {
+                final BulkRequest journaledBulkRequest = (BulkRequest) request;
+                for (final DocWriteRequest<?> docWriteRequest : journaledBulkRequest.requests()) {
+                    bulkRequest.add(docWriteRequest);
+                }
+                updateRefreshPolicy(bulkRequest, journaledBulkRequest.getRefreshPolicy());
+            } else if (request instanceof AbstractBulkByScrollRequest) {
+                executeBulk(bulkRequest);
+                bulkRequest = new BulkRequest();
+                executeBulkByScroll((AbstractBulkByScrollRequest<?>) request, entry);
+            }
+        }
+        executeBulk(bulkRequest);
+    }
+
+    private Writeable decode(byte[] entry) {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(StreamInput.wrap(entry), namedWriteableRegistry)) {
+            final byte format = in.readByte();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported format of journaled write request: " + format);
+            }
+            final Version version = Version.fromId(in.readInt());
+            if (!version.isCompatible(Version.CURRENT)) {
+                throw new IOException("Journaled write request has been written by incompatible elasticsearch version: " + version);
+            }
+            in.setVersion(version);
+
+            final byte type = in.readByte();
+            switch (type) {
+                case INDEX:
+                    return new IndexRequest(in);
+                case DELETE:
+                    return new DeleteRequest(in);
+                case UPDATE:
+                    return new UpdateRequest(in);
+                case BULK:
+                    return new BulkRequest(in);
+                case DELETE_BY_QUERY:
+                    return new DeleteByQueryRequest(in);
+                case UPDATE_BY_QUERY:
+                    return new UpdateByQueryRequest(in);
+                default:
+                    throw new IOException("Unknown type of journaled write request: " + type);
+            }
+        } catch (Exception e) {
+            quarantine(entry, "cannot be decoded", e);
+            return null;
+        }
+    }
+
+    private void quarantine(DocWriteRequest<?> request, WriteRequest.RefreshPolicy refreshPolicy, Exception cause) {
+        try {
+            quarantine(encode(BULK, new BulkRequest().add(request).setRefreshPolicy(refreshPolicy)), "failed with permanent error", cause);
+        } catch (IOException e) {
+            LOG.error("Skipping journaled write request failed with permanent error, failed to encode it for quarantine: " + request, cause);
+        }
+    }
+
+    private synchronized void quarantine(byte[] entry, String reason, Exception cause) {
+        final Path file = journalDirectory.resolve(QUARANTINE_DIRECTORY).resolve(System.currentTimeMillis() + "-" + quarantinedCount + ".entry");
+        quarantinedCount++;
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry);
+            LOG.error("Skipping journaled write request which " + reason + ", moved to quarantine: " + file, cause);
+        } catch (IOException e) {
+            LOG.error("Skipping journaled write request which " + reason + ", failed to move it to quarantine: " + file, cause);
+        }
+    }
+
+    private <R extends WriteRequest<R> & DocWriteRequest<R>> void addToBulk(BulkRequest bulkRequest, R request) {
+        // the refresh policy is only supported on the bulk request
+        updateRefreshPolicy(bulkRequest, request.getRefreshPolicy());
+        request.setRefreshPolicy(WriteRequest.RefreshPolicy.NONE);
+        bulkRequest.add(request);
+    }
+
+    private void updateRefreshPolicy(BulkRequest bulkRequest, WriteRequest.RefreshPolicy refreshPolicy) {
+        if (refreshPolicy != WriteRequest.RefreshPolicy.NONE) {
+            bulkRequest.setRefreshPolicy(refreshPolicy);
+        }
+    }
+
+    private void executeBulk(BulkRequest bulkRequest) throws InterruptedException {
+        BulkRequest pendingRequest = bulkRequest;
+        int attempt = 0;
+        while (pendingRequest.numberOfActions() > 0) {
+            final BulkRequest request = pendingRequest;
+            final BulkResponse bulkResponse;
+            try {
+                bulkResponse = executeWithRetry(() -> bulkAction.apply(request));
+            } catch (PermanentFailureException e) {
+                executeSplit(request, e.getCause());
+                return;
+            } finally {
+                notifyWritten(request);
+            }
+
+            pendingRequest = new BulkRequest().setRefreshPolicy(request.getRefreshPolicy());
+            for (final BulkItemResponse itemResponse : bulkResponse) {
+                if (itemResponse.isFailed()) {
+                    final DocWriteRequest<?> itemRequest = request.requests().get(itemResponse.getItemId());
+                    if (isRetriable(itemResponse.status())) {
+                        pendingRequest.add(itemRequest);
+                    } else {
+                        quarantine(itemRequest, request.getRefreshPolicy(), itemResponse.getFailure().getCause());
+                    }
+                }
+            }
+            if (pendingRequest.numberOfActions() > 0) {
+                backoff(attempt++);
+            }
+        }
+    }
+
+    // splits a bulk failed with a permanent error in halves until the failing requests are isolated and can be quarantined
+    private void executeSplit(BulkRequest bulkRequest, Exception cause) throws InterruptedException {
+        final List<DocWriteRequest<?>> requests = bulkRequest.requests();
+        if (requests.size() == 1) {
+            quarantine(requests.get(0), bulkRequest.getRefreshPolicy(), cause);
+            return;
+        }
+
+        final int half = requests.size() / 2;
+        final BulkRequest firstHalf = new BulkRequest().setRefreshPolicy(bulkRequest.getRefreshPolicy());
+        final BulkRequest secondHalf = new BulkRequest().setRefreshPolicy(bulkRequest.getRefreshPolicy());
+        requests.subList(0, half).forEach(firstHalf::add);
+        requests.subList(half, requests.size()).forEach(secondHalf::add);
+        executeBulk(firstHalf);
+        executeBulk(secondHalf);
+    }
+
+    private void executeBulkByScroll(AbstractBulkByScrollRequest<?> request, byte[] entry) throws InterruptedException {
+        final BulkByScrollResponse response;
+        try {
+            response = executeWithRetry(() -> bulkByScrollAction.apply(request));
+        } catch (PermanentFailureException e) {
+            quarantine(entry, "failed with permanent error", e.getCause());
+            return;
+        } finally {
+            for (final String indexAlias : request.getSearchRequest().indices()) {
+                writeListeners.forEach(listener -> listener.written(indexAlias, request.isRefresh()));
+            }
+        }
+        if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+            LOG.error("Journaled {} finished with failures: bulkFailures={}, searchFailures={}", request,
+                    response.getBulkFailures(), response.getSearchFailures());
+        }
+    }
+
+    private <T> T executeWithRetry(Supplier<T> action) throws InterruptedException {
+        int attempt = 0;
+        while (true) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!running) {
+                    throw e;
+                }
+                final RestStatus status = (e.getCause() != null) ? ExceptionsHelper.status(e.getCause()) : RestStatus.INTERNAL_SERVER_ERROR;
+                if (!isRetriable(status)) {
+                    throw new PermanentFailureException(e);
+                }
+                LOG.warn("Replaying journaled write requests failed, retrying: attempt=" + (attempt + 1), e);
+                backoff(attempt++);
+            }
+        }
+    }
+
+    private void notifyWritten(BulkRequest bulkRequest) {
+        final boolean visible = bulkRequest.getRefreshPolicy() != WriteRequest.RefreshPolicy.NONE;
+        bulkRequest.requests().stream().map(DocWriteRequest::index).distinct()
+                .forEach(indexAlias -> writeListeners.forEach(listener -> listener.written(indexAlias, visible)));
+    }
+
+    private boolean isRetriable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500;
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        final long delay = Math.min(retryMaxDelay, retryInitialDelay << Math.min(attempt, 30));
+        Thread.sleep(delay);
+    }
+
+    private static class PermanentFailureException extends RuntimeException {
+
+        PermanentFailureException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.ElasticsearchType;
+import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.List;
+
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.fieldConfiguration;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.isDocValuesField;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.keywordFieldName;
+
+/**
+ * Validates the fields to resolve of a query and adds them to the search source, either as doc value fields or as source filter.
+ */
+public class SearchFieldsBuilder {
+
+    private static final String DOC_VALUES_DATE_FORMAT = "strict_date_time";
+
+    /**
+     * Validates that the fields to resolve of a query are defined and can be resolved by the field resolver type of the query.
+     *
+     * @param queryDto              {@link QueryDto}
+     * @param mappingConfiguration  {@link MappingConfiguration}
+     */
+    public void validateFields(QueryDto queryDto, MappingConfiguration mappingConfiguration) {
+        for (final String field : queryDto.getFieldsToResolve()) {
+            final FieldConfiguration fieldConfiguration = mappingConfiguration.getFieldConfiguration(field);
+            if (fieldConfiguration == null) {
+                throw new RuntimeException("Undefined field to resolve: " + field);
+            }
+            if (queryDto.getFieldResolverType() == QueryDto.FieldResolverType.DOC_VALUES && !isDocValuesField(fieldConfiguration)) {
+                throw new RuntimeException("Field cannot be resolved from doc values: " + field);
+            }
+        }
+    }
+
+    /**
+     * Adds fields as doc value fields and disables fetching of the source.
+     *
+     * @param fields                Fields to resolve
+     * @param searchSourceBuilder   Search source
+     * @param mappingConfiguration  {@link MappingConfiguration}
+     */
+    public void addDocValues(List<String> fields, SearchSourceBuilder searchSourceBuilder, MappingConfiguration mappingConfiguration) {
+        searchSourceBuilder.fetchSource(false);
+        for (final String field : fields) {
+            final FieldConfiguration fieldConfiguration = fieldConfiguration(mappingConfiguration, field);
+            final String docValueField = keywordFieldName(fieldConfiguration, field);
+            if (fieldConfiguration != null && fieldConfiguration.getElasticsearchType().equalsIgnoreCase(ElasticsearchType.DATE.toString())) {
+                searchSourceBuilder.docValueField(docValueField, DOC_VALUES_DATE_FORMAT);
+            } else {
+                searchSourceBuilder.docValueField(docValueField);
+            }
+        }
+    }
+
+    /**
+     * Adds fields as source filter.
+     *
+     * @param fields                Fields to resolve
+     * @param searchSourceBuilder   Search source
+     */
+    public void addSourceValues(List<String> fields, SearchSourceBuilder searchSourceBuilder) {
+        final String[] includes = fields.toArray(new String[0]);
+        final String[] excludes = new String[0];
+        searchSourceBuilder.fetchSource(includes, excludes);
+    }
+}
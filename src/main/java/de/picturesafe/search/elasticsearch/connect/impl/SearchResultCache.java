@@ -0,0 +1,383 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.FacetDto;
+import de.picturesafe.search.elasticsearch.connect.dto.FacetEntryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryRangeDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchHitDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
+import de.picturesafe.search.elasticsearch.connect.query.QueryCache;
+import de.picturesafe.search.elasticsearch.connect.util.LruCache;
+import de.picturesafe.search.elasticsearch.connect.util.UnmodifiableAttributes;
+import de.picturesafe.search.expression.Expression;
+import de.picturesafe.search.parameter.CollapseOption;
+import de.picturesafe.search.parameter.SearchAggregation;
+import de.picturesafe.search.parameter.SortOption;
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Local cache for search results.
+ *
+ * Results are cached per index alias and query, the query (expression, locale, range, sort options, aggregations etc.) and the mapping
+ * configuration are compared by value. Cached entries keep a deep copy of the query values (expression, sort options, aggregations etc.),
+ * so changing a query after searching does not affect cached results. Queries paging by search after values and queries which cannot be
+ * serialized (e.g. because of custom values) are not cached. Like in the
+ * {@link de.picturesafe.search.elasticsearch.connect.query.QueryCache} the account context is part of the key, so results of account dependent
+ * queries are never shared between accounts.
+ *
+ * Every alias has a version which is increased by {@link #invalidate(String, boolean)} whenever a write request to the alias has been
+ * completed, so cached results of older versions will not be returned anymore. A result will only be cached if the version of its alias
+ * did not change while searching, and not before the index has been refreshed after the last write.
+ *
+ * Writes which are not made through this cache's owner (other nodes or write request handlers flushing later) are not seen by the cache,
+ * their staleness is bounded by the time to live of the entries.
+ *
+ * Cached results are shared between searches, so results are returned as read-only views: the lists of hits and facets as well as the
+ * attributes of the hits cannot be modified.
+ */
+public class SearchResultCache {
+
+    private final LruCache<Key, Entry> cache;
+    private final long timeToLive;
+    private final long refreshInterval;
+    private final Map<String, AliasState> aliasStates = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param maxSize           Maximum number of cached results
+     * @param timeToLive        Time to live of cached results in milliseconds
+     * @param refreshInterval   Refresh interval of the indices in milliseconds, writes without immediate refresh become visible after this interval
+     */
+    public SearchResultCache(int maxSize, long timeToLive, long refreshInterval) {
+        Validate.isTrue(timeToLive > 0, "Parameter 'timeToLive' must be greater than 0!");
+        this.cache = new LruCache<>(maxSize);
+        this.timeToLive = timeToLive;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Gets a cached search result or searches and caches the result if absent.
+     *
+     * @param indexAlias            Name of the alias of the index
+     * @param queryDto              {@link QueryDto}
+     * @param mappingConfiguration  {@link MappingConfiguration}
+     * @param searchFunction        Executes the search
+     * @return                      Cached or new search result, queries paging by search after values are never cached
+     */
+    public SearchResultDto get(String indexAlias, QueryDto queryDto, MappingConfiguration mappingConfiguration,
+                               Supplier<SearchResultDto> searchFunction) {
+        if (queryDto.getSearchAfter() != null) {
+            return searchFunction.get();
+        }
+
+        final Key key = new Key(indexAlias, queryDto, mappingConfiguration, false);
+        final AliasState aliasState = aliasState(indexAlias);
+        final long version = aliasState.version.get();
+        final SearchResultDto cachedResult = lookup(key, version);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        final Key snapshot = Key.snapshot(indexAlias, queryDto, mappingConfiguration);
+        final SearchResultDto result = unmodifiable(searchFunction.get());
+        store(snapshot, aliasState, version, result);
+        return result;
+    }
+
+    /**
+     * Gets a cached search result or searches asynchronously and caches the result if absent.
+     *
+     * @param indexAlias            Name of the alias of the index
+     * @param queryDto              {@link QueryDto}
+     * @param mappingConfiguration  {@link MappingConfiguration}
+     * @param searchFunction        Executes the search asynchronously
+     * @return                      Future of the cached or new search result, queries paging by search after values are never cached
+     */
+    public CompletableFuture<SearchResultDto> getAsync(String indexAlias, QueryDto queryDto, MappingConfiguration mappingConfiguration,
+                                                       Supplier<CompletableFuture<SearchResultDto>> searchFunction) {
+        if (queryDto.getSearchAfter() != null) {
+            return searchFunction.get();
+        }
+
+        final Key key = new Key(indexAlias, queryDto, mappingConfiguration, false);
+        final AliasState aliasState = aliasState(indexAlias);
+        final long version = aliasState.version.get();
+        final SearchResultDto cachedResult = lookup(key, version);
+        if (cachedResult != null) {
+            return CompletableFuture.completedFuture(cachedResult);
+        }
+
+        final Key snapshot = Key.snapshot(indexAlias, queryDto, mappingConfiguration);
+        return searchFunction.get().thenApply(result -> {
+            final SearchResultDto unmodifiableResult = unmodifiable(result);
+            store(snapshot, aliasState, version, unmodifiableResult);
+            return unmodifiableResult;
+        });
+    }
+
+    /**
+     * Invalidates all cached results of an index alias. Should be called after a write request to the alias has been completed.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param visible       TRUE if the write is already visible to searches (index has been refreshed)
+     */
+    public void invalidate(String indexAlias, boolean visible) {
+        final AliasState aliasState = aliasState(indexAlias);
+        if (!visible) {
+            aliasState.uncachedUntil = System.currentTimeMillis() + refreshInterval;
+        }
+        aliasState.version.incrementAndGet();
+    }
+
+    /**
+     * Invalidates all cached results of the index aliases written by a completed write request.
+     *
+     * @param request Write request
+     */
+    public void invalidate(WriteRequest<?> request) {
+        final boolean visible = request.getRefreshPolicy() != WriteRequest.RefreshPolicy.NONE;
+        if (request instanceof BulkRequest) {
+            ((BulkRequest) request).requests().stream().map(DocWriteRequest::index).distinct().forEach(indexAlias -> invalidate(indexAlias, visible));
+        } else if (request instanceof DocWriteRequest) {
+            invalidate(((DocWriteRequest<?>) request).index(), visible);
+        }
+    }
+
+    /**
+     * Invalidates all cached results of the index aliases written by a completed update or delete by query request.
+     *
+     * @param request Update or delete by query request
+     */
+    public void invalidate(AbstractBulkByScrollRequest<?> request) {
+        for (final String indexAlias : request.getSearchRequest().indices()) {
+            invalidate(indexAlias, request.isRefresh());
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        aliasStates.values().forEach(aliasState -> aliasState.version.incrementAndGet());
+        cache.clear();
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return Number of cached results
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private AliasState aliasState(String indexAlias) {
+        return aliasStates.computeIfAbsent(indexAlias, alias -> new AliasState());
+    }
+
+    private SearchResultDto lookup(Key key, long version) {
+        final Entry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.version == version && System.currentTimeMillis() < entry.expires) {
+                return entry.result;
+            }
+            cache.remove(key);
+        }
+        return null;
+    }
+
+    private void store(Key key, AliasState aliasState, long version, SearchResultDto result) {
+        final long now = System.currentTimeMillis();
+        if (key != null && result != null && now >= aliasState.uncachedUntil && aliasState.version.get() == version) {
+            cache.put(key, new Entry(result, version, now + timeToLive));
+        }
+    }
+
+    private static SearchResultDto unmodifiable(SearchResultDto result) {
+        if (result == null) {
+            return null;
+        }
+        final List<SearchHitDto> hits = (result.getHits() != null)
+                ? Collections.unmodifiableList(result.getHits().stream().map(SearchResultCache::unmodifiable).collect(Collectors.toList())) : null;
+        final List<FacetDto> facets = (result.getFacetDtoList() != null)
+                ? Collections.unmodifiableList(result.getFacetDtoList().stream().map(SearchResultCache::unmodifiable).collect(Collectors.toList()))
+                : null;
+        return new SearchResultDto(result.getTotalHitCount(), result.isExactCount(), hits, facets);
+    }
+
+    private static SearchHitDto unmodifiable(SearchHitDto hit) {
+        final SearchHitDto unmodifiableHit = new SearchHitDto(hit.getId(), UnmodifiableAttributes.of(hit.getAttributes()))
+                .sortValues((hit.getSortValues() != null) ? hit.getSortValues().clone() : null);
+        if (hit.getInnerHits() != null) {
+            final Map<String, List<SearchHitDto>> innerHits = new LinkedHashMap<>();
+            hit.getInnerHits().forEach((name, innerHitList) -> innerHits.put(name,
+                    Collections.unmodifiableList(innerHitList.stream().map(SearchResultCache::unmodifiable).collect(Collectors.toList()))));
+            unmodifiableHit.innerHits(Collections.unmodifiableMap(innerHits));
+        }
+        return unmodifiableHit;
+    }
+
+    private static FacetDto unmodifiable(FacetDto facet) {
+        final List<FacetEntryDto> entries = (facet.getFacetEntryDtos() != null) ? Collections.unmodifiableList(facet.getFacetEntryDtos()) : null;
+        return new FacetDto(facet.getName(), facet.getFieldName(), facet.getCount(), entries, facet.getAfterKey(), facet.isApproximate());
+    }
+
+    private static class AliasState {
+
+        private final AtomicLong version = new AtomicLong();
+        private volatile long uncachedUntil;
+    }
+
+    private static class Entry {
+
+        private final SearchResultDto result;
+        private final long version;
+        private final long expires;
+
+        Entry(SearchResultDto result, long version, long expires) {
+            this.result = result;
+            this.version = version;
+            this.expires = expires;
+        }
+    }
+
+    private static class Key {
+
+        private final String indexAlias;
+        private final MappingConfiguration mappingConfiguration;
+        private final Expression expression;
+        private final Locale locale;
+        private final QueryRangeDto queryRange;
+        private final List<SortOption> sortOptions;
+        private final CollapseOption collapseOption;
+        private final List<? extends SearchAggregation> aggregations;
+        private final List<String> fieldsToResolve;
+        private final QueryDto.FieldResolverType fieldResolverType;
+        private final boolean sortFilter;
+        private final List<Object> accountContext;
+        private final int hashCode;
+
+        Key(String indexAlias, QueryDto queryDto, MappingConfiguration mappingConfiguration, boolean deepCopy) {
+            this.indexAlias = indexAlias;
+            this.mappingConfiguration = mappingConfiguration;
+            this.expression = deepCopy ? copy(queryDto.getExpression()) : queryDto.getExpression();
+            this.locale = queryDto.getLocale();
+            this.queryRange = queryDto.getQueryRange();
+            this.sortOptions = deepCopy ? copy(queryDto.getSortOptions()) : queryDto.getSortOptions();
+            this.collapseOption = deepCopy ? copy(queryDto.getCollapseOption()) : queryDto.getCollapseOption();
+            this.aggregations = deepCopy ? copy(queryDto.getAggregations()) : queryDto.getAggregations();
+            this.fieldsToResolve = deepCopy && queryDto.getFieldsToResolve() != null
+                    ? new ArrayList<>(queryDto.getFieldsToResolve()) : queryDto.getFieldsToResolve();
+            this.fieldResolverType = queryDto.getFieldResolverType();
+            this.sortFilter = queryDto.isSortFilter();
+            this.accountContext = QueryCache.accountContextKey(queryDto.getAccountContext());
+            this.hashCode = new HashCodeBuilder(17, 37)
+                    .append(indexAlias)
+                    .append(mappingConfiguration)
+                    .append(expression)
+                    .append(locale)
+                    .append(queryRange)
+                    .append(sortOptions)
+                    .append(aggregations)
+                    .append(fieldsToResolve)
+                    .append(fieldResolverType)
+                    .append(sortFilter)
+                    .append(accountContext)
+                    .toHashCode();
+        }
+
+        /**
+         * Creates a key holding deep copies of the query values, to be stored in the cache.
+         *
+         * @param indexAlias            Name of the alias of the index
+         * @param queryDto              {@link QueryDto}
+         * @param mappingConfiguration  {@link MappingConfiguration}
+         * @return                      Key or <code>null</code> if the query values cannot be copied
+         */
+        static Key snapshot(String indexAlias, QueryDto queryDto, MappingConfiguration mappingConfiguration) {
+            try {
+                return new Key(indexAlias, queryDto, mappingConfiguration, true);
+            } catch (SerializationException e) {
+                return null;
+            }
+        }
+
+        private static <T extends Serializable> T copy(T value) {
+            return (value != null) ? SerializationUtils.clone(value) : null;
+        }
+
+        private static <T> List<T> copy(List<T> list) {
+            return (list != null) ? SerializationUtils.clone(new ArrayList<>(list)) : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Key that = (Key) o;
+            return new EqualsBuilder()
+                    .append(indexAlias, that.indexAlias)
+                    .append(mappingConfiguration, that.mappingConfiguration)
+                    .append(expression, that.expression)
+                    .append(locale, that.locale)
+                    .append(queryRange, that.queryRange)
+                    .append(sortOptions, that.sortOptions)
+                    .append(collapseOption, that.collapseOption)
+                    .append(aggregations, that.aggregations)
+                    .append(fieldsToResolve, that.fieldsToResolve)
+                    .append(fieldResolverType, that.fieldResolverType)
+                    .append(sortFilter, that.sortFilter)
+                    .append(accountContext, that.accountContext)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.context.SearchContext;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.filter.FilterFactory;
+import de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils;
+import de.picturesafe.search.parameter.ScriptDefinition;
+import de.picturesafe.search.parameter.ScriptSortOption;
+import de.picturesafe.search.parameter.SortOption;
+import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.NestedSortBuilder;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortMode;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+
+import static de.picturesafe.search.elasticsearch.connect.filter.util.FilterFactoryUtils.createFilter;
+import static de.picturesafe.search.elasticsearch.connect.util.ElasticRequestUtils.script;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.fieldConfiguration;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.isTextField;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.sortFieldName;
+
+/**
+ * Creates the elasticsearch sort builders for the sort options of a query.
+ * <p>
+ * Sorts of text fields are built via a callback, so the owner of the factory may route them through its own (overridable) method.
+ */
+public class SortBuilderFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SortBuilderFactory.class);
+
+    private final List<FilterFactory> filterFactories;
+    private final MissingValueSortPosition missingValueSortPosition;
+
+    /**
+     * Constructor
+     *
+     * @param filterFactories           Filter factories creating the filters of nested sorts
+     * @param missingValueSortPosition  Sort position of documents with missing values
+     */
+    public SortBuilderFactory(List<FilterFactory> filterFactories, MissingValueSortPosition missingValueSortPosition) {
+        this.filterFactories = filterFactories;
+        this.missingValueSortPosition = missingValueSortPosition;
+    }
+
+    /**
+     * Creates the sort builder for a script sort option.
+     *
+     * @param scriptSortOption  Script sort option
+     * @return                  Sort builder
+     */
+    public ScriptSortBuilder scriptSortBuilder(ScriptSortOption scriptSortOption) {
+        final ScriptDefinition scriptDefinition = scriptSortOption.getScriptDefinition();
+        final ScriptSortBuilder.ScriptSortType sortType = ScriptSortBuilder.ScriptSortType.valueOf(scriptDefinition.getSortType().name());
+        return new ScriptSortBuilder(script(scriptDefinition), sortType);
+    }
+
+    /**
+     * Creates the sort builder for a sort option of a field.
+     *
+     * @param sortOption        Sort option
+     * @param mappingConfig     Mapping configuration
+     * @param locale            Locale of the query
+     * @param stringSortBuilder Builder of the sorts of text fields
+     * @return                  Sort builder
+     */
+    public SortBuilder<?> fieldSortBuilder(SortOption sortOption, MappingConfiguration mappingConfig, Locale locale, StringSortBuilder stringSortBuilder) {
+        final String fieldName = sortOption.getFieldName();
+        SortBuilder<?> sortBuilder;
+
+        FieldConfiguration fieldConfiguration = fieldConfiguration(mappingConfig, fieldName, false);
+        final String topFieldName = StringUtils.substringBefore(fieldName, ".");
+
+        if (fieldConfiguration == null) {
+            fieldConfiguration = fieldConfiguration(mappingConfig, topFieldName, false);
+        }
+
+        sortBuilder = null;
+        if (fieldConfiguration != null) {
+            if (fieldConfiguration.getParent() != null) {
+                fieldConfiguration = fieldConfiguration.getParent();
+            }
+
+            if (fieldConfiguration.isNestedObject()) {
+                sortBuilder = buildNestedSort(fieldConfiguration, fieldName, sortOption, mappingConfig, locale);
+            } else if (isTextField(fieldConfiguration)) {
+                sortBuilder = stringSortBuilder.build(fieldConfiguration, mappingConfig, fieldName, sortOrder(sortOption), locale);
+            }
+        } else {
+            LOG.warn("Missing field configuration for field '{}', sorting by this field may not be possible.", fieldName);
+        }
+
+        if (sortBuilder == null) {
+            sortBuilder = SortBuilders.fieldSort(topFieldName).order(sortOrder(sortOption)).sortMode(sortMode(sortOption)).missing(sortMissing());
+        }
+
+        return sortBuilder;
+    }
+
+    private FieldSortBuilder buildNestedSort(FieldConfiguration fieldConfiguration, String nestedFieldName, SortOption sortOption,
+                                             MappingConfiguration mappingConfiguration, Locale locale) {
+        final FieldConfiguration nestedField = fieldConfiguration.getNestedField(StringUtils.substringAfter(nestedFieldName, "."));
+        final String sortFieldName = sortFieldName(nestedField, nestedFieldName);
+        return SortBuilders
+                .fieldSort(sortFieldName)
+                .order(sortOrder(sortOption))
+                .missing(sortMissing())
+                .sortMode(sortMode(sortOption))
+                .setNestedSort(nestedSortBuilder(fieldConfiguration.getName(), sortOption, mappingConfiguration, locale));
+    }
+
+    private NestedSortBuilder nestedSortBuilder(String topFieldName, SortOption sortOption, MappingConfiguration mappingConfiguration, Locale locale) {
+        final NestedSortBuilder nestedSortBuilder = new NestedSortBuilder(topFieldName);
+        if (sortOption.getFilter() != null) {
+            nestedSortBuilder.setFilter(
+                    createFilter(filterFactories, new SearchContext(QueryDto.sortFilter(sortOption.getFilter(), locale), mappingConfiguration)));
+        }
+        return nestedSortBuilder;
+    }
+
+    private SortOrder sortOrder(SortOption sortOption) {
+        return (sortOption.getSortDirection() == SortOption.Direction.ASC) ? SortOrder.ASC : SortOrder.DESC;
+    }
+
+    private SortMode sortMode(SortOption sortOption) {
+        if (sortOption.getArrayMode() == SortOption.ArrayMode.DEFAULT) {
+            return (sortOption.getSortDirection() == SortOption.Direction.ASC) ? SortMode.MIN : SortMode.MAX;
+        } else {
+            return SortMode.valueOf(sortOption.getArrayMode().name());
+        }
+    }
+
+    private String sortMissing() {
+        return "_" + missingValueSortPosition.getValue();
+    }
+
+    /**
+     * Creates the sort builder for a text field.
+     *
+     * @param fieldConfiguration    Configuration of the field
+     * @param mappingConfiguration  Mapping configuration
+     * @param fieldName             Name of the field
+     * @param sortOrder             Sort order
+     * @param locale                Locale of the query
+     * @return                      Sort builder
+     */
+    public FieldSortBuilder buildStringSort(FieldConfiguration fieldConfiguration, MappingConfiguration mappingConfiguration, String fieldName,
+                                            SortOrder sortOrder, Locale locale) {
+        if (fieldConfiguration.isSortable()) {
+            final String esFieldName = FieldConfigurationUtils.getElasticFieldName(mappingConfiguration, fieldName, locale);
+            final String sortFieldName = sortFieldName(fieldConfiguration, esFieldName);
+            return SortBuilders
+                    .fieldSort(sortFieldName)
+                    .missing("_" + missingValueSortPosition.getValue())
+                    .order(sortOrder);
+        } else {
+            throw new RuntimeException("The field '" + fieldConfiguration.getName() + "' is not configured as sortable!");
+        }
+    }
+
+    /**
+     * Builder of the sorts of text fields.
+     */
+    public interface StringSortBuilder {
+
+        FieldSortBuilder build(FieldConfiguration fieldConfiguration, MappingConfiguration mappingConfiguration, String fieldName, SortOrder sortOrder,
+                               Locale locale);
+    }
+}
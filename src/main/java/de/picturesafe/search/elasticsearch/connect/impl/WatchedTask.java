@@ -21,6 +21,13 @@ import de.picturesafe.search.util.logging.StopWatchPrettyPrint;
 import org.slf4j.Logger;
 import org.springframework.util.StopWatch;
 
+/**
+ * Task logging its processing time at debug level.
+ *
+ * @param <T> Type of the result
+ * @deprecated Processing times are recorded by the {@link de.picturesafe.search.elasticsearch.metrics.MetricsRecorder}
+ */
+@Deprecated
 public abstract class WatchedTask<T> {
     private final T result;
 
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.RestClientConfiguration;
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Write request handler queueing background writes (requests without index refresh) in memory and sending them as bulks.
+ * <p>
+ * Pending writes are coalesced per index and document id: the last index request wins and a delete request replaces pending index
+ * requests of the same document, while partial updates are appended to them. The queue is flushed when it reaches the flush size,
+ * periodically after the flush interval and on {@link #flush()}. If a write would exceed the capacity of the queue, the calling thread
+ * flushes the queue synchronously before the write is queued. If the queue is still full afterwards (e.g. because elasticsearch is not
+ * available), the write is not handled and has to be sent directly by the caller.
+ * <p>
+ * Write requests with index refresh are not handled, but supersede pending writes of the same documents. Delete and update by query
+ * requests are not handled either, but pending writes are flushed before to make them visible to the query.
+ * <p>
+ * Writes of failed bulk requests and bulk items failing with a transient error are put back into the queue as far as its capacity allows
+ * and sent again with the next flush. Bulk items failing permanently and failed writes exceeding the capacity are dropped and reported
+ * by the exception of the flush.
+ * <p>
+ * Note: Pending writes are not visible to searches or document lookups and will be lost if the application terminates before they are
+ * flushed. The handler has to be registered as a bean to be used by the elasticsearch connector.
+ */
+public class WriteBehindRequestHandler implements WriteRequestHandler, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindRequestHandler.class);
+
+    private final Function<BulkRequest, BulkResponse> bulkAction;
+    private final Map<DocumentKey, List<DocWriteRequest<?>>> pending = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private final List<WriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
+    private int pendingCount;
+    private boolean flushing;
+    private ScheduledExecutorService flushScheduler;
+
+    @Value("${elasticsearch.service.write_behind.flush_size:1000}")
+    private int flushSize = 1000;
+
+    @Value("${elasticsearch.service.write_behind.flush_interval:1000}")
+    private long flushInterval = 1000;
+
+    @Value("${elasticsearch.service.write_behind.capacity:10000}")
+    private int capacity = 10000;
+
+    /**
+     * Constructor
+     *
+     * @param restClientConfiguration   Configuration of the elasticsearch rest client
+     */
+    public WriteBehindRequestHandler(RestClientConfiguration restClientConfiguration) {
+        this(bulkRequest -> {
+            try {
+                return restClientConfiguration.getClient().bulk(bulkRequest, RequestOptions.DEFAULT);
+            } catch (Exception e) {
+                throw new ElasticsearchException("Failed to execute bulk request!", e);
+            }
+        });
+        Validate.notNull(restClientConfiguration, "Parameter 'restClientConfiguration' may not be null!");
+    }
+
+    /**
+     * Constructor
+     *
+     * @param bulkAction    Action sending a bulk request synchronously
+     */
+    public WriteBehindRequestHandler(Function<BulkRequest, BulkResponse> bulkAction) {
+        Validate.notNull(bulkAction, "Parameter 'bulkAction' may not be null!");
+        this.bulkAction = bulkAction;
+    }
+
+    /**
+     * Sets the maximum number of pending writes sent in one bulk, reaching it triggers a flush.
+     *
+     * @param flushSize Maximum number of pending writes per bulk
+     */
+    public void setFlushSize(int flushSize) {
+        Validate.isTrue(flushSize > 0, "Parameter 'flushSize' must be greater than 0!");
+        this.flushSize = flushSize;
+    }
+
+    /**
+     * Sets the interval in milliseconds for periodic flushes (0 = no periodic flushes).
+     *
+     * @param flushInterval Flush interval in milliseconds
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Sets the maximum number of pending writes. A write exceeding it blocks the calling thread until the queue has been flushed.
+     *
+     * @param capacity  Maximum number of pending writes
+     */
+    public void setCapacity(int capacity) {
+        Validate.isTrue(capacity > 0, "Parameter 'capacity' must be greater than 0!");
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    public synchronized void init() {
+        if (flushScheduler == null && flushInterval > 0) {
+            flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "write-behind-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushScheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean handle(WriteRequest<?> request) {
+        Validate.notNull(request, "Parameter 'request' may not be null!");
+
+        final List<DocWriteRequest<?>> requests = docWriteRequests(request);
+        if (requests == null) {
+            return false;
+        }
+
+        if (request.getRefreshPolicy() != WriteRequest.RefreshPolicy.NONE) {
+            supersede(requests);
+            return false;
+        }
+
+        int count = enqueue(requests);
+        if (count < 0) {
+            // failures of the flush concern writes accepted before, so they must not be thrown to the caller of this write
+            flushQuietly();
+            count = enqueue(requests);
+            if (count < 0) {
+                LOG.warn("Queue of pending writes is full, {} writes will be sent directly.", requests.size());
+                supersede(requests);
+                return false;
+            }
+        }
+        if (count >= flushSize && flushScheduler != null) {
+            flushScheduler.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean handle(AbstractBulkByScrollRequest<?> request) {
+        flush();
+        return false;
+    }
+
+    @Override
+    public void addWriteListener(WriteListener listener) {
+        Validate.notNull(listener, "Parameter 'listener' may not be null!");
+        writeListeners.add(listener);
+    }
+
+    /**
+     * Sends all pending writes to elasticsearch and waits for the bulk responses. If a bulk request fails, the writes which have not been
+     * sent are put back into the queue, as well as the writes failing with a transient error (429 too many requests, 5xx server errors).
+     * Pending writes of the same documents which have been queued meanwhile take precedence over the failed writes, failed writes exceeding
+     * the capacity of the queue are dropped.
+     *
+     * @throws ElasticsearchException if a bulk request or some of its items have failed
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final List<DocWriteRequest<?>> requests = drain();
+            final List<DocWriteRequest<?>> failedRequests = new ArrayList<>();
+            String failureMessage = null;
+            int sent = 0;
+            int dropped = 0;
+            try {
+                while (sent < requests.size()) {
+                    final List<DocWriteRequest<?>> chunk = requests.subList(sent, Math.min(sent + flushSize, requests.size()));
+                    final BulkRequest bulkRequest = new BulkRequest();
+                    chunk.forEach(bulkRequest::add);
+                    LOG.debug("Flushing {} pending writes.", bulkRequest.numberOfActions());
+                    final BulkResponse bulkResponse;
+                    try {
+                        bulkResponse = bulkAction.apply(bulkRequest);
+                    } finally {
+                        notifyWritten(bulkRequest);
+                    }
+                    sent += chunk.size();
+                    if (bulkResponse.hasFailures()) {
+                        failedRequests.addAll(retryableRequests(chunk, bulkResponse));
+                        failureMessage = bulkResponse.buildFailureMessage();
+                    }
+                }
+            } finally {
+                failedRequests.addAll(requests.subList(sent, requests.size()));
+                dropped = requeue(failedRequests);
+            }
+
+            if (failureMessage != null) {
+                final String droppedMessage = (dropped > 0) ? " (" + dropped + " retryable writes dropped due to the queue capacity)" : "";
+                throw new ElasticsearchException("Flushing pending writes failed" + droppedMessage + ": " + failureMessage);
+            }
+        }
+    }
+
+    /**
+     * Waits until all pending writes have been flushed, either by the periodic flush or by another thread.
+     *
+     * @param timeout   Maximum time to wait in milliseconds
+     * @return          TRUE if there are no more pending writes
+     */
+    public boolean awaitFlush(long timeout) {
+        final long deadline = System.currentTimeMillis() + timeout;
+        synchronized (pending) {
+            try {
+                long remaining = timeout;
+                while ((pendingCount > 0 || flushing) && remaining > 0) {
+                    pending.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return pendingCount == 0 && !flushing;
+        }
+    }
+
+    /**
+     * Gets the number of pending writes.
+     *
+     * @return Number of pending writes
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pendingCount;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            if (flushScheduler != null) {
+                flushScheduler.shutdownNow();
+                flushScheduler = null;
+            }
+        }
+        flush();
+    }
+
+    private List<DocWriteRequest<?>> docWriteRequests(WriteRequest<?> request) {
+        if (request instanceof IndexRequest || request instanceof DeleteRequest || request instanceof UpdateRequest) {
+            return Collections.singletonList((DocWriteRequest<?>) request);
+        } else if (request instanceof BulkRequest) {
+            return ((BulkRequest) request).requests();
+        } else {
+            return null;
+        }
+    }
+
+    private void supersede(List<DocWriteRequest<?>> requests) {
+        if (requests.stream().anyMatch(r -> r.opType() == DocWriteRequest.OpType.UPDATE)) {
+            // partial updates have to be applied on top of the pending writes
+            flush();
+        } else {
+            discard(requests);
+        }
+    }
+
+    private int enqueue(Collection<DocWriteRequest<?>> requests) {
+        synchronized (pending) {
+            if (pendingCount + requests.size() > capacity) {
+                return -1;
+            }
+            for (final DocWriteRequest<?> request : requests) {
+                final DocumentKey key = new DocumentKey(request.index(), request.id());
+                final List<DocWriteRequest<?>> documentRequests = pending.get(key);
+                if (documentRequests == null || request.opType() != DocWriteRequest.OpType.UPDATE) {
+                    // index and delete requests replace all pending writes of the document
+                    if (documentRequests != null) {
+                        pendingCount -= documentRequests.size();
+                    }
+                    pending.put(key, new ArrayList<>(Collections.singletonList(request)));
+                } else {
+                    documentRequests.add(request);
+                }
+                pendingCount++;
+            }
+            return pendingCount;
+        }
+    }
+
+    private void discard(Collection<DocWriteRequest<?>> requests) {
+        // wait for a running flush to keep it from overwriting the writes of the request
+        synchronized (flushLock) {
+            synchronized (pending) {
+                for (final DocWriteRequest<?> request : requests) {
+                    final List<DocWriteRequest<?>> documentRequests = pending.remove(new DocumentKey(request.index(), request.id()));
+                    if (documentRequests != null) {
+                        pendingCount -= documentRequests.size();
+                    }
+                }
+                pending.notifyAll();
+            }
+        }
+    }
+
+    private List<DocWriteRequest<?>> drain() {
+        synchronized (pending) {
+            final List<DocWriteRequest<?>> requests = new ArrayList<>(pendingCount);
+            pending.values().forEach(requests::addAll);
+            pending.clear();
+            pendingCount = 0;
+            flushing = !requests.isEmpty();
+            return requests;
+        }
+    }
+
+    private int requeue(List<DocWriteRequest<?>> requests) {
+        int dropped = 0;
+        synchronized (pending) {
+            if (!requests.isEmpty()) {
+                LOG.warn("Requeueing {} pending writes after failed flush.", requests.size());
+                final Map<DocumentKey, List<DocWriteRequest<?>>> failed = new LinkedHashMap<>();
+                for (final DocWriteRequest<?> request : requests) {
+                    failed.computeIfAbsent(new DocumentKey(request.index(), request.id()), key -> new ArrayList<>()).add(request);
+                }
+                // writes queued meanwhile have been accepted already, so only the failed writes are limited to the remaining capacity
+                int remainingCapacity = capacity - pendingCount;
+                final Map<DocumentKey, List<DocWriteRequest<?>>> requeued = new LinkedHashMap<>();
+                for (final Map.Entry<DocumentKey, List<DocWriteRequest<?>>> entry : failed.entrySet()) {
+                    final List<DocWriteRequest<?>> newerRequests = pending.remove(entry.getKey());
+                    final List<DocWriteRequest<?>> failedRequests = entry.getValue();
+                    if (newerRequests != null && newerRequests.get(0).opType() != DocWriteRequest.OpType.UPDATE) {
+                        // newer index and delete requests replace the failed writes of the document
+                        requeued.put(entry.getKey(), newerRequests);
+                    } else if (failedRequests.size() <= remainingCapacity) {
+                        remainingCapacity -= failedRequests.size();
+                        if (newerRequests != null) {
+                            failedRequests.addAll(newerRequests);
+                        }
+                        requeued.put(entry.getKey(), failedRequests);
+                    } else {
+                        dropped += failedRequests.size();
+                        if (newerRequests != null) {
+                            requeued.put(entry.getKey(), newerRequests);
+                        }
+                    }
+                }
+                if (dropped > 0) {
+                    LOG.error("Dropping {} failed writes, the queue of pending writes reached its capacity of {}.", dropped, capacity);
+                }
+                requeued.putAll(pending);
+                pending.clear();
+                pending.putAll(requeued);
+                pendingCount = pending.values().stream().mapToInt(List::size).sum();
+            }
+            flushing = false;
+            pending.notifyAll();
+        }
+        return dropped;
+    }
+
+    private List<DocWriteRequest<?>> retryableRequests(List<DocWriteRequest<?>> requests, BulkResponse bulkResponse) {
+        final List<DocWriteRequest<?>> retryableRequests = new ArrayList<>();
+        for (final BulkItemResponse itemResponse : bulkResponse.getItems()) {
+            if (itemResponse.isFailed()) {
+                final RestStatus status = itemResponse.getFailure().getStatus();
+                if (status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500) {
+                    retryableRequests.add(requests.get(itemResponse.getItemId()));
+                }
+            }
+        }
+        return retryableRequests;
+    }
+
+    private void notifyWritten(BulkRequest bulkRequest) {
+        final boolean visible = bulkRequest.getRefreshPolicy() != WriteRequest.RefreshPolicy.NONE;
+        bulkRequest.requests().stream().map(DocWriteRequest::index).distinct()
+                .forEach(indexAlias -> writeListeners.forEach(listener -> listener.written(indexAlias, visible)));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOG.error("Failed to flush pending writes!", e);
+        }
+    }
+
+    private static class DocumentKey {
+
+        private final String index;
+        private final String id;
+
+        DocumentKey(String index, String id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final DocumentKey that = (DocumentKey) o;
+            return Objects.equals(index, that.index) && Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, id);
+        }
+    }
+}
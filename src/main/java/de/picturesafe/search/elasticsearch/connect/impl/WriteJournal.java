@@ -0,0 +1,358 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append only journal of binary entries stored in memory mapped segment files.
+ * <p>
+ * Entries are appended to the current segment, a new segment is started if an entry does not fit into it anymore. Each entry is stored
+ * with its length and checksum, so entries torn by a crash are detected and dropped when the journal is opened again. Consumers read
+ * entries from the committed position and commit the position after processing them; segments behind the committed position are deleted.
+ * <p>
+ * The journal is thread safe, but meant to be used by a single consumer.
+ */
+public class WriteJournal implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int ENTRY_HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    private Position writePosition;
+    private Position committedPosition;
+
+    /**
+     * Constructor
+     *
+     * @param directory     Directory of the journal files
+     * @param segmentSize   Size of a segment file in bytes
+     * @param sync          TRUE if appended entries should be forced to the storage device before returning
+     */
+    public WriteJournal(Path directory, int segmentSize, boolean sync) {
+        Validate.notNull(directory, "Parameter 'directory' may not be null!");
+        Validate.isTrue(segmentSize > ENTRY_HEADER_SIZE, "Parameter 'segmentSize' must be greater than " + ENTRY_HEADER_SIZE + "!");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+    }
+
+    /**
+     * Opens the journal and recovers the entries not committed yet.
+     */
+    public synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            committedPosition = readCheckpoint();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).forEach(file -> {
+                    final String name = file.getFileName().toString();
+                    final long segment = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    if (segment < committedPosition.segment) {
+                        delete(file);
+                    } else {
+                        segments.put(segment, map(file, 0));
+                    }
+                });
+            }
+
+            if (segments.isEmpty()) {
+                writePosition = new Position(committedPosition.segment, 0);
+                segments.put(writePosition.segment, map(segmentFile(writePosition.segment), segmentSize));
+            } else {
+                final long lastSegment = segments.lastKey();
+                writePosition = new Position(lastSegment, endOfEntries(segments.get(lastSegment)));
+            }
+            LOG.info("Opened write journal '{}': committedPosition={}, writePosition={}", directory, committedPosition, writePosition);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to open write journal: " + directory, e);
+        }
+    }
+
+    /**
+     * Appends an entry to the journal.
+     *
+     * @param entry Entry to append
+     */
+    public synchronized void append(byte[] entry) {
+        Validate.notNull(entry, "Parameter 'entry' may not be null!");
+        Validate.isTrue(entry.length > 0, "Parameter 'entry' may not be empty!");
+        checkOpen();
+
+        MappedByteBuffer buffer = segments.get(writePosition.segment);
+        if (writePosition.offset + ENTRY_HEADER_SIZE + entry.length > buffer.capacity()) {
+            writePosition = new Position(writePosition.segment + 1, 0);
+            buffer = map(segmentFile(writePosition.segment), Math.max(segmentSize, ENTRY_HEADER_SIZE + entry.length));
+            segments.put(writePosition.segment, buffer);
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(entry);
+        final ByteBuffer target = buffer.duplicate();
+        target.position(writePosition.offset + 4);
+        target.putInt((int) crc.getValue());
+        target.put(entry);
+        // the length is written last to mark the entry as complete
+        target.putInt(writePosition.offset, entry.length);
+        if (sync) {
+            buffer.force();
+        }
+        writePosition = new Position(writePosition.segment, writePosition.offset + ENTRY_HEADER_SIZE + entry.length);
+        notifyAll();
+    }
+
+    /**
+     * Reads the entries following the given position.
+     *
+     * @param position      Position to read from, NULL for the committed position
+     * @param maxEntries    Maximum number of entries to read
+     * @return              Entries read and the position following them
+     */
+    public synchronized Entries read(Position position, int maxEntries) {
+        checkOpen();
+        Position current = (position != null) ? position : committedPosition;
+        final List<byte[]> entries = new ArrayList<>();
+        while (entries.size() < maxEntries && current.compareTo(writePosition) < 0) {
+            final MappedByteBuffer buffer = segments.get(current.segment);
+            if (buffer == null) {
+                current = new Position(segments.higherKey(current.segment), 0);
+                continue;
+            }
+
+            final int length = (current.offset + ENTRY_HEADER_SIZE <= buffer.capacity()) ? buffer.getInt(current.offset) : 0;
+            if (length <= 0) {
+                current = new Position(current.segment + 1, 0);
+                continue;
+            }
+
+            final byte[] entry = new byte[length];
+            final ByteBuffer source = buffer.duplicate();
+            source.position(current.offset + ENTRY_HEADER_SIZE);
+            source.get(entry);
+            entries.add(entry);
+            current = new Position(current.segment, current.offset + ENTRY_HEADER_SIZE + length);
+        }
+        return new Entries(entries, current);
+    }
+
+    /**
+     * Waits until there are entries following the committed position.
+     *
+     * @param timeout   Maximum time to wait in milliseconds
+     * @return          TRUE if there are uncommitted entries
+     * @throws InterruptedException if the current thread has been interrupted while waiting
+     */
+    public synchronized boolean awaitEntries(long timeout) throws InterruptedException {
+        checkOpen();
+        if (isEmpty() && timeout > 0) {
+            wait(timeout);
+        }
+        return !isEmpty();
+    }
+
+    /**
+     * Commits the given position, the entries before it will not be read again after reopening the journal.
+     *
+     * @param position  Position to commit
+     */
+    public synchronized void commit(Position position) {
+        Validate.notNull(position, "Parameter 'position' may not be null!");
+        checkOpen();
+        Validate.isTrue(position.compareTo(writePosition) <= 0, "Parameter 'position' may not be behind the write position!");
+
+        writeCheckpoint(position);
+        committedPosition = position;
+        for (final Iterator<Map.Entry<Long, MappedByteBuffer>> it = segments.entrySet().iterator(); it.hasNext();) {
+            final long segment = it.next().getKey();
+            if (segment >= position.segment) {
+                break;
+            }
+            it.remove();
+            delete(segmentFile(segment));
+        }
+    }
+
+    /**
+     * Checks if all entries of the journal have been committed.
+     *
+     * @return TRUE if all entries have been committed
+     */
+    public synchronized boolean isEmpty() {
+        return committedPosition.compareTo(writePosition) >= 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sync) {
+            segments.values().forEach(MappedByteBuffer::force);
+        }
+        segments.clear();
+        writePosition = null;
+        notifyAll();
+    }
+
+    private void checkOpen() {
+        if (writePosition == null) {
+            throw new ElasticsearchException("Write journal '" + directory + "' is not open!");
+        }
+    }
+
+    private int endOfEntries(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + ENTRY_HEADER_SIZE <= buffer.capacity()) {
+            final int length = buffer.getInt(offset);
+            if (length <= 0 || offset + ENTRY_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            final byte[] entry = new byte[length];
+            final ByteBuffer source = buffer.duplicate();
+            source.position(offset + 4);
+            final int checksum = source.getInt();
+            source.get(entry);
+            final CRC32 crc = new CRC32();
+            crc.update(entry);
+            if ((int) crc.getValue() != checksum) {
+                LOG.warn("Dropping torn entries of write journal '{}' at offset {}.", directory, offset);
+                clear(buffer, offset);
+                break;
+            }
+            offset += ENTRY_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private void clear(MappedByteBuffer buffer, int offset) {
+        for (int i = offset; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    private Path segmentFile(long segment) {
+        return directory.resolve(String.format("%020d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private MappedByteBuffer map(Path file, int size) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to map write journal segment: " + file, e);
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete write journal segment: " + file, e);
+        }
+    }
+
+    private Position readCheckpoint() throws IOException {
+        final Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return new Position(0, 0);
+        }
+        final String[] values = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim().split(" ");
+        return new Position(Long.parseLong(values[0]), Integer.parseInt(values[1]));
+    }
+
+    private void writeCheckpoint(Position position) {
+        final Path file = directory.resolve(CHECKPOINT_FILE);
+        final Path tempFile = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.write(tempFile, (position.segment + " " + position.offset).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to write checkpoint of write journal: " + directory, e);
+        }
+    }
+
+    /**
+     * Position within the journal.
+     */
+    public static class Position implements Comparable<Position> {
+
+        private final long segment;
+        private final int offset;
+
+        Position(long segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        @Override
+        public int compareTo(Position o) {
+            return (segment != o.segment) ? Long.compare(segment, o.segment) : Integer.compare(offset, o.offset);
+        }
+
+        @Override
+        public String toString() {
+            return segment + ":" + offset;
+        }
+    }
+
+    /**
+     * Entries read from the journal.
+     */
+    public static class Entries {
+
+        private final List<byte[]> entries;
+        private final Position nextPosition;
+
+        Entries(List<byte[]> entries, Position nextPosition) {
+            this.entries = entries;
+            this.nextPosition = nextPosition;
+        }
+
+        public List<byte[]> getEntries() {
+            return entries;
+        }
+
+        public Position getNextPosition() {
+            return nextPosition;
+        }
+    }
+}
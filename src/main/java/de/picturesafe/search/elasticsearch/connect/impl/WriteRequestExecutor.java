@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientBulkAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientBulkFutureAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientDeleteAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientDeleteByQueryAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientIndexAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientUpdateAction;
+import de.picturesafe.search.elasticsearch.connect.asyncaction.RestClientUpdateByQueryAction;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.reindex.UpdateByQueryRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Sends write requests to elasticsearch via the matching rest client action.
+ */
+public class WriteRequestExecutor {
+
+    private final Supplier<RestHighLevelClient> restClientSupplier;
+
+    /**
+     * Constructor
+     *
+     * @param restClientSupplier    Supplier of the rest client, called for every request
+     */
+    public WriteRequestExecutor(Supplier<RestHighLevelClient> restClientSupplier) {
+        Validate.notNull(restClientSupplier, "Parameter 'restClientSupplier' may not be null!");
+        this.restClientSupplier = restClientSupplier;
+    }
+
+    /**
+     * Sends an index, delete, update or bulk request synchronously.
+     *
+     * @param request   Write request
+     * @param <Req>     Type of the request
+     * @param <Resp>    Type of the response
+     * @return          Response of the request
+     */
+    @SuppressWarnings("unchecked")
+    public <Req extends WriteRequest<Req>, Resp> Resp execute(WriteRequest<Req> request) {
+        final RestHighLevelClient restClient = restClientSupplier.get();
+        if (request instanceof IndexRequest) {
+            return (Resp) new RestClientIndexAction().action(restClient, (IndexRequest) request);
+        } else if (request instanceof DeleteRequest) {
+            return (Resp) new RestClientDeleteAction().action(restClient, (DeleteRequest) request);
+        } else if (request instanceof UpdateRequest) {
+            return (Resp) new RestClientUpdateAction().action(restClient, (UpdateRequest) request);
+        } else if (request instanceof BulkRequest) {
+            return (Resp) new RestClientBulkAction().action(restClient, (BulkRequest) request);
+        } else {
+            throw new RuntimeException("Unsupported request type: " + request.getClass().getName());
+        }
+    }
+
+    /**
+     * Sends a bulk request asynchronously.
+     *
+     * @param request   Bulk request
+     * @return          Future of the bulk response
+     */
+    public CompletableFuture<BulkResponse> executeAsync(BulkRequest request) {
+        return new RestClientBulkFutureAction().action(restClientSupplier.get(), request);
+    }
+
+    /**
+     * Sends an update by query or delete by query request synchronously.
+     *
+     * @param request   Update by query or delete by query request
+     * @return          Response of the request
+     */
+    public BulkByScrollResponse execute(AbstractBulkByScrollRequest<?> request) {
+        if (request instanceof UpdateByQueryRequest) {
+            return new RestClientUpdateByQueryAction().action(restClientSupplier.get(), (UpdateByQueryRequest) request);
+        } else if (request instanceof DeleteByQueryRequest) {
+            return new RestClientDeleteByQueryAction().action(restClientSupplier.get(), (DeleteByQueryRequest) request);
+        } else {
+            throw new RuntimeException("Unsupported request type: " + request.getClass().getName());
+        }
+    }
+}
@@ -39,4 +39,28 @@ public interface WriteRequestHandler {
      * @return          TRUE if the write request has been handled
      */
     boolean handle(AbstractBulkByScrollRequest<?> request);
+
+    /**
+     * Adds a listener which is notified after handled write requests have been sent to elasticsearch. Handlers sending write requests
+     * asynchronously have to override this method, so that search results cached before the writes reached the index can be invalidated.
+     *
+     * @param listener  Listener to add
+     */
+    default void addWriteListener(WriteListener listener) {
+    }
+
+    /**
+     * Listener notified after handled write requests have been sent to elasticsearch.
+     */
+    @FunctionalInterface
+    interface WriteListener {
+
+        /**
+         * Notifies that write requests to an index alias have been sent to elasticsearch.
+         *
+         * @param indexAlias    Name of the alias of the index
+         * @param visible       TRUE if the writes are already visible to searches (index has been refreshed)
+         */
+        void written(String indexAlias, boolean visible);
+    }
 }
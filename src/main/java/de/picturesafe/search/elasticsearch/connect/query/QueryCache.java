@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.query;
+
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.util.LruCache;
+import de.picturesafe.search.expression.Expression;
+import de.picturesafe.search.parameter.AccountContext;
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache for query builders created by the query and filter factories.
+ *
+ * Query and filter factories get the whole query, so a query builder is cached for the expression, the locale, the account context, the sort
+ * filter flag and the mapping configuration of a search. The expressions implement value based equality, so repeated searches with the same
+ * expression reuse the query builder instead of walking the factory chains again. The account context is compared by a snapshot of its values,
+ * so account dependent filters are never shared between accounts. The mapping configuration is compared by value, so the cache entries
+ * are hit even if the mapping configuration is created anew for every search, and will not be hit anymore once the field configurations
+ * have been changed.
+ *
+ * Cached entries keep a deep copy of the expression, so changing an expression after searching does not affect the cache. Queries with
+ * expressions which cannot be serialized (e.g. because of custom values) are not cached.
+ *
+ * NOTE: Cached query builders are shared between searches and must not be modified.
+ */
+public class QueryCache {
+
+    private final LruCache<Key, Optional<QueryBuilder>> cache;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize   Maximum number of cached queries
+     */
+    public QueryCache(int maxSize) {
+        this.cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Gets a cached query builder or creates and caches it if absent.
+     *
+     * @param queryDto              {@link QueryDto}
+     * @param mappingConfiguration  {@link MappingConfiguration}
+     * @param queryBuilderSupplier  Creates the query builder (may return <code>null</code>)
+     * @return                      Query builder or <code>null</code> if the query is empty
+     */
+    public QueryBuilder get(QueryDto queryDto, MappingConfiguration mappingConfiguration, Supplier<QueryBuilder> queryBuilderSupplier) {
+        final Key key = new Key(queryDto.getExpression(), queryDto.getLocale(), accountContextKey(queryDto.getAccountContext()),
+                queryDto.isSortFilter(), mappingConfiguration);
+        final Optional<QueryBuilder> cachedQuery = cache.get(key);
+        if (cachedQuery != null) {
+            return cachedQuery.orElse(null);
+        }
+
+        final Key snapshot = key.snapshot();
+        final QueryBuilder query = queryBuilderSupplier.get();
+        if (snapshot != null) {
+            cache.put(snapshot, Optional.ofNullable(query));
+        }
+        return query;
+    }
+
+    /**
+     * Removes all cached query builders.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the number of cached query builders.
+     *
+     * @return Number of cached query builders
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Creates a snapshot of the values of an account context to be used as part of a cache key.
+     *
+     * @param accountContext    {@link AccountContext} (may be null)
+     * @return                  Snapshot of the account context values or <code>null</code> if the account context is null
+     */
+    public static List<Object> accountContextKey(AccountContext<?> accountContext) {
+        if (accountContext == null) {
+            return null;
+        }
+        final Map<String, Object> attributes = accountContext.getAttributes();
+        return Arrays.asList(accountContext.getId(), accountContext.getUserName(), accountContext.getUserLanguage(),
+                (attributes != null) ? new HashMap<>(attributes) : null);
+    }
+
+    private static class Key {
+
+        private final Expression expression;
+        private final Locale locale;
+        private final List<Object> accountContext;
+        private final boolean sortFilter;
+        private final MappingConfiguration mappingConfiguration;
+        private final int hashCode;
+
+        Key(Expression expression, Locale locale, List<Object> accountContext, boolean sortFilter, MappingConfiguration mappingConfiguration) {
+            this.expression = expression;
+            this.locale = locale;
+            this.accountContext = accountContext;
+            this.sortFilter = sortFilter;
+            this.mappingConfiguration = mappingConfiguration;
+            this.hashCode = new HashCodeBuilder(17, 37)
+                    .append(expression)
+                    .append(locale)
+                    .append(accountContext)
+                    .append(sortFilter)
+                    .append(mappingConfiguration)
+                    .toHashCode();
+        }
+
+        /**
+         * Creates a copy of the key holding a deep copy of the expression, to be stored in the cache.
+         *
+         * @return Copy of the key or <code>null</code> if the expression cannot be copied
+         */
+        Key snapshot() {
+            try {
+                return new Key((expression != null) ? SerializationUtils.clone(expression) : null, locale, accountContext, sortFilter,
+                        mappingConfiguration);
+            } catch (SerializationException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Key that = (Key) o;
+            return new EqualsBuilder()
+                    .append(expression, that.expression)
+                    .append(locale, that.locale)
+                    .append(accountContext, that.accountContext)
+                    .append(sortFilter, that.sortFilter)
+                    .append(mappingConfiguration, that.mappingConfiguration)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -16,15 +16,81 @@
 
 package de.picturesafe.search.elasticsearch.connect.util;
 
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
 import de.picturesafe.search.parameter.SearchAggregation;
+import de.picturesafe.search.parameter.aggregation.SamplerOption;
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.sampler.DiversifiedAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.sampler.SamplerAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
+
+import java.util.Locale;
+
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.getElasticFieldName;
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.keywordFieldName;
 
 public class ElasticAggregationUtils {
 
+    /**
+     * Name of the sampler aggregation wrapping a sampled aggregation
+     */
+    public static final String SAMPLER_NAME = "sample";
+
     private ElasticAggregationUtils() {
     }
 
     public static String aggregationName(SearchAggregation aggregation) {
         return StringUtils.isNotBlank(aggregation.getName()) ? aggregation.getName() : StringUtils.substringBefore(aggregation.getField(), ".");
     }
+
+    /**
+     * Wraps the given aggregation into a sampler aggregation. To be able to extrapolate the counts of the sample, the sampler is nested into a
+     * filter aggregation counting all matching documents: filter[name] -&gt; sampler[{@value #SAMPLER_NAME}] -&gt; aggregation[name].
+     *
+     * @param aggregationBuilder    Aggregation to wrap
+     * @param samplerOption         Sampler option (may be null)
+     * @param mappingConfiguration  Mapping configuration
+     * @param locale                Locale of the request
+     * @return                      Wrapping aggregation or the given aggregation if the sampler option is null
+     */
+    public static AggregationBuilder sampled(AggregationBuilder aggregationBuilder, SamplerOption samplerOption,
+                                             MappingConfiguration mappingConfiguration, Locale locale) {
+        if (samplerOption == null) {
+            return aggregationBuilder;
+        }
+
+        final AggregationBuilder samplerBuilder;
+        if (samplerOption.getDiversifyField() != null) {
+            final String diversifyField = samplerOption.getDiversifyField();
+            final String elasticFieldName = getElasticFieldName(mappingConfiguration, diversifyField, locale);
+            samplerBuilder = AggregationBuilders.diversifiedSampler(SAMPLER_NAME)
+                    .field(keywordFieldName(mappingConfiguration.getFieldConfiguration(diversifyField), elasticFieldName))
+                    .maxDocsPerValue(samplerOption.getMaxDocsPerValue())
+                    .shardSize(samplerOption.getShardSize());
+        } else {
+            samplerBuilder = AggregationBuilders.sampler(SAMPLER_NAME).shardSize(samplerOption.getShardSize());
+        }
+        return AggregationBuilders.filter(aggregationBuilder.getName(), QueryBuilders.matchAllQuery())
+                .subAggregation(samplerBuilder.subAggregation(aggregationBuilder));
+    }
+
+    /**
+     * Gets the field of the given aggregation, sampled aggregations are unwrapped.
+     *
+     * @param aggregationBuilder Aggregation
+     * @return                   Field of the aggregation or <code>null</code> if the aggregation is not bound to a field
+     */
+    @SuppressWarnings("rawtypes")
+    public static String aggregationField(AggregationBuilder aggregationBuilder) {
+        if (aggregationBuilder instanceof FilterAggregationBuilder || aggregationBuilder instanceof SamplerAggregationBuilder
+                || aggregationBuilder instanceof DiversifiedAggregationBuilder) {
+            return (aggregationBuilder.getSubAggregations().size() == 1)
+                    ? aggregationField(aggregationBuilder.getSubAggregations().iterator().next()) : null;
+        }
+        return (aggregationBuilder instanceof ValuesSourceAggregationBuilder) ? ((ValuesSourceAggregationBuilder) aggregationBuilder).field() : null;
+    }
 }
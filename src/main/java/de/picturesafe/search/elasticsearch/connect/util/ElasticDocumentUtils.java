@@ -21,9 +21,11 @@ import org.apache.commons.collections.MapUtils;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticDateUtils.parseIso;
 
@@ -77,6 +79,28 @@ public class ElasticDocumentUtils {
         return MapUtils.getBooleanValue(doc, name);
     }
 
+    /**
+     * Converts the doc values of a field into the shape of the value parsed from the document source: a single value is returned as is,
+     * multiple values as a list. Integral numbers are returned as Integer if they fit into its range, since doc values always return
+     * them as Long.
+     *
+     * @param values    Doc values of a field
+     * @return          Value as parsed from the document source, NULL if there are no values
+     */
+    public static Object getDocValue(List<Object> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return (values.size() == 1) ? sourceValue(values.get(0)) : values.stream().map(ElasticDocumentUtils::sourceValue).collect(Collectors.toList());
+    }
+
+    private static Object sourceValue(Object docValue) {
+        if (docValue instanceof Long && (Long) docValue >= Integer.MIN_VALUE && (Long) docValue <= Integer.MAX_VALUE) {
+            return ((Long) docValue).intValue();
+        }
+        return docValue;
+    }
+
     @SuppressWarnings("unchecked")
     public static Map<String, Object> getDocument(Map<String, Object> doc, String name) {
         final Object value = doc.get(name);
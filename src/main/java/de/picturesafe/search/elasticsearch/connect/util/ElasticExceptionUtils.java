@@ -17,8 +17,13 @@
 package de.picturesafe.search.elasticsearch.connect.util;
 
 import de.picturesafe.search.elasticsearch.connect.error.ElasticExceptionCause;
+import de.picturesafe.search.elasticsearch.connect.error.IndexMissingException;
 import org.apache.commons.lang3.StringUtils;
 import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.concurrent.CompletionException;
 
 public class ElasticExceptionUtils {
 
@@ -41,4 +46,27 @@ public class ElasticExceptionUtils {
         }
         return new ElasticExceptionCause(ElasticExceptionCause.Type.COMMON, "");
     }
+
+    /**
+     * Maps the failure of a synchronous or asynchronous search: failures of asynchronous searches are unwrapped from their
+     * {@link CompletionException}, a missing index is reported as {@link IndexMissingException} of the searched alias.
+     *
+     * @param e             Failure of the search
+     * @param indexAlias    Name of the alias of the searched index
+     * @return              Mapped failure
+     */
+    public static RuntimeException searchFailure(Throwable e, String indexAlias) {
+        final Throwable failure = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof IndexMissingException || isIndexNotFound(t)) {
+                return new IndexMissingException(indexAlias);
+            }
+        }
+        return (failure instanceof RuntimeException) ? (RuntimeException) failure : new CompletionException(failure);
+    }
+
+    private static boolean isIndexNotFound(Throwable t) {
+        return t instanceof IndexNotFoundException || (t instanceof ElasticsearchStatusException
+                && ((ElasticsearchStatusException) t).status() == RestStatus.NOT_FOUND && StringUtils.contains(t.getMessage(), "index_not_found_exception"));
+    }
 }
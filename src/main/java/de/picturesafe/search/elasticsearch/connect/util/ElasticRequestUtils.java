@@ -16,7 +16,10 @@
 
 package de.picturesafe.search.elasticsearch.connect.util;
 
+import de.picturesafe.search.parameter.ScriptDefinition;
 import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
 
 public class ElasticRequestUtils {
 
@@ -30,4 +33,10 @@ public class ElasticRequestUtils {
         }
         return refreshPolicy;
     }
+
+    public static Script script(ScriptDefinition scriptDefinition) {
+        final ScriptType scriptType = ScriptType.valueOf(scriptDefinition.getScriptType().name());
+        return new Script(scriptType, scriptDefinition.getLanguage(), scriptDefinition.getIdOrCode(), scriptDefinition.getOptions(),
+                scriptDefinition.getParams());
+    }
 }
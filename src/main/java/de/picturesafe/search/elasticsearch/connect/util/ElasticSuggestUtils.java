@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import de.picturesafe.search.expression.SuggestExpression;
+import org.elasticsearch.search.suggest.Suggest;
+import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.search.suggest.completion.CompletionSuggestionBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ElasticSuggestUtils {
+
+    private ElasticSuggestUtils() {
+    }
+
+    /**
+     * Creates a suggest builder with a completion suggestion per expression.
+     *
+     * @param expressions   Suggest expressions
+     * @return              Suggest builder
+     */
+    public static SuggestBuilder suggestBuilder(SuggestExpression... expressions) {
+        final SuggestBuilder suggestBuilder = new SuggestBuilder();
+        for (final SuggestExpression expression : expressions) {
+            suggestBuilder.addSuggestion(expression.getName(),
+                    new CompletionSuggestionBuilder(expression.getName()).prefix(expression.getText()).size(expression.getCount()).skipDuplicates(true));
+        }
+        return suggestBuilder;
+    }
+
+    /**
+     * Gets the suggested texts per suggestion name.
+     *
+     * @param suggest   Suggest part of a search response
+     * @return          Suggested texts per suggestion name
+     */
+    public static Map<String, List<String>> suggestedTexts(Suggest suggest) {
+        final Map<String, List<String>> result = new HashMap<>();
+        for (final Suggest.Suggestion<? extends Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option>> suggestion : suggest) {
+            final List<String> suggestedLines = result.computeIfAbsent(suggestion.getName(), name -> new ArrayList<>());
+            for (final Suggest.Suggestion.Entry<? extends Suggest.Suggestion.Entry.Option> entry : suggestion.getEntries()) {
+                for (final Suggest.Suggestion.Entry.Option option : entry.getOptions()) {
+                    suggestedLines.add(option.getText().string());
+                }
+            }
+        }
+        return result;
+    }
+}
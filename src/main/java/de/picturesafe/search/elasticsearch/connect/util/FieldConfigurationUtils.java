@@ -92,6 +92,21 @@ public class FieldConfigurationUtils {
         return fieldConfig.getElasticsearchType().equalsIgnoreCase(ElasticsearchType.TEXT.toString());
     }
 
+    /**
+     * Tests if the values of a field can be resolved from doc values.
+     *
+     * @param fieldConfig   Field configuration
+     * @return              TRUE if the field values can be resolved from doc values
+     */
+    public static boolean isDocValuesField(FieldConfiguration fieldConfig) {
+        Validate.notNull(fieldConfig, "Parameter 'fieldConfig' may not be null!");
+        if (fieldConfig.isNestedObject() || fieldConfig.isMultilingual()
+                || fieldConfig.getElasticsearchType().equalsIgnoreCase(ElasticsearchType.OBJECT.toString())) {
+            return false;
+        }
+        return fieldConfig.isSortable() || fieldConfig.isAggregatable();
+    }
+
     public static String rootFieldName(FieldConfiguration fieldConfig) {
         return StringUtils.substringBefore(fieldConfig.getName(), ".");
     }
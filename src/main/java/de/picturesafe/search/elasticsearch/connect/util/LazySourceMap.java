@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.lookup.SourceLookup;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Attribute map backed by the raw source of a search hit. The source will be parsed on first access, so hits whose attributes are
+ * never read do not produce any attribute maps.
+ *
+ * NOTE: Parsing the source is thread safe, since search results may be cached and shared. Modifications of the map are not thread safe.
+ */
+public class LazySourceMap extends AbstractMap<String, Object> {
+
+    private BytesReference source;
+    private Map<String, Object> attributes;
+
+    /**
+     * Constructor
+     *
+     * @param source    Raw source of the search hit
+     */
+    public LazySourceMap(BytesReference source) {
+        Validate.notNull(source, "Parameter 'source' may not be null!");
+        this.source = source;
+    }
+
+    /**
+     * Tests if the source has already been parsed.
+     *
+     * @return TRUE if the source has been parsed
+     */
+    public synchronized boolean isParsed() {
+        return attributes != null;
+    }
+
+    protected synchronized Map<String, Object> attributes() {
+        if (attributes == null) {
+            attributes = SourceLookup.sourceAsMap(source);
+            source = null;
+        }
+        return attributes;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return attributes().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return attributes().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return attributes().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return attributes().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return attributes().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return attributes().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        attributes().clear();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Thread safe cache evicting the least recently used entries when its maximum size is exceeded.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize   Maximum number of entries
+     */
+    public LruCache(int maxSize) {
+        Validate.isTrue(maxSize > 0, "Parameter 'maxSize' must be greater than 0!");
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached value.
+     *
+     * @param key   Key of the value
+     * @return      The value or <code>null</code> if not cached
+     */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches a value.
+     *
+     * @param key   Key of the value
+     * @param value The value
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Gets a cached value or computes and caches it if absent. The value will be computed outside of the cache lock, so concurrent
+     * callers may compute the same value more than once.
+     *
+     * @param key           Key of the value
+     * @param valueFunction Function to compute the value
+     * @return              The cached or computed value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> valueFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = valueFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes a cached value.
+     *
+     * @param key   Key of the value
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached values.
+     *
+     * @return Number of cached values
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
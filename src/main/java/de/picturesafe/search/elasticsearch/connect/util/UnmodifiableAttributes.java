@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only views of document attributes. Nested maps and lists are wrapped on access, so neither the attributes nor their nested values
+ * can be modified through the view. The wrapped attributes are not copied, a {@link LazySourceMap} will still be parsed on first access.
+ */
+public class UnmodifiableAttributes {
+
+    private UnmodifiableAttributes() {
+    }
+
+    /**
+     * Creates a read-only view of document attributes.
+     *
+     * @param attributes    Attributes (may be null)
+     * @return              Read-only view of the attributes or <code>null</code> if the attributes are null
+     */
+    public static Map<String, Object> of(Map<String, Object> attributes) {
+        return (attributes == null || attributes instanceof UnmodifiableMap) ? attributes : new UnmodifiableMap<>(attributes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object wrap(Object value) {
+        if (value instanceof Map && !(value instanceof UnmodifiableMap)) {
+            return new UnmodifiableMap<>((Map<Object, Object>) value);
+        } else if (value instanceof List && !(value instanceof UnmodifiableList)) {
+            return new UnmodifiableList((List<Object>) value);
+        }
+        return value;
+    }
+
+    private static class UnmodifiableMap<K> extends AbstractMap<K, Object> {
+
+        private final Map<K, Object> map;
+
+        UnmodifiableMap(Map<K, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return wrap(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Set<Entry<K, Object>> entrySet() {
+            return new AbstractSet<Entry<K, Object>>() {
+                @Override
+                public Iterator<Entry<K, Object>> iterator() {
+                    final Iterator<Entry<K, Object>> iterator = map.entrySet().iterator();
+                    return new Iterator<Entry<K, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<K, Object> next() {
+                            final Entry<K, Object> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), wrap(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+    }
+
+    private static class UnmodifiableList extends AbstractList<Object> {
+
+        private final List<Object> list;
+
+        UnmodifiableList(List<Object> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Object get(int index) {
+            return wrap(list.get(index));
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+}
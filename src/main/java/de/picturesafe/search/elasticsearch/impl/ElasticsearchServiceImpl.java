@@ -16,10 +16,12 @@
 
 package de.picturesafe.search.elasticsearch.impl;
 
+import de.picturesafe.search.elasticsearch.BulkSession;
 import de.picturesafe.search.elasticsearch.DataChangeProcessingMode;
 import de.picturesafe.search.elasticsearch.ElasticsearchService;
 import de.picturesafe.search.elasticsearch.FieldConfigurationProvider;
 import de.picturesafe.search.elasticsearch.IndexPresetConfigurationProvider;
+import de.picturesafe.search.elasticsearch.ReindexJob;
 import de.picturesafe.search.elasticsearch.api.RangeFacetItem;
 import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
@@ -28,14 +30,19 @@ import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
 import de.picturesafe.search.elasticsearch.connect.Elasticsearch;
 import de.picturesafe.search.elasticsearch.connect.dto.FacetDto;
 import de.picturesafe.search.elasticsearch.connect.dto.FacetEntryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.MultiSearchResultDto;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryRangeDto;
 import de.picturesafe.search.elasticsearch.connect.dto.SearchHitDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchRequestDto;
 import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
 import de.picturesafe.search.elasticsearch.error.ElasticsearchServiceException;
+import de.picturesafe.search.elasticsearch.metrics.MetricsRecorder;
+import de.picturesafe.search.elasticsearch.metrics.NoopMetricsRecorder;
 import de.picturesafe.search.elasticsearch.model.ElasticsearchInfo;
 import de.picturesafe.search.elasticsearch.model.IdFormat;
 import de.picturesafe.search.elasticsearch.model.IndexObject;
+import de.picturesafe.search.elasticsearch.model.MultiSearchResult;
 import de.picturesafe.search.elasticsearch.model.ResultFacet;
 import de.picturesafe.search.elasticsearch.model.ResultFacetItem;
 import de.picturesafe.search.elasticsearch.model.ResultRangeFacetItem;
@@ -45,8 +52,13 @@ import de.picturesafe.search.elasticsearch.model.SuggestResult;
 import de.picturesafe.search.expression.Expression;
 import de.picturesafe.search.expression.SuggestExpression;
 import de.picturesafe.search.parameter.AccountContext;
+import de.picturesafe.search.parameter.ReindexParameter;
+import de.picturesafe.search.parameter.ScriptDefinition;
+import de.picturesafe.search.parameter.SearchAggregation;
 import de.picturesafe.search.parameter.SearchParameter;
-import de.picturesafe.search.util.logging.StopWatchPrettyPrint;
+import de.picturesafe.search.parameter.SearchRequestSpec;
+import de.picturesafe.search.parameter.SortOption;
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.LocaleUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -57,17 +69,30 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static de.picturesafe.search.elasticsearch.connect.util.FieldConfigurationUtils.isDocValuesField;
 
 @Component
 @SuppressWarnings("unused")
@@ -90,7 +115,19 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     @Value("${elasticsearch.service.optimize_expressions.enabled:true}")
     protected boolean optimizeExpressionsEnabled = true;
 
+    @Value("${elasticsearch.service.mapping_cache.enabled:false}")
+    protected boolean mappingCacheEnabled;
+
+    @Value("${elasticsearch.service.bulk_session.wait_for_green_timeout:30000}")
+    protected long bulkSessionWaitForGreenTimeout = 30000;
+
+    protected final Map<String, MappingConfiguration> mappingConfigurationCache = new ConcurrentHashMap<>();
+    protected final Map<String, ReindexJob> reindexJobs = new ConcurrentHashMap<>();
+    protected final Map<String, BulkSession> bulkSessions = new ConcurrentHashMap<>();
+
     protected IdFormat idFormat = IdFormat.DEFAULT;
+    protected MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+    protected ExecutorService reindexExecutor;
 
     @Autowired
     public ElasticsearchServiceImpl(Elasticsearch elasticsearch, IndexPresetConfigurationProvider indexPresetConfigurationProvider,
@@ -130,11 +167,57 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
         this.optimizeExpressionsEnabled = optimizeExpressionsEnabled;
     }
 
+    /**
+     * Sets if the mapping configurations should be cached per index alias (disabled by default).
+     * Should only be enabled if the field configurations of the {@link FieldConfigurationProvider} do not change at runtime, or if
+     * {@link #invalidateMappingConfiguration(String)} is called on every change.
+     *
+     * @param mappingCacheEnabled true if mapping configurations should be cached
+     */
+    public void setMappingCacheEnabled(boolean mappingCacheEnabled) {
+        this.mappingCacheEnabled = mappingCacheEnabled;
+        mappingConfigurationCache.clear();
+    }
+
+    /**
+     * Removes the cached mapping configuration of an index alias, so it will be rebuilt from the {@link FieldConfigurationProvider}.
+     *
+     * @param indexAlias    Name of the alias
+     */
+    public void invalidateMappingConfiguration(String indexAlias) {
+        mappingConfigurationCache.remove(indexAlias);
+    }
+
+    /**
+     * Sets the timeout to wait for the indexes to become green when closing a {@link BulkSession}.
+     *
+     * @param bulkSessionWaitForGreenTimeout Timeout in milliseconds, 0 to not wait
+     */
+    public void setBulkSessionWaitForGreenTimeout(long bulkSessionWaitForGreenTimeout) {
+        this.bulkSessionWaitForGreenTimeout = bulkSessionWaitForGreenTimeout;
+    }
+
     @Autowired(required = false)
     public void setIdFormat(IdFormat idFormat) {
         this.idFormat = idFormat;
     }
 
+    @Autowired(required = false)
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    /**
+     * Stops the threads of running reindex jobs.
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        if (reindexExecutor != null) {
+            reindexExecutor.shutdownNow();
+            reindexExecutor = null;
+        }
+    }
+
     @Override
     public ElasticsearchInfo getElasticsearchInfo() {
         return elasticsearch.getElasticsearchInfo();
@@ -165,11 +248,62 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
         return indexName;
     }
 
+    @Override
+    public ReindexJob reindex(String indexAlias, ReindexParameter reindexParameter) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(reindexParameter, "Parameter 'reindexParameter' may not be null!");
+
+        invalidateMappingConfiguration(indexAlias);
+        final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
+        final ManagedReindexJob reindexJob
+                = new ManagedReindexJob(elasticsearch, indexPresetConfiguration, getMappingConfiguration(indexAlias, true), reindexParameter);
+        if (reindexJobs.putIfAbsent(indexAlias, reindexJob) != null) {
+            throw new ElasticsearchServiceException("A reindex job is already running for alias: " + indexAlias);
+        }
+        reindexJob.getCompletion().whenComplete((progress, e) -> reindexJobs.remove(indexAlias, reindexJob));
+
+        reindexExecutor().execute(reindexJob);
+        return reindexJob;
+    }
+
+    protected synchronized ExecutorService reindexExecutor() {
+        if (reindexExecutor == null) {
+            reindexExecutor = Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "reindex");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return reindexExecutor;
+    }
+
+    @Override
+    public BulkSession openBulkSession(String indexAlias) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+
+        final IndexBulkSession session = new IndexBulkSession(elasticsearch, indexAlias, bulkSessionWaitForGreenTimeout,
+                closedSession -> bulkSessions.remove(indexAlias, closedSession));
+        if (bulkSessions.putIfAbsent(indexAlias, session) != null) {
+            throw new ElasticsearchServiceException("A bulk session is already open for alias: " + indexAlias);
+        }
+        try {
+            session.open();
+        } catch (RuntimeException e) {
+            bulkSessions.remove(indexAlias, session);
+            throw e;
+        }
+        return session;
+    }
+
     @Override
     public void addFieldConfiguration(String indexAlias, FieldConfiguration... fieldConfigs) {
         final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
         final MappingConfiguration mappingConfiguration = getMappingConfiguration(indexAlias, false);
-        elasticsearch.updateMapping(indexPresetConfiguration, mappingConfiguration, Arrays.asList(fieldConfigs));
+        try {
+            elasticsearch.updateMapping(indexPresetConfiguration, mappingConfiguration, Arrays.asList(fieldConfigs));
+        } finally {
+            invalidateMappingConfiguration(indexAlias);
+        }
     }
 
     @Override
@@ -185,6 +319,7 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
             deleteIndex(indexName);
         }
         removeAlias(indexAlias);
+        invalidateMappingConfiguration(indexAlias);
     }
 
     @Override
@@ -258,7 +393,22 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     @Override
     public void addObjectsToIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, List<IndexObject<?>> objects) {
         Validate.notNull(objects, "Parameter 'objects' may not be null!");
-        addToIndex(indexAlias, dataChangeProcessingMode, objects.stream().map(IndexObject::toDocument).collect(Collectors.toList()));
+        addObjectsToIndex(indexAlias, dataChangeProcessingMode, objects.stream());
+    }
+
+    @Override
+    public void addToIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Stream<Map<String, Object>> documents) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(dataChangeProcessingMode, "Parameter 'dataChangeProcessingMode' may not be null!");
+        Validate.notNull(documents, "Parameter 'documents' may not be null!");
+
+        elasticsearch.addToIndex(indexAlias, dataChangeProcessingMode.isRefresh(), true, documents.iterator());
+    }
+
+    @Override
+    public void addObjectsToIndex(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Stream<? extends IndexObject<?>> objects) {
+        Validate.notNull(objects, "Parameter 'objects' may not be null!");
+        addToIndex(indexAlias, dataChangeProcessingMode, objects.map(IndexObject::toDocument));
     }
 
     @Override
@@ -290,6 +440,39 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
                 dataChangeProcessingMode.isRefresh());
     }
 
+    @Override
+    public void updateDocument(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Object id, Map<String, Object> partialDocument) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(dataChangeProcessingMode, "Parameter 'dataChangeProcessingMode' may not be null!");
+        Validate.notNull(id, "Parameter 'id' may not be null!");
+        Validate.notNull(partialDocument, "Parameter 'partialDocument' may not be null!");
+
+        elasticsearch.updateDocument(indexAlias, dataChangeProcessingMode.isRefresh(), id, partialDocument);
+    }
+
+    @Override
+    public void updateDocuments(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Map<?, Map<String, Object>> partialDocuments) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(dataChangeProcessingMode, "Parameter 'dataChangeProcessingMode' may not be null!");
+        Validate.notNull(partialDocuments, "Parameter 'partialDocuments' may not be null!");
+
+        elasticsearch.updateDocuments(indexAlias, dataChangeProcessingMode.isRefresh(), true, partialDocuments);
+    }
+
+    @Override
+    public void updateByQuery(String indexAlias, DataChangeProcessingMode dataChangeProcessingMode, Expression expression, Locale locale,
+                              ScriptDefinition scriptDefinition) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(dataChangeProcessingMode, "Parameter 'dataChangeProcessingMode' may not be null!");
+        Validate.notNull(expression, "Parameter 'expression' may not be null!");
+        Validate.notNull(locale, "Parameter 'locale' may not be null!");
+        Validate.notNull(scriptDefinition, "Parameter 'scriptDefinition' may not be null!");
+
+        final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
+        elasticsearch.updateByQuery(new QueryDto(expression, locale), getMappingConfiguration(indexAlias, true), indexPresetConfiguration,
+                scriptDefinition, dataChangeProcessingMode.isRefresh());
+    }
+
     @Override
     public SearchResult search(String indexAlias, Expression expression, SearchParameter searchParameter) {
         return search(indexAlias, new AccountContext<>(), expression, searchParameter);
@@ -299,20 +482,156 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     public SearchResult search(String indexAlias, AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter) {
         Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
 
-        final StopWatch sw = new StopWatch();
+        final long start = System.nanoTime();
 
         final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
         final int pageSize = getPageSize(searchParameter);
         final SearchResultDto searchResultDto
-                = getElasticsearchResult(new InternalSearchContext(indexPresetConfiguration, accountContext, expression, searchParameter, pageSize), sw);
-        final List<SearchResultItem> resultItems = searchResultDto.getHits().stream().map(this::searchResultItem).collect(Collectors.toList());
+                = getElasticsearchResult(new InternalSearchContext(indexPresetConfiguration, accountContext, expression, searchParameter, pageSize));
+        final SearchResult searchResult = searchResult(indexAlias, searchParameter, pageSize, searchResultDto);
 
-        sw.start("get max results");
+        final long duration = System.nanoTime() - start;
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_TOTAL, indexAlias, duration, TimeUnit.NANOSECONDS);
+        LOGGER.debug("Performed search on index '{}' in {} ms", indexAlias, TimeUnit.NANOSECONDS.toMillis(duration));
+        return searchResult;
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> searchAsync(String indexAlias, Expression expression, SearchParameter searchParameter) {
+        return searchAsync(indexAlias, new AccountContext<>(), expression, searchParameter);
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> searchAsync(String indexAlias, AccountContext<?> accountContext, Expression expression,
+                                                       SearchParameter searchParameter) {
+        try {
+            Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+
+            final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
+            final int pageSize = getPageSize(searchParameter);
+            final InternalSearchContext context
+                    = new InternalSearchContext(indexPresetConfiguration, accountContext, expression, searchParameter, pageSize);
+            final long start = System.nanoTime();
+            final QueryDto queryDto = createQueryDto(context);
+            return elasticsearch.searchAsync(queryDto, context.mappingConfiguration(), indexPresetConfiguration)
+                    .thenApply(searchResultDto -> {
+                        final SearchResult searchResult = searchResult(indexAlias, searchParameter, pageSize, searchResultDto);
+                        metricsRecorder.recordTime(MetricsRecorder.SEARCH_TOTAL, indexAlias, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        return searchResult;
+                    });
+        } catch (RuntimeException e) {
+            final CompletableFuture<SearchResult> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    @Override
+    public long count(String indexAlias, Expression expression) {
+        return count(indexAlias, new AccountContext<>(), expression);
+    }
+
+    @Override
+    public long count(String indexAlias, AccountContext<?> accountContext, Expression expression) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+
+        final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
+        final QueryDto queryDto = createQueryDto(accountContext, expression, 0, 0, SearchParameter.DEFAULT);
+        return elasticsearch.count(queryDto, getMappingConfiguration(indexAlias, true), indexPresetConfiguration);
+    }
+
+    @Override
+    public List<ResultFacet> facets(String indexAlias, Expression expression, List<? extends SearchAggregation> aggregations) {
+        return facets(indexAlias, new AccountContext<>(), expression, aggregations);
+    }
+
+    @Override
+    public List<ResultFacet> facets(String indexAlias, AccountContext<?> accountContext, Expression expression,
+                                    List<? extends SearchAggregation> aggregations) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notEmpty(aggregations, "Parameter 'aggregations' may not be null or empty!");
+
+        final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
+        final QueryDto queryDto = createQueryDto(accountContext, expression, 0, 0, SearchParameter.DEFAULT).aggregations(aggregations);
+        return convertFacets(elasticsearch.facets(queryDto, getMappingConfiguration(indexAlias, true), indexPresetConfiguration));
+    }
+
+    @Override
+    public List<MultiSearchResult> multiSearch(List<SearchRequestSpec> searchRequests) {
+        Validate.notNull(searchRequests, "Parameter 'searchRequests' may not be null!");
+        if (searchRequests.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final long start = System.nanoTime();
+        final List<InternalSearchContext> contexts = new ArrayList<>(searchRequests.size());
+        final List<SearchRequestDto> searchRequestDtos = new ArrayList<>(searchRequests.size());
+        for (final SearchRequestSpec spec : searchRequests) {
+            Validate.notEmpty(spec.getIndexAlias(), "Index alias of search request may not be null or empty!");
+            final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(spec.getIndexAlias());
+            final InternalSearchContext context = new InternalSearchContext(indexPresetConfiguration, spec.getAccountContext(), spec.getExpression(),
+                    spec.getSearchParameter(), getPageSize(spec.getSearchParameter()));
+            contexts.add(context);
+            searchRequestDtos.add(new SearchRequestDto(createQueryDto(context), context.mappingConfiguration(), indexPresetConfiguration));
+        }
+
+        final List<MultiSearchResultDto> resultDtos = elasticsearch.multiSearch(searchRequestDtos);
+        final List<MultiSearchResult> results = new ArrayList<>(resultDtos.size());
+        for (int i = 0; i < resultDtos.size(); i++) {
+            final MultiSearchResultDto resultDto = resultDtos.get(i);
+            if (resultDto.isFailed()) {
+                results.add(new MultiSearchResult(resultDto.getFailure()));
+            } else {
+                final InternalSearchContext context = contexts.get(i);
+                results.add(new MultiSearchResult(searchResult(context.indexPresetConfiguration.getIndexAlias(), context.searchParameter, context.pageSize,
+                        resultDto.getSearchResult())));
+            }
+        }
+
+        final long duration = System.nanoTime() - start;
+        contexts.stream().map(context -> context.indexPresetConfiguration.getIndexAlias()).distinct()
+                .forEach(indexAlias -> metricsRecorder.recordTime(MetricsRecorder.SEARCH_TOTAL, indexAlias, duration, TimeUnit.NANOSECONDS));
+        LOGGER.debug("Performed multi search with {} requests in {} ms", searchRequests.size(), TimeUnit.NANOSECONDS.toMillis(duration));
+        return results;
+    }
+
+    @Override
+    public Stream<SearchResultItem> stream(String indexAlias, Expression expression, SearchParameter searchParameter) {
+        return stream(indexAlias, new AccountContext<>(), expression, searchParameter);
+    }
+
+    @Override
+    public Stream<SearchResultItem> stream(String indexAlias, AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter) {
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+        Validate.notNull(searchParameter, "Parameter 'searchParameter' may not be null!");
+
+        final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
+        final InternalSearchContext context
+                = new InternalSearchContext(indexPresetConfiguration, accountContext, expression, searchParameter, getPageSize(searchParameter))
+                .mappingConfiguration(getMappingConfiguration(indexAlias, true));
+        final Stream<SearchResultItem> stream = StreamSupport.stream(new SearchAfterSpliterator(context), false);
+        return (searchParameter.getMaxResults() != null) ? stream.limit(searchParameter.getMaxResults()) : stream;
+    }
+
+    protected QueryDto createStreamQueryDto(InternalSearchContext context) {
+        final List<SortOption> sortOptions = new ArrayList<>();
+        if (context.searchParameter.getSortOptions() != null) {
+            sortOptions.addAll(context.searchParameter.getSortOptions());
+        }
+        // search_after needs a unique sort order, so the document ID is added as tiebreaker
+        if (sortOptions.stream().noneMatch(sortOption -> FieldConfiguration.FIELD_NAME_ID.equals(sortOption.getFieldName()))) {
+            sortOptions.add(SortOption.asc(FieldConfiguration.FIELD_NAME_ID));
+        }
+        return createQueryDto(context.accountContext, context.expression, 0, context.pageSize, context.searchParameter)
+                .sortOptions(sortOptions)
+                .aggregations(Collections.emptyList())
+                .fieldResolverType(fieldResolverType(context.searchParameter, context.mappingConfiguration()));
+    }
+
+    protected SearchResult searchResult(String indexAlias, SearchParameter searchParameter, int pageSize, SearchResultDto searchResultDto) {
+        final List<SearchResultItem> resultItems = searchResultDto.getHits().stream().map(this::searchResultItem).collect(Collectors.toList());
         final long totalHitCount = searchResultDto.getTotalHitCount();
         final int resultCount = getMaxResults(indexAlias, searchParameter.getMaxResults(), totalHitCount);
-        sw.stop();
-
-        LOGGER.debug("Performed search on index '{}':\n{}", indexAlias, new StopWatchPrettyPrint(sw));
         final int pageIndex = (searchParameter.getPageIndex() != null) ? searchParameter.getPageIndex() : 1;
         return new SearchResult(resultItems, pageIndex, pageSize, resultCount, totalHitCount, searchResultDto.isExactCount(),
                 convertFacets(searchResultDto.getFacetDtoList()));
@@ -339,12 +658,22 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
         return elasticsearch.getDocument(indexAlias, id);
     }
 
+    @Override
+    public List<Map<String, Object>> getDocuments(String indexAlias, Collection<?> ids, List<String> fields) {
+        return elasticsearch.getDocuments(indexAlias, ids, fields);
+    }
+
     @Override
     public <T extends IndexObject<T>> T getObject(String indexAlias, Object id, Class<T> type) {
         final Map<String, Object> doc = getDocument(indexAlias, id);
         return (doc != null) ? IndexObject.fromDocument(doc, type) : null;
     }
 
+    @Override
+    public <T extends IndexObject<T>> List<T> getObjects(String indexAlias, Collection<?> ids, Class<T> type) {
+        return getDocuments(indexAlias, ids, null).stream().map(doc -> IndexObject.fromDocument(doc, type)).collect(Collectors.toList());
+    }
+
     @Override
     public SuggestResult suggest(String indexAlias, SuggestExpression... expressions) {
         Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
@@ -364,21 +693,16 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     }
 
     protected SearchResultDto getElasticsearchResult(InternalSearchContext context) {
-        final StopWatch sw = new StopWatch();
-        try {
-            return getElasticsearchResult(context, sw);
-        } finally {
-            LOGGER.debug("Performed search on index '{}':\n{}", context.indexPresetConfiguration.getIndexAlias(), new StopWatchPrettyPrint(sw));
-        }
+        final QueryDto queryDto = createQueryDto(context);
+        return elasticsearch.search(queryDto, context.mappingConfiguration(), context.indexPresetConfiguration);
     }
 
-    protected SearchResultDto getElasticsearchResult(InternalSearchContext context, StopWatch sw) {
+    protected QueryDto createQueryDto(InternalSearchContext context) {
         SearchParameter searchParameter = context.searchParameter;
         if (searchParameter == null) {
             searchParameter = SearchParameter.DEFAULT;
         }
 
-        sw.start("create query");
         final int pageIndex = (searchParameter.getPageIndex() != null) ? searchParameter.getPageIndex() : 1;
         final int start = (pageIndex - 1) * context.pageSize;
         final int maxResults = (searchParameter.getMaxResults() != null)
@@ -386,13 +710,10 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
         final int resultLimit = Math.min(context.pageSize, maxResults - start);
 
         final QueryDto queryDto = createQueryDto(context.accountContext, context.expression, start, resultLimit, searchParameter);
-        sw.stop();
-
-        sw.start("process search");
-        final SearchResultDto result = elasticsearch.search(queryDto, context.mappingConfiguration(), context.indexPresetConfiguration);
-        sw.stop();
-
-        return result;
+        if (searchParameter.getFieldResolution() == SearchParameter.FieldResolution.AUTO) {
+            queryDto.fieldResolverType(fieldResolverType(searchParameter, context.mappingConfiguration()));
+        }
+        return queryDto;
     }
 
     protected QueryDto createQueryDto(AccountContext<?> accountContext, Expression expression, int start, int limit, SearchParameter searchParameter) {
@@ -405,7 +726,7 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
         }
         final QueryRangeDto queryRangeDto = new QueryRangeDto(start, limit, searchParameter.getMaxTrackTotalHits());
         final List<String> fieldsToResolve = searchParameter.getFieldsToResolve();
-        final QueryDto.FieldResolverType fieldResolverType = QueryDto.FieldResolverType.SOURCE_VALUES;
+        final QueryDto.FieldResolverType fieldResolverType = fieldResolverType(searchParameter, null);
         final Locale locale = StringUtils.isNotBlank(searchParameter.getLanguage())
                 ? LocaleUtils.toLocale(searchParameter.getLanguage())
                 : accountContext.getUserLanguage();
@@ -419,6 +740,32 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
                 .accountContext(accountContext);
     }
 
+    protected QueryDto.FieldResolverType fieldResolverType(SearchParameter searchParameter, MappingConfiguration mappingConfiguration) {
+        switch (searchParameter.getFieldResolution()) {
+            case DOC_VALUES:
+                return QueryDto.FieldResolverType.DOC_VALUES;
+            case AUTO:
+                return (mappingConfiguration != null && isDocValuesResolvable(searchParameter.getFieldsToResolve(), mappingConfiguration))
+                        ? QueryDto.FieldResolverType.DOC_VALUES
+                        : QueryDto.FieldResolverType.SOURCE_VALUES;
+            default:
+                return QueryDto.FieldResolverType.SOURCE_VALUES;
+        }
+    }
+
+    protected boolean isDocValuesResolvable(List<String> fieldsToResolve, MappingConfiguration mappingConfiguration) {
+        if (CollectionUtils.isEmpty(fieldsToResolve)) {
+            return false;
+        }
+        for (final String field : fieldsToResolve) {
+            final FieldConfiguration fieldConfiguration = mappingConfiguration.getFieldConfiguration(field);
+            if (fieldConfiguration == null || !isDocValuesField(fieldConfiguration)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected int getMaxResults(String indexAlias, Integer maxResults, long totalHitCount) {
         if (maxResults == null) {
             final IndexPresetConfiguration indexPresetConfiguration = indexPresetConfigurationProvider.getIndexPresetConfiguration(indexAlias);
@@ -433,7 +780,8 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
 
     protected ResultFacet convertFacet(FacetDto facetDto) {
         final List<ResultFacetItem> facetItems = facetDto.getFacetEntryDtos().stream().map(this::convertFacetItem).collect(Collectors.toList());
-        return new ResultFacet(facetDto.getName(), facetDto.getFieldName(), facetDto.getCount(), facetItems);
+        return new ResultFacet(facetDto.getName(), facetDto.getFieldName(), facetDto.getCount(), facetItems, facetDto.getAfterKey(),
+                facetDto.isApproximate());
     }
 
     protected ResultFacetItem convertFacetItem(FacetEntryDto entryDto) {
@@ -441,6 +789,13 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     }
 
     protected MappingConfiguration getMappingConfiguration(String indexAlias, boolean addFieldConfigurations) {
+        if (addFieldConfigurations && mappingCacheEnabled) {
+            return mappingConfigurationCache.computeIfAbsent(indexAlias, alias -> createMappingConfiguration(alias, true));
+        }
+        return createMappingConfiguration(indexAlias, addFieldConfigurations);
+    }
+
+    protected MappingConfiguration createMappingConfiguration(String indexAlias, boolean addFieldConfigurations) {
         final List<LanguageSortConfiguration> languageSortConfigurations = new ArrayList<>();
         for (final Locale locale : fieldConfigurationProvider.getSupportedLocales(indexAlias)) {
             languageSortConfigurations.add(new LanguageSortConfiguration(locale));
@@ -456,6 +811,45 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
         return elasticsearch.getRestClient();
     }
 
+    /**
+     * Fetches the pages of a search result lazily using search_after.
+     */
+    protected class SearchAfterSpliterator extends Spliterators.AbstractSpliterator<SearchResultItem> {
+
+        private final InternalSearchContext context;
+        private final QueryDto queryDto;
+        private Iterator<SearchHitDto> pageIterator = Collections.emptyIterator();
+        private boolean lastPage;
+
+        public SearchAfterSpliterator(InternalSearchContext context) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.context = context;
+            this.queryDto = createStreamQueryDto(context);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super SearchResultItem> action) {
+            while (!pageIterator.hasNext()) {
+                if (lastPage) {
+                    return false;
+                }
+                nextPage();
+            }
+            action.accept(searchResultItem(pageIterator.next()));
+            return true;
+        }
+
+        private void nextPage() {
+            final List<SearchHitDto> hits
+                    = elasticsearch.search(queryDto, context.mappingConfiguration(), context.indexPresetConfiguration).getHits();
+            lastPage = hits.size() < context.pageSize;
+            if (!hits.isEmpty()) {
+                queryDto.searchAfter(hits.get(hits.size() - 1).getSortValues());
+            }
+            pageIterator = hits.iterator();
+        }
+    }
+
     protected class InternalSearchContext {
 
         final IndexPresetConfiguration indexPresetConfiguration;
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.impl;
+
+import de.picturesafe.search.elasticsearch.BulkSession;
+import de.picturesafe.search.elasticsearch.connect.Elasticsearch;
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@link BulkSession} switching the indexes of an alias to bulk friendly settings on opening and restoring the original settings on closing.
+ */
+public class IndexBulkSession implements BulkSession {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexBulkSession.class);
+
+    static final String REFRESH_INTERVAL = "index.refresh_interval";
+    static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+    static final String TRANSLOG_DURABILITY = "index.translog.durability";
+
+    private final Elasticsearch elasticsearch;
+    private final String indexAlias;
+    private final long waitForGreenTimeout;
+    private final Consumer<BulkSession> closeCallback;
+    private final Map<String, Map<String, String>> originalSettings = new HashMap<>();
+
+    private boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param elasticsearch         {@link Elasticsearch}
+     * @param indexAlias            Name of the alias of the index
+     * @param waitForGreenTimeout   Timeout in milliseconds to wait for the indexes to become green on closing, 0 to not wait
+     * @param closeCallback         Callback to be run after the session was closed, may be <code>null</code>
+     */
+    public IndexBulkSession(Elasticsearch elasticsearch, String indexAlias, long waitForGreenTimeout, Consumer<BulkSession> closeCallback) {
+        Validate.notNull(elasticsearch, "Parameter 'elasticsearch' may not be null!");
+        Validate.notEmpty(indexAlias, "Parameter 'indexAlias' may not be null or empty!");
+
+        this.elasticsearch = elasticsearch;
+        this.indexAlias = indexAlias;
+        this.waitForGreenTimeout = waitForGreenTimeout;
+        this.closeCallback = closeCallback;
+    }
+
+    /**
+     * Saves the current settings of the indexes of the alias and applies the bulk friendly settings.
+     */
+    public void open() {
+        final List<String> indexNames = elasticsearch.resolveIndexNames(indexAlias);
+        Validate.notEmpty(indexNames, "Alias '" + indexAlias + "' is not mapped to any index!");
+
+        final Map<String, Object> bulkSettings = new HashMap<>();
+        bulkSettings.put(REFRESH_INTERVAL, "-1");
+        bulkSettings.put(NUMBER_OF_REPLICAS, 0);
+        bulkSettings.put(TRANSLOG_DURABILITY, "async");
+        try {
+            for (final String indexName : indexNames) {
+                originalSettings.put(indexName, elasticsearch.getIndexSettings(indexName, bulkSettings.keySet()));
+                elasticsearch.updateIndexSettings(indexName, bulkSettings);
+            }
+        } catch (RuntimeException e) {
+            restoreSettings();
+            throw e;
+        }
+        LOGGER.info("Opened bulk session for alias '{}', original settings: {}", indexAlias, originalSettings);
+    }
+
+    @Override
+    public String getIndexAlias() {
+        return indexAlias;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            restoreSettings();
+            elasticsearch.refresh(indexAlias);
+            if (waitForGreenTimeout > 0) {
+                for (final String indexName : originalSettings.keySet()) {
+                    if (!elasticsearch.waitForMinStatus(indexName, ClusterHealthStatus.GREEN, waitForGreenTimeout)) {
+                        LOGGER.warn("Index '{}' did not become green within {} ms after closing bulk session", indexName, waitForGreenTimeout);
+                    }
+                }
+            }
+            LOGGER.info("Closed bulk session for alias '{}'", indexAlias);
+        } finally {
+            if (closeCallback != null) {
+                closeCallback.accept(this);
+            }
+        }
+    }
+
+    private void restoreSettings() {
+        RuntimeException failure = null;
+        for (final Map.Entry<String, Map<String, String>> entry : originalSettings.entrySet()) {
+            try {
+                elasticsearch.updateIndexSettings(entry.getKey(), new HashMap<>(entry.getValue()));
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to restore settings of index '" + entry.getKey() + "': " + entry.getValue(), e);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("indexAlias", indexAlias) //--
+                .append("originalSettings", originalSettings) //--
+                .append("closed", closed) //--
+                .toString();
+    }
+}
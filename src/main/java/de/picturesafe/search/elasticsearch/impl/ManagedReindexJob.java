@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.impl;
+
+import de.picturesafe.search.elasticsearch.ReindexJob;
+import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.connect.Elasticsearch;
+import de.picturesafe.search.elasticsearch.connect.dto.ReindexStatusDto;
+import de.picturesafe.search.elasticsearch.error.ElasticsearchServiceException;
+import de.picturesafe.search.elasticsearch.model.ReindexProgress;
+import de.picturesafe.search.parameter.ReindexParameter;
+import org.apache.commons.lang3.Validate;
+import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reindex job creating a new index for an alias, filling it and atomically swapping the alias to it.
+ * <p>
+ * The new index is created from the current {@link IndexPresetConfiguration} and {@link MappingConfiguration}. While it is filled, replicas and
+ * refresh are disabled (if requested). It is fed either from the documents given by the {@link ReindexParameter} or from the indexes currently
+ * mapped to the alias via a (sliced) reindex task. Afterwards the settings are restored, the index is force merged and the alias is swapped.
+ * If the job fails before the alias was swapped, the new index will be deleted.
+ * <p>
+ * NOTE: Documents written to the alias while the documents are copied from the current index will be missing in the new index.
+ */
+public class ManagedReindexJob implements ReindexJob, Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManagedReindexJob.class);
+
+    private static final long STATUS_POLL_INTERVAL = 1000;
+
+    private final Elasticsearch elasticsearch;
+    private final IndexPresetConfiguration indexPresetConfiguration;
+    private final MappingConfiguration mappingConfiguration;
+    private final ReindexParameter reindexParameter;
+    private final CompletableFuture<ReindexProgress> completion = new CompletableFuture<>();
+    private final AtomicLong processedDocuments = new AtomicLong();
+
+    private volatile ReindexProgress.Phase phase = ReindexProgress.Phase.CREATING_INDEX;
+    private volatile String newIndexName;
+    private volatile long totalDocuments = -1;
+    private volatile long startTime;
+    private volatile long endTime;
+
+    /**
+     * Constructor
+     *
+     * @param elasticsearch             {@link Elasticsearch}
+     * @param indexPresetConfiguration  {@link IndexPresetConfiguration} of the index
+     * @param mappingConfiguration      {@link MappingConfiguration} of the new index
+     * @param reindexParameter          Parameters of the reindex job
+     */
+    public ManagedReindexJob(Elasticsearch elasticsearch, IndexPresetConfiguration indexPresetConfiguration, MappingConfiguration mappingConfiguration,
+                             ReindexParameter reindexParameter) {
+        Validate.notNull(elasticsearch, "Parameter 'elasticsearch' may not be null!");
+        Validate.notNull(indexPresetConfiguration, "Parameter 'indexPresetConfiguration' may not be null!");
+        Validate.notNull(mappingConfiguration, "Parameter 'mappingConfiguration' may not be null!");
+        Validate.notNull(reindexParameter, "Parameter 'reindexParameter' may not be null!");
+
+        this.elasticsearch = elasticsearch;
+        this.indexPresetConfiguration = indexPresetConfiguration;
+        this.mappingConfiguration = mappingConfiguration;
+        this.reindexParameter = reindexParameter;
+    }
+
+    @Override
+    public String getIndexAlias() {
+        return indexPresetConfiguration.getIndexAlias();
+    }
+
+    @Override
+    public ReindexProgress getProgress() {
+        final long elapsed = (startTime > 0) ? ((endTime > 0) ? endTime : System.currentTimeMillis()) - startTime : 0;
+        return new ReindexProgress(getIndexAlias(), newIndexName, phase, totalDocuments, processedDocuments.get(), elapsed);
+    }
+
+    @Override
+    public CompletableFuture<ReindexProgress> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public void run() {
+        startTime = System.currentTimeMillis();
+        final String indexAlias = getIndexAlias();
+        boolean aliasSwapped = false;
+        try {
+            final List<String> oldIndexNames = elasticsearch.aliasExists(indexAlias) ? elasticsearch.resolveIndexNames(indexAlias) : Collections.emptyList();
+            if (reindexParameter.getDocuments() == null && oldIndexNames.isEmpty()) {
+                throw new ElasticsearchServiceException("No documents to reindex, alias '" + indexAlias + "' does not exist!");
+            }
+
+            LOGGER.info("Starting reindex of alias '{}': {}", indexAlias, reindexParameter);
+            newIndexName = elasticsearch.createIndex(indexPresetConfiguration, mappingConfiguration);
+            if (reindexParameter.isBulkOptimizedSettings()) {
+                final Map<String, Object> settings = new HashMap<>();
+                settings.put("index.number_of_replicas", 0);
+                settings.put("index.refresh_interval", "-1");
+                elasticsearch.updateIndexSettings(newIndexName, settings);
+            }
+
+            phase = ReindexProgress.Phase.COPYING_DOCUMENTS;
+            if (reindexParameter.getDocuments() != null) {
+                feedDocuments(oldIndexNames);
+            } else {
+                copyDocuments(oldIndexNames);
+            }
+
+            phase = ReindexProgress.Phase.RESTORING_SETTINGS;
+            if (reindexParameter.isBulkOptimizedSettings()) {
+                final Map<String, Object> settings = new HashMap<>();
+                settings.put("index.number_of_replicas", indexPresetConfiguration.getNumberOfReplicas());
+                settings.put("index.refresh_interval", null);
+                elasticsearch.updateIndexSettings(newIndexName, settings);
+            }
+            elasticsearch.refresh(newIndexName);
+
+            if (reindexParameter.getMaxNumSegments() > 0) {
+                phase = ReindexProgress.Phase.FORCE_MERGING;
+                try {
+                    elasticsearch.forceMerge(newIndexName, reindexParameter.getMaxNumSegments());
+                } catch (Exception e) {
+                    LOGGER.warn("Force merge of index '" + newIndexName + "' did not finish, the merge may continue in background", e);
+                }
+            }
+            if (reindexParameter.getWaitForGreenTimeout() > 0
+                    && !elasticsearch.waitForMinStatus(newIndexName, ClusterHealthStatus.GREEN, reindexParameter.getWaitForGreenTimeout())) {
+                LOGGER.warn("Index '{}' did not become green within {} ms, swapping alias anyway", newIndexName, reindexParameter.getWaitForGreenTimeout());
+            }
+
+            phase = ReindexProgress.Phase.SWAPPING_ALIAS;
+            final List<String> replacedIndexNames = elasticsearch.swapAlias(indexAlias, newIndexName);
+            aliasSwapped = true;
+            if (reindexParameter.isDeleteOldIndex()) {
+                replacedIndexNames.forEach(elasticsearch::deleteIndex);
+            }
+
+            phase = ReindexProgress.Phase.COMPLETED;
+            endTime = System.currentTimeMillis();
+            final ReindexProgress progress = getProgress();
+            LOGGER.info("Finished reindex of alias '{}': {}", indexAlias, progress);
+            completion.complete(progress);
+        } catch (Exception e) {
+            phase = ReindexProgress.Phase.FAILED;
+            endTime = System.currentTimeMillis();
+            LOGGER.error("Reindex of alias '" + indexAlias + "' failed: " + getProgress(), e);
+            if (newIndexName != null && !aliasSwapped) {
+                try {
+                    elasticsearch.deleteIndex(newIndexName);
+                } catch (Exception deleteException) {
+                    LOGGER.error("Failed to delete index '" + newIndexName + "' of failed reindex", deleteException);
+                }
+            }
+            completion.completeExceptionally(e);
+        }
+    }
+
+    protected void feedDocuments(List<String> oldIndexNames) {
+        final Iterator<Map<String, Object>> documents = reindexParameter.getDocuments().iterator();
+        elasticsearch.addToIndex(newIndexName, false, true, new Iterator<Map<String, Object>>() {
+            @Override
+            public boolean hasNext() {
+                return documents.hasNext();
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                final Map<String, Object> document = documents.next();
+                processedDocuments.incrementAndGet();
+                return document;
+            }
+        });
+
+        if (!oldIndexNames.isEmpty()) {
+            final int indexVersion = elasticsearch.getIndexVersion(getIndexAlias());
+            if (indexVersion >= 0) {
+                elasticsearch.setIndexVersion(newIndexName, indexVersion);
+            }
+        }
+    }
+
+    protected void copyDocuments(List<String> oldIndexNames) throws InterruptedException {
+        final String taskId
+                = elasticsearch.startReindexTask(oldIndexNames, newIndexName, reindexParameter.getSlices(), reindexParameter.getBatchSize());
+        ReindexStatusDto status;
+        do {
+            Thread.sleep(STATUS_POLL_INTERVAL);
+            status = elasticsearch.getReindexTaskStatus(taskId);
+            if (status == null) {
+                throw new ElasticsearchServiceException("Reindex task '" + taskId + "' does not exist!");
+            }
+            totalDocuments = status.getTotal();
+            processedDocuments.set(status.getProcessed());
+        } while (!status.isCompleted());
+
+        if (status.getProcessed() < status.getTotal()) {
+            throw new ElasticsearchServiceException("Reindex task '" + taskId + "' processed only " + status.getProcessed() + " of "
+                    + status.getTotal() + " documents, please check the elasticsearch server logs!");
+        }
+    }
+}
@@ -1,19 +1,29 @@
 package de.picturesafe.search.elasticsearch.impl;
 
+import de.picturesafe.search.elasticsearch.BulkSession;
 import de.picturesafe.search.elasticsearch.DataChangeProcessingMode;
 import de.picturesafe.search.elasticsearch.ElasticsearchService;
 import de.picturesafe.search.elasticsearch.IndexPresetConfigurationProvider;
+import de.picturesafe.search.elasticsearch.ReindexJob;
 import de.picturesafe.search.elasticsearch.SingleIndexElasticsearchService;
 import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
 import de.picturesafe.search.elasticsearch.model.ElasticsearchInfo;
 import de.picturesafe.search.elasticsearch.model.IndexObject;
+import de.picturesafe.search.elasticsearch.model.MultiSearchResult;
+import de.picturesafe.search.elasticsearch.model.ResultFacet;
 import de.picturesafe.search.elasticsearch.model.SearchResult;
+import de.picturesafe.search.elasticsearch.model.SearchResultItem;
 import de.picturesafe.search.elasticsearch.model.SuggestResult;
 import de.picturesafe.search.expression.Expression;
 import de.picturesafe.search.expression.SuggestExpression;
 import de.picturesafe.search.parameter.AccountContext;
+import de.picturesafe.search.parameter.ReindexParameter;
+import de.picturesafe.search.parameter.ScriptDefinition;
+import de.picturesafe.search.parameter.SearchAggregation;
 import de.picturesafe.search.parameter.SearchParameter;
+import de.picturesafe.search.parameter.SearchRequestSpec;
+import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -22,6 +32,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @SuppressWarnings("unused")
@@ -73,6 +86,16 @@ public class SingleIndexElasticsearchServiceImpl implements SingleIndexElasticse
         return elasticsearchService.createIndexWithAlias(getIndexAlias());
     }
 
+    @Override
+    public ReindexJob reindex(ReindexParameter reindexParameter) {
+        return elasticsearchService.reindex(getIndexAlias(), reindexParameter);
+    }
+
+    @Override
+    public BulkSession openBulkSession() {
+        return elasticsearchService.openBulkSession(getIndexAlias());
+    }
+
     @Override
     public void deleteIndexWithAlias() {
         elasticsearchService.deleteIndexWithAlias(getIndexAlias());
@@ -118,6 +141,16 @@ public class SingleIndexElasticsearchServiceImpl implements SingleIndexElasticse
         elasticsearchService.addObjectsToIndex(getIndexAlias(), dataChangeProcessingMode, objects);
     }
 
+    @Override
+    public void addToIndex(DataChangeProcessingMode dataChangeProcessingMode, Stream<Map<String, Object>> documents) {
+        elasticsearchService.addToIndex(getIndexAlias(), dataChangeProcessingMode, documents);
+    }
+
+    @Override
+    public void addObjectsToIndex(DataChangeProcessingMode dataChangeProcessingMode, Stream<? extends IndexObject<?>> objects) {
+        elasticsearchService.addObjectsToIndex(getIndexAlias(), dataChangeProcessingMode, objects);
+    }
+
     @Override
     public void removeFromIndex(DataChangeProcessingMode dataChangeProcessingMode, Object id) {
         elasticsearchService.removeFromIndex(getIndexAlias(), dataChangeProcessingMode, id);
@@ -133,6 +166,21 @@ public class SingleIndexElasticsearchServiceImpl implements SingleIndexElasticse
         elasticsearchService.removeFromIndex(getIndexAlias(), dataChangeProcessingMode, expression, locale);
     }
 
+    @Override
+    public void updateDocument(DataChangeProcessingMode dataChangeProcessingMode, Object id, Map<String, Object> partialDocument) {
+        elasticsearchService.updateDocument(getIndexAlias(), dataChangeProcessingMode, id, partialDocument);
+    }
+
+    @Override
+    public void updateDocuments(DataChangeProcessingMode dataChangeProcessingMode, Map<?, Map<String, Object>> partialDocuments) {
+        elasticsearchService.updateDocuments(getIndexAlias(), dataChangeProcessingMode, partialDocuments);
+    }
+
+    @Override
+    public void updateByQuery(DataChangeProcessingMode dataChangeProcessingMode, Expression expression, Locale locale, ScriptDefinition scriptDefinition) {
+        elasticsearchService.updateByQuery(getIndexAlias(), dataChangeProcessingMode, expression, locale, scriptDefinition);
+    }
+
     @Override
     public SearchResult search(Expression expression, SearchParameter searchParameter) {
         return elasticsearchService.search(getIndexAlias(), expression, searchParameter);
@@ -143,16 +191,74 @@ public class SingleIndexElasticsearchServiceImpl implements SingleIndexElasticse
         return elasticsearchService.search(getIndexAlias(), accountContext, expression, searchParameter);
     }
 
+    @Override
+    public CompletableFuture<SearchResult> searchAsync(Expression expression, SearchParameter searchParameter) {
+        return elasticsearchService.searchAsync(getIndexAlias(), expression, searchParameter);
+    }
+
+    @Override
+    public CompletableFuture<SearchResult> searchAsync(AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter) {
+        return elasticsearchService.searchAsync(getIndexAlias(), accountContext, expression, searchParameter);
+    }
+
+    @Override
+    public long count(Expression expression) {
+        return elasticsearchService.count(getIndexAlias(), expression);
+    }
+
+    @Override
+    public long count(AccountContext<?> accountContext, Expression expression) {
+        return elasticsearchService.count(getIndexAlias(), accountContext, expression);
+    }
+
+    @Override
+    public List<ResultFacet> facets(Expression expression, List<? extends SearchAggregation> aggregations) {
+        return elasticsearchService.facets(getIndexAlias(), expression, aggregations);
+    }
+
+    @Override
+    public List<ResultFacet> facets(AccountContext<?> accountContext, Expression expression, List<? extends SearchAggregation> aggregations) {
+        return elasticsearchService.facets(getIndexAlias(), accountContext, expression, aggregations);
+    }
+
+    @Override
+    public List<MultiSearchResult> multiSearch(List<SearchRequestSpec> searchRequests) {
+        Validate.notNull(searchRequests, "Parameter 'searchRequests' may not be null!");
+        return elasticsearchService.multiSearch(searchRequests.stream()
+                .map(spec -> spec.getIndexAlias() != null ? spec : spec.withIndexAlias(getIndexAlias()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public Stream<SearchResultItem> stream(Expression expression, SearchParameter searchParameter) {
+        return elasticsearchService.stream(getIndexAlias(), expression, searchParameter);
+    }
+
+    @Override
+    public Stream<SearchResultItem> stream(AccountContext<?> accountContext, Expression expression, SearchParameter searchParameter) {
+        return elasticsearchService.stream(getIndexAlias(), accountContext, expression, searchParameter);
+    }
+
     @Override
     public Map<String, Object> getDocument(Object id) {
         return elasticsearchService.getDocument(getIndexAlias(), id);
     }
 
+    @Override
+    public List<Map<String, Object>> getDocuments(Collection<?> ids, List<String> fields) {
+        return elasticsearchService.getDocuments(getIndexAlias(), ids, fields);
+    }
+
     @Override
     public <T extends IndexObject<T>> T getObject(Object id, Class<T> type) {
         return elasticsearchService.getObject(getIndexAlias(), id, type);
     }
 
+    @Override
+    public <T extends IndexObject<T>> List<T> getObjects(Collection<?> ids, Class<T> type) {
+        return elasticsearchService.getObjects(getIndexAlias(), ids, type);
+    }
+
     @Override
     public SuggestResult suggest(SuggestExpression... expressions) {
         return elasticsearchService.suggest(getIndexAlias(), expressions);
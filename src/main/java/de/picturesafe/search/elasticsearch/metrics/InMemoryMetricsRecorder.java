@@ -0,0 +1,304 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.metrics;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics recorder keeping the metrics in memory.
+ *
+ * Counts, sums, minimum and maximum are recorded for all values. Percentiles are calculated from the latest values recorded per metric
+ * and index alias (sliding window). Durations are recorded in nanoseconds, so phases taking less than a millisecond are not rounded down
+ * to 0; the snapshots convert them to other time units on reporting.
+ */
+public class InMemoryMetricsRecorder implements MetricsRecorder {
+
+    public static final int DEFAULT_WINDOW_SIZE = 1024;
+
+    private final int windowSize;
+    private final Map<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     */
+    public InMemoryMetricsRecorder() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param windowSize    Number of latest values per metric used to calculate percentiles
+     */
+    public InMemoryMetricsRecorder(int windowSize) {
+        Validate.isTrue(windowSize > 0, "Parameter 'windowSize' must be greater than 0!");
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Records a duration in nanoseconds.
+     */
+    @Override
+    public void recordTime(String metric, String indexAlias, long duration, TimeUnit unit) {
+        histograms.computeIfAbsent(new Key(metric, indexAlias), k -> new Histogram(windowSize, TimeUnit.NANOSECONDS)).record(unit.toNanos(duration));
+    }
+
+    @Override
+    public void recordValue(String metric, String indexAlias, long value) {
+        histograms.computeIfAbsent(new Key(metric, indexAlias), k -> new Histogram(windowSize, null)).record(value);
+    }
+
+    /**
+     * Gets a snapshot of a metric.
+     *
+     * @param metric        Name of the metric
+     * @param indexAlias    Index alias the metric belongs to
+     * @return              Snapshot or <code>null</code> if no values have been recorded
+     */
+    public Snapshot getSnapshot(String metric, String indexAlias) {
+        final Histogram histogram = histograms.get(new Key(metric, indexAlias));
+        return (histogram != null) ? histogram.snapshot() : null;
+    }
+
+    /**
+     * Gets snapshots of all metrics of an index alias.
+     *
+     * @param indexAlias    Index alias
+     * @return              Snapshots by metric name
+     */
+    public Map<String, Snapshot> getSnapshots(String indexAlias) {
+        final String alias = (indexAlias != null) ? indexAlias : "";
+        final Map<String, Snapshot> snapshots = new TreeMap<>();
+        histograms.forEach((key, histogram) -> {
+            if (key.indexAlias.equals(alias)) {
+                snapshots.put(key.metric, histogram.snapshot());
+            }
+        });
+        return snapshots;
+    }
+
+    /**
+     * Removes all recorded metrics.
+     */
+    public void clear() {
+        histograms.clear();
+    }
+
+    /**
+     * Snapshot of a metric
+     */
+    public static class Snapshot {
+
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+        private final long[] window;
+        private final TimeUnit timeUnit;
+
+        Snapshot(long count, long sum, long min, long max, long[] window, TimeUnit timeUnit) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.window = window;
+            this.timeUnit = timeUnit;
+            Arrays.sort(this.window);
+        }
+
+        /**
+         * Gets the time unit of the recorded values.
+         *
+         * @return Time unit of durations ({@link TimeUnit#NANOSECONDS}) or <code>null</code> if the values are no durations
+         */
+        public TimeUnit getTimeUnit() {
+            return timeUnit;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return Number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of all recorded values (in the unit of {@link #getTimeUnit()} for durations).
+         *
+         * @return Sum of all recorded values
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the minimum of all recorded values.
+         *
+         * @return Minimum value
+         */
+        public long getMin() {
+            return min;
+        }
+
+        /**
+         * Gets the maximum of all recorded values.
+         *
+         * @return Maximum value
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the mean of all recorded values.
+         *
+         * @return Mean value
+         */
+        public double getMean() {
+            return (count > 0) ? (double) sum / count : 0;
+        }
+
+        /**
+         * Gets the mean of all recorded durations converted to the given time unit.
+         *
+         * @param unit  Time unit
+         * @return      Mean duration
+         */
+        public double getMean(TimeUnit unit) {
+            return convert(getMean(), unit);
+        }
+
+        /**
+         * Gets a percentile of the latest recorded values.
+         *
+         * @param percentile    Percentile between 0 and 100, e.g. 99 for the p99 value
+         * @return              Percentile value
+         */
+        public long getPercentile(double percentile) {
+            Validate.inclusiveBetween(0.0, 100.0, percentile, "Parameter 'percentile' must be between 0 and 100!");
+            if (window.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100 * window.length) - 1;
+            return window[Math.max(index, 0)];
+        }
+
+        /**
+         * Gets a percentile of the latest recorded durations converted to the given time unit.
+         *
+         * @param percentile    Percentile between 0 and 100, e.g. 99 for the p99 value
+         * @param unit          Time unit
+         * @return              Percentile duration
+         */
+        public double getPercentile(double percentile, TimeUnit unit) {
+            return convert(getPercentile(percentile), unit);
+        }
+
+        private double convert(double value, TimeUnit unit) {
+            Validate.notNull(timeUnit, "Values of the metric are no durations!");
+            return value / timeUnit.convert(1, unit);
+        }
+
+        @Override
+        public String toString() {
+            if (timeUnit != null) {
+                return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                        .append("count", count) //--
+                        .append("meanMillis", getMean(TimeUnit.MILLISECONDS)) //--
+                        .append("minMillis", convert(min, TimeUnit.MILLISECONDS)) //--
+                        .append("maxMillis", convert(max, TimeUnit.MILLISECONDS)) //--
+                        .append("p50Millis", getPercentile(50, TimeUnit.MILLISECONDS)) //--
+                        .append("p99Millis", getPercentile(99, TimeUnit.MILLISECONDS)) //--
+                        .toString();
+            }
+            return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                    .append("count", count) //--
+                    .append("mean", getMean()) //--
+                    .append("min", min) //--
+                    .append("max", max) //--
+                    .append("p50", getPercentile(50)) //--
+                    .append("p99", getPercentile(99)) //--
+                    .toString();
+        }
+    }
+
+    private static class Histogram {
+
+        private final long[] window;
+        private final TimeUnit timeUnit;
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        Histogram(int windowSize, TimeUnit timeUnit) {
+            this.window = new long[windowSize];
+            this.timeUnit = timeUnit;
+        }
+
+        synchronized void record(long value) {
+            window[(int) (count % window.length)] = value;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        synchronized Snapshot snapshot() {
+            final int size = (int) Math.min(count, window.length);
+            return new Snapshot(count, sum, min, max, Arrays.copyOf(window, size), timeUnit);
+        }
+    }
+
+    private static class Key {
+
+        private final String metric;
+        private final String indexAlias;
+
+        Key(String metric, String indexAlias) {
+            this.metric = metric;
+            this.indexAlias = (indexAlias != null) ? indexAlias : "";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return metric.equals(that.metric) && indexAlias.equals(that.indexAlias);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * metric.hashCode() + indexAlias.hashCode();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SPI to record metrics of search and indexing operations. All metrics are tagged by the index alias they belong to.
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Time to build the elasticsearch search request
+     */
+    String SEARCH_QUERY_BUILD = "search.query_build";
+
+    /**
+     * Round trip time of a search request to elasticsearch
+     */
+    String SEARCH_REQUEST = "search.request";
+
+    /**
+     * Time elasticsearch reports to have spent executing a search request
+     */
+    String SEARCH_TOOK = "search.took";
+
+    /**
+     * Time to convert the search hits of a response
+     */
+    String SEARCH_HIT_CONVERSION = "search.hit_conversion";
+
+    /**
+     * Time to convert the aggregations of a response into facets
+     */
+    String SEARCH_FACET_CONVERSION = "search.facet_conversion";
+
+    /**
+     * Overall time of a search call of the service
+     */
+    String SEARCH_TOTAL = "search.total";
+
+    /**
+     * Round trip time of a bulk request to elasticsearch
+     */
+    String BULK_REQUEST = "bulk.request";
+
+    /**
+     * Time elasticsearch reports to have spent executing a bulk request
+     */
+    String BULK_TOOK = "bulk.took";
+
+    /**
+     * Number of actions per bulk request
+     */
+    String BULK_SIZE = "bulk.size";
+
+    /**
+     * Estimated size of a bulk request in bytes
+     */
+    String BULK_BYTES = "bulk.bytes";
+
+    /**
+     * Number of items per bulk request still failing with a transient error (429, 503) after the last retry
+     */
+    String BULK_FAILURES_RETRIES_EXHAUSTED = "bulk.failures.retries_exhausted";
+
+    /**
+     * Number of items per bulk request failing with a permanent error, e.g. a mapping conflict
+     */
+    String BULK_FAILURES_PERMANENT = "bulk.failures.permanent";
+
+    /**
+     * Number of bulk items resubmitted after a transient error (429, 503)
+     */
+    String BULK_RETRIES = "bulk.retries";
+
+    /**
+     * Records a duration.
+     *
+     * @param metric        Name of the metric
+     * @param indexAlias    Index alias the metric belongs to
+     * @param duration      Duration
+     * @param unit          Time unit of the duration
+     */
+    void recordTime(String metric, String indexAlias, long duration, TimeUnit unit);
+
+    /**
+     * Records a value, e.g. a size or a count.
+     *
+     * @param metric        Name of the metric
+     * @param indexAlias    Index alias the metric belongs to
+     * @param value         Value
+     */
+    void recordValue(String metric, String indexAlias, long value);
+}
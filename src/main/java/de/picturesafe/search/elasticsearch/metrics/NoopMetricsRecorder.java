@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics recorder discarding all metrics.
+ */
+public class NoopMetricsRecorder implements MetricsRecorder {
+
+    public static final NoopMetricsRecorder INSTANCE = new NoopMetricsRecorder();
+
+    @Override
+    public void recordTime(String metric, String indexAlias, long duration, TimeUnit unit) {
+    }
+
+    @Override
+    public void recordValue(String metric, String indexAlias, long value) {
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.model;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Result of a single search within a multi search
+ */
+public class MultiSearchResult {
+
+    private final SearchResult searchResult;
+    private final RuntimeException failure;
+
+    /**
+     * Constructor for a successful search
+     *
+     * @param searchResult  Search result
+     */
+    public MultiSearchResult(SearchResult searchResult) {
+        this.searchResult = searchResult;
+        this.failure = null;
+    }
+
+    /**
+     * Constructor for a failed search
+     *
+     * @param failure   Cause of the failure
+     */
+    public MultiSearchResult(RuntimeException failure) {
+        this.searchResult = null;
+        this.failure = failure;
+    }
+
+    /**
+     * Gets the search result.
+     *
+     * @return Search result or <code>null</code> if the search failed
+     */
+    public SearchResult getSearchResult() {
+        return searchResult;
+    }
+
+    /**
+     * Gets the cause of the failure.
+     *
+     * @return Cause of the failure or <code>null</code> if the search succeeded
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Tests if the search failed.
+     *
+     * @return TRUE if the search failed
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Gets the search result or throws the cause of the failure.
+     *
+     * @return Search result
+     */
+    public SearchResult getSearchResultOrThrow() {
+        if (failure != null) {
+            throw failure;
+        }
+        return searchResult;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("searchResult", searchResult) //--
+                .append("failure", failure) //--
+                .toString();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.model;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Snapshot of the progress of a reindex job
+ */
+public class ReindexProgress {
+
+    /**
+     * Phase of a reindex job
+     */
+    public enum Phase {CREATING_INDEX, COPYING_DOCUMENTS, RESTORING_SETTINGS, FORCE_MERGING, SWAPPING_ALIAS, COMPLETED, FAILED}
+
+    private final String indexAlias;
+    private final String newIndexName;
+    private final Phase phase;
+    private final long totalDocuments;
+    private final long processedDocuments;
+    private final long elapsedMillis;
+
+    /**
+     * Constructor
+     *
+     * @param indexAlias            Name of the alias of the index
+     * @param newIndexName          Name of the new index
+     * @param phase                 Current phase
+     * @param totalDocuments        Total number of documents to be processed, -1 if unknown
+     * @param processedDocuments    Number of processed documents
+     * @param elapsedMillis         Elapsed time in milliseconds
+     */
+    public ReindexProgress(String indexAlias, String newIndexName, Phase phase, long totalDocuments, long processedDocuments, long elapsedMillis) {
+        this.indexAlias = indexAlias;
+        this.newIndexName = newIndexName;
+        this.phase = phase;
+        this.totalDocuments = totalDocuments;
+        this.processedDocuments = processedDocuments;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Gets the name of the alias of the index.
+     *
+     * @return Name of the alias of the index
+     */
+    public String getIndexAlias() {
+        return indexAlias;
+    }
+
+    /**
+     * Gets the name of the new index.
+     *
+     * @return Name of the new index or <code>null</code> if it has not been created yet
+     */
+    public String getNewIndexName() {
+        return newIndexName;
+    }
+
+    /**
+     * Gets the current phase.
+     *
+     * @return Current phase
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the total number of documents to be processed.
+     *
+     * @return Total number of documents, -1 if unknown
+     */
+    public long getTotalDocuments() {
+        return totalDocuments;
+    }
+
+    /**
+     * Gets the number of processed documents.
+     *
+     * @return Number of processed documents
+     */
+    public long getProcessedDocuments() {
+        return processedDocuments;
+    }
+
+    /**
+     * Gets the elapsed time.
+     *
+     * @return Elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets the throughput.
+     *
+     * @return Processed documents per second
+     */
+    public double getDocumentsPerSecond() {
+        return (elapsedMillis > 0) ? processedDocuments * 1000.0 / elapsedMillis : 0;
+    }
+
+    /**
+     * Gets the percentage of processed documents.
+     *
+     * @return Percentage of processed documents, -1 if the total number of documents is unknown
+     */
+    public double getPercentage() {
+        if (totalDocuments < 0) {
+            return -1;
+        }
+        return (totalDocuments > 0) ? Math.min(100.0, processedDocuments * 100.0 / totalDocuments) : 100.0;
+    }
+
+    /**
+     * Checks if the reindex job has finished.
+     *
+     * @return true if the reindex job has completed or failed
+     */
+    public boolean isFinished() {
+        return phase == Phase.COMPLETED || phase == Phase.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("indexAlias", indexAlias) //--
+                .append("newIndexName", newIndexName) //--
+                .append("phase", phase) //--
+                .append("totalDocuments", totalDocuments) //--
+                .append("processedDocuments", processedDocuments) //--
+                .append("elapsedMillis", elapsedMillis) //--
+                .toString();
+    }
+}
@@ -31,6 +31,8 @@ public class ResultFacet {
     private final String fieldName;
     private final long count;
     private final List<ResultFacetItem> facetItems;
+    private final Object afterKey;
+    private final boolean approximate;
 
     /**
      * Constructor
@@ -41,10 +43,39 @@ public class ResultFacet {
      * @param facetItems    Facet items
      */
     public ResultFacet(String name, String fieldName, long count, List<ResultFacetItem> facetItems) {
+        this(name, fieldName, count, facetItems, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name          Name of the facet
+     * @param fieldName     Name of the aggregation field (may be null)
+     * @param count         Total count of documents
+     * @param facetItems    Facet items
+     * @param afterKey      Key to request the next page of facet items (may be null)
+     */
+    public ResultFacet(String name, String fieldName, long count, List<ResultFacetItem> facetItems, Object afterKey) {
+        this(name, fieldName, count, facetItems, afterKey, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name          Name of the facet
+     * @param fieldName     Name of the aggregation field (may be null)
+     * @param count         Total count of documents
+     * @param facetItems    Facet items
+     * @param afterKey      Key to request the next page of facet items (may be null)
+     * @param approximate   <code>true</code> if the counts were extrapolated from a sample of the documents
+     */
+    public ResultFacet(String name, String fieldName, long count, List<ResultFacetItem> facetItems, Object afterKey, boolean approximate) {
         this.name = name;
         this.fieldName = fieldName;
         this.count = count;
         this.facetItems = facetItems;
+        this.afterKey = afterKey;
+        this.approximate = approximate;
     }
 
     /**
@@ -83,6 +114,28 @@ public class ResultFacet {
         return facetItems;
     }
 
+    /**
+     * Gets the key to request the next page of facet items of a paged aggregation.
+     *
+     * @see de.picturesafe.search.parameter.aggregation.CompositeTermsAggregation#afterKey(Object)
+     *
+     * @return After key or <code>null</code> if the aggregation is not paged or there are no more facet items
+     */
+    public Object getAfterKey() {
+        return afterKey;
+    }
+
+    /**
+     * Checks if the counts of the facet are approximate.
+     *
+     * @see de.picturesafe.search.parameter.aggregation.SamplerOption
+     *
+     * @return <code>true</code> if the counts were extrapolated from a sample of the documents
+     */
+    public boolean isApproximate() {
+        return approximate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -98,6 +151,8 @@ public class ResultFacet {
                 .append(fieldName, that.fieldName)
                 .append(count, that.count)
                 .append(facetItems, that.facetItems)
+                .append(afterKey, that.afterKey)
+                .append(approximate, that.approximate)
                 .isEquals();
     }
 
@@ -113,6 +168,8 @@ public class ResultFacet {
                 .append("fieldName", fieldName) //--
                 .append("count", count) //--
                 .append("facetItems", facetItems) //--
+                .append("afterKey", afterKey) //--
+                .append("approximate", approximate) //--
                 .toString();
     }
 }
@@ -88,7 +88,7 @@ public class SearchResultItem {
     }
 
     /**
-     * Gets attributes of the result item's document.
+     * Gets attributes of the result item's document. The attributes of results served by the local search result cache are read-only.
      *
      * @return Attributes of the result item's document
      */
@@ -16,10 +16,12 @@
 
 package de.picturesafe.search.expression;
 
+import java.io.Serializable;
+
 /**
  * Interface of a search expression
  */
-public interface Expression {
+public interface Expression extends Serializable {
 
     /**
      * Optimzes the expression.
@@ -17,15 +17,18 @@
 package de.picturesafe.search.parameter;
 
 import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * Search result collapse option
  */
-public class CollapseOption {
+public class CollapseOption implements Serializable {
 
     private final String field;
     private List<InnerHitsOption> innerHitsOptions;
@@ -83,6 +86,27 @@ public class CollapseOption {
         return innerHitsOptions;
     }
 
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(field)
+                .append(innerHitsOptions)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CollapseOption)) {
+            return false;
+        } else {
+            final CollapseOption that = (CollapseOption) o;
+            return new EqualsBuilder()
+                    .append(field, that.field)
+                    .append(innerHitsOptions, that.innerHitsOptions)
+                    .isEquals();
+        }
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
@@ -17,15 +17,18 @@
 package de.picturesafe.search.parameter;
 
 import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * Search result inner hits option
  */
-public class InnerHitsOption {
+public class InnerHitsOption implements Serializable {
 
     public static final int DEFAULT_SIZE = 5;
 
@@ -149,6 +152,33 @@ public class InnerHitsOption {
         return from;
     }
 
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(name)
+                .append(size)
+                .append(from)
+                .append(sortOptions)
+                .append(collapseOption)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof InnerHitsOption)) {
+            return false;
+        } else {
+            final InnerHitsOption that = (InnerHitsOption) o;
+            return new EqualsBuilder()
+                    .append(name, that.name)
+                    .append(size, that.size)
+                    .append(from, that.from)
+                    .append(sortOptions, that.sortOptions)
+                    .append(collapseOption, that.collapseOption)
+                    .isEquals();
+        }
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.parameter;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Parameters for reindex operations
+ */
+public class ReindexParameter {
+
+    public static final ReindexParameter DEFAULT = builder().build();
+
+    private final Stream<Map<String, Object>> documents;
+    private final int slices;
+    private final int batchSize;
+    private final boolean bulkOptimizedSettings;
+    private final int maxNumSegments;
+    private final long waitForGreenTimeout;
+    private final boolean deleteOldIndex;
+
+    private ReindexParameter(Builder builder) {
+        documents = builder.documents;
+        slices = builder.slices;
+        batchSize = builder.batchSize;
+        bulkOptimizedSettings = builder.bulkOptimizedSettings;
+        maxNumSegments = builder.maxNumSegments;
+        waitForGreenTimeout = builder.waitForGreenTimeout;
+        deleteOldIndex = builder.deleteOldIndex;
+    }
+
+    /**
+     * Gets the documents to feed the new index with.
+     *
+     * @return Documents to feed the new index with or <code>null</code> if the documents should be copied from the current index
+     */
+    public Stream<Map<String, Object>> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Gets the number of parallel slices when copying from the current index.
+     *
+     * @return Number of parallel slices, 0 if elasticsearch should choose the number of slices
+     */
+    public int getSlices() {
+        return slices;
+    }
+
+    /**
+     * Gets the number of documents per batch when copying from the current index.
+     *
+     * @return Number of documents per batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Checks if bulk optimized settings (no replicas, refresh disabled) should be applied to the new index while it is filled.
+     *
+     * @return true if bulk optimized settings should be applied
+     */
+    public boolean isBulkOptimizedSettings() {
+        return bulkOptimizedSettings;
+    }
+
+    /**
+     * Gets the maximum number of segments per shard to force merge the new index to.
+     *
+     * @return Maximum number of segments per shard, 0 if the new index should not be force merged
+     */
+    public int getMaxNumSegments() {
+        return maxNumSegments;
+    }
+
+    /**
+     * Gets the timeout to wait for the new index to become green before swapping the alias.
+     *
+     * @return Timeout in milliseconds, 0 if the status should not be awaited
+     */
+    public long getWaitForGreenTimeout() {
+        return waitForGreenTimeout;
+    }
+
+    /**
+     * Checks if the old index should be deleted after swapping the alias.
+     *
+     * @return true if the old index should be deleted
+     */
+    public boolean isDeleteOldIndex() {
+        return deleteOldIndex;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("documents", (documents != null) ? "<stream>" : null) //--
+                .append("slices", slices) //--
+                .append("batchSize", batchSize) //--
+                .append("bulkOptimizedSettings", bulkOptimizedSettings) //--
+                .append("maxNumSegments", maxNumSegments) //--
+                .append("waitForGreenTimeout", waitForGreenTimeout) //--
+                .append("deleteOldIndex", deleteOldIndex) //--
+                .toString();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        Stream<Map<String, Object>> documents;
+        int slices;
+        int batchSize = 1000;
+        boolean bulkOptimizedSettings = true;
+        int maxNumSegments = 1;
+        long waitForGreenTimeout = 30000;
+        boolean deleteOldIndex;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the documents to feed the new index with. If no documents are set, they will be copied from the current index.
+         *
+         * @param documents Documents to feed the new index with
+         * @return Builder
+         */
+        public Builder documents(Stream<Map<String, Object>> documents) {
+            this.documents = documents;
+            return this;
+        }
+
+        /**
+         * Sets the number of parallel slices when copying from the current index (default: 0 = chosen by elasticsearch).
+         *
+         * @param slices Number of parallel slices
+         * @return Builder
+         */
+        public Builder slices(int slices) {
+            Validate.isTrue(slices >= 0, "Parameter 'slices' must not be negative!");
+            this.slices = slices;
+            return this;
+        }
+
+        /**
+         * Sets the number of documents per batch when copying from the current index (default: 1000).
+         *
+         * @param batchSize Number of documents per batch
+         * @return Builder
+         */
+        public Builder batchSize(int batchSize) {
+            Validate.isTrue(batchSize > 0, "Parameter 'batchSize' must be greater than 0!");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets if bulk optimized settings (no replicas, refresh disabled) should be applied to the new index while it is filled (default: true).
+         *
+         * @param bulkOptimizedSettings true if bulk optimized settings should be applied
+         * @return Builder
+         */
+        public Builder bulkOptimizedSettings(boolean bulkOptimizedSettings) {
+            this.bulkOptimizedSettings = bulkOptimizedSettings;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of segments per shard to force merge the new index to (default: 1, 0 = no force merge).
+         *
+         * @param maxNumSegments Maximum number of segments per shard
+         * @return Builder
+         */
+        public Builder maxNumSegments(int maxNumSegments) {
+            Validate.isTrue(maxNumSegments >= 0, "Parameter 'maxNumSegments' must not be negative!");
+            this.maxNumSegments = maxNumSegments;
+            return this;
+        }
+
+        /**
+         * Sets the timeout to wait for the new index to become green before swapping the alias (default: 30 seconds, 0 = do not wait).
+         *
+         * @param waitForGreenTimeout Timeout in milliseconds
+         * @return Builder
+         */
+        public Builder waitForGreenTimeout(long waitForGreenTimeout) {
+            Validate.isTrue(waitForGreenTimeout >= 0, "Parameter 'waitForGreenTimeout' must not be negative!");
+            this.waitForGreenTimeout = waitForGreenTimeout;
+            return this;
+        }
+
+        /**
+         * Sets if the old index should be deleted after swapping the alias (default: false).
+         *
+         * @param deleteOldIndex true if the old index should be deleted
+         * @return Builder
+         */
+        public Builder deleteOldIndex(boolean deleteOldIndex) {
+            this.deleteOldIndex = deleteOldIndex;
+            return this;
+        }
+
+        public ReindexParameter build() {
+            return new ReindexParameter(this);
+        }
+    }
+}
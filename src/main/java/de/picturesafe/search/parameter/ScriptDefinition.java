@@ -17,15 +17,18 @@
 package de.picturesafe.search.parameter;
 
 import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Definition of a native script which will be executed in Elasticsearch
  */
-public class ScriptDefinition {
+public class ScriptDefinition implements Serializable {
 
     public enum ScriptType {INLINE, STORED}
     public enum SortType {STRING, NUMBER}
@@ -188,6 +191,35 @@ public class ScriptDefinition {
         return this;
     }
 
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(scriptType)
+                .append(idOrCode)
+                .append(language)
+                .append(sortType)
+                .append(options)
+                .append(params)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ScriptDefinition)) {
+            return false;
+        } else {
+            final ScriptDefinition that = (ScriptDefinition) o;
+            return new EqualsBuilder()
+                    .append(scriptType, that.scriptType)
+                    .append(idOrCode, that.idOrCode)
+                    .append(language, that.language)
+                    .append(sortType, that.sortType)
+                    .append(options, that.options)
+                    .append(params, that.params)
+                    .isEquals();
+        }
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
@@ -17,6 +17,8 @@
 package de.picturesafe.search.parameter;
 
 import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 /**
@@ -60,6 +62,27 @@ public class ScriptSortOption extends SortOption {
         return scriptDefinition;
     }
 
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .appendSuper(super.hashCode())
+                .append(scriptDefinition)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ScriptSortOption)) {
+            return false;
+        } else {
+            final ScriptSortOption that = (ScriptSortOption) o;
+            return new EqualsBuilder()
+                    .appendSuper(super.equals(o))
+                    .append(scriptDefinition, that.scriptDefinition)
+                    .isEquals();
+        }
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
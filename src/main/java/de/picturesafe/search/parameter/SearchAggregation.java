@@ -16,10 +16,12 @@
 
 package de.picturesafe.search.parameter;
 
+import java.io.Serializable;
+
 /**
  * Definition of an search aggregation
  */
-public interface SearchAggregation {
+public interface SearchAggregation extends Serializable {
 
     /**
      * Get the aggregation field name.
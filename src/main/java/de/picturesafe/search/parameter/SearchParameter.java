@@ -17,6 +17,7 @@
 package de.picturesafe.search.parameter;
 
 import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import java.util.ArrayList;
@@ -28,6 +29,26 @@ import java.util.List;
  */
 public class SearchParameter {
 
+    /**
+     * Resolution mode of the fields to be resolved in the search result
+     */
+    public enum FieldResolution {
+        /**
+         * Fields will be resolved from the document source
+         */
+        SOURCE,
+        /**
+         * Fields will be resolved from doc values, the document source will not be fetched.
+         * Only fields being sortable or aggregatable (and not multilingual or nested) can be resolved from doc values.
+         * NOTE: Values of multi-valued fields are returned sorted and without duplicates.
+         */
+        DOC_VALUES,
+        /**
+         * Fields will be resolved from doc values if all fields to be resolved support doc values, otherwise from the document source
+         */
+        AUTO
+    }
+
     public static final SearchParameter DEFAULT = builder().build();
 
     private final List<SortOption> sortOptions;
@@ -42,6 +63,7 @@ public class SearchParameter {
     private final String language;
     private final List<SearchAggregation> aggregations;
     private final List<String> fieldsToResolve;
+    private final FieldResolution fieldResolution;
     private final boolean optimizeExpressions;
 
     private SearchParameter(Builder builder) {
@@ -57,6 +79,7 @@ public class SearchParameter {
         language = builder.language;
         aggregations = builder.aggregations;
         fieldsToResolve = builder.fieldsToResolve;
+        fieldResolution = builder.fieldResolution;
         optimizeExpressions = builder.optimizeExpressions;
     }
 
@@ -175,6 +198,15 @@ public class SearchParameter {
         return fieldsToResolve;
     }
 
+    /**
+     * Gets the resolution mode of the fields to be resolved.
+     *
+     * @return Resolution mode of the fields to be resolved
+     */
+    public FieldResolution getFieldResolution() {
+        return fieldResolution;
+    }
+
     /**
      * Checks if expressions should be optimized.
      *
@@ -200,6 +232,7 @@ public class SearchParameter {
                 .append("language", language) //--
                 .append("aggregations", aggregations) //--
                 .append("fieldsToResolve", fieldsToResolve) //--
+                .append("fieldResolution", fieldResolution) //--
                 .append("optimizeExpressions", optimizeExpressions) //--
                 .toString();
     }
@@ -221,6 +254,7 @@ public class SearchParameter {
         String language;
         List<SearchAggregation> aggregations = new ArrayList<>();
         List<String> fieldsToResolve = new ArrayList<>();
+        FieldResolution fieldResolution = FieldResolution.SOURCE;
         boolean optimizeExpressions;
 
         private Builder() {
@@ -409,6 +443,18 @@ public class SearchParameter {
             return this;
         }
 
+        /**
+         * Sets the resolution mode of the fields to be resolved (default: {@link FieldResolution#SOURCE}).
+         *
+         * @param fieldResolution Resolution mode of the fields to be resolved
+         * @return Builder
+         */
+        public Builder fieldResolution(FieldResolution fieldResolution) {
+            Validate.notNull(fieldResolution, "Parameter 'fieldResolution' may not be null!");
+            this.fieldResolution = fieldResolution;
+            return this;
+        }
+
         /**
          * Sets if expressions should be optimized.
          *
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.parameter;
+
+import de.picturesafe.search.expression.Expression;
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Specification of a single search within a multi search
+ */
+public class SearchRequestSpec {
+
+    private final String indexAlias;
+    private final Expression expression;
+    private AccountContext<?> accountContext = new AccountContext<>();
+    private SearchParameter searchParameter = SearchParameter.DEFAULT;
+
+    private SearchRequestSpec(String indexAlias, Expression expression) {
+        Validate.notNull(expression, "Parameter 'expression' may not be null!");
+        this.indexAlias = indexAlias;
+        this.expression = expression;
+    }
+
+    /**
+     * Creates a search request specification.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @param expression    Expression defining the search criteria
+     * @return              Search request specification
+     */
+    public static SearchRequestSpec of(String indexAlias, Expression expression) {
+        return new SearchRequestSpec(indexAlias, expression);
+    }
+
+    /**
+     * Creates a search request specification without index alias, e.g. for single index services.
+     *
+     * @param expression    Expression defining the search criteria
+     * @return              Search request specification
+     */
+    public static SearchRequestSpec of(Expression expression) {
+        return new SearchRequestSpec(null, expression);
+    }
+
+    /**
+     * Creates a copy of the search request specification for another index alias.
+     *
+     * @param indexAlias    Name of the alias of the index
+     * @return              Search request specification
+     */
+    public SearchRequestSpec withIndexAlias(String indexAlias) {
+        return of(indexAlias, expression).accountContext(accountContext).searchParameter(searchParameter);
+    }
+
+    /**
+     * Sets the account context.
+     *
+     * @param accountContext    Account context
+     * @return                  Search request specification
+     */
+    public SearchRequestSpec accountContext(AccountContext<?> accountContext) {
+        Validate.notNull(accountContext, "Parameter 'accountContext' may not be null!");
+        this.accountContext = accountContext;
+        return this;
+    }
+
+    /**
+     * Sets the search parameter.
+     *
+     * @param searchParameter   Search parameter
+     * @return                  Search request specification
+     */
+    public SearchRequestSpec searchParameter(SearchParameter searchParameter) {
+        Validate.notNull(searchParameter, "Parameter 'searchParameter' may not be null!");
+        this.searchParameter = searchParameter;
+        return this;
+    }
+
+    /**
+     * Gets the name of the alias of the index.
+     *
+     * @return Name of the alias of the index
+     */
+    public String getIndexAlias() {
+        return indexAlias;
+    }
+
+    /**
+     * Gets the expression defining the search criteria.
+     *
+     * @return Expression
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Gets the account context.
+     *
+     * @return Account context
+     */
+    public AccountContext<?> getAccountContext() {
+        return accountContext;
+    }
+
+    /**
+     * Gets the search parameter.
+     *
+     * @return Search parameter
+     */
+    public SearchParameter getSearchParameter() {
+        return searchParameter;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("indexAlias", indexAlias) //--
+                .append("expression", expression) //--
+                .append("accountContext", accountContext) //--
+                .append("searchParameter", searchParameter) //--
+                .toString();
+    }
+}
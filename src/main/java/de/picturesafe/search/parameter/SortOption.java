@@ -20,12 +20,16 @@ import de.picturesafe.search.expression.Expression;
 import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.io.Serializable;
+
 /**
  * Representation of a search result sort option
  */
-public class SortOption {
+public class SortOption implements Serializable {
 
     public enum Direction {ASC, DESC}
     public enum ArrayMode {MIN, MAX, SUM, AVG, MEDIAN, DEFAULT}
@@ -125,6 +129,31 @@ public class SortOption {
         return this;
     }
 
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(fieldName)
+                .append(sortDirection)
+                .append(filter)
+                .append(arrayMode)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        } else {
+            final SortOption that = (SortOption) o;
+            return new EqualsBuilder()
+                    .append(fieldName, that.fieldName)
+                    .append(sortDirection, that.sortDirection)
+                    .append(filter, that.filter)
+                    .append(arrayMode, that.arrayMode)
+                    .isEquals();
+        }
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, new CustomJsonToStringStyle())
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.parameter.aggregation;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Definition of a terms aggregation returning its buckets page by page, ordered by their keys.
+ *
+ * The aggregation is executed as composite aggregation, so all buckets of high cardinality fields can be fetched with bounded memory
+ * on the shards. The after key of a result facet has to be set as after key of the aggregation to get the next page of buckets.
+ */
+public class CompositeTermsAggregation extends AbstractAggregation<CompositeTermsAggregation> {
+
+    private int size;
+    private Object afterKey;
+    private AggregationOrder order = AggregationOrder.KEY_ASC;
+
+    /**
+     * Creates a composite terms aggregation for the given field.
+     *
+     * @param field Name of the field
+     * @return      Aggregation
+     */
+    public static CompositeTermsAggregation field(String field) {
+        final CompositeTermsAggregation aggregation = new CompositeTermsAggregation();
+        aggregation.field = field;
+        return aggregation;
+    }
+
+    /**
+     * Sets the number of buckets per page.
+     *
+     * @param size  Number of buckets per page (0 = default size)
+     * @return      The aggregation
+     */
+    public CompositeTermsAggregation size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Gets the number of buckets per page.
+     *
+     * @return Number of buckets per page (0 = default size)
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the key after which the buckets of the page should start.
+     *
+     * @param afterKey  After key of the facet of the previous page (<code>null</code> = first page)
+     * @return          The aggregation
+     */
+    public CompositeTermsAggregation afterKey(Object afterKey) {
+        this.afterKey = afterKey;
+        return this;
+    }
+
+    /**
+     * Gets the key after which the buckets of the page should start.
+     *
+     * @return After key (<code>null</code> = first page)
+     */
+    public Object getAfterKey() {
+        return afterKey;
+    }
+
+    /**
+     * Sets the order of the returned buckets.
+     *
+     * @param order {@link AggregationOrder}, only {@link AggregationOrder#KEY_ASC} and {@link AggregationOrder#KEY_DESC} are supported
+     * @return      The aggregation
+     */
+    public CompositeTermsAggregation order(AggregationOrder order) {
+        Validate.isTrue(order != AggregationOrder.COUNT, "Composite terms aggregations can only be ordered by key!");
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Gets the order of the returned buckets.
+     *
+     * @return AggregationOrder
+     */
+    public AggregationOrder getOrder() {
+        return order;
+    }
+
+    @Override
+    public CompositeTermsAggregation self() {
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final CompositeTermsAggregation that = (CompositeTermsAggregation) o;
+        return new EqualsBuilder()
+                .appendSuper(super.equals(o))
+                .append(size, that.size)
+                .append(afterKey, that.afterKey)
+                .append(order, that.order)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .appendSuper(super.hashCode())
+                .append(size)
+                .append(afterKey)
+                .append(order)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .appendSuper(super.toString()) //--
+                .append("size", size) //--
+                .append("afterKey", afterKey) //--
+                .append("order", order) //--
+                .toString();
+    }
+}
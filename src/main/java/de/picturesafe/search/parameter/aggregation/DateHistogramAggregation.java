@@ -36,6 +36,7 @@ public class DateHistogramAggregation extends AbstractAggregation<DateHistogramA
     private String format;
     private AggregationOrder order = AggregationOrder.COUNT;
     private int minDocCount = DEFAULT_MIN_DOC_COUNT;
+    private SamplerOption samplerOption;
 
     /**
      * Creates a date histogram aggregation for the given field.
@@ -140,6 +141,27 @@ public class DateHistogramAggregation extends AbstractAggregation<DateHistogramA
         return minDocCount;
     }
 
+    /**
+     * Sets the sampler option. If set, the aggregation will only be computed on a sample of the top scoring documents and the resulting counts
+     * will be approximate.
+     *
+     * @param samplerOption {@link SamplerOption}
+     * @return              The aggregation
+     */
+    public DateHistogramAggregation sampler(SamplerOption samplerOption) {
+        this.samplerOption = samplerOption;
+        return this;
+    }
+
+    /**
+     * Gets the sampler option.
+     *
+     * @return SamplerOption or <code>null</code> if the aggregation is not sampled
+     */
+    public SamplerOption getSamplerOption() {
+        return samplerOption;
+    }
+
     @Override
     protected DateHistogramAggregation self() {
         return this;
@@ -163,6 +185,7 @@ public class DateHistogramAggregation extends AbstractAggregation<DateHistogramA
                 .append(intervalType, that.intervalType)
                 .append(format, that.format)
                 .append(order, that.order)
+                .append(samplerOption, that.samplerOption)
                 .isEquals();
     }
 
@@ -175,6 +198,7 @@ public class DateHistogramAggregation extends AbstractAggregation<DateHistogramA
                 .append("format", format) //--
                 .append("order", order) //--
                 .append("minDocCount", minDocCount) //--
+                .append("samplerOption", samplerOption) //--
                 .toString();
     }
 
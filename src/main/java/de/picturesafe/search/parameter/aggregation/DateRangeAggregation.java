@@ -20,6 +20,7 @@ import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
 
@@ -147,7 +148,7 @@ public class DateRangeAggregation extends AbstractAggregation<DateRangeAggregati
     /**
      * Definition of a date range
      */
-    public static class Range {
+    public static class Range implements Serializable {
 
         private String from;
         private String to;
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.parameter.aggregation;
+
+import de.picturesafe.search.util.logging.CustomJsonToStringStyle;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.Serializable;
+
+/**
+ * Sampler option of an aggregation
+ *
+ * The aggregation will only be computed on the top scoring documents of each shard, the resulting counts are extrapolated to the whole search result and
+ * marked as approximate. This keeps facets on very large search results cheap at the cost of accuracy.
+ */
+public class SamplerOption implements Serializable {
+
+    public static final int DEFAULT_MAX_DOCS_PER_VALUE = 1;
+
+    private final int shardSize;
+    private String diversifyField;
+    private int maxDocsPerValue = DEFAULT_MAX_DOCS_PER_VALUE;
+
+    private SamplerOption(int shardSize) {
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Creates a sampler option for the given shard size.
+     *
+     * @param shardSize Maximum count of documents sampled per shard
+     * @return          Sampler option
+     */
+    public static SamplerOption shardSize(int shardSize) {
+        Validate.isTrue(shardSize > 0, "Parameter 'shardSize' must be greater than 0!");
+        return new SamplerOption(shardSize);
+    }
+
+    /**
+     * Gets the maximum count of documents sampled per shard.
+     *
+     * @return Shard size
+     */
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    /**
+     * Diversifies the sample by limiting the count of sampled documents sharing the same value of the given field.
+     *
+     * @param diversifyField    Name of the field to diversify the sample on
+     * @param maxDocsPerValue   Maximum count of sampled documents per field value
+     * @return                  Sampler option
+     */
+    public SamplerOption diversify(String diversifyField, int maxDocsPerValue) {
+        Validate.notEmpty(diversifyField, "Parameter 'diversifyField' may not be null or empty!");
+        Validate.isTrue(maxDocsPerValue > 0, "Parameter 'maxDocsPerValue' must be greater than 0!");
+        this.diversifyField = diversifyField;
+        this.maxDocsPerValue = maxDocsPerValue;
+        return this;
+    }
+
+    /**
+     * Gets the name of the field to diversify the sample on.
+     *
+     * @return Name of the field or <code>null</code> if the sample is not diversified
+     */
+    public String getDiversifyField() {
+        return diversifyField;
+    }
+
+    /**
+     * Gets the maximum count of sampled documents per value of the diversify field.
+     *
+     * @return Maximum count of sampled documents per field value
+     */
+    public int getMaxDocsPerValue() {
+        return maxDocsPerValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(shardSize)
+                .append(diversifyField)
+                .append(maxDocsPerValue)
+                .toHashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SamplerOption)) {
+            return false;
+        } else {
+            final SamplerOption that = (SamplerOption) o;
+            return new EqualsBuilder()
+                    .append(shardSize, that.shardSize)
+                    .append(diversifyField, that.diversifyField)
+                    .append(maxDocsPerValue, that.maxDocsPerValue)
+                    .isEquals();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, new CustomJsonToStringStyle()) //--
+                .append("shardSize", shardSize) //--
+                .append("diversifyField", diversifyField) //--
+                .append("maxDocsPerValue", maxDocsPerValue) //--
+                .toString();
+    }
+}
@@ -30,6 +30,7 @@ public class TermsAggregation extends AbstractAggregation<TermsAggregation> {
     private int maxCount;
     private AggregationOrder order = AggregationOrder.COUNT;
     private int minDocCount = DEFAULT_MIN_DOC_COUNT;
+    private SamplerOption samplerOption;
 
     /**
      * Creates a terms aggregation for the given field.
@@ -103,6 +104,27 @@ public class TermsAggregation extends AbstractAggregation<TermsAggregation> {
         return minDocCount;
     }
 
+    /**
+     * Sets the sampler option. If set, the aggregation will only be computed on a sample of the top scoring documents and the resulting counts
+     * will be approximate.
+     *
+     * @param samplerOption {@link SamplerOption}
+     * @return              The aggregation
+     */
+    public TermsAggregation sampler(SamplerOption samplerOption) {
+        this.samplerOption = samplerOption;
+        return this;
+    }
+
+    /**
+     * Gets the sampler option.
+     *
+     * @return SamplerOption or <code>null</code> if the aggregation is not sampled
+     */
+    public SamplerOption getSamplerOption() {
+        return samplerOption;
+    }
+
     @Override
     public TermsAggregation self() {
         return this;
@@ -124,6 +146,7 @@ public class TermsAggregation extends AbstractAggregation<TermsAggregation> {
                 .append(maxCount, that.maxCount)
                 .append(minDocCount, that.minDocCount)
                 .append(order, that.order)
+                .append(samplerOption, that.samplerOption)
                 .isEquals();
     }
 
@@ -134,6 +157,7 @@ public class TermsAggregation extends AbstractAggregation<TermsAggregation> {
                 .append("maxCount", maxCount) //--
                 .append("order", order) //--
                 .append("minDocCount", minDocCount) //--
+                .append("samplerOption", samplerOption) //--
                 .toString();
     }
 
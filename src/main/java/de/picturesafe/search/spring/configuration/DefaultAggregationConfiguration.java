@@ -16,11 +16,14 @@
 
 package de.picturesafe.search.spring.configuration;
 
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.CompositeFacetConverter;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.FacetConverterChain;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.HistogramFacetConverter;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.RangeFacetConverter;
+import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.SamplerFacetConverter;
 import de.picturesafe.search.elasticsearch.connect.aggregation.resolve.TermsFacetConverter;
 import de.picturesafe.search.elasticsearch.connect.aggregation.search.AggregationBuilderFactoryRegistry;
+import de.picturesafe.search.elasticsearch.connect.aggregation.search.CompositeTermsAggregationBuilderFactory;
 import de.picturesafe.search.elasticsearch.connect.aggregation.search.DateHistogramAggregationBuilderFactory;
 import de.picturesafe.search.elasticsearch.connect.aggregation.search.DateRangeAggregationBuilderFactory;
 import de.picturesafe.search.elasticsearch.connect.aggregation.search.DefaultAggregationBuilderFactory;
@@ -66,12 +69,22 @@ public class DefaultAggregationConfiguration {
     @Value("${elasticsearch.service.aggregation.shard_size_factor:" + TermsAggregationBuilderFactory.DEFAULT_SHARD_SIZE_FACTOR + "}")
     private int shardSizeFactor;
 
+    /**
+     * The max size limit for pages of composite aggregation buckets
+     *
+     * Composite terms aggregation: This is the upper limit of the number of buckets returned per page, it bounds the memory needed on the
+     * shards for a single request.
+     */
+    @Value("${elasticsearch.service.aggregation.composite_max_size_limit:" + CompositeTermsAggregationBuilderFactory.DEFAULT_MAX_SIZE_LIMIT + "}")
+    private int compositeMaxSizeLimit;
+
     @Bean
     public AggregationBuilderFactoryRegistry aggregationBuilderFactoryRegistry() {
         final AggregationBuilderFactoryRegistry registry = new AggregationBuilderFactoryRegistry(
                 new TermsAggregationBuilderFactory(defaultMaxCount, maxCountLimit, shardSizeFactor),
                 new DateRangeAggregationBuilderFactory(),
-                new DateHistogramAggregationBuilderFactory()
+                new DateHistogramAggregationBuilderFactory(),
+                new CompositeTermsAggregationBuilderFactory(CompositeTermsAggregationBuilderFactory.DEFAULT_SIZE, compositeMaxSizeLimit)
         );
         registry.put(new DefaultAggregationBuilderFactory(registry));
         return registry;
@@ -79,10 +92,13 @@ public class DefaultAggregationConfiguration {
 
     @Bean
     public FacetConverterChain facetConverterChain() {
-        return FacetConverterChain.of(
+        final FacetConverterChain chain = FacetConverterChain.of(
                 new TermsFacetConverter(),
                 new RangeFacetConverter(),
-                new HistogramFacetConverter()
+                new HistogramFacetConverter(),
+                new CompositeFacetConverter()
         );
+        chain.add(new SamplerFacetConverter(chain));
+        return chain;
     }
 }
@@ -21,9 +21,12 @@ import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
 import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
 import de.picturesafe.search.elasticsearch.config.impl.StandardFieldConfiguration;
 import de.picturesafe.search.elasticsearch.config.impl.StandardIndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.connect.error.IndexMissingException;
 import de.picturesafe.search.elasticsearch.impl.ElasticsearchServiceImpl;
 import de.picturesafe.search.elasticsearch.model.DocumentBuilder;
 import de.picturesafe.search.elasticsearch.model.IndexObject;
+import de.picturesafe.search.elasticsearch.model.MultiSearchResult;
+import de.picturesafe.search.elasticsearch.model.ReindexProgress;
 import de.picturesafe.search.elasticsearch.model.ResultFacet;
 import de.picturesafe.search.elasticsearch.model.ResultFacetItem;
 import de.picturesafe.search.elasticsearch.model.SearchResult;
@@ -37,13 +40,19 @@ import de.picturesafe.search.expression.RangeValueExpression;
 import de.picturesafe.search.expression.ValueExpression;
 import de.picturesafe.search.parameter.CollapseOption;
 import de.picturesafe.search.parameter.InnerHitsOption;
+import de.picturesafe.search.parameter.ReindexParameter;
+import de.picturesafe.search.parameter.ScriptDefinition;
 import de.picturesafe.search.parameter.SearchParameter;
+import de.picturesafe.search.parameter.SearchRequestSpec;
 import de.picturesafe.search.parameter.SortOption;
 import de.picturesafe.search.parameter.aggregation.DateHistogramAggregation;
 import de.picturesafe.search.parameter.aggregation.DefaultAggregation;
 import de.picturesafe.search.spring.configuration.TestConfiguration;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.time.DateUtils;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.client.RequestOptions;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -55,17 +64,28 @@ import org.springframework.test.context.support.AnnotationConfigContextLoader;
 
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticDocumentUtils.getDate;
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticDocumentUtils.getId;
 import static de.picturesafe.search.elasticsearch.connect.util.ElasticDocumentUtils.getString;
 import static de.picturesafe.search.parameter.aggregation.DateHistogramAggregation.IntervalType.CALENDAR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = {TestConfiguration.class, ElasticsearchServiceIT.Config.class, ElasticsearchServiceImpl.class},
@@ -410,6 +430,252 @@ public class ElasticsearchServiceIT extends AbstractElasticsearchServiceIT {
         assertEquals(2, innerHit.getAttribute("count"));
     }
 
+    @Test
+    public void testSearchAsync() throws Exception {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        final Map<String, Object> doc1 = createDocument(4711, "Der Hund beißt sich in den Schwanz in Hamburg");
+        final Map<String, Object> doc2 = createDocument(4712, "Die Katze jagt Vögel in Hamburg");
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING, Arrays.asList(doc1, doc2));
+
+        final CompletableFuture<SearchResult> hundFuture = elasticsearchService.searchAsync(indexAlias, new ValueExpression("title", "Hund"),
+                SearchParameter.DEFAULT);
+        final CompletableFuture<SearchResult> hamburgFuture = elasticsearchService.searchAsync(indexAlias, new FulltextExpression("Hamburg"),
+                SearchParameter.builder().sortOptions(SortOption.asc("id")).build());
+
+        SearchResult result = hundFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(1, result.getTotalHitCount());
+        assertEquals(4711, result.getSearchResultItems().get(0).getId(Long.class).longValue());
+        assertDocsAreEqual(doc1, result.getSearchResultItems().get(0).getAttributes());
+
+        result = hamburgFuture.get(10, TimeUnit.SECONDS);
+        assertEquals(2, result.getTotalHitCount());
+        assertEquals(4711, result.getSearchResultItems().get(0).getId(Long.class).longValue());
+        assertEquals(4712, result.getSearchResultItems().get(1).getId(Long.class).longValue());
+    }
+
+    @Test
+    public void testSearchMissingIndex() throws Exception {
+        try {
+            elasticsearchService.search(indexAlias, new ValueExpression("title", "Hund"), SearchParameter.DEFAULT);
+            fail("Search on missing index should fail");
+        } catch (IndexMissingException e) {
+            assertEquals("missing index " + indexAlias, e.getMessage());
+        }
+
+        final CompletableFuture<SearchResult> future
+                = elasticsearchService.searchAsync(indexAlias, new ValueExpression("title", "Hund"), SearchParameter.DEFAULT);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Async search on missing index should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IndexMissingException);
+            assertEquals("missing index " + indexAlias, e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testAddStream() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING,
+                IntStream.range(0, 2500).mapToObj(i -> createDocument(i, "Stream document " + i)));
+        SearchResult result = elasticsearchService.search(indexAlias, new ValueExpression("title", "Stream"), SearchParameter.DEFAULT);
+        assertEquals(2500, result.getTotalHitCount());
+
+        elasticsearchService.addObjectsToIndex(indexAlias, DataChangeProcessingMode.BLOCKING,
+                IntStream.range(0, 3).mapToObj(i -> new TestObject(5000 + i, "TestObject " + i, parseDate("18.03.2020"))));
+        assertEquals(new TestObject(5001, "TestObject 1", parseDate("18.03.2020")), elasticsearchService.getObject(indexAlias, 5001, TestObject.class));
+    }
+
+    @Test
+    public void testStream() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING,
+                IntStream.range(0, 250).mapToObj(i -> createDocument(i, "Stream document " + i)));
+
+        final SearchParameter searchParameter = SearchParameter.builder().pageSize(100).build();
+        List<SearchResultItem> items
+                = elasticsearchService.stream(indexAlias, new ValueExpression("title", "Stream"), searchParameter).collect(Collectors.toList());
+        assertEquals(250, items.size());
+        assertEquals(250, items.stream().map(SearchResultItem::getId).distinct().count());
+
+        items = elasticsearchService.stream(indexAlias, new ValueExpression("title", "Stream"),
+                SearchParameter.builder().pageSize(100).maxResults(150).sortOptions(SortOption.desc("id")).build()).collect(Collectors.toList());
+        assertEquals(150, items.size());
+        assertEquals(150, items.stream().map(SearchResultItem::getId).distinct().count());
+    }
+
+    @Test
+    public void testMultiSearch() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        final Map<String, Object> doc1 = createDocument(4711, "Der Hund beißt sich in den Schwanz in Hamburg");
+        final Map<String, Object> doc2 = createDocument(4712, "Die Katze jagt Vögel in Hamburg");
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING, Arrays.asList(doc1, doc2));
+
+        final List<MultiSearchResult> results = elasticsearchService.multiSearch(Arrays.asList(
+                SearchRequestSpec.of(indexAlias, new ValueExpression("title", "Hund")),
+                SearchRequestSpec.of(indexAlias, new FulltextExpression("Hamburg"))
+                        .searchParameter(SearchParameter.builder().sortOptions(SortOption.asc("id")).build()),
+                SearchRequestSpec.of(indexAlias, new ValueExpression("title", "Maus"))));
+        assertEquals(3, results.size());
+
+        SearchResult result = results.get(0).getSearchResultOrThrow();
+        assertEquals(1, result.getTotalHitCount());
+        assertEquals(4711, result.getSearchResultItems().get(0).getId(Long.class).longValue());
+        assertDocsAreEqual(doc1, result.getSearchResultItems().get(0).getAttributes());
+
+        result = results.get(1).getSearchResultOrThrow();
+        assertEquals(2, result.getTotalHitCount());
+        assertEquals(4711, result.getSearchResultItems().get(0).getId(Long.class).longValue());
+        assertEquals(4712, result.getSearchResultItems().get(1).getId(Long.class).longValue());
+
+        result = results.get(2).getSearchResultOrThrow();
+        assertEquals(0, result.getTotalHitCount());
+    }
+
+    @Test
+    public void testDocValuesFieldResolution() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        final Date createDate = parseDate("10.05.2019");
+        final Map<String, Object> doc = createDocument(4711, "Der Hund beißt sich in den Schwanz", createDate, "Hamburg");
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING, doc);
+
+        for (final SearchParameter.FieldResolution fieldResolution
+                : Arrays.asList(SearchParameter.FieldResolution.DOC_VALUES, SearchParameter.FieldResolution.AUTO)) {
+            final SearchParameter searchParameter
+                    = SearchParameter.builder().fieldsToResolve("createDate", "location").fieldResolution(fieldResolution).build();
+            final SearchResult result = elasticsearchService.search(indexAlias, new ValueExpression("title", "Hund"), searchParameter);
+            assertEquals(1, result.getTotalHitCount());
+            final SearchResultItem item = result.getSearchResultItems().get(0);
+            assertEquals(4711, item.getId(Long.class).longValue());
+            assertEquals(2, item.getAttributes().size());
+            assertEquals(createDate, getDate(item.getAttributes(), "createDate"));
+            assertEquals("Hamburg", getString(item.getAttributes(), "location"));
+        }
+    }
+
+    @Test
+    public void testReindex() throws Exception {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING,
+                IntStream.rangeClosed(1, 50).mapToObj(this::createDocument).collect(Collectors.toList()));
+
+        ReindexJob reindexJob = elasticsearchService.reindex(indexAlias, ReindexParameter.builder().slices(2).batchSize(10).build());
+        ReindexProgress progress = reindexJob.getCompletion().get(60, TimeUnit.SECONDS);
+        assertEquals(ReindexProgress.Phase.COMPLETED, progress.getPhase());
+        assertEquals(50, progress.getTotalDocuments());
+        assertEquals(50, progress.getProcessedDocuments());
+        assertEquals(Collections.singletonList(progress.getNewIndexName()), elasticsearchService.resolveIndexNames(indexAlias));
+        assertEquals(50, elasticsearchService.search(indexAlias, new FindAllExpression(), SearchParameter.DEFAULT).getTotalHitCount());
+        elasticsearchService.deleteIndex(indexName);
+        indexName = progress.getNewIndexName();
+
+        reindexJob = elasticsearchService.reindex(indexAlias, ReindexParameter.builder()
+                .documents(IntStream.rangeClosed(1, 20).mapToObj(this::createDocument)).deleteOldIndex(true).build());
+        progress = reindexJob.getCompletion().get(60, TimeUnit.SECONDS);
+        assertEquals(ReindexProgress.Phase.COMPLETED, progress.getPhase());
+        assertEquals(20, progress.getProcessedDocuments());
+        assertEquals(Collections.singletonList(progress.getNewIndexName()), elasticsearchService.resolveIndexNames(indexAlias));
+        assertFalse(elasticsearchService.aliasExists(indexName));
+        assertEquals(20, elasticsearchService.search(indexAlias, new FindAllExpression(), SearchParameter.DEFAULT).getTotalHitCount());
+        indexName = progress.getNewIndexName();
+    }
+
+    @Test
+    public void testBulkSession() throws Exception {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        final List<String> settingNames = Arrays.asList("index.refresh_interval", "index.number_of_replicas", "index.translog.durability");
+        final Map<String, String> originalSettings = getIndexSettings(settingNames);
+
+        try (BulkSession bulkSession = elasticsearchService.openBulkSession(indexAlias)) {
+            assertEquals(indexAlias, bulkSession.getIndexAlias());
+            final Map<String, String> bulkSettings = getIndexSettings(settingNames);
+            assertEquals("-1", bulkSettings.get("index.refresh_interval"));
+            assertEquals("0", bulkSettings.get("index.number_of_replicas"));
+            assertEquals("async", bulkSettings.get("index.translog.durability"));
+
+            elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BACKGROUND,
+                    IntStream.rangeClosed(1, 20).mapToObj(this::createDocument).collect(Collectors.toList()));
+        }
+
+        assertEquals(originalSettings, getIndexSettings(settingNames));
+        assertEquals(20, elasticsearchService.search(indexAlias, new FindAllExpression(), SearchParameter.DEFAULT).getTotalHitCount());
+        elasticsearchService.openBulkSession(indexAlias).close();
+    }
+
+    private Map<String, String> getIndexSettings(List<String> settingNames) throws Exception {
+        final GetSettingsResponse response = restClient.indices().getSettings(new GetSettingsRequest().indices(indexName), RequestOptions.DEFAULT);
+        final Map<String, String> settings = new HashMap<>();
+        settingNames.forEach(name -> settings.put(name, response.getSetting(indexName, name)));
+        return settings;
+    }
+
+    @Test
+    public void testUpdateDocuments() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING,
+                IntStream.rangeClosed(1, 3).mapToObj(this::createDocument).collect(Collectors.toList()));
+
+        elasticsearchService.updateDocument(indexAlias, DataChangeProcessingMode.BLOCKING, 1, Collections.singletonMap("location", "Berlin"));
+        Map<String, Object> doc = elasticsearchService.getDocument(indexAlias, 1);
+        assertEquals("Berlin", doc.get("location"));
+        assertEquals("Document title #1", doc.get("title"));
+
+        final Map<Object, Map<String, Object>> partialDocuments = new HashMap<>();
+        partialDocuments.put(2, Collections.singletonMap("location", "Bremen"));
+        partialDocuments.put(3, Collections.singletonMap("location", null));
+        elasticsearchService.updateDocuments(indexAlias, DataChangeProcessingMode.BLOCKING, partialDocuments);
+        assertEquals("Bremen", elasticsearchService.getDocument(indexAlias, 2).get("location"));
+        doc = elasticsearchService.getDocument(indexAlias, 3);
+        assertNull(doc.get("location"));
+        assertEquals("Document title #3", doc.get("title"));
+
+        final ScriptDefinition scriptDefinition = ScriptDefinition.inline("ctx._source.location = params.location").param("location", "München");
+        elasticsearchService.updateByQuery(indexAlias, DataChangeProcessingMode.BLOCKING, new ValueExpression("location", "Bremen"), Locale.ROOT,
+                scriptDefinition);
+        assertEquals("München", elasticsearchService.getDocument(indexAlias, 2).get("location"));
+        assertEquals("Berlin", elasticsearchService.getDocument(indexAlias, 1).get("location"));
+    }
+
+    @Test
+    public void testGetDocuments() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING,
+                IntStream.rangeClosed(1, 3).mapToObj(this::createDocument).collect(Collectors.toList()));
+
+        List<Map<String, Object>> docs = elasticsearchService.getDocuments(indexAlias, Arrays.asList(3, 4, 1), null);
+        assertEquals(2, docs.size());
+        assertEquals("Document title #3", docs.get(0).get("title"));
+        assertEquals("Document title #1", docs.get(1).get("title"));
+
+        docs = elasticsearchService.getDocuments(indexAlias, Collections.singletonList(2), Collections.singletonList("title"));
+        assertEquals(1, docs.size());
+        assertEquals(Collections.singletonMap("title", "Document title #2"), docs.get(0));
+    }
+
+    @Test
+    public void testCountAndFacets() {
+        indexName = elasticsearchService.createIndexWithAlias(indexAlias);
+        elasticsearchService.addToIndex(indexAlias, DataChangeProcessingMode.BLOCKING, Arrays.asList(
+                createDocument(4711, "Der Hund beißt sich in den Schwanz in Hamburg", parseDate("10.05.2019"), "Hamburg"),
+                createDocument(4712, "Die Katze jagt Vögel in Hamburg", parseDate("01.05.2019"), "Hamburg"),
+                createDocument(4713, "Die Entwickler feiert Geburtstag in Buchholz", parseDate("28.07.2018"), "Buchholz")));
+
+        assertEquals(3, elasticsearchService.count(indexAlias, new FindAllExpression()));
+        assertEquals(2, elasticsearchService.count(indexAlias, new ValueExpression("location", "Hamburg")));
+
+        final List<ResultFacet> facets = elasticsearchService.facets(indexAlias, new FindAllExpression(),
+                Collections.singletonList(DefaultAggregation.field("location")));
+        assertEquals(1, facets.size());
+        final ResultFacet locationFacet = facets.get(0);
+        assertEquals("location", locationFacet.getFieldName());
+        assertEquals(3, locationFacet.getCount());
+        assertEquals("Hamburg", locationFacet.getFacetItems().get(0).getValue());
+        assertEquals(2, locationFacet.getFacetItems().get(0).getCount());
+        assertEquals("Buchholz", locationFacet.getFacetItems().get(1).getValue());
+        assertEquals(1, locationFacet.getFacetItems().get(1).getCount());
+    }
+
     private Date parseDate(String date) {
         try {
             return new SimpleDateFormat("dd.MM.yyyy").parse(date);
@@ -28,7 +28,9 @@ import de.picturesafe.search.expression.Expression;
 import de.picturesafe.search.expression.FulltextExpression;
 import de.picturesafe.search.expression.OperationExpression;
 import de.picturesafe.search.expression.ValueExpression;
+import de.picturesafe.search.parameter.aggregation.CompositeTermsAggregation;
 import de.picturesafe.search.parameter.aggregation.DefaultAggregation;
+import de.picturesafe.search.parameter.aggregation.SamplerOption;
 import de.picturesafe.search.parameter.aggregation.TermsAggregation;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.commons.lang3.time.DateUtils;
@@ -40,6 +42,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
@@ -141,6 +144,46 @@ public class AggregationIT extends AbstractElasticIntegrationTest {
         assertNotNull("Resolved facet value not found: indexAlias = " + indexAlias, facetEntryDto);
     }
 
+    @Test
+    public void testCompositeTermsAggregationPaging() {
+        final Expression expression = new FulltextExpression("wert");
+        CompositeTermsAggregation aggregation = CompositeTermsAggregation.field("facetResolved").size(2);
+        final List<String> values = new ArrayList<>();
+        int pages = 0;
+        FacetDto facetDto;
+        do {
+            final QueryDto queryDto = new QueryDto(expression, defaultRange(), null, Collections.singletonList(aggregation), Locale.GERMAN);
+            final SearchResultDto result = elasticsearch.search(queryDto, mappingConfiguration, indexPresetConfiguration);
+            assertEquals(1, result.getFacetDtoList().size());
+            facetDto = result.getFacetDtoList().get(0);
+            assertEquals("facetResolved", facetDto.getFieldName());
+            assertTrue(facetDto.getFacetEntryDtos().size() <= 2);
+            facetDto.getFacetEntryDtos().forEach(entry -> values.add(entry.getValue().toString()));
+            aggregation = CompositeTermsAggregation.field("facetResolved").size(2).afterKey(facetDto.getAfterKey());
+            pages++;
+        } while (facetDto.getAfterKey() != null && pages < 10);
+
+        assertEquals(4, pages);
+        assertEquals(Arrays.asList("true", "false", "false", "false", "false"), values);
+    }
+
+    @Test
+    public void testSampledTermsAggregation() {
+        final Expression expression = new FulltextExpression("wert");
+        final List<TermsAggregation> aggregations = Collections.singletonList(TermsAggregation.field("caption").sampler(SamplerOption.shardSize(2)));
+        final QueryDto queryDto = new QueryDto(expression, defaultRange(), null, aggregations, Locale.GERMAN);
+        final SearchResultDto result = elasticsearch.search(queryDto, mappingConfiguration, indexPresetConfiguration);
+        assertEquals(5, result.getTotalHitCount());
+        assertEquals(1, result.getFacetDtoList().size());
+
+        final FacetDto facetDto = result.getFacetDtoList().get(0);
+        assertEquals("caption", facetDto.getName());
+        assertEquals("caption", facetDto.getFieldName());
+        assertTrue("Facet of sample should be approximate: indexAlias = " + indexAlias, facetDto.isApproximate());
+        assertTrue(facetDto.getFacetEntryDtos().size() <= 2);
+        facetDto.getFacetEntryDtos().forEach(entry -> assertTrue(entry.getCount() > 1 && entry.getCount() <= 5));
+    }
+
     @Test
     public void testDateAggregation() throws Exception {
         int id = 100;
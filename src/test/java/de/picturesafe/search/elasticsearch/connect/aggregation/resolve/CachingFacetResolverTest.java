@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.aggregation.resolve;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CachingFacetResolverTest {
+
+    @Test
+    public void testBatchMissingValues() {
+        final CountingFacetResolver delegate = new CountingFacetResolver();
+        final CachingFacetResolver facetResolver = new CachingFacetResolver(delegate, 100, 60000);
+
+        Map<String, String> result = facetResolver.resolveAll(values("1", "2"), Locale.GERMAN);
+        assertEquals("name-1-de", result.get("1"));
+        assertEquals("name-2-de", result.get("2"));
+        assertEquals(1, delegate.batches.size());
+
+        result = facetResolver.resolveAll(values("1", "2", "3"), Locale.GERMAN);
+        assertEquals("name-3-de", result.get("3"));
+        assertEquals(2, delegate.batches.size());
+        assertEquals(1, delegate.batches.get(1).size());
+
+        facetResolver.resolveAll(values("1", "2", "3"), Locale.ENGLISH);
+        assertEquals(3, delegate.batches.size());
+        assertEquals(3, delegate.batches.get(2).size());
+
+        assertEquals("name-2-en", facetResolver.resolve("2", 2, Locale.ENGLISH));
+        assertEquals(3, delegate.batches.size());
+    }
+
+    @Test
+    public void testCacheUnresolvedValues() {
+        final CountingFacetResolver delegate = new CountingFacetResolver();
+        final CachingFacetResolver facetResolver = new CachingFacetResolver(delegate, 100, 60000);
+
+        assertNull(facetResolver.resolve("unknown", null, Locale.GERMAN));
+        assertNull(facetResolver.resolve("unknown", null, Locale.GERMAN));
+        assertEquals(1, delegate.batches.size());
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        final CountingFacetResolver delegate = new CountingFacetResolver();
+        final CachingFacetResolver facetResolver = new CachingFacetResolver(delegate, 100, 100);
+
+        facetResolver.resolveAll(values("1"), Locale.GERMAN);
+        facetResolver.resolveAll(values("1"), Locale.GERMAN);
+        assertEquals(1, delegate.batches.size());
+
+        Thread.sleep(150);
+        facetResolver.resolveAll(values("1"), Locale.GERMAN);
+        assertEquals(2, delegate.batches.size());
+    }
+
+    @Test
+    public void testUnwrap() {
+        final CountingFacetResolver delegate = new CountingFacetResolver();
+        assertSame(delegate, CachingFacetResolver.unwrap(new CachingFacetResolver(delegate, 100, 60000)));
+        assertSame(delegate, CachingFacetResolver.unwrap(delegate));
+    }
+
+    private Map<String, Number> values(String... values) {
+        final Map<String, Number> result = new LinkedHashMap<>();
+        for (final String value : values) {
+            result.put(value, Integer.valueOf(value));
+        }
+        return result;
+    }
+
+    private static class CountingFacetResolver implements FacetResolver {
+
+        final List<Map<String, Number>> batches = new ArrayList<>();
+
+        @Override
+        public boolean isResponsible(String aggregationName) {
+            return true;
+        }
+
+        @Override
+        public String resolve(String value, Number numberValue, Locale locale) {
+            batches.add(new HashMap<>());
+            return resolveValue(value, locale);
+        }
+
+        @Override
+        public Map<String, String> resolveAll(Map<String, Number> values, Locale locale) {
+            batches.add(values);
+            final Map<String, String> result = new HashMap<>();
+            values.keySet().forEach(value -> result.put(value, resolveValue(value, locale)));
+            return result;
+        }
+
+        private String resolveValue(String value, Locale locale) {
+            return value.equals("unknown") ? null : "name-" + value + "-" + locale.getLanguage();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkIndexerTest {
+
+    private static final BackoffPolicy BACKOFF_POLICY = BackoffPolicy.constantBackoff(TimeValue.timeValueMillis(1), 3);
+
+    @Test
+    public void testAddBulks() {
+        final Map<String, Boolean> results = new ConcurrentHashMap<>();
+        try (BulkIndexer bulkIndexer = new BulkIndexer(request -> CompletableFuture.completedFuture(response(request, Collections.emptyList())),
+                response -> response.forEach(item -> results.put(item.getId(), !item.isFailed())), 2, BACKOFF_POLICY)) {
+            for (int i = 0; i < 10; i++) {
+                bulkIndexer.add(bulkRequest(i * 10, 10));
+            }
+        }
+        assertEquals(100, results.size());
+        assertTrue(results.values().stream().allMatch(Boolean::booleanValue));
+    }
+
+    @Test
+    public void testRetryRejectedItems() {
+        final List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, Boolean> results = new HashMap<>();
+        try (BulkIndexer bulkIndexer = new BulkIndexer(request -> {
+                    requestSizes.add(request.numberOfActions());
+                    final List<String> rejectedIds = (requestSizes.size() == 1) ? Arrays.asList("1", "3") : Collections.emptyList();
+                    return CompletableFuture.completedFuture(response(request, rejectedIds));
+                }, response -> response.forEach(item -> results.put(item.getId(), !item.isFailed())), 1, BACKOFF_POLICY)) {
+            bulkIndexer.add(bulkRequest(0, 5));
+        }
+        assertEquals(Arrays.asList(5, 2), requestSizes);
+        assertEquals(5, results.size());
+        assertTrue(results.values().stream().allMatch(Boolean::booleanValue));
+    }
+
+    @Test
+    public void testReportPermanentlyFailedItems() {
+        final List<Integer> retrySizes = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, Boolean> results = new HashMap<>();
+        try (BulkIndexer bulkIndexer = new BulkIndexer(request -> CompletableFuture.completedFuture(response(request, Collections.singletonList("2"))),
+                response -> response.forEach(item -> results.put(item.getId(), !item.isFailed())), 1, BACKOFF_POLICY)) {
+            bulkIndexer.setRetryHandler(request -> retrySizes.add(request.numberOfActions()));
+            bulkIndexer.add(bulkRequest(0, 4));
+        }
+        assertEquals(Arrays.asList(1, 1, 1), retrySizes);
+        assertEquals(4, results.size());
+        assertFalse(results.get("2"));
+        assertEquals(3, results.values().stream().filter(Boolean::booleanValue).count());
+    }
+
+    @Test
+    public void testReportFailures() {
+        final List<Integer> retrySizes = Collections.synchronizedList(new ArrayList<>());
+        final Map<Boolean, List<String>> failures = new ConcurrentHashMap<>();
+        try (BulkIndexer bulkIndexer = new BulkIndexer(request -> CompletableFuture.completedFuture(response(request, Collections.singletonList("1"),
+                Arrays.asList("2", "3"))), response -> { }, 1, BACKOFF_POLICY)) {
+            bulkIndexer.setRetryHandler(request -> retrySizes.add(request.numberOfActions()));
+            bulkIndexer.setFailureHandler((failedItems, retriesExhausted) -> failures.put(retriesExhausted,
+                    failedItems.stream().map(BulkItemResponse::getId).collect(Collectors.toList())));
+            bulkIndexer.add(bulkRequest(0, 5));
+        }
+        assertEquals(Arrays.asList(1, 1, 1), retrySizes);
+        assertEquals(Collections.singletonList("1"), failures.get(true));
+        assertEquals(Arrays.asList("2", "3"), failures.get(false));
+    }
+
+    @Test
+    public void testReportNoFailures() {
+        final List<Boolean> failures = Collections.synchronizedList(new ArrayList<>());
+        try (BulkIndexer bulkIndexer = new BulkIndexer(request -> CompletableFuture.completedFuture(response(request, Collections.emptyList())),
+                response -> { }, 1, BACKOFF_POLICY)) {
+            bulkIndexer.setFailureHandler((failedItems, retriesExhausted) -> failures.add(retriesExhausted));
+            bulkIndexer.add(bulkRequest(0, 5));
+        }
+        assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    public void testJitter() {
+        final BulkIndexer bulkIndexer = new BulkIndexer(request -> null, response -> { }, 1, BACKOFF_POLICY);
+        for (int i = 0; i < 100; i++) {
+            final long delay = bulkIndexer.jitter(TimeValue.timeValueMillis(100)).millis();
+            assertTrue("Unexpected delay: " + delay, delay >= 50 && delay <= 100);
+        }
+    }
+
+    @Test
+    public void testRetryRejectedRequest() {
+        final AtomicInteger attempts = new AtomicInteger();
+        final Map<String, Boolean> results = new HashMap<>();
+        try (BulkIndexer bulkIndexer = new BulkIndexer(request -> {
+                    final CompletableFuture<BulkResponse> future = new CompletableFuture<>();
+                    if (attempts.incrementAndGet() < 3) {
+                        future.completeExceptionally(new ElasticsearchStatusException("rejected",
+                        (attempts.get() == 1) ? RestStatus.TOO_MANY_REQUESTS : RestStatus.SERVICE_UNAVAILABLE));
+                    } else {
+                        future.complete(response(request, Collections.emptyList()));
+                    }
+                    return future;
+                }, response -> response.forEach(item -> results.put(item.getId(), !item.isFailed())), 1, BACKOFF_POLICY)) {
+            bulkIndexer.add(bulkRequest(0, 3));
+        }
+        assertEquals(3, attempts.get());
+        assertEquals(3, results.size());
+    }
+
+    @Test
+    public void testFailure() {
+        final BulkIndexer bulkIndexer = new BulkIndexer(request -> {
+            final CompletableFuture<BulkResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(new ElasticsearchStatusException("failed", RestStatus.INTERNAL_SERVER_ERROR));
+            return future;
+        }, response -> { }, 1, BACKOFF_POLICY);
+        bulkIndexer.add(bulkRequest(0, 3));
+        try {
+            bulkIndexer.close();
+            fail("Failure of bulk should have been reported");
+        } catch (ElasticsearchException e) {
+            assertTrue(e.getCause() instanceof ElasticsearchStatusException);
+        }
+    }
+
+    private BulkRequest bulkRequest(int offset, int size) {
+        final BulkRequest bulkRequest = new BulkRequest();
+        for (int i = offset; i < offset + size; i++) {
+            bulkRequest.add(new IndexRequest("test").id(String.valueOf(i)).source(Collections.singletonMap("title", "Title " + i)));
+        }
+        return bulkRequest;
+    }
+
+    private BulkResponse response(BulkRequest request, List<String> rejectedIds) {
+        return response(request, rejectedIds, Collections.emptyList());
+    }
+
+    private BulkResponse response(BulkRequest request, List<String> rejectedIds, List<String> failedIds) {
+        final List<DocWriteRequest<?>> requests = request.requests();
+        final BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            final String id = requests.get(i).id();
+            if (rejectedIds.contains(id)) {
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure("test", "_doc", id,
+                        new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS), RestStatus.TOO_MANY_REQUESTS));
+            } else if (failedIds.contains(id)) {
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure("test", "_doc", id,
+                        new ElasticsearchStatusException("mapping conflict", RestStatus.BAD_REQUEST), RestStatus.BAD_REQUEST));
+            } else {
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, new IndexResponse(new ShardId("test", "uuid", 1), "_doc", id, 0, 0, 0, true));
+            }
+        }
+        return new BulkResponse(items, 1);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterHealthMonitorTest {
+
+    @Test
+    public void testAnswerFromSnapshot() {
+        final AtomicInteger checks = new AtomicInteger();
+        final AtomicBoolean available = new AtomicBoolean(true);
+        final ClusterHealthMonitor monitor = new ClusterHealthMonitor(() -> {
+            checks.incrementAndGet();
+            return available.get();
+        });
+        monitor.setRefreshInterval(60000);
+
+        assertTrue(monitor.isAvailable());
+        available.set(false);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(monitor.isAvailable());
+        }
+        assertEquals(1, checks.get());
+
+        assertFalse(monitor.refresh());
+        assertFalse(monitor.isAvailable());
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    public void testCheckWithoutSnapshot() {
+        final AtomicInteger checks = new AtomicInteger();
+        final ClusterHealthMonitor monitor = new ClusterHealthMonitor(() -> checks.incrementAndGet() > 1);
+        monitor.setRefreshInterval(0);
+
+        assertFalse(monitor.isAvailable());
+        assertTrue(monitor.isAvailable());
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    public void testFailingCheck() {
+        final ClusterHealthMonitor monitor = new ClusterHealthMonitor(() -> {
+            throw new IllegalStateException("unreachable");
+        });
+        assertFalse(monitor.isAvailable());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContentHashFilterTest {
+
+    private static final String HASH_FIELD = "contentHash";
+
+    private final AtomicInteger multiGetCount = new AtomicInteger();
+    private final ContentHashFilter filter = new ContentHashFilter(HASH_FIELD, 100, request -> {
+        multiGetCount.incrementAndGet();
+        return new MultiGetResponse(new MultiGetItemResponse[0]);
+    });
+
+    @Test
+    public void testContentHash() {
+        final Map<String, Object> doc1 = new LinkedHashMap<>();
+        doc1.put("id", "1");
+        doc1.put("title", "Title");
+        final Map<String, Object> doc2 = new LinkedHashMap<>();
+        doc2.put("title", "Title");
+        doc2.put("id", "1");
+
+        final Map<String, Object> hashedDoc = filter.withContentHash(doc1, this::serialize);
+        assertNotNull(hashedDoc.get(HASH_FIELD));
+        assertEquals(hashedDoc.get(HASH_FIELD), filter.withContentHash(doc2, this::serialize).get(HASH_FIELD));
+        assertEquals(hashedDoc.get(HASH_FIELD), filter.withContentHash(hashedDoc, this::serialize).get(HASH_FIELD));
+
+        doc2.put("title", "Other title");
+        assertNotEquals(hashedDoc.get(HASH_FIELD), filter.withContentHash(doc2, this::serialize).get(HASH_FIELD));
+    }
+
+    @Test
+    public void testRemoveUnchanged() {
+        final Map<String, String> hashes = hashes();
+        final List<String> unchangedIds = new ArrayList<>();
+
+        BulkRequest bulkRequest = filter.removeUnchanged("test", bulkRequest("1", "2"), hashes, unchangedIds::add);
+        assertEquals(2, bulkRequest.numberOfActions());
+        assertEquals(1, multiGetCount.get());
+        assertTrue(unchangedIds.isEmpty());
+        assertEquals(2, hashes.size());
+
+        // only the hashes of successfully indexed documents are cached
+        final Consumer<BulkItemResponse> responseHandler = filter.recordOnSuccess("test", hashes, itemResponse -> { });
+        responseHandler.accept(successResponse("1"));
+        responseHandler.accept(failureResponse("2"));
+        assertTrue(hashes.isEmpty());
+
+        final Map<String, String> newHashes = hashes();
+        bulkRequest = filter.removeUnchanged("test", bulkRequest("1", "2"), newHashes, unchangedIds::add);
+        assertEquals(1, bulkRequest.numberOfActions());
+        assertEquals("2", bulkRequest.requests().get(0).id());
+        assertEquals(2, multiGetCount.get());
+        assertEquals(Collections.singletonList("1"), unchangedIds);
+        assertEquals(Collections.singleton("2"), newHashes.keySet());
+
+        filter.invalidate("test", "1");
+        bulkRequest = filter.removeUnchanged("test", bulkRequest("1", "2"), hashes(), unchangedIds::add);
+        assertEquals(2, bulkRequest.numberOfActions());
+        assertEquals(3, multiGetCount.get());
+    }
+
+    @Test
+    public void testDiscard() {
+        final Map<String, String> hashes = hashes();
+        filter.recordOnSuccess("test", hashes, itemResponse -> { }).accept(successResponse("1"));
+
+        // a bulk handled by a write request handler does not cache hashes and invalidates the cached ones
+        final Map<String, String> newHashes = hashes();
+        final BulkRequest bulkRequest = filter.removeUnchanged("test", bulkRequest("2"), newHashes, id -> { });
+        filter.discard("test", bulkRequest, newHashes);
+        filter.discard("test", bulkRequest("1"), newHashes);
+        assertTrue(newHashes.isEmpty());
+
+        final int multiGets = multiGetCount.get();
+        assertEquals(2, filter.removeUnchanged("test", bulkRequest("1", "2"), hashes(), id -> { }).numberOfActions());
+        assertEquals(multiGets + 1, multiGetCount.get());
+    }
+
+    private Map<String, String> hashes() {
+        final Map<String, String> hashes = new HashMap<>();
+        hashes.put("1", "a");
+        hashes.put("2", "b");
+        return hashes;
+    }
+
+    private BulkItemResponse successResponse(String id) {
+        return new BulkItemResponse(0, DocWriteRequest.OpType.INDEX, new IndexResponse(new ShardId("test", "test", 0), "_doc", id, 0, 0, 0, true));
+    }
+
+    private BulkItemResponse failureResponse(String id) {
+        return new BulkItemResponse(0, DocWriteRequest.OpType.INDEX,
+                new BulkItemResponse.Failure("test", "_doc", id, new ElasticsearchStatusException("failed", RestStatus.BAD_REQUEST)));
+    }
+
+    private BulkRequest bulkRequest(String... ids) {
+        final BulkRequest bulkRequest = new BulkRequest();
+        for (final String id : ids) {
+            bulkRequest.add(new IndexRequest("test").id(id).source(HASH_FIELD, id));
+        }
+        return bulkRequest;
+    }
+
+    private BytesArray serialize(Map<String, Object> doc) {
+        return new BytesArray(doc.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
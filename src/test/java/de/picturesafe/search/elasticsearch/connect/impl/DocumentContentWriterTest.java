@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentContentWriterTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        final Map<String, Object> nestedDoc = new HashMap<>();
+        nestedDoc.put("name", " nested ");
+        final Map<String, Object> doc = new HashMap<>();
+        doc.put("title", " title ");
+        doc.put("flag", "true");
+        doc.put("missing", null);
+        doc.put("nested", Collections.singletonList(nestedDoc));
+        doc.put("keywords", Arrays.asList(" a ", "b "));
+
+        final DocumentContentWriter writer = new DocumentContentWriter(() -> "UTC");
+        final Map<String, Object> content = write(writer, doc);
+        assertEquals(4, content.size());
+        assertEquals("title", content.get("title"));
+        assertEquals(true, content.get("flag"));
+        assertEquals(Collections.singletonList(Collections.singletonMap("name", "nested")), content.get("nested"));
+        assertEquals(Arrays.asList("a", "b"), content.get("keywords"));
+    }
+
+    @Test
+    public void testTimeZoneReadOnWrite() throws IOException {
+        final AtomicReference<String> timeZone = new AtomicReference<>("UTC");
+        final DocumentContentWriter writer = new DocumentContentWriter(timeZone::get);
+        final Map<String, Object> doc = Collections.singletonMap("date", new Date(0));
+
+        assertEquals("1970-01-01T00:00:00Z", write(writer, doc).get("date"));
+        timeZone.set("Europe/Berlin");
+        assertEquals("1970-01-01T01:00:00+01:00", write(writer, doc).get("date"));
+    }
+
+    @Test
+    public void testWritePartial() throws IOException {
+        final Map<String, Object> partialDocument = new HashMap<>();
+        partialDocument.put("title", "title");
+        partialDocument.put("caption", null);
+
+        final DocumentContentWriter writer = new DocumentContentWriter(() -> "UTC");
+        final Map<String, Object> content = toMap(contentBuilder -> writer.writePartial(contentBuilder, partialDocument, writer::write));
+        assertEquals(2, content.size());
+        assertEquals("title", content.get("title"));
+        assertTrue(content.containsKey("caption"));
+        assertNull(content.get("caption"));
+    }
+
+    @Test
+    public void testNestedObjectsWriter() throws IOException {
+        final Map<String, Object> doc = new HashMap<>();
+        doc.put("title", "title");
+        doc.put("nested", Collections.singletonList(Collections.singletonMap("name", "nested")));
+
+        final DocumentContentWriter writer = new DocumentContentWriter(() -> "UTC");
+        final List<String> nestedFields = new ArrayList<>();
+        final Map<String, Object> content = toMap(contentBuilder -> writer.write(contentBuilder, doc, (builder, fieldName, nestedObjectList) -> {
+            nestedFields.add(fieldName);
+            builder.field(fieldName, nestedObjectList.size());
+        }));
+        assertEquals(Collections.singletonList("nested"), nestedFields);
+        assertEquals(1, content.get("nested"));
+    }
+
+    private Map<String, Object> write(DocumentContentWriter writer, Map<String, Object> doc) throws IOException {
+        return toMap(contentBuilder -> writer.write(contentBuilder, doc));
+    }
+
+    private Map<String, Object> toMap(ContentWriter contentWriter) throws IOException {
+        try (XContentBuilder contentBuilder = XContentFactory.jsonBuilder()) {
+            contentBuilder.startObject();
+            contentWriter.write(contentBuilder);
+            contentBuilder.endObject();
+            return XContentHelper.convertToMap(BytesReference.bytes(contentBuilder), false, XContentType.JSON).v2();
+        }
+    }
+
+    private interface ContentWriter {
+
+        void write(XContentBuilder contentBuilder) throws IOException;
+    }
+}
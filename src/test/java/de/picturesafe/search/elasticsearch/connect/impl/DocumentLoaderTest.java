@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
+import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DocumentLoaderTest {
+
+    private final List<MultiGetRequest> requests = Collections.synchronizedList(new ArrayList<>());
+    private final DocumentLoader documentLoader = new DocumentLoader(request -> {
+        requests.add(request);
+        final MultiGetItemResponse[] items = request.getItems().stream()
+                .map(item -> new MultiGetItemResponse(getResponse(item.index(), item.id()), null))
+                .toArray(MultiGetItemResponse[]::new);
+        return CompletableFuture.completedFuture(new MultiGetResponse(items));
+    });
+
+    @Test
+    public void testGetDocuments() {
+        final List<Map<String, Object>> docs = documentLoader.getDocuments("test", Arrays.asList("3", "missing", "1"), Arrays.asList("id", "title"));
+        assertEquals(2, docs.size());
+        assertEquals("3", docs.get(0).get("id"));
+        assertEquals("1", docs.get(1).get("id"));
+
+        assertEquals(1, requests.size());
+        assertArrayEquals(new String[] {"id", "title"}, requests.get(0).getItems().get(0).fetchSourceContext().includes());
+    }
+
+    @Test
+    public void testGetDocument() {
+        assertEquals("Title 1", documentLoader.getDocument("test", "1").get("title"));
+        assertNull(documentLoader.getDocument("test", "missing"));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        documentLoader.setBatchWindow(60000);
+        documentLoader.setMaxBatchSize(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Map<String, Object>>> futures = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                final String id = String.valueOf(i);
+                futures.add(executor.submit(() -> documentLoader.getDocument("test", id)));
+            }
+            for (int i = 1; i <= 4; i++) {
+                assertEquals(String.valueOf(i), futures.get(i - 1).get().get("id"));
+            }
+        } finally {
+            executor.shutdownNow();
+            documentLoader.destroy();
+        }
+        assertEquals(2, requests.size());
+        assertEquals(2, requests.get(0).getItems().size());
+        assertEquals(2, requests.get(1).getItems().size());
+    }
+
+    private GetResponse getResponse(String index, String id) {
+        if (id.equals("missing")) {
+            return new GetResponse(new GetResult(index, "_doc", id, UNASSIGNED_SEQ_NO, UNASSIGNED_PRIMARY_TERM, -1, false, null, null, null));
+        }
+        final String source = "{\"id\":\"" + id + "\",\"title\":\"Title " + id + "\"}";
+        return new GetResponse(new GetResult(index, "_doc", id, 0, 1, 1, true, new BytesArray(source.getBytes(StandardCharsets.UTF_8)),
+                null, null));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.ElasticsearchType;
+import de.picturesafe.search.elasticsearch.config.FieldConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.config.RestClientConfiguration;
+import de.picturesafe.search.elasticsearch.config.impl.StandardFieldConfiguration;
+import de.picturesafe.search.elasticsearch.connect.ElasticsearchAdmin;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.expression.ValueExpression;
+import de.picturesafe.search.parameter.ScriptDefinition;
+import de.picturesafe.search.parameter.ScriptSortOption;
+import de.picturesafe.search.parameter.SortOption;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.ScoreSortBuilder;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class ElasticsearchImplTest {
+
+    private ElasticsearchImpl elasticsearch;
+    private MappingConfiguration mappingConfiguration;
+
+    @Before
+    public void setup() {
+        elasticsearch = spy(new ElasticsearchImpl(mock(ElasticsearchAdmin.class), mock(RestClientConfiguration.class), Collections.emptyList(),
+                Collections.emptyList(), "Europe/Berlin"));
+        mappingConfiguration = new MappingConfiguration(Collections.singletonList(
+                StandardFieldConfiguration.builder("title", ElasticsearchType.TEXT).sortable(true).build()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testContentHooks() throws IOException {
+        final Map<String, Object> nestedDoc = Collections.singletonMap("name", "nested");
+        final Map<String, Object> doc = new HashMap<>();
+        doc.put("id", 1);
+        doc.put("nested", Collections.singletonList(nestedDoc));
+
+        elasticsearch.documentContent(doc);
+        verify(elasticsearch).addNestedObjectsToIndexRequestContent(any(XContentBuilder.class), eq("nested"), any(List.class));
+        verify(elasticsearch).addToIndexRequestContent(any(XContentBuilder.class), eq(nestedDoc));
+    }
+
+    @Test
+    public void testFieldHooks() {
+        final List<String> fields = Collections.singletonList("title");
+        final QueryDto queryDto = new QueryDto(new ValueExpression("title", "test"), null, null, null, Locale.GERMAN, fields,
+                QueryDto.FieldResolverType.DOC_VALUES);
+
+        elasticsearch.addFieldsToSearchRequest(queryDto, mappingConfiguration, new SearchSourceBuilder());
+        verify(elasticsearch).validateFields(queryDto, mappingConfiguration);
+        verify(elasticsearch).addDocValuesToSearchRequest(eq(fields), any(SearchSourceBuilder.class), eq(mappingConfiguration));
+        verify(elasticsearch, never()).addSourceValuesToSearchRequest(anyListOf(String.class), any(SearchSourceBuilder.class));
+    }
+
+    @Test
+    public void testSortHooks() {
+        final SortOption scriptSortOption = ScriptSortOption.asc(ScriptDefinition.inline("doc['count'].value"));
+        assertTrue(elasticsearch.sortBuilder(scriptSortOption, mappingConfiguration, Locale.GERMAN) instanceof ScriptSortBuilder);
+        verify(elasticsearch).scriptSortBuilder((ScriptSortOption) scriptSortOption);
+
+        assertTrue(elasticsearch.sortBuilder(SortOption.relevance(), mappingConfiguration, Locale.GERMAN) instanceof ScoreSortBuilder);
+        verify(elasticsearch, never()).fieldSortBuilder(any(SortOption.class), any(MappingConfiguration.class), any(Locale.class));
+
+        final SortOption sortOption = SortOption.asc("title");
+        elasticsearch.sortBuilder(sortOption, mappingConfiguration, Locale.GERMAN);
+        verify(elasticsearch).fieldSortBuilder(sortOption, mappingConfiguration, Locale.GERMAN);
+        verify(elasticsearch).buildStringSort(any(FieldConfiguration.class), eq(mappingConfiguration), eq("title"), eq(SortOrder.ASC), eq(Locale.GERMAN));
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.reindex.UpdateByQueryRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.Script;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class JournalingWriteRequestHandlerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<BulkRequest> bulkRequests = Collections.synchronizedList(new ArrayList<>());
+    private final List<AbstractBulkByScrollRequest<?>> bulkByScrollRequests = Collections.synchronizedList(new ArrayList<>());
+
+    private Path directory;
+    private JournalingWriteRequestHandler handler;
+
+    @Before
+    public void setup() throws Exception {
+        directory = temporaryFolder.newFolder().toPath();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (handler != null) {
+            handler.destroy();
+        }
+    }
+
+    @Test
+    public void testReplayAllRequestTypes() throws Exception {
+        startHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+
+        assertTrue(handler.handle(indexRequest(1, "title 1").setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE)));
+        assertTrue(handler.handle(new DeleteRequest("test", "2")));
+        assertTrue(handler.handle(new UpdateRequest("test", "3").doc(Collections.singletonMap("title", "title 3"))));
+        assertTrue(handler.handle(new BulkRequest().add(indexRequest(4, "title 4")).add(new DeleteRequest("test", "5"))));
+        assertTrue(handler.handle(new DeleteByQueryRequest("test").setQuery(QueryBuilders.termQuery("title", "delete"))));
+        assertTrue(handler.handle(new UpdateByQueryRequest("test").setQuery(QueryBuilders.termQuery("title", "update"))
+                .setScript(new Script("ctx._source.title = 'updated'"))));
+        awaitReplayed();
+
+        assertEquals(1, bulkRequests.size());
+        final BulkRequest bulkRequest = bulkRequests.get(0);
+        assertEquals(WriteRequest.RefreshPolicy.IMMEDIATE, bulkRequest.getRefreshPolicy());
+        final List<DocWriteRequest<?>> requests = bulkRequest.requests();
+        assertEquals(5, requests.size());
+
+        final IndexRequest indexRequest = (IndexRequest) requests.get(0);
+        assertEquals("1", indexRequest.id());
+        assertEquals("test", indexRequest.index());
+        assertEquals("title 1", indexRequest.sourceAsMap().get("title"));
+        assertEquals(WriteRequest.RefreshPolicy.NONE, indexRequest.getRefreshPolicy());
+
+        assertEquals(DocWriteRequest.OpType.DELETE, requests.get(1).opType());
+        assertEquals("2", requests.get(1).id());
+
+        final UpdateRequest updateRequest = (UpdateRequest) requests.get(2);
+        assertEquals("3", updateRequest.id());
+        assertEquals("title 3", updateRequest.doc().sourceAsMap().get("title"));
+
+        assertEquals("title 4", ((IndexRequest) requests.get(3)).sourceAsMap().get("title"));
+        assertEquals(DocWriteRequest.OpType.DELETE, requests.get(4).opType());
+        assertEquals("5", requests.get(4).id());
+
+        assertEquals(2, bulkByScrollRequests.size());
+        final DeleteByQueryRequest deleteByQueryRequest = (DeleteByQueryRequest) bulkByScrollRequests.get(0);
+        assertArrayEquals(new String[] {"test"}, deleteByQueryRequest.indices());
+        assertEquals(QueryBuilders.termQuery("title", "delete"), deleteByQueryRequest.getSearchRequest().source().query());
+        final UpdateByQueryRequest updateByQueryRequest = (UpdateByQueryRequest) bulkByScrollRequests.get(1);
+        assertEquals(QueryBuilders.termQuery("title", "update"), updateByQueryRequest.getSearchRequest().source().query());
+        assertEquals("ctx._source.title = 'updated'", updateByQueryRequest.getScript().getIdOrCode());
+    }
+
+    @Test
+    public void testRetryFailedBulk() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        startHandler(bulkRequest -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new ElasticsearchException("Failed to execute bulk request!",
+                        new ElasticsearchStatusException("unavailable", RestStatus.SERVICE_UNAVAILABLE));
+            }
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+
+        assertTrue(handler.handle(indexRequest(1, "title")));
+        awaitReplayed();
+        assertEquals(3, attempts.get());
+        assertEquals(1, bulkRequests.size());
+        assertEquals("1", bulkRequests.get(0).requests().get(0).id());
+    }
+
+    @Test
+    public void testWriteListener() throws Exception {
+        startHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        final List<String> writtenAliases = Collections.synchronizedList(new ArrayList<>());
+        handler.addWriteListener((indexAlias, visible) -> writtenAliases.add(indexAlias + ":" + visible));
+
+        assertTrue(handler.handle(indexRequest(1, "title 1").setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE)));
+        assertTrue(handler.handle(new DeleteByQueryRequest("other").setQuery(QueryBuilders.termQuery("title", "delete"))));
+        awaitReplayed();
+        assertEquals(Arrays.asList("test:true", "other:false"), writtenAliases);
+    }
+
+    @Test
+    public void testQuarantineUndecodableEntries() throws Exception {
+        try (WriteJournal journal = new WriteJournal(directory, 1024 * 1024, false)) {
+            journal.open();
+            journal.append(new byte[] {99});
+            journal.append(new byte[] {1, 0, 0, 0, 5, 1});
+        }
+
+        startHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        assertTrue(handler.handle(indexRequest(1, "title")));
+        awaitReplayed();
+
+        assertEquals(2, handler.getQuarantinedCount());
+        final File[] quarantinedFiles = directory.resolve("quarantine").toFile().listFiles();
+        assertNotNull(quarantinedFiles);
+        assertEquals(2, quarantinedFiles.length);
+        assertEquals(1, bulkRequests.size());
+        assertEquals("1", bulkRequests.get(0).requests().get(0).id());
+    }
+
+    @Test
+    public void testQuarantinePermanentlyFailingRequests() throws Exception {
+        startHandler(bulkRequest -> {
+            if (bulkRequest.requests().stream().anyMatch(request -> request.id().equals("2"))) {
+                throw new ElasticsearchException("Failed to execute bulk request!",
+                        new ElasticsearchStatusException("bad request", RestStatus.BAD_REQUEST));
+            }
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+
+        assertTrue(handler.handle(new BulkRequest().add(indexRequest(1, "title 1")).add(indexRequest(2, "title 2"))
+                .add(indexRequest(3, "title 3")).add(indexRequest(4, "title 4"))));
+        awaitReplayed();
+
+        assertEquals(1, handler.getQuarantinedCount());
+        final List<String> replayedIds = new ArrayList<>();
+        bulkRequests.forEach(bulkRequest -> bulkRequest.requests().forEach(request -> replayedIds.add(request.id())));
+        assertEquals(Arrays.asList("1", "3", "4"), replayedIds);
+
+        final File[] quarantinedFiles = directory.resolve("quarantine").toFile().listFiles();
+        assertNotNull(quarantinedFiles);
+        assertEquals(1, quarantinedFiles.length);
+        handler.destroy();
+        handler = null;
+        bulkRequests.clear();
+        try (WriteJournal journal = new WriteJournal(directory, 1024 * 1024, false)) {
+            journal.open();
+            journal.append(Files.readAllBytes(quarantinedFiles[0].toPath()));
+        }
+
+        startHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        awaitReplayed();
+        assertEquals(1, bulkRequests.size());
+        assertEquals("title 2", ((IndexRequest) bulkRequests.get(0).requests().get(0)).sourceAsMap().get("title"));
+    }
+
+    private void startHandler(Function<BulkRequest, BulkResponse> bulkAction) {
+        handler = new JournalingWriteRequestHandler(directory, bulkAction, request -> {
+            bulkByScrollRequests.add(request);
+            return mock(BulkByScrollResponse.class);
+        });
+        handler.setSegmentSize(1024 * 1024);
+        handler.setSync(false);
+        handler.setRetryDelays(10, 50);
+        handler.init();
+    }
+
+    private void awaitReplayed() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!handler.isReplayed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Journaled requests have not been replayed", handler.isReplayed());
+    }
+
+    private IndexRequest indexRequest(int id, String title) {
+        return new IndexRequest("test").id(String.valueOf(id)).source(Collections.singletonMap("title", title));
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.config.ElasticsearchType;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.config.impl.StandardFieldConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchHitDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
+import de.picturesafe.search.expression.ValueExpression;
+import de.picturesafe.search.parameter.SortOption;
+import de.picturesafe.search.parameter.aggregation.CompositeTermsAggregation;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SearchResultCacheTest {
+
+    private static final String ALIAS = "test-alias";
+
+    private MappingConfiguration mappingConfiguration;
+    private AtomicInteger searches;
+
+    @Before
+    public void setup() {
+        mappingConfiguration = new MappingConfiguration(Collections.emptyList());
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    public void testCacheEqualQueries() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+
+        final SearchResultDto result = cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertSame(result, cache.get(ALIAS, query("test"), mappingConfiguration, this::search));
+        assertEquals(1, searches.get());
+
+        assertNotSame(result, cache.get(ALIAS, query("other"), mappingConfiguration, this::search));
+        assertNotSame(result, cache.get(ALIAS, query("test").sortOptions(SortOption.asc("title")), mappingConfiguration, this::search));
+        assertNotSame(result, cache.get("other-alias", query("test"), mappingConfiguration, this::search));
+        assertNotSame(result, cache.get(ALIAS, query("test"), new MappingConfiguration(Collections.singletonList(
+                StandardFieldConfiguration.builder("title", ElasticsearchType.TEXT).build())), this::search));
+        assertEquals(5, searches.get());
+        assertEquals(5, cache.size());
+
+        // equal mapping configuration created anew for the search
+        assertSame(result, cache.get(ALIAS, query("test"), new MappingConfiguration(Collections.emptyList()), this::search));
+        assertEquals(5, searches.get());
+    }
+
+    @Test
+    public void testInvalidateByWrite() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+
+        final SearchResultDto result = cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        cache.invalidate(new IndexRequest("other-alias").setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE));
+        assertSame(result, cache.get(ALIAS, query("test"), mappingConfiguration, this::search));
+
+        cache.invalidate(new IndexRequest(ALIAS).setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE));
+        final SearchResultDto newResult = cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertNotSame(result, newResult);
+        assertSame(newResult, cache.get(ALIAS, query("test"), mappingConfiguration, this::search));
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void testDoNotCacheBeforeRefresh() throws Exception {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 200);
+
+        cache.invalidate(ALIAS, false);
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertEquals(2, searches.get());
+
+        Thread.sleep(250);
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertEquals(3, searches.get());
+    }
+
+    @Test
+    public void testDoNotCacheResultOfConcurrentWrite() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+
+        cache.get(ALIAS, query("test"), mappingConfiguration, () -> {
+            cache.invalidate(ALIAS, true);
+            return search();
+        });
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void testExpire() throws Exception {
+        final SearchResultCache cache = new SearchResultCache(10, 100, 0);
+
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertEquals(1, searches.get());
+
+        Thread.sleep(150);
+        cache.get(ALIAS, query("test"), mappingConfiguration, this::search);
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void testQueryChangedAfterSearch() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+
+        final QueryDto queryDto = query("test");
+        final List<SortOption> sortOptions = new ArrayList<>(Collections.singletonList(SortOption.asc("title")));
+        queryDto.sortOptions(sortOptions);
+        final SearchResultDto result = cache.get(ALIAS, queryDto, mappingConfiguration, this::search);
+
+        sortOptions.set(0, SortOption.desc("title"));
+        assertNotSame(result, cache.get(ALIAS, queryDto, mappingConfiguration, this::search));
+        queryDto.fieldResolverType(QueryDto.FieldResolverType.SOURCE_VALUES);
+        assertNotSame(result, cache.get(ALIAS, queryDto, mappingConfiguration, this::search));
+        assertSame(result, cache.get(ALIAS, query("test").sortOptions(SortOption.asc("title")), mappingConfiguration, this::search));
+        assertEquals(3, searches.get());
+    }
+
+    @Test
+    public void testQueryObjectsChangedAfterSearch() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+
+        final CompositeTermsAggregation aggregation = CompositeTermsAggregation.field("keyword");
+        final ValueExpression expression = new ValueExpression("title", "test");
+        final QueryDto queryDto = new QueryDto(expression, Locale.GERMAN).aggregations(Collections.singletonList(aggregation));
+        final SearchResultDto firstPage = cache.get(ALIAS, queryDto, mappingConfiguration, this::search);
+
+        aggregation.afterKey("b");
+        final SearchResultDto secondPage = cache.get(ALIAS, queryDto, mappingConfiguration, this::search);
+        assertNotSame(firstPage, secondPage);
+        expression.setValue("other");
+        assertNotSame(secondPage, cache.get(ALIAS, queryDto, mappingConfiguration, this::search));
+        assertEquals(3, searches.get());
+
+        assertSame(firstPage, cache.get(ALIAS, query("test").aggregations(Collections.singletonList(CompositeTermsAggregation.field("keyword"))),
+                mappingConfiguration, this::search));
+        assertSame(secondPage, cache.get(ALIAS, query("test").aggregations(Collections.singletonList(
+                CompositeTermsAggregation.field("keyword").afterKey("b"))), mappingConfiguration, this::search));
+        assertEquals(3, searches.get());
+    }
+
+    @Test
+    public void testDoNotCacheSearchAfter() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+
+        final QueryDto queryDto = query("test").searchAfter(new Object[] {1});
+        final SearchResultDto result = cache.get(ALIAS, queryDto, mappingConfiguration, this::search);
+        queryDto.searchAfter(new Object[] {2});
+        assertNotSame(result, cache.get(ALIAS, queryDto, mappingConfiguration, this::search));
+        assertEquals(2, searches.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCachedResultIsReadOnly() {
+        final SearchResultCache cache = new SearchResultCache(10, 60000, 0);
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put("title", "test");
+        final Supplier<SearchResultDto> search = () -> new SearchResultDto(1, true,
+                new ArrayList<>(Collections.singletonList(new SearchHitDto("1", attributes))), new ArrayList<>());
+
+        final SearchResultDto result = cache.get(ALIAS, query("test"), mappingConfiguration, search);
+        assertSame(result, cache.get(ALIAS, query("test"), mappingConfiguration, search));
+        try {
+            result.getHits().get(0).getAttributes().put("title", "changed");
+            fail("Cached attributes should be read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            result.getHits().clear();
+            fail("Cached hits should be read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals("test", cache.get(ALIAS, query("test"), mappingConfiguration, search).getHits().get(0).get("title"));
+    }
+
+    private QueryDto query(String value) {
+        return new QueryDto(new ValueExpression("title", value), Locale.GERMAN);
+    }
+
+    private SearchResultDto search() {
+        searches.incrementAndGet();
+        return new SearchResultDto(0, true, Collections.emptyList(), Collections.emptyList());
+    }
+}
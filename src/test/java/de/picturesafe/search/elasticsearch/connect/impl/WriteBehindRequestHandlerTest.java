@@ -0,0 +1,291 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WriteBehindRequestHandlerTest {
+
+    private final List<BulkRequest> bulkRequests = Collections.synchronizedList(new ArrayList<>());
+
+    private WriteBehindRequestHandler handler;
+
+    @Before
+    public void setup() {
+        handler = new WriteBehindRequestHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        handler.setFlushInterval(0);
+        handler.setFlushSize(100);
+        handler.setCapacity(1000);
+        handler.init();
+    }
+
+    @Test
+    public void testCoalesce() {
+        assertTrue(handler.handle(indexRequest(1, "first")));
+        assertTrue(handler.handle(indexRequest(2, "first")));
+        assertTrue(handler.handle(indexRequest(1, "second")));
+        assertTrue(handler.handle(new DeleteRequest("test", "2")));
+        assertEquals(2, handler.getPendingCount());
+        assertTrue(bulkRequests.isEmpty());
+
+        handler.flush();
+        assertEquals(0, handler.getPendingCount());
+        assertEquals(1, bulkRequests.size());
+
+        final List<DocWriteRequest<?>> requests = bulkRequests.get(0).requests();
+        assertEquals(2, requests.size());
+        assertEquals(DocWriteRequest.OpType.INDEX, requests.get(0).opType());
+        assertEquals("1", requests.get(0).id());
+        assertEquals("second", ((IndexRequest) requests.get(0)).sourceAsMap().get("title"));
+        assertEquals(DocWriteRequest.OpType.DELETE, requests.get(1).opType());
+        assertEquals("2", requests.get(1).id());
+    }
+
+    @Test
+    public void testBulkRequest() {
+        final BulkRequest bulkRequest = new BulkRequest();
+        for (int i = 0; i < 250; i++) {
+            bulkRequest.add(indexRequest(i % 200, "title " + i));
+        }
+        assertTrue(handler.handle(bulkRequest));
+        assertEquals(200, handler.getPendingCount());
+
+        handler.flush();
+        assertEquals(2, bulkRequests.size());
+        assertEquals(100, bulkRequests.get(0).numberOfActions());
+        assertEquals(100, bulkRequests.get(1).numberOfActions());
+    }
+
+    @Test
+    public void testWriteListener() {
+        final List<String> writtenAliases = Collections.synchronizedList(new ArrayList<>());
+        handler.addWriteListener((indexAlias, visible) -> writtenAliases.add(indexAlias + ":" + visible));
+        assertTrue(handler.handle(indexRequest(1, "first")));
+        assertTrue(handler.handle(new IndexRequest("other").id("2").source(Collections.singletonMap("title", "first"))));
+        assertTrue(writtenAliases.isEmpty());
+
+        handler.flush();
+        assertEquals(Arrays.asList("test:false", "other:false"), writtenAliases);
+    }
+
+    @Test
+    public void testRefreshRequest() {
+        assertTrue(handler.handle(indexRequest(1, "first")));
+        assertTrue(handler.handle(indexRequest(2, "first")));
+
+        final IndexRequest refreshRequest = indexRequest(1, "second");
+        refreshRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        assertFalse(handler.handle(refreshRequest));
+        assertEquals(1, handler.getPendingCount());
+
+        assertFalse(handler.handle(new DeleteByQueryRequest("test")));
+        assertEquals(0, handler.getPendingCount());
+        assertEquals(1, bulkRequests.size());
+        assertEquals(Collections.singletonList("2"),
+                bulkRequests.get(0).requests().stream().map(DocWriteRequest::id).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testCapacity() {
+        handler.setCapacity(10);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(handler.handle(indexRequest(i, "title")));
+        }
+        assertEquals(2, bulkRequests.size());
+        assertEquals(5, handler.getPendingCount());
+        assertFalse(handler.awaitFlush(0));
+
+        handler.destroy();
+        assertTrue(handler.awaitFlush(0));
+        assertEquals(3, bulkRequests.size());
+    }
+
+    @Test
+    public void testCapacityWhileFlushFails() {
+        handler = new WriteBehindRequestHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            throw new ElasticsearchException("Cluster not available");
+        });
+        handler.setFlushInterval(0);
+        handler.setCapacity(3);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(handler.handle(indexRequest(i, "first")));
+        }
+
+        // the failing flush is not reported to the caller, the write is not handled as the queue is still full
+        assertFalse(handler.handle(indexRequest(3, "first")));
+        assertEquals(1, bulkRequests.size());
+        assertEquals(3, handler.getPendingCount());
+
+        // the direct write of a document supersedes its pending write
+        assertFalse(handler.handle(indexRequest(0, "second")));
+        assertEquals(2, handler.getPendingCount());
+        assertTrue(handler.handle(indexRequest(4, "first")));
+        assertEquals(3, handler.getPendingCount());
+    }
+
+    @Test
+    public void testRequeueLimitedByCapacity() {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        handler = new WriteBehindRequestHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            if (failing.getAndSet(false)) {
+                // writes accepted while the flush is running
+                for (int i = 10; i < 13; i++) {
+                    assertTrue(handler.handle(indexRequest(i, "first")));
+                }
+                throw new ElasticsearchException("Cluster not available");
+            }
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        handler.setFlushInterval(0);
+        handler.setCapacity(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(handler.handle(indexRequest(i, "first")));
+        }
+
+        try {
+            handler.flush();
+            fail("Flush should have failed");
+        } catch (ElasticsearchException e) {
+            // expected
+        }
+        assertEquals(4, handler.getPendingCount());
+
+        bulkRequests.clear();
+        handler.flush();
+        assertEquals(Arrays.asList("0", "10", "11", "12"),
+                bulkRequests.get(0).requests().stream().map(DocWriteRequest::id).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testRequeueOnFailedBulk() {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        handler = new WriteBehindRequestHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            if (failing.get()) {
+                throw new ElasticsearchException("Cluster not available");
+            }
+            return new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        handler.setFlushInterval(0);
+        handler.setFlushSize(2);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(handler.handle(indexRequest(i, "first")));
+        }
+
+        try {
+            handler.flush();
+            fail("Flush should have failed");
+        } catch (ElasticsearchException e) {
+            // expected
+        }
+        assertEquals(1, bulkRequests.size());
+        assertEquals(5, handler.getPendingCount());
+
+        assertTrue(handler.handle(indexRequest(1, "second")));
+        assertTrue(handler.handle(updateRequest(2, "second")));
+        assertEquals(6, handler.getPendingCount());
+
+        failing.set(false);
+        bulkRequests.clear();
+        handler.flush();
+        assertEquals(0, handler.getPendingCount());
+
+        final List<DocWriteRequest<?>> requests = bulkRequests.stream().flatMap(r -> r.requests().stream()).collect(Collectors.toList());
+        assertEquals(Arrays.asList("0", "1", "2", "2", "3", "4"), requests.stream().map(DocWriteRequest::id).collect(Collectors.toList()));
+        assertEquals("second", ((IndexRequest) requests.get(1)).sourceAsMap().get("title"));
+        assertEquals(DocWriteRequest.OpType.INDEX, requests.get(2).opType());
+        assertEquals(DocWriteRequest.OpType.UPDATE, requests.get(3).opType());
+    }
+
+    @Test
+    public void testRequeueTransientlyFailedItems() {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        handler = new WriteBehindRequestHandler(bulkRequest -> {
+            bulkRequests.add(bulkRequest);
+            return failing.get() ? failureResponse(bulkRequest) : new BulkResponse(new BulkItemResponse[0], 1);
+        });
+        handler.setFlushInterval(0);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(handler.handle(indexRequest(i, "title")));
+        }
+
+        try {
+            handler.flush();
+            fail("Flush should have failed");
+        } catch (ElasticsearchException e) {
+            // expected
+        }
+        assertEquals(2, handler.getPendingCount());
+
+        failing.set(false);
+        bulkRequests.clear();
+        handler.flush();
+        assertEquals(1, bulkRequests.size());
+        assertEquals(Arrays.asList("1", "3"), bulkRequests.get(0).requests().stream().map(DocWriteRequest::id).collect(Collectors.toList()));
+    }
+
+    private BulkResponse failureResponse(BulkRequest request) {
+        // odd IDs fail transiently, even IDs permanently
+        final List<DocWriteRequest<?>> requests = request.requests();
+        final BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            final String id = requests.get(i).id();
+            final RestStatus status = (Integer.parseInt(id) % 2 == 1) ? RestStatus.SERVICE_UNAVAILABLE : RestStatus.BAD_REQUEST;
+            items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure("test", "_doc", id,
+                    new ElasticsearchStatusException("failed", status), status));
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private UpdateRequest updateRequest(int id, String title) {
+        return new UpdateRequest("test", String.valueOf(id)).doc(Collections.singletonMap("title", title));
+    }
+
+    private IndexRequest indexRequest(int id, String title) {
+        return new IndexRequest("test").id(String.valueOf(id)).source(Collections.singletonMap("title", title));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WriteJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndCommit() throws Exception {
+        final Path directory = temporaryFolder.newFolder().toPath();
+        try (WriteJournal journal = new WriteJournal(directory, 64, false)) {
+            journal.open();
+            assertTrue(journal.isEmpty());
+            for (int i = 0; i < 10; i++) {
+                journal.append(entry(i));
+            }
+            assertFalse(journal.isEmpty());
+            assertTrue(segmentCount(directory) > 1);
+
+            WriteJournal.Entries entries = journal.read(null, 4);
+            assertEquals(4, entries.getEntries().size());
+            assertEquals("entry-0", toString(entries.getEntries().get(0)));
+            journal.commit(entries.getNextPosition());
+
+            entries = journal.read(null, 100);
+            assertEquals(6, entries.getEntries().size());
+            assertEquals("entry-4", toString(entries.getEntries().get(0)));
+            journal.commit(entries.getNextPosition());
+            assertTrue(journal.isEmpty());
+            assertEquals(1, segmentCount(directory));
+        }
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        final Path directory = temporaryFolder.newFolder().toPath();
+        try (WriteJournal journal = new WriteJournal(directory, 64, true)) {
+            journal.open();
+            for (int i = 0; i < 5; i++) {
+                journal.append(entry(i));
+            }
+            journal.commit(journal.read(null, 2).getNextPosition());
+        }
+
+        try (WriteJournal journal = new WriteJournal(directory, 64, true)) {
+            journal.open();
+            journal.append(entry(5));
+            final List<String> entries = journal.read(null, 100).getEntries().stream().map(this::toString).collect(Collectors.toList());
+            assertEquals(4, entries.size());
+            assertEquals("entry-2", entries.get(0));
+            assertEquals("entry-5", entries.get(3));
+        }
+    }
+
+    private byte[] entry(int i) {
+        return ("entry-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String toString(byte[] entry) {
+        return new String(entry, StandardCharsets.UTF_8);
+    }
+
+    private int segmentCount(Path directory) {
+        final File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".journal"));
+        return (files != null) ? files.length : 0;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.query;
+
+import de.picturesafe.search.elasticsearch.config.ElasticsearchType;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.config.impl.StandardFieldConfiguration;
+import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
+import de.picturesafe.search.expression.OperationExpression;
+import de.picturesafe.search.expression.ValueExpression;
+import de.picturesafe.search.parameter.AccountContext;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class QueryCacheTest {
+
+    @Test
+    public void testGet() {
+        final QueryCache queryCache = new QueryCache(10);
+        final MappingConfiguration mappingConfiguration = new MappingConfiguration(Collections.emptyList());
+        final AtomicInteger calls = new AtomicInteger();
+
+        final QueryBuilder query = queryCache.get(queryDto("test", Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return QueryBuilders.termQuery("title", "test");
+        });
+        assertSame(query, queryCache.get(queryDto("test", Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return QueryBuilders.termQuery("title", "test");
+        }));
+        assertEquals(1, calls.get());
+
+        queryCache.get(queryDto("other", Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        queryCache.get(queryDto("test", Locale.ENGLISH), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        queryCache.get(queryDto("test", Locale.GERMAN), new MappingConfiguration(Collections.singletonList(
+                StandardFieldConfiguration.builder("title", ElasticsearchType.TEXT).build())), () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        assertEquals(4, calls.get());
+        assertSame(query, queryCache.get(queryDto("test", Locale.GERMAN), new MappingConfiguration(Collections.emptyList()), () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(4, calls.get());
+        assertNull(queryCache.get(queryDto("other", Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(4, calls.get());
+        assertEquals(4, queryCache.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        final QueryCache queryCache = new QueryCache(2);
+        final MappingConfiguration mappingConfiguration = new MappingConfiguration(Collections.emptyList());
+        for (int i = 0; i < 5; i++) {
+            final String value = "value" + i;
+            queryCache.get(queryDto(value, Locale.GERMAN), mappingConfiguration, () -> QueryBuilders.termQuery("title", value));
+        }
+        assertEquals(2, queryCache.size());
+
+        queryCache.clear();
+        assertEquals(0, queryCache.size());
+    }
+
+    @Test
+    public void testAccountContextAndSortFilter() {
+        final QueryCache queryCache = new QueryCache(10);
+        final MappingConfiguration mappingConfiguration = new MappingConfiguration(Collections.emptyList());
+        final AtomicInteger calls = new AtomicInteger();
+
+        final AccountContext<Long> accountContext = accountContext(1L);
+        final QueryBuilder query = queryCache.get(queryDto("test", Locale.GERMAN).accountContext(accountContext), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return QueryBuilders.termQuery("title", "test");
+        });
+        assertSame(query, queryCache.get(queryDto("test", Locale.GERMAN).accountContext(accountContext(1L)), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, calls.get());
+
+        assertNull(queryCache.get(queryDto("test", Locale.GERMAN).accountContext(accountContext(2L)), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        accountContext.setUserName("changed");
+        assertNull(queryCache.get(queryDto("test", Locale.GERMAN).accountContext(accountContext), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertNull(queryCache.get(queryDto("test", Locale.GERMAN).accountContext(accountContext(1L)).sortFilter(true), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testExpressionChangedAfterSearch() {
+        final QueryCache queryCache = new QueryCache(10);
+        final MappingConfiguration mappingConfiguration = new MappingConfiguration(Collections.emptyList());
+        final AtomicInteger calls = new AtomicInteger();
+
+        final ValueExpression expression = new ValueExpression("title", "test");
+        final QueryBuilder query = queryCache.get(new QueryDto(expression, Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return QueryBuilders.termQuery("title", "test");
+        });
+        expression.setValue("changed");
+
+        assertSame(query, queryCache.get(new QueryDto(new ValueExpression("title", "test"), Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertNull(queryCache.get(new QueryDto(expression, Locale.GERMAN), mappingConfiguration, () -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(2, calls.get());
+    }
+
+    private QueryDto queryDto(String value, Locale locale) {
+        return new QueryDto(OperationExpression.and(new ValueExpression("title", value), new ValueExpression("caption", value)), locale);
+    }
+
+    private AccountContext<Long> accountContext(long id) {
+        final AccountContext<Long> accountContext = new AccountContext<>();
+        accountContext.setId(id);
+        accountContext.setUserName("user" + id);
+        return accountContext;
+    }
+}
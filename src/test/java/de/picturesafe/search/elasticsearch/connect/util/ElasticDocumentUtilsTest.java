@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ElasticDocumentUtilsTest {
+
+    @Test
+    public void testGetDocValue() {
+        assertNull(ElasticDocumentUtils.getDocValue(null));
+        assertNull(ElasticDocumentUtils.getDocValue(Collections.emptyList()));
+        assertEquals("value", ElasticDocumentUtils.getDocValue(Collections.singletonList("value")));
+        assertEquals(Arrays.asList("a", "b"), ElasticDocumentUtils.getDocValue(Arrays.asList("a", "b")));
+        assertEquals(42, ElasticDocumentUtils.getDocValue(Collections.singletonList(42L)));
+        assertEquals(Long.MAX_VALUE, ElasticDocumentUtils.getDocValue(Collections.singletonList(Long.MAX_VALUE)));
+        assertEquals(Arrays.asList(1, 2L + Integer.MAX_VALUE), ElasticDocumentUtils.getDocValue(Arrays.asList(1L, 2L + Integer.MAX_VALUE)));
+        assertEquals(1.5, ElasticDocumentUtils.getDocValue(Collections.singletonList(1.5)));
+    }
+}
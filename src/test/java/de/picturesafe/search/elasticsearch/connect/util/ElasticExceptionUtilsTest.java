@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import de.picturesafe.search.elasticsearch.connect.error.ElasticsearchException;
+import de.picturesafe.search.elasticsearch.connect.error.IndexMissingException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ElasticExceptionUtilsTest {
+
+    @Test
+    public void testSearchFailure() {
+        final ElasticsearchStatusException indexNotFound = new ElasticsearchStatusException(
+                "Elasticsearch exception [type=index_not_found_exception, reason=no such index [test]]", RestStatus.NOT_FOUND);
+        RuntimeException failure = ElasticExceptionUtils.searchFailure(new ElasticsearchException("Search failed!", indexNotFound), "alias");
+        assertTrue(failure instanceof IndexMissingException);
+        assertEquals("missing index alias", failure.getMessage());
+
+        failure = ElasticExceptionUtils.searchFailure(new CompletionException(indexNotFound), "alias");
+        assertTrue(failure instanceof IndexMissingException);
+        failure = ElasticExceptionUtils.searchFailure(new IndexNotFoundException("test"), "alias");
+        assertTrue(failure instanceof IndexMissingException);
+
+        final ElasticsearchException searchFailed = new ElasticsearchException("Search failed!",
+                new ElasticsearchStatusException("Elasticsearch exception [type=search_phase_execution_exception]", RestStatus.BAD_REQUEST));
+        assertSame(searchFailed, ElasticExceptionUtils.searchFailure(searchFailed, "alias"));
+        assertSame(searchFailed, ElasticExceptionUtils.searchFailure(new CompletionException(searchFailed), "alias"));
+
+        final IOException ioException = new IOException("Connection refused");
+        failure = ElasticExceptionUtils.searchFailure(new CompletionException(ioException), "alias");
+        assertTrue(failure instanceof CompletionException);
+        assertSame(ioException, failure.getCause());
+    }
+}
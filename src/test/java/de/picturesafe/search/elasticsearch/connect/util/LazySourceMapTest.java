@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazySourceMapTest {
+
+    @Test
+    public void testLazyParsing() {
+        final LazySourceMap attributes = new LazySourceMap(new BytesArray("{\"id\":\"1\",\"title\":\"test\",\"keywords\":[\"a\",\"b\"]}"));
+        assertFalse(attributes.isParsed());
+
+        assertEquals("test", attributes.get("title"));
+        assertTrue(attributes.isParsed());
+        assertEquals(3, attributes.size());
+        assertEquals(Arrays.asList("a", "b"), attributes.get("keywords"));
+
+        attributes.put("caption", "caption");
+        assertEquals("caption", attributes.get("caption"));
+        attributes.remove("id");
+        assertFalse(attributes.containsKey("id"));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.connect.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UnmodifiableAttributesTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadOnly() {
+        final Map<String, Object> nested = new HashMap<>();
+        nested.put("name", "value");
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put("title", "title");
+        attributes.put("keywords", new ArrayList<>(Arrays.asList("a", "b")));
+        attributes.put("nested", nested);
+        attributes.put("nestedList", new ArrayList<>(Arrays.asList(nested)));
+
+        final Map<String, Object> unmodifiableAttributes = UnmodifiableAttributes.of(attributes);
+        assertEquals(attributes, unmodifiableAttributes);
+        assertEquals("title", unmodifiableAttributes.get("title"));
+        assertTrue(unmodifiableAttributes.containsKey("keywords"));
+        assertSame(unmodifiableAttributes, UnmodifiableAttributes.of(unmodifiableAttributes));
+        assertNull(UnmodifiableAttributes.of(null));
+
+        assertUnsupported(() -> unmodifiableAttributes.put("title", "changed"));
+        assertUnsupported(() -> unmodifiableAttributes.remove("title"));
+        assertUnsupported(() -> unmodifiableAttributes.entrySet().iterator().remove());
+        assertUnsupported(() -> unmodifiableAttributes.entrySet().iterator().next().setValue("changed"));
+        assertUnsupported(() -> ((List<Object>) unmodifiableAttributes.get("keywords")).add("c"));
+        assertUnsupported(() -> ((Map<String, Object>) unmodifiableAttributes.get("nested")).put("name", "changed"));
+        assertUnsupported(() -> ((List<Map<String, Object>>) unmodifiableAttributes.get("nestedList")).get(0).put("name", "changed"));
+        assertEquals(4, attributes.size());
+        assertEquals("value", nested.get("name"));
+    }
+
+    private void assertUnsupported(Runnable modification) {
+        try {
+            modification.run();
+            fail("Modification should not be supported");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
@@ -18,13 +18,23 @@ package de.picturesafe.search.elasticsearch.impl;
 
 import de.picturesafe.search.elasticsearch.FieldConfigurationProvider;
 import de.picturesafe.search.elasticsearch.IndexPresetConfigurationProvider;
+import de.picturesafe.search.elasticsearch.ReindexJob;
+import de.picturesafe.search.elasticsearch.config.ElasticsearchType;
 import de.picturesafe.search.elasticsearch.config.IndexPresetConfiguration;
+import de.picturesafe.search.elasticsearch.config.MappingConfiguration;
+import de.picturesafe.search.elasticsearch.config.impl.StandardFieldConfiguration;
 import de.picturesafe.search.elasticsearch.connect.Elasticsearch;
+import de.picturesafe.search.elasticsearch.connect.ElasticsearchAdmin;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryDto;
 import de.picturesafe.search.elasticsearch.connect.dto.QueryRangeDto;
+import de.picturesafe.search.elasticsearch.connect.dto.SearchResultDto;
+import de.picturesafe.search.elasticsearch.connect.impl.ElasticsearchImpl;
+import de.picturesafe.search.elasticsearch.error.ElasticsearchServiceException;
 import de.picturesafe.search.expression.Expression;
+import de.picturesafe.search.expression.ValueExpression;
 import de.picturesafe.search.expression.internal.EmptyExpression;
 import de.picturesafe.search.parameter.AccountContext;
+import de.picturesafe.search.parameter.ReindexParameter;
 import de.picturesafe.search.parameter.SearchAggregation;
 import de.picturesafe.search.parameter.SearchParameter;
 import de.picturesafe.search.parameter.SortOption;
@@ -39,8 +49,23 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -49,6 +74,9 @@ public class ElasticsearchServiceImplTest {
     @Mock
     private Elasticsearch elasticsearch;
 
+    @Mock
+    private ElasticsearchAdmin elasticsearchAdmin;
+
     @Mock
     private FieldConfigurationProvider fieldConfigurationProvider;
 
@@ -96,4 +124,137 @@ public class ElasticsearchServiceImplTest {
         queryDto = elasticsearchService.createQueryDto(new AccountContext(), expression, start, limit, searchParameter);
         assertEquals(Locale.GERMANY, queryDto.getLocale());
     }
+
+    @Test
+    public void testFieldResolverType() {
+        final MappingConfiguration mappingConfiguration = new MappingConfiguration(Arrays.asList(
+                StandardFieldConfiguration.builder("keyword", ElasticsearchType.KEYWORD).sortable(true).build(),
+                StandardFieldConfiguration.builder("date", ElasticsearchType.DATE).aggregatable(true).build(),
+                StandardFieldConfiguration.builder("text", ElasticsearchType.TEXT).build(),
+                StandardFieldConfiguration.builder("multilang", ElasticsearchType.TEXT).sortable(true).multilingual(true).build()));
+
+        SearchParameter searchParameter = SearchParameter.builder().fieldsToResolve("keyword", "date").build();
+        assertEquals(QueryDto.FieldResolverType.SOURCE_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+
+        searchParameter = SearchParameter.builder().fieldsToResolve("keyword", "date").fieldResolution(SearchParameter.FieldResolution.DOC_VALUES).build();
+        assertEquals(QueryDto.FieldResolverType.DOC_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+
+        searchParameter = SearchParameter.builder().fieldsToResolve("keyword", "date").fieldResolution(SearchParameter.FieldResolution.AUTO).build();
+        assertEquals(QueryDto.FieldResolverType.DOC_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+
+        searchParameter = SearchParameter.builder().fieldsToResolve("keyword", "text").fieldResolution(SearchParameter.FieldResolution.AUTO).build();
+        assertEquals(QueryDto.FieldResolverType.SOURCE_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+
+        searchParameter = SearchParameter.builder().fieldsToResolve("multilang").fieldResolution(SearchParameter.FieldResolution.AUTO).build();
+        assertEquals(QueryDto.FieldResolverType.SOURCE_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+
+        searchParameter = SearchParameter.builder().fieldsToResolve("unknown").fieldResolution(SearchParameter.FieldResolution.AUTO).build();
+        assertEquals(QueryDto.FieldResolverType.SOURCE_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+
+        searchParameter = SearchParameter.builder().fieldResolution(SearchParameter.FieldResolution.AUTO).build();
+        assertEquals(QueryDto.FieldResolverType.SOURCE_VALUES, elasticsearchService.fieldResolverType(searchParameter, mappingConfiguration));
+    }
+
+    @Test
+    public void testStreamFieldResolverType() {
+        final MappingConfiguration mappingConfiguration = new MappingConfiguration(Collections.singletonList(
+                StandardFieldConfiguration.builder("keyword", ElasticsearchType.KEYWORD).sortable(true).build()));
+        final SearchParameter searchParameter
+                = SearchParameter.builder().fieldsToResolve("keyword").fieldResolution(SearchParameter.FieldResolution.AUTO).build();
+        final ElasticsearchServiceImpl.InternalSearchContext context = elasticsearchService.new InternalSearchContext(indexPresetConfiguration,
+                new AccountContext<>(), new EmptyExpression(), searchParameter, 10).mappingConfiguration(mappingConfiguration);
+
+        assertEquals(QueryDto.FieldResolverType.DOC_VALUES, elasticsearchService.createStreamQueryDto(context).getFieldResolverType());
+        assertEquals(QueryDto.FieldResolverType.DOC_VALUES, elasticsearchService.createQueryDto(context).getFieldResolverType());
+    }
+
+    @Test
+    public void testMappingConfigurationCache() {
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        when(fieldConfigurationProvider.getSupportedLocales(indexAlias)).thenReturn(Collections.singletonList(Locale.GERMAN));
+        doReturn(Collections.emptyList()).when(fieldConfigurationProvider).getFieldConfigurations(indexAlias);
+
+        // disabled by default
+        assertNotSame(elasticsearchService.getMappingConfiguration(indexAlias, true), elasticsearchService.getMappingConfiguration(indexAlias, true));
+        verify(fieldConfigurationProvider, times(2)).getFieldConfigurations(indexAlias);
+
+        elasticsearchService.setMappingCacheEnabled(true);
+        final MappingConfiguration mappingConfiguration = elasticsearchService.getMappingConfiguration(indexAlias, true);
+        assertSame(mappingConfiguration, elasticsearchService.getMappingConfiguration(indexAlias, true));
+        verify(fieldConfigurationProvider, times(3)).getFieldConfigurations(indexAlias);
+
+        elasticsearchService.invalidateMappingConfiguration(indexAlias);
+        assertNotSame(mappingConfiguration, elasticsearchService.getMappingConfiguration(indexAlias, true));
+        verify(fieldConfigurationProvider, times(4)).getFieldConfigurations(indexAlias);
+
+        elasticsearchService.setMappingCacheEnabled(false);
+        elasticsearchService.getMappingConfiguration(indexAlias, true);
+        elasticsearchService.getMappingConfiguration(indexAlias, true);
+        verify(fieldConfigurationProvider, times(6)).getFieldConfigurations(indexAlias);
+    }
+
+    @Test
+    public void testReindexExecutor() throws Exception {
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        when(fieldConfigurationProvider.getSupportedLocales(indexAlias)).thenReturn(Collections.singletonList(Locale.GERMAN));
+        doReturn(Collections.emptyList()).when(fieldConfigurationProvider).getFieldConfigurations(indexAlias);
+
+        final ReindexJob reindexJob = elasticsearchService.reindex(indexAlias, ReindexParameter.DEFAULT);
+        try {
+            reindexJob.getCompletion().get(10, TimeUnit.SECONDS);
+            fail("Reindex without documents and existing alias should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ElasticsearchServiceException);
+        }
+
+        final ExecutorService reindexExecutor = elasticsearchService.reindexExecutor;
+        assertNotNull(reindexExecutor);
+        elasticsearchService.destroy();
+        assertTrue(reindexExecutor.isShutdown());
+        assertNull(elasticsearchService.reindexExecutor);
+    }
+
+    @Test
+    public void testSearchAsyncSetupFailures() throws Exception {
+        CompletableFuture<?> future = elasticsearchService.searchAsync("", new EmptyExpression(), SearchParameter.DEFAULT);
+        assertTrue(future.isCompletedExceptionally());
+        assertCause(future, IllegalArgumentException.class);
+
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        doThrow(new IllegalStateException("mapping lookup failed")).when(fieldConfigurationProvider).getFieldConfigurations(indexAlias);
+        future = elasticsearchService.searchAsync(indexAlias, new EmptyExpression(), SearchParameter.DEFAULT);
+        assertTrue(future.isCompletedExceptionally());
+        assertCause(future, IllegalStateException.class);
+    }
+
+    private void assertCause(CompletableFuture<?> future, Class<? extends Throwable> expectedType) throws InterruptedException {
+        try {
+            future.get();
+            fail("Future should have completed exceptionally");
+        } catch (ExecutionException e) {
+            assertEquals(expectedType, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testSearchResultCacheHitWithDefaultSettings() {
+        final AtomicInteger searches = new AtomicInteger();
+        final ElasticsearchImpl elasticsearchImpl = new ElasticsearchImpl(elasticsearchAdmin, null, Collections.emptyList(),
+                Collections.emptyList(), "Europe/Berlin") {
+            @Override
+            protected SearchResultDto uncachedSearch(QueryDto queryDto, MappingConfiguration mappingConfiguration,
+                                                     IndexPresetConfiguration indexPresetConfiguration) {
+                searches.incrementAndGet();
+                return new SearchResultDto(0, true, Collections.emptyList(), Collections.emptyList());
+            }
+        };
+        elasticsearchImpl.setSearchResultCache(10, 60000, 0);
+        final ElasticsearchServiceImpl service = new ElasticsearchServiceImpl(elasticsearchImpl,
+                new StaticIndexPresetConfigurationProvider(Collections.singletonList(indexPresetConfiguration)), fieldConfigurationProvider);
+
+        final String indexAlias = indexPresetConfiguration.getIndexAlias();
+        service.search(indexAlias, new ValueExpression("title", "test"), SearchParameter.DEFAULT);
+        service.search(indexAlias, new ValueExpression("title", "test"), SearchParameter.DEFAULT);
+        assertEquals(1, searches.get());
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 picturesafe media/data/bank GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.picturesafe.search.elasticsearch.metrics;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class InMemoryMetricsRecorderTest {
+
+    @Test
+    public void testRecord() {
+        final InMemoryMetricsRecorder metricsRecorder = new InMemoryMetricsRecorder();
+        for (int i = 1; i <= 100; i++) {
+            metricsRecorder.recordTime(MetricsRecorder.SEARCH_REQUEST, "alias1", i, TimeUnit.MILLISECONDS);
+        }
+        metricsRecorder.recordTime(MetricsRecorder.SEARCH_REQUEST, "alias2", 5, TimeUnit.SECONDS);
+        metricsRecorder.recordValue(MetricsRecorder.BULK_SIZE, "alias1", 1000);
+
+        final InMemoryMetricsRecorder.Snapshot snapshot = metricsRecorder.getSnapshot(MetricsRecorder.SEARCH_REQUEST, "alias1");
+        assertEquals(TimeUnit.NANOSECONDS, snapshot.getTimeUnit());
+        assertEquals(100, snapshot.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), snapshot.getSum());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), snapshot.getMin());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), snapshot.getMax());
+        assertEquals(50.5, snapshot.getMean(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(50, snapshot.getPercentile(50, TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(99, snapshot.getPercentile(99, TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(100, snapshot.getPercentile(100, TimeUnit.MILLISECONDS), 0.001);
+
+        assertEquals(5000, metricsRecorder.getSnapshot(MetricsRecorder.SEARCH_REQUEST, "alias2").getPercentile(100, TimeUnit.MILLISECONDS), 0.001);
+        assertNull(metricsRecorder.getSnapshot(MetricsRecorder.SEARCH_TOOK, "alias1"));
+
+        final Map<String, InMemoryMetricsRecorder.Snapshot> snapshots = metricsRecorder.getSnapshots("alias1");
+        assertEquals(2, snapshots.size());
+        assertEquals(1000, snapshots.get(MetricsRecorder.BULK_SIZE).getSum());
+        assertNull(snapshots.get(MetricsRecorder.BULK_SIZE).getTimeUnit());
+    }
+
+    @Test
+    public void testSubMillisecondDurations() {
+        final InMemoryMetricsRecorder metricsRecorder = new InMemoryMetricsRecorder();
+        for (int i = 1; i <= 10; i++) {
+            metricsRecorder.recordTime(MetricsRecorder.SEARCH_QUERY_BUILD, "alias", i * 100, TimeUnit.MICROSECONDS);
+        }
+
+        final InMemoryMetricsRecorder.Snapshot snapshot = metricsRecorder.getSnapshot(MetricsRecorder.SEARCH_QUERY_BUILD, "alias");
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(100), snapshot.getMin());
+        assertEquals(0.55, snapshot.getMean(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(0.5, snapshot.getPercentile(50, TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(900, snapshot.getPercentile(90, TimeUnit.MICROSECONDS), 0.001);
+    }
+
+    @Test
+    public void testWindow() {
+        final InMemoryMetricsRecorder metricsRecorder = new InMemoryMetricsRecorder(10);
+        for (int i = 1; i <= 100; i++) {
+            metricsRecorder.recordValue(MetricsRecorder.BULK_BYTES, "alias", i);
+        }
+
+        final InMemoryMetricsRecorder.Snapshot snapshot = metricsRecorder.getSnapshot(MetricsRecorder.BULK_BYTES, "alias");
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(91, snapshot.getPercentile(0));
+        assertEquals(100, snapshot.getPercentile(99));
+    }
+}